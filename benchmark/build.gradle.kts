@@ -0,0 +1,52 @@
+plugins {
+    id("multiloader-base")
+
+    id("fabric-loom") version ("1.8.9")
+    id("me.champeau.jmh") version ("0.7.2")
+}
+
+base {
+    archivesName = "sodium-benchmark"
+}
+
+val configurationCommonModJava: Configuration = configurations.create("commonJava") {
+    isCanBeResolved = true
+}
+
+dependencies {
+    configurationCommonModJava(project(path = ":common", configuration = "commonMainJava"))
+    configurationCommonModJava(project(path = ":common", configuration = "commonApiJava"))
+}
+
+dependencies {
+    minecraft("com.mojang:minecraft:${BuildConfig.MINECRAFT_VERSION}")
+    mappings(loom.layered {
+        officialMojangMappings()
+
+        if (BuildConfig.PARCHMENT_VERSION != null) {
+            parchment("org.parchmentmc.data:parchment-${BuildConfig.MINECRAFT_VERSION}:${BuildConfig.PARCHMENT_VERSION}@zip")
+        }
+    })
+}
+
+// The benchmarks only exercise code which can run without a game instance or OpenGL context, so the mod loader
+// and mixins are not needed, and the common classes can be used as they are.
+sourceSets.apply {
+    named("jmh") {
+        compileClasspath += configurationCommonModJava
+        runtimeClasspath += configurationCommonModJava
+    }
+}
+
+jmh {
+    jmhVersion = "1.37"
+
+    // Report the allocation rate alongside the throughput of each benchmark
+    profilers = listOf("gc")
+
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+}
+
+tasks.jar { enabled = false }
+tasks.remapJar { enabled = false }
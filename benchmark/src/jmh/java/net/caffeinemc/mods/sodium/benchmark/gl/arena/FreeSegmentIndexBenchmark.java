@@ -0,0 +1,78 @@
+package net.caffeinemc.mods.sodium.benchmark.gl.arena;
+
+import net.caffeinemc.mods.sodium.client.gl.arena.FreeSegmentIndex;
+import net.caffeinemc.mods.sodium.client.gl.arena.GlBufferSegment;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of finding, taking and returning free segments in the free segment index of a buffer arena. The
+ * index is filled with free segments of section-like sizes, which is the state of a fragmented region arena.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FreeSegmentIndexBenchmark {
+    @Param({ "64", "1024", "16384" })
+    public int segmentCount;
+
+    private FreeSegmentIndex index;
+    private int[] requests;
+    private int nextRequest;
+
+    @Setup
+    public void setup() {
+        var random = new Random(1234L);
+
+        this.index = new FreeSegmentIndex();
+
+        long offset = 0;
+
+        for (int i = 0; i < this.segmentCount; i++) {
+            long length = 1 + random.nextInt(8192);
+
+            // The index only looks at the offset and length of the segments, so they don't need to belong to an arena
+            this.index.add(new GlBufferSegment(null, offset, length));
+
+            // Leave room for a used segment between each free segment, as they would otherwise have been merged
+            offset += length + 1;
+        }
+
+        this.requests = new int[4096];
+
+        for (int i = 0; i < this.requests.length; i++) {
+            this.requests[i] = 1 + random.nextInt(4096);
+        }
+    }
+
+    @Benchmark
+    public GlBufferSegment findBestFit() {
+        return this.index.findBestFit(this.nextRequest());
+    }
+
+    @Benchmark
+    public GlBufferSegment allocateAndFree() {
+        var segment = this.index.findBestFit(this.nextRequest());
+
+        if (segment != null) {
+            // Taking a segment out of the index and putting it back is what happens to a free segment when part of
+            // it is allocated, and then freed again
+            this.index.remove(segment);
+            this.index.add(segment);
+        }
+
+        return segment;
+    }
+
+    private int nextRequest() {
+        int length = this.requests[this.nextRequest];
+        this.nextRequest = (this.nextRequest + 1) % this.requests.length;
+
+        return length;
+    }
+}
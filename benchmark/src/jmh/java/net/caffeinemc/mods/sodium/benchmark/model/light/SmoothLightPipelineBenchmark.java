@@ -0,0 +1,246 @@
+package net.caffeinemc.mods.sodium.benchmark.model.light;
+
+import net.caffeinemc.mods.sodium.client.model.light.data.LightDataAccess;
+import net.caffeinemc.mods.sodium.client.model.light.data.QuadLightData;
+import net.caffeinemc.mods.sodium.client.model.light.smooth.SmoothLightPipeline;
+import net.caffeinemc.mods.sodium.client.model.quad.ModelQuad;
+import net.caffeinemc.mods.sodium.client.model.quad.properties.ModelQuadFlags;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.BlockAndTintGetter;
+import net.minecraft.world.level.ColorResolver;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.lighting.LevelLightEngine;
+import net.minecraft.world.level.material.FluidState;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the smooth lighting pipeline over the exposed faces of one synthetic section, where a
+ * quarter of the blocks are solid. The light data of the blocks is computed up front, so that only the pipeline itself
+ * is measured and not the block state lookups of the light data cache. The faces counter is reported in faces lit per
+ * millisecond.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SmoothLightPipelineBenchmark {
+    private static final float SOLID_DENSITY = 0.25f;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private List<Face> faces;
+
+    private SmoothLightPipeline pipeline;
+    private QuadLightData lightData;
+
+    // The quads covering a whole face and the middle of a face of a block, for each direction
+    private ModelQuad[] fullQuads;
+    private ModelQuad[] partialQuads;
+
+    @Setup
+    public void setup() {
+        var lightCache = new SyntheticLightData(new Random(1234L));
+
+        this.faces = createFaces(lightCache);
+        this.pipeline = new SmoothLightPipeline(lightCache);
+        this.lightData = new QuadLightData();
+
+        this.fullQuads = new ModelQuad[DIRECTIONS.length];
+        this.partialQuads = new ModelQuad[DIRECTIONS.length];
+
+        for (var direction : DIRECTIONS) {
+            this.fullQuads[direction.ordinal()] = createQuad(direction, 0.0f);
+            this.partialQuads[direction.ordinal()] = createQuad(direction, 0.25f);
+        }
+    }
+
+    @Benchmark
+    public void fullFaces(FaceCounter counter, Blackhole blackhole) {
+        this.lightFaces(this.fullQuads, counter, blackhole);
+    }
+
+    @Benchmark
+    public void partialFaces(FaceCounter counter, Blackhole blackhole) {
+        this.lightFaces(this.partialQuads, counter, blackhole);
+    }
+
+    private void lightFaces(ModelQuad[] quads, FaceCounter counter, Blackhole blackhole) {
+        var lightData = this.lightData;
+
+        for (var face : this.faces) {
+            this.pipeline.calculate(quads[face.direction.ordinal()], face.pos, lightData, face.direction, face.direction, true, false);
+            blackhole.consume(lightData);
+        }
+
+        counter.faces += this.faces.size();
+    }
+
+    private static List<Face> createFaces(SyntheticLightData lightCache) {
+        var faces = new ArrayList<Face>();
+
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    if (!lightCache.isSolid(x, y, z)) {
+                        continue;
+                    }
+
+                    var pos = new BlockPos(x, y, z);
+
+                    // only the faces next to a block which isn't solid are rendered
+                    for (var direction : DIRECTIONS) {
+                        if (!lightCache.isSolid(x + direction.getStepX(), y + direction.getStepY(), z + direction.getStepZ())) {
+                            faces.add(new Face(pos, direction));
+                        }
+                    }
+                }
+            }
+        }
+
+        return faces;
+    }
+
+    private static ModelQuad createQuad(Direction direction, float inset) {
+        var quad = new ModelQuad();
+
+        int axis = direction.getAxis().ordinal();
+        float depth = direction.getAxisDirection() == Direction.AxisDirection.POSITIVE ? 1.0f : 0.0f;
+
+        for (int i = 0; i < 4; i++) {
+            // walk the corners of the face in order, moving them toward its center by the inset
+            float u = (i == 0 || i == 1) ? inset : 1.0f - inset;
+            float v = (i == 0 || i == 3) ? inset : 1.0f - inset;
+
+            float[] position = new float[3];
+            position[axis] = depth;
+            position[(axis + 1) % 3] = u;
+            position[(axis + 2) % 3] = v;
+
+            quad.setX(i, position[0]);
+            quad.setY(i, position[1]);
+            quad.setZ(i, position[2]);
+        }
+
+        quad.setLightFace(direction);
+        quad.setFlags(ModelQuadFlags.getQuadFlags(quad, direction));
+
+        return quad;
+    }
+
+    private record Face(BlockPos pos, Direction direction) {
+
+    }
+
+    /**
+     * Light data for a section and the blocks around it, where solid blocks are full opaque cubes and every other block
+     * is open to the sky.
+     */
+    private static class SyntheticLightData extends LightDataAccess {
+        private static final int RADIUS = 2;
+        private static final int LENGTH = 16 + (RADIUS * 2);
+
+        private final int[] light = new int[LENGTH * LENGTH * LENGTH];
+
+        private SyntheticLightData(Random random) {
+            this.level = new ShadedLevel();
+
+            int solid = packFC(true) | packFO(true) | packOP(true) | packAO(0.2f);
+
+            for (int i = 0; i < this.light.length; i++) {
+                if (random.nextFloat() < SOLID_DENSITY) {
+                    this.light[i] = solid;
+                } else {
+                    this.light[i] = packAO(1.0f) | packSL(15) | packBL(random.nextInt(16));
+                }
+            }
+        }
+
+        private boolean isSolid(int x, int y, int z) {
+            return unpackFO(this.get(x, y, z));
+        }
+
+        @Override
+        public int get(int x, int y, int z) {
+            return this.light[((z + RADIUS) * LENGTH * LENGTH) + ((y + RADIUS) * LENGTH) + (x + RADIUS)];
+        }
+    }
+
+    /**
+     * The pipeline only asks the level for the directional shading of the faces, which is the same as in the overworld.
+     * Everything else is provided by the light data.
+     */
+    private static class ShadedLevel implements BlockAndTintGetter {
+        @Override
+        public float getShade(Direction direction, boolean shaded) {
+            if (!shaded) {
+                return 1.0f;
+            }
+
+            return switch (direction) {
+                case DOWN -> 0.5f;
+                case UP -> 1.0f;
+                case NORTH, SOUTH -> 0.8f;
+                case WEST, EAST -> 0.6f;
+            };
+        }
+
+        @Override
+        public LevelLightEngine getLightEngine() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int getBlockTint(BlockPos pos, ColorResolver resolver) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public BlockEntity getBlockEntity(BlockPos pos) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public BlockState getBlockState(BlockPos pos) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FluidState getFluidState(BlockPos pos) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int getHeight() {
+            return 16;
+        }
+
+        @Override
+        public int getMinY() {
+            return 0;
+        }
+    }
+
+    /**
+     * Counts the faces which were lit, so that the throughput can be reported in faces rather than in sections.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class FaceCounter {
+        public long faces;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.faces = 0;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package net.caffeinemc.mods.sodium.benchmark.render.chunk;
+
+import net.caffeinemc.mods.sodium.client.render.chunk.vertex.builder.ChunkMeshBufferBuilder;
+import net.caffeinemc.mods.sodium.client.render.chunk.vertex.format.ChunkMeshFormats;
+import net.caffeinemc.mods.sodium.client.render.chunk.vertex.format.ChunkVertexEncoder;
+import net.caffeinemc.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
+import net.caffeinemc.mods.sodium.client.render.chunk.vertex.format.impl.CompactChunkVertex;
+import org.lwjgl.system.MemoryUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of encoding quads into the compact chunk vertex format, both directly and through the mesh
+ * buffer builder used by the chunk meshing task. Direct encoding is measured with both the generated encoder used by
+ * the game and the generic encoder it was generated from. Each invocation encodes the quads of one synthetic section, so the
+ * throughput is reported in quads per second, and the allocation rate reported by the GC profiler can be read as the
+ * allocation per section.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkVertexEncoderBenchmark {
+    // The number of quads in a typical section of surface terrain
+    private static final int QUAD_COUNT = 2048;
+
+    private static final ChunkVertexType VERTEX_TYPE = ChunkMeshFormats.COMPACT;
+
+    private ChunkVertexEncoder encoder;
+    private ChunkVertexEncoder genericEncoder;
+    private ChunkVertexEncoder.Vertex[][] quads;
+    private int[] materials;
+
+    private long pBuffer;
+    private ChunkMeshBufferBuilder builder;
+
+    @Setup
+    public void setup() {
+        this.encoder = VERTEX_TYPE.getEncoder();
+        this.genericEncoder = CompactChunkVertex.createGenericEncoder();
+
+        this.quads = new ChunkVertexEncoder.Vertex[QUAD_COUNT][];
+        this.materials = new int[QUAD_COUNT];
+
+        var random = new Random(1234L);
+
+        for (int i = 0; i < QUAD_COUNT; i++) {
+            this.quads[i] = createQuad(random);
+            this.materials[i] = random.nextInt(256);
+        }
+
+        this.pBuffer = MemoryUtil.nmemAlloc((long) QUAD_COUNT * 4 * VERTEX_TYPE.getVertexFormat().getStride());
+        this.builder = new ChunkMeshBufferBuilder(VERTEX_TYPE, 1024);
+    }
+
+    @TearDown
+    public void tearDown() {
+        MemoryUtil.nmemFree(this.pBuffer);
+        this.builder.destroy();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUAD_COUNT)
+    public long encodeQuads(BytesCounter counter) {
+        return this.encode(this.encoder, counter);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUAD_COUNT)
+    public long encodeQuadsGeneric(BytesCounter counter) {
+        return this.encode(this.genericEncoder, counter);
+    }
+
+    private long encode(ChunkVertexEncoder encoder, BytesCounter counter) {
+        long ptr = this.pBuffer;
+
+        for (int i = 0; i < QUAD_COUNT; i++) {
+            ptr = encoder.write(ptr, this.materials[i], this.quads[i], 0);
+        }
+
+        counter.record(ptr - this.pBuffer);
+
+        return ptr;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUAD_COUNT)
+    public void buildSection(BytesCounter counter, Blackhole blackhole) {
+        var builder = this.builder;
+        builder.start(0);
+
+        for (int i = 0; i < QUAD_COUNT; i++) {
+            builder.push(this.quads[i], this.materials[i]);
+        }
+
+        var buffer = builder.slice();
+        counter.record(buffer.remaining());
+
+        blackhole.consume(buffer);
+    }
+
+    private static ChunkVertexEncoder.Vertex[] createQuad(Random random) {
+        var vertices = ChunkVertexEncoder.Vertex.uninitializedQuad();
+
+        // Axis-aligned unit quads placed on the block grid, which is the most common kind of geometry in a section
+        int x = random.nextInt(16);
+        int y = random.nextInt(16);
+        int z = random.nextInt(16);
+
+        float minU = random.nextInt(64) / 64.0f;
+        float minV = random.nextInt(64) / 64.0f;
+
+        for (int i = 0; i < 4; i++) {
+            var vertex = vertices[i];
+            vertex.x = x + ((i == 2 || i == 3) ? 1.0f : 0.0f);
+            vertex.y = y + 1.0f;
+            vertex.z = z + ((i == 1 || i == 2) ? 1.0f : 0.0f);
+            vertex.color = 0xFF000000 | random.nextInt(0xFFFFFF);
+            vertex.ao = 0.5f + (random.nextFloat() * 0.5f);
+            vertex.u = minU + ((i == 2 || i == 3) ? (1.0f / 64.0f) : 0.0f);
+            vertex.v = minV + ((i == 1 || i == 2) ? (1.0f / 64.0f) : 0.0f);
+            vertex.light = (random.nextInt(16) << 20) | (random.nextInt(16) << 4);
+        }
+
+        return vertices;
+    }
+
+    /**
+     * Counts the bytes of vertex data written by each benchmark, which divided by the quads reported by JMH gives the
+     * number of bytes per quad.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class BytesCounter {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.bytes = 0;
+        }
+
+        void record(long bytes) {
+            this.bytes += bytes;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package net.caffeinemc.mods.sodium.benchmark.render.chunk;
+
+import net.caffeinemc.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import net.caffeinemc.mods.sodium.client.render.chunk.compile.buffers.BakedChunkModelBuilder;
+import net.caffeinemc.mods.sodium.client.render.chunk.compile.pipeline.GreedyFaceMerger;
+import net.caffeinemc.mods.sodium.client.render.chunk.vertex.builder.ChunkMeshBufferBuilder;
+import net.caffeinemc.mods.sodium.client.render.chunk.vertex.format.ChunkMeshFormats;
+import net.caffeinemc.mods.sodium.client.render.chunk.vertex.format.ChunkVertexEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of merging the faces of a section against buffering them directly, and how much vertex data the
+ * merging saves. Each invocation builds the faces of one synthetic section of rolling surface terrain, where faces next
+ * to a step in the terrain are darkened by ambient occlusion and can't be merged. The throughput is reported in
+ * sections per second, and the bytes counter divided by the faces counter gives the number of bytes per face.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GreedyFaceMergerBenchmark {
+    private static final int ATLAS_SIZE = 1024;
+    private static final int SPRITE_SIZE = 16;
+
+    private static final int MATERIAL_BITS = 1;
+
+    // The minimum texture coordinates of the sprites used by the terrain
+    private static final float[][] SPRITES = new float[][] {
+            { 0.0f, 0.0f },
+            { 16.0f / ATLAS_SIZE, 0.0f },
+            { 32.0f / ATLAS_SIZE, 0.0f },
+    };
+
+    private List<Face> faces;
+
+    private ChunkMeshBufferBuilder[] vertexBuffers;
+    private BakedChunkModelBuilder modelBuilder;
+    private GreedyFaceMerger merger;
+
+    @Setup
+    public void setup() {
+        this.faces = createTerrain(new Random(1234L));
+
+        this.vertexBuffers = new ChunkMeshBufferBuilder[ModelQuadFacing.COUNT];
+
+        for (int i = 0; i < ModelQuadFacing.COUNT; i++) {
+            this.vertexBuffers[i] = new ChunkMeshBufferBuilder(ChunkMeshFormats.COMPACT, 1024);
+        }
+
+        this.modelBuilder = new BakedChunkModelBuilder(this.vertexBuffers);
+        this.merger = new GreedyFaceMerger();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.modelBuilder.destroy();
+    }
+
+    @Benchmark
+    public void bufferFaces(BytesCounter counter, Blackhole blackhole) {
+        this.start();
+
+        for (var face : this.faces) {
+            this.modelBuilder.getVertexBuffer(face.facing)
+                    .push(face.vertices, MATERIAL_BITS);
+        }
+
+        this.finish(counter, blackhole);
+    }
+
+    @Benchmark
+    public void mergeFaces(BytesCounter counter, Blackhole blackhole) {
+        this.start();
+
+        for (var face : this.faces) {
+            var sprite = face.sprite;
+
+            if (!this.merger.add(face.vertices, face.facing, MATERIAL_BITS, sprite[0], sprite[1],
+                    sprite[0] + ((float) SPRITE_SIZE / ATLAS_SIZE), sprite[1] + ((float) SPRITE_SIZE / ATLAS_SIZE),
+                    SPRITE_SIZE, SPRITE_SIZE)) {
+                this.modelBuilder.getVertexBuffer(face.facing)
+                        .push(face.vertices, MATERIAL_BITS);
+            }
+        }
+
+        this.merger.flush(this.modelBuilder);
+
+        this.finish(counter, blackhole);
+    }
+
+    private void start() {
+        for (var vertexBuffer : this.vertexBuffers) {
+            vertexBuffer.start(0);
+        }
+    }
+
+    private void finish(BytesCounter counter, Blackhole blackhole) {
+        for (var vertexBuffer : this.vertexBuffers) {
+            var buffer = vertexBuffer.slice();
+            counter.record(buffer.remaining());
+
+            blackhole.consume(buffer);
+        }
+
+        counter.recordFaces(this.faces.size());
+    }
+
+    private static List<Face> createTerrain(Random random) {
+        // A height map of gentle hills, with the grass on top of the hills and dirt on their sides
+        int[] heights = new int[16 * 16];
+
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                heights[(z * 16) + x] = 8 + (int) (2.0 * Math.sin(x * 0.3) + 2.0 * Math.cos(z * 0.25));
+            }
+        }
+
+        List<Face> faces = new ArrayList<>();
+
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                int height = heights[(z * 16) + x];
+
+                // Faces next to a higher neighbor are darkened by ambient occlusion along one edge
+                boolean occluded = (x > 0 && heights[(z * 16) + x - 1] > height) ||
+                        (z > 0 && heights[((z - 1) * 16) + x] > height);
+
+                faces.add(createTopFace(x, height, z, SPRITES[random.nextInt(8) == 0 ? 2 : 0], occluded));
+
+                if (x < 15) {
+                    int neighbor = heights[(z * 16) + x + 1];
+
+                    for (int y = neighbor; y < height; y++) {
+                        faces.add(createSideFace(x + 1, y, z, SPRITES[1]));
+                    }
+                }
+            }
+        }
+
+        return faces;
+    }
+
+    private static Face createTopFace(int x, int y, int z, float[] sprite, boolean occluded) {
+        var vertices = ChunkVertexEncoder.Vertex.uninitializedQuad();
+
+        // The vertex order of the top face of a vanilla block model
+        setVertex(vertices[0], x, y + 1, z, sprite, 0, 0, occluded ? 0.8f : 1.0f);
+        setVertex(vertices[1], x, y + 1, z + 1, sprite, 0, 1, 1.0f);
+        setVertex(vertices[2], x + 1, y + 1, z + 1, sprite, 1, 1, 1.0f);
+        setVertex(vertices[3], x + 1, y + 1, z, sprite, 1, 0, 1.0f);
+
+        return new Face(vertices, ModelQuadFacing.POS_Y, sprite);
+    }
+
+    private static Face createSideFace(int x, int y, int z, float[] sprite) {
+        var vertices = ChunkVertexEncoder.Vertex.uninitializedQuad();
+
+        // The vertex order of the east face of a vanilla block model
+        setVertex(vertices[0], x, y + 1, z + 1, sprite, 0, 0, 1.0f);
+        setVertex(vertices[1], x, y, z + 1, sprite, 0, 1, 1.0f);
+        setVertex(vertices[2], x, y, z, sprite, 1, 1, 1.0f);
+        setVertex(vertices[3], x, y + 1, z, sprite, 1, 0, 1.0f);
+
+        return new Face(vertices, ModelQuadFacing.POS_X, sprite);
+    }
+
+    private static void setVertex(ChunkVertexEncoder.Vertex vertex, float x, float y, float z, float[] sprite,
+                                  int u, int v, float ao) {
+        vertex.x = x;
+        vertex.y = y;
+        vertex.z = z;
+        vertex.color = 0xFFFFFFFF;
+        vertex.ao = ao;
+        vertex.u = sprite[0] + (u * ((float) SPRITE_SIZE / ATLAS_SIZE));
+        vertex.v = sprite[1] + (v * ((float) SPRITE_SIZE / ATLAS_SIZE));
+        vertex.light = 0x00F000F0;
+    }
+
+    private record Face(ChunkVertexEncoder.Vertex[] vertices, ModelQuadFacing facing, float[] sprite) {
+
+    }
+
+    /**
+     * Counts the bytes of vertex data written by each benchmark and the faces which were built, so that the number of
+     * bytes per face can be compared between buffering and merging the faces.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class BytesCounter {
+        public long bytes;
+        public long faces;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.bytes = 0;
+            this.faces = 0;
+        }
+
+        void record(long bytes) {
+            this.bytes += bytes;
+        }
+
+        void recordFaces(long faces) {
+            this.faces += faces;
+        }
+    }
+}
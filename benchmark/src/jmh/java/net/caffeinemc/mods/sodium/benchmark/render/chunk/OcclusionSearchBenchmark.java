@@ -0,0 +1,174 @@
+package net.caffeinemc.mods.sodium.benchmark.render.chunk;
+
+import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceArrayList;
+import net.caffeinemc.mods.sodium.client.render.chunk.RenderSection;
+import net.caffeinemc.mods.sodium.client.render.chunk.occlusion.GraphDirection;
+import net.caffeinemc.mods.sodium.client.render.chunk.occlusion.OcclusionCuller;
+import net.caffeinemc.mods.sodium.client.render.chunk.occlusion.VisibilityEncoding;
+import net.caffeinemc.mods.sodium.client.render.chunk.region.RenderRegion;
+import net.caffeinemc.mods.sodium.client.render.viewport.Viewport;
+import net.caffeinemc.mods.sodium.client.render.viewport.frustum.SimpleFrustum;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.LevelHeightAccessor;
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4f;
+import org.joml.Vector3d;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the graph search of the {@link OcclusionCuller} over a synthetic level, which is fully
+ * open above the surface and has a sparse network of caves below it. Each invocation searches the whole graph from a
+ * camera standing on the surface. The sections counter is reported in sections visited per millisecond.
+ * <p>
+ * Before measuring, the serial and parallel searches are run once each over the same graph, and the benchmark fails
+ * if they don't visit the same sections in the same order.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OcclusionSearchBenchmark {
+    private static final int MIN_Y = -64;
+    private static final int HEIGHT = 384;
+
+    // The section which contains the surface of the level
+    private static final int SURFACE_SECTION_Y = 4;
+
+    // The fraction of the sections below the surface which are part of a cave
+    private static final float CAVE_DENSITY = 0.2f;
+
+    @Param({ "12", "32" })
+    public int renderDistance;
+
+    @Param({ "false", "true" })
+    public boolean parallel;
+
+    private OcclusionCuller culler;
+    private Viewport viewport;
+    private float searchDistance;
+
+    private int frame;
+
+    @Setup
+    public void setup() {
+        var level = LevelHeightAccessor.create(MIN_Y, HEIGHT);
+        var sections = createSections(level, this.renderDistance, new Random(1234L));
+
+        this.culler = new OcclusionCuller(sections, level);
+        this.searchDistance = this.renderDistance * 16.0f;
+
+        var position = new Vector3d(8.0, (SURFACE_SECTION_Y << 4) + 10.0, 8.0);
+        var projection = new Matrix4f()
+                .perspective((float) Math.toRadians(70.0), 16.0f / 9.0f, 0.05f, this.searchDistance * 2.0f)
+                .lookAlong(0.0f, -0.2f, 1.0f, 0.0f, 1.0f, 0.0f);
+
+        this.viewport = new Viewport(new SimpleFrustum(new FrustumIntersection(projection)), position);
+
+        this.compareSearches();
+    }
+
+    private void compareSearches() {
+        var serial = new ReferenceArrayList<RenderSection>();
+        var parallel = new ReferenceArrayList<RenderSection>();
+
+        this.culler.findVisible(serial::add, this.viewport, this.searchDistance, true, ++this.frame, false);
+        this.culler.findVisible(parallel::add, this.viewport, this.searchDistance, true, ++this.frame, true);
+
+        if (!serial.equals(parallel)) {
+            throw new IllegalStateException("The parallel search visited " + parallel.size() +
+                    " sections in a different order than the " + serial.size() + " sections of the serial search");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.culler.destroy();
+    }
+
+    @Benchmark
+    public void findVisible(SectionCounter counter) {
+        // every search must use a new frame, since sections which were reached in the current frame are skipped
+        this.culler.findVisible(section -> counter.sections++, this.viewport, this.searchDistance, true,
+                ++this.frame, this.parallel);
+    }
+
+    private static Long2ReferenceOpenHashMap<RenderSection> createSections(LevelHeightAccessor level, int radius, Random random) {
+        var sections = new Long2ReferenceOpenHashMap<RenderSection>();
+        var regions = new Long2ReferenceOpenHashMap<RenderRegion>();
+
+        for (int x = -radius; x <= radius; x++) {
+            for (int z = -radius; z <= radius; z++) {
+                for (int y = level.getMinSectionY(); y <= level.getMaxSectionY(); y++) {
+                    int regionX = x >> RenderRegion.REGION_WIDTH_SH;
+                    int regionY = y >> RenderRegion.REGION_HEIGHT_SH;
+                    int regionZ = z >> RenderRegion.REGION_LENGTH_SH;
+
+                    // the staging buffer is only used for the graphics resources of the region, which aren't needed
+                    var region = regions.computeIfAbsent(RenderRegion.key(regionX, regionY, regionZ),
+                            key -> new RenderRegion(regionX, regionY, regionZ, null));
+
+                    var section = new RenderSection(region, x, y, z);
+                    region.addSection(section);
+                    region.setSectionVisibilityData(section.getSectionIndex(), createVisibilityData(y, random));
+
+                    sections.put(SectionPos.asLong(x, y, z), section);
+                }
+            }
+        }
+
+        for (var section : sections.values()) {
+            for (int direction = 0; direction < GraphDirection.COUNT; direction++) {
+                var adjacent = sections.get(SectionPos.asLong(section.getChunkX() + GraphDirection.x(direction),
+                        section.getChunkY() + GraphDirection.y(direction),
+                        section.getChunkZ() + GraphDirection.z(direction)));
+
+                if (adjacent != null) {
+                    section.setAdjacentNode(direction, adjacent);
+                }
+            }
+        }
+
+        return sections;
+    }
+
+    private static long createVisibilityData(int sectionY, Random random) {
+        if (sectionY >= SURFACE_SECTION_Y || random.nextFloat() < CAVE_DENSITY) {
+            return createOpenVisibilityData();
+        }
+
+        return VisibilityEncoding.NULL;
+    }
+
+    private static long createOpenVisibilityData() {
+        long visibilityData = VisibilityEncoding.NULL;
+
+        for (int from = 0; from < GraphDirection.COUNT; from++) {
+            for (int to = 0; to < GraphDirection.COUNT; to++) {
+                visibilityData |= 1L << VisibilityEncoding.bit(from, to);
+            }
+        }
+
+        return visibilityData;
+    }
+
+    /**
+     * Counts the sections which were visited by the searches, so that the throughput can be reported in sections
+     * rather than in searches, which visit a different number of sections depending on the render distance.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class SectionCounter {
+        public long sections;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.sections = 0;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package net.caffeinemc.mods.sodium.benchmark.util;
+
+import it.unimi.dsi.fastutil.objects.Object2ReferenceOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceArrayList;
+import net.caffeinemc.mods.sodium.client.util.collections.DoubleIntervalIndex;
+import net.caffeinemc.mods.sodium.benchmark.util.interval_tree.DoubleInterval;
+import net.caffeinemc.mods.sodium.benchmark.util.interval_tree.Interval;
+import net.caffeinemc.mods.sodium.benchmark.util.interval_tree.IntervalTree;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the interval queries which are made for every camera movement when triggering the translucent sorting of
+ * sections. The generic interval tree, together with the map from intervals to the values they belong to, is
+ * compared against the primitive interval index which stores the values directly.
+ * <p>
+ * The intervals model the distance ranges of translucent geometry along one normal, where each section covers a
+ * range of up to 16 blocks, and the queries model the distance moved by the camera in a single frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntervalQueryBenchmark {
+    @Param({ "16", "256", "4096" })
+    public int intervalCount;
+
+    private static final int QUERY_COUNT = 1024;
+
+    private IntervalTree<Double> tree;
+    private Object2ReferenceOpenHashMap<DoubleInterval, Object> valuesByInterval;
+
+    private DoubleIntervalIndex<Object> index;
+    private ReferenceArrayList<Object> results;
+
+    private double[] queryStarts;
+    private double[] queryEnds;
+    private int nextQuery;
+
+    @Setup
+    public void setup() {
+        var random = new Random(1234L);
+
+        this.tree = new IntervalTree<>();
+        this.valuesByInterval = new Object2ReferenceOpenHashMap<>();
+
+        this.index = new DoubleIntervalIndex<>();
+        this.results = new ReferenceArrayList<>();
+
+        // Spread the sections across a distance which grows with the number of sections, as it would with the render
+        // distance
+        double range = Math.sqrt(this.intervalCount) * 16.0;
+
+        for (int i = 0; i < this.intervalCount; i++) {
+            double start = random.nextInt((int) range) + random.nextInt(16);
+            double end = start + 1 + random.nextInt(16);
+
+            var value = new Object();
+
+            var interval = new DoubleInterval(start, end, Interval.Bounded.CLOSED);
+            this.tree.add(interval);
+            this.valuesByInterval.put(interval, value);
+
+            this.index.add(value, start, end);
+        }
+
+        this.queryStarts = new double[QUERY_COUNT];
+        this.queryEnds = new double[QUERY_COUNT];
+
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            double start = random.nextDouble() * range;
+
+            this.queryStarts[i] = start;
+            this.queryEnds[i] = start + random.nextDouble() * 0.5;
+        }
+    }
+
+    @Benchmark
+    public void intervalTree(Blackhole blackhole) {
+        int query = this.nextQuery();
+
+        var interval = new DoubleInterval(this.queryStarts[query], this.queryEnds[query], Interval.Bounded.CLOSED);
+
+        for (Interval<Double> result : this.tree.query(interval)) {
+            blackhole.consume(this.valuesByInterval.get(result));
+        }
+    }
+
+    @Benchmark
+    public void intervalIndex(Blackhole blackhole) {
+        int query = this.nextQuery();
+
+        var results = this.results;
+        this.index.query(this.queryStarts[query], this.queryEnds[query], results);
+
+        for (int i = 0, size = results.size(); i < size; i++) {
+            blackhole.consume(results.get(i));
+        }
+
+        results.clear();
+    }
+
+    private int nextQuery() {
+        int query = this.nextQuery;
+        this.nextQuery = (query + 1) % QUERY_COUNT;
+
+        return query;
+    }
+}
@@ -0,0 +1,117 @@
+package net.caffeinemc.mods.sodium.benchmark.util;
+
+import net.caffeinemc.mods.sodium.client.util.sorting.RadixSort;
+import net.caffeinemc.mods.sodium.client.util.sorting.SortBuffers;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the distance sorting of translucent quads which is done for every camera movement in sections that can't
+ * be sorted topologically. Each invocation computes the distance keys of a section's quads and sorts them, either by
+ * allocating the key and index arrays for every sort, by re-using sort buffers, or by sorting the keys packed together
+ * with their indices. The throughput of the quad counter is reported in quads per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RadixSortBenchmark {
+    @Param({ "64", "1024", "8192" })
+    public int quadCount;
+
+    private float[] quadCenters;
+    private float cameraX, cameraY, cameraZ;
+
+    private SortBuffers buffers;
+
+    @Setup
+    public void setup() {
+        var random = new Random(1234L);
+
+        // Quad centers are on the half-block grid of a section
+        this.quadCenters = new float[this.quadCount * 3];
+
+        for (int i = 0; i < this.quadCenters.length; i++) {
+            this.quadCenters[i] = random.nextInt(33) * 0.5f;
+        }
+
+        this.cameraX = random.nextFloat() * 16.0f;
+        this.cameraY = random.nextFloat() * 16.0f;
+        this.cameraZ = random.nextFloat() * 16.0f;
+
+        this.buffers = new SortBuffers();
+    }
+
+    @Benchmark
+    public int[] allocatingRadixSort(QuadCounter counter) {
+        var keys = new int[this.quadCount];
+        this.computeKeys(keys);
+
+        counter.record(this.quadCount);
+
+        return RadixSort.sort(keys);
+    }
+
+    @Benchmark
+    public int[] bufferedRadixSort(QuadCounter counter) {
+        var keys = this.buffers.getKeys(this.quadCount);
+        this.computeKeys(keys);
+
+        counter.record(this.quadCount);
+
+        return RadixSort.sort(keys, this.quadCount, this.buffers);
+    }
+
+    @Benchmark
+    public long[] packedArraysSort(QuadCounter counter) {
+        var keys = this.buffers.getKeys(this.quadCount);
+        this.computeKeys(keys);
+
+        var data = this.buffers.getPackedKeys(this.quadCount);
+
+        for (int q = 0; q < this.quadCount; q++) {
+            data[q] = (long) keys[q] << 32 | q;
+        }
+
+        Arrays.sort(data, 0, this.quadCount);
+
+        counter.record(this.quadCount);
+
+        return data;
+    }
+
+    private void computeKeys(int[] keys) {
+        final var centers = this.quadCenters;
+        final int count = this.quadCount;
+
+        for (int q = 0; q < count; q++) {
+            float dx = centers[q] - this.cameraX;
+            float dy = centers[count + q] - this.cameraY;
+            float dz = centers[count * 2 + q] - this.cameraZ;
+            keys[q] = ~Float.floatToRawIntBits(dx * dx + dy * dy + dz * dz);
+        }
+    }
+
+    /**
+     * Counts the sorted quads, which JMH reports as a rate of quads per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class QuadCounter {
+        public long quads;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.quads = 0;
+        }
+
+        void record(int quads) {
+            this.quads += quads;
+        }
+    }
+}
@@ -24,7 +24,7 @@ SOFTWARE.
 Modified for inclusion in Sodium by douira.
 Copied from https://github.com/lodborg/interval-tree/tree/v1.0.0.
 */
-package net.caffeinemc.mods.sodium.client.util.interval_tree;
+package net.caffeinemc.mods.sodium.benchmark.util.interval_tree;
 
 import java.util.Comparator;
 
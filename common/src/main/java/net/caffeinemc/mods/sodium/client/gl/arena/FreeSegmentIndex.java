@@ -0,0 +1,90 @@
+package net.caffeinemc.mods.sodium.client.gl.arena;
+
+import it.unimi.dsi.fastutil.longs.Long2ReferenceRBTreeMap;
+import it.unimi.dsi.fastutil.longs.Long2ReferenceSortedMap;
+
+/**
+ * An index of the free segments in a buffer arena, ordered by their length and then their offset. This allows the
+ * best-fitting free segment for an allocation to be found in O(log n) time, rather than by walking every segment of
+ * the arena. The segments themselves are still linked in address order, which is needed to merge neighboring free
+ * segments and to compact the arena.
+ *
+ * <p>The length and offset of a segment must not change while it is in the index, since they form its key. Segments
+ * should be removed before they are resized, and added again afterward.</p>
+ *
+ * <p>This class does not depend on any graphics state.</p>
+ */
+public class FreeSegmentIndex {
+    // The keys are packed as (length << 32) | offset, where both values are unsigned 32-bit integers, so the keys
+    // must be compared as unsigned values.
+    private final Long2ReferenceSortedMap<GlBufferSegment> segments = new Long2ReferenceRBTreeMap<>(Long::compareUnsigned);
+
+    private long totalLength;
+
+    public void add(GlBufferSegment segment) {
+        if (this.segments.put(getKey(segment), segment) != null) {
+            throw new IllegalStateException("Segment is already in the index");
+        }
+
+        this.totalLength += segment.getLength();
+    }
+
+    public void remove(GlBufferSegment segment) {
+        if (this.segments.remove(getKey(segment)) != segment) {
+            throw new IllegalStateException("Segment is not in the index");
+        }
+
+        this.totalLength -= segment.getLength();
+    }
+
+    public void clear() {
+        this.segments.clear();
+        this.totalLength = 0;
+    }
+
+    /**
+     * Finds the smallest free segment which can hold the given number of elements. If there are multiple segments of
+     * that length, the one with the lowest offset is returned.
+     *
+     * @param length The number of elements which need to be allocated
+     * @return The best-fitting free segment, or null if no free segment is large enough
+     */
+    public GlBufferSegment findBestFit(long length) {
+        var candidates = this.segments.tailMap(getKey(length, 0));
+
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        return candidates.get(candidates.firstLongKey());
+    }
+
+    public int getSegmentCount() {
+        return this.segments.size();
+    }
+
+    public long getTotalLength() {
+        return this.totalLength;
+    }
+
+    public long getLargestLength() {
+        if (this.segments.isEmpty()) {
+            return 0;
+        }
+
+        return this.segments.get(this.segments.lastLongKey())
+                .getLength();
+    }
+
+    public boolean contains(GlBufferSegment segment) {
+        return this.segments.get(getKey(segment)) == segment;
+    }
+
+    private static long getKey(GlBufferSegment segment) {
+        return getKey(segment.getLength(), segment.getOffset());
+    }
+
+    private static long getKey(long length /* Uint32 */, long offset /* Uint32 */) {
+        return (length << 32) | offset;
+    }
+}
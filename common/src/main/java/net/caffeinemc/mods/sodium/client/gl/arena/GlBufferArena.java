@@ -22,12 +22,20 @@ public class GlBufferArena {
 
     private static final GlBufferUsage BUFFER_USAGE = GlBufferUsage.STATIC_DRAW;
 
+    private final int initialCapacity;
     private final int resizeIncrement;
 
     private final StagingBuffer stagingBuffer;
     private GlMutableBuffer arenaBuffer;
 
     private GlBufferSegment head;
+    private GlBufferSegment tail;
+
+    // Set once compaction can't make any more progress, until the layout of the arena changes again
+    private boolean compactionStalled;
+
+    // The free segments of the arena, ordered by their length for best-fit allocation
+    private final FreeSegmentIndex freeSegments = new FreeSegmentIndex();
 
     private static final XXHash64 NATIVE_HASH = XXHashFactory.fastestInstance().hash64();
     private static final XXHash64 JAVA_HASH = XXHashFactory.fastestJavaInstance().hash64();
@@ -41,12 +49,16 @@ public class GlBufferArena {
 
     public GlBufferArena(CommandList commands, int initialCapacity, int stride, StagingBuffer stagingBuffer, boolean enableCache) {
         this.capacity = initialCapacity;
+        this.initialCapacity = initialCapacity;
         this.resizeIncrement = initialCapacity / 16;
 
         this.stride = stride;
 
         this.head = new GlBufferSegment(this, 0, initialCapacity);
         this.head.setFree(true);
+        this.tail = this.head;
+
+        this.freeSegments.add(this.head);
 
         this.arenaBuffer = commands.createMutableBuffer();
         commands.allocateStorage(this.arenaBuffer, this.capacity * stride, BUFFER_USAGE);
@@ -77,14 +89,22 @@ public class GlBufferArena {
         this.head = new GlBufferSegment(this, 0, tail);
         this.head.setFree(true);
 
+        // Compaction leaves behind only a single free segment at the start of the arena
+        this.freeSegments.clear();
+        this.freeSegments.add(this.head);
+
         if (usedSegments.isEmpty()) {
             this.head.setNext(null);
+            this.tail = this.head;
         } else {
             this.head.setNext(usedSegments.getFirst());
             this.head.getNext()
                     .setPrev(this.head);
+            this.tail = usedSegments.getLast();
         }
 
+        this.compactionStalled = false;
+
         this.checkAssertions();
     }
 
@@ -179,13 +199,27 @@ public class GlBufferArena {
         return this.capacity * this.stride;
     }
 
+    public int getFreeSegmentCount() {
+        return this.freeSegments.getSegmentCount();
+    }
+
+    public long getDeviceFreeMemory() {
+        return this.freeSegments.getTotalLength() * this.stride;
+    }
+
+    public long getDeviceLargestFreeMemory() {
+        return this.freeSegments.getLargestLength() * this.stride;
+    }
+
     private GlBufferSegment alloc(int size) {
-        GlBufferSegment a = this.findFree(size);
+        GlBufferSegment a = this.freeSegments.findBestFit(size);
 
         if (a == null) {
             return null;
         }
 
+        this.freeSegments.remove(a);
+
         GlBufferSegment result;
 
         if (a.getLength() == size) {
@@ -200,67 +234,227 @@ public class GlBufferArena {
             if (b.getNext() != null) {
                 b.getNext()
                         .setPrev(b);
+            } else {
+                this.tail = b;
             }
 
             a.setLength(a.getLength() - size);
             a.setNext(b);
 
+            this.freeSegments.add(a);
+
             result = b;
         }
 
         this.used += result.getLength();
+        this.compactionStalled = false;
+
         this.checkAssertions();
 
         return result;
     }
 
-    private GlBufferSegment findFree(int size) {
-        GlBufferSegment entry = this.head;
-        GlBufferSegment best = null;
-
-        while (entry != null) {
-            if (entry.isFree()) {
-                if (entry.getLength() == size) {
-                    return entry;
-                } else if (entry.getLength() >= size) {
-                    if (best == null || best.getLength() > entry.getLength()) {
-                        best = entry;
-                    }
-                }
-            }
-
-            entry = entry.getNext();
-        }
-
-        return best;
-    }
-
     public void free(GlBufferSegment entry) {
         if (entry.isFree()) {
             throw new IllegalStateException("Already freed");
         }
 
+        // the hash might have been taken over by another segment if their contents collided
         if (entry.isHashed()) {
-            this.cache.remove(entry.getHash());
+            this.cache.remove(entry.getHash(), entry);
         }
 
         entry.setFree(true);
 
         this.used -= entry.getLength();
+        this.compactionStalled = false;
 
+        this.addFreeSegment(entry);
+
+        this.checkAssertions();
+    }
+
+    // Adds a segment which has just become free to the index, merging it with any neighboring free segments
+    private void addFreeSegment(GlBufferSegment entry) {
         GlBufferSegment next = entry.getNext();
 
         if (next != null && next.isFree()) {
+            this.freeSegments.remove(next);
             entry.mergeInto(next);
+
+            if (this.tail == next) {
+                this.tail = entry;
+            }
         }
 
         GlBufferSegment prev = entry.getPrev();
 
         if (prev != null && prev.isFree()) {
+            this.freeSegments.remove(prev);
             prev.mergeInto(entry);
+            this.freeSegments.add(prev);
+
+            if (this.tail == entry) {
+                this.tail = prev;
+            }
+        } else {
+            this.freeSegments.add(entry);
+        }
+    }
+
+    /**
+     * Returns whether enough of the free space is split across multiple segments that compacting the arena would be
+     * worthwhile. New segments are allocated from the end of a free segment, so the unallocated space of the arena
+     * stays together in the free segment at its start, which is usually the largest one.
+     */
+    public boolean isFragmented() {
+        long total = this.freeSegments.getTotalLength();
+        long largest = this.freeSegments.getLargestLength();
+
+        return (total - largest) * 10 > total;
+    }
+
+    /**
+     * Returns whether the arena is using little enough of its capacity that it could be shrunk.
+     */
+    public boolean isShrinkable() {
+        return this.used * 2 < this.capacity && this.getShrunkCapacity() < this.capacity;
+    }
+
+    private long getShrunkCapacity() {
+        return Math.max(this.initialCapacity, this.used + this.resizeIncrement);
+    }
+
+    /**
+     * Returns whether calling {@link #compact(CommandList, long)} would do anything. This becomes false once
+     * compaction has stopped making progress, and stays false until segments are allocated or freed again.
+     */
+    public boolean needsCompaction() {
+        return !this.compactionStalled && (this.isFragmented() || this.isShrinkable());
+    }
+
+    /**
+     * Incrementally compacts the arena by moving the used segments at the end of the arena into free segments closer
+     * to its start. Unlike the compaction which happens when the arena is resized, at most {@code maxBytes} of data
+     * will be copied by each call, so that the work can be spread across many frames.
+     *
+     * <p>If the arena is using less than half of its capacity, it is instead shrunk by copying all of its used
+     * segments into a smaller buffer at once. This copy can't be split across frames, since the arena can only draw
+     * from one buffer at a time, so it isn't limited by {@code maxBytes}. It copies no more data than the compaction
+     * which happens when the arena grows, and only happens again once the arena has grown and emptied again.</p>
+     *
+     * <p>The offsets of the moved segments will have changed after this returns, and the buffer object will have
+     * been replaced if the arena was shrunk. The caller is responsible for updating anything which refers to them.</p>
+     *
+     * @param maxBytes The maximum number of bytes which should be copied, unless the arena is shrunk
+     * @return The number of bytes which were copied
+     */
+    public long compact(CommandList commandList, long maxBytes) {
+        if (this.isShrinkable()) {
+            long moved = this.used;
+            this.resize(commandList, this.getShrunkCapacity());
+
+            return moved * this.stride;
+        }
+
+        long maxElements = maxBytes / this.stride;
+        long moved = 0;
+
+        if (this.isFragmented()) {
+            GlBufferSegment seg = this.tail;
+            boolean overBudget = false;
+
+            // Walk backwards from the end of the arena, moving each used segment into the best-fitting free segment
+            // before it, if there is one
+            while (seg != null && moved < maxElements) {
+                GlBufferSegment prev = seg.getPrev();
+
+                if (!seg.isFree() && moved + seg.getLength() > maxElements) {
+                    overBudget = true;
+                } else if (!seg.isFree()) {
+                    GlBufferSegment dst = this.freeSegments.findBestFit(seg.getLength());
+
+                    if (dst != null && dst.getOffset() < seg.getOffset()) {
+                        boolean replaced = dst.getLength() == seg.getLength();
+
+                        this.moveSegment(commandList, seg, dst);
+                        moved += seg.getLength();
+
+                        // If the segment took the place of its free neighbor, continue from its new neighbor instead
+                        if (replaced && prev == dst) {
+                            prev = seg.getPrev();
+                        }
+                    }
+                }
+
+                seg = prev;
+            }
+
+            // If none of the used segments fit into a free segment before them, walking the arena again won't help
+            if (seg == null && moved == 0 && !overBudget) {
+                this.compactionStalled = true;
+            }
         }
 
         this.checkAssertions();
+
+        return moved * this.stride;
+    }
+
+    private void moveSegment(CommandList commandList, GlBufferSegment segment, GlBufferSegment dst) {
+        long length = segment.getLength();
+        long offset = dst.getEnd() - length;
+
+        this.freeSegments.remove(dst);
+
+        // The source and destination are separate segments, so the copied ranges can never overlap
+        commandList.copyBufferSubData(this.arenaBuffer, this.arenaBuffer,
+                segment.getOffset() * this.stride,
+                offset * this.stride,
+                length * this.stride);
+
+        // Leave behind a free segment in the place of the moved segment
+        GlBufferSegment hole = new GlBufferSegment(this, segment.getOffset(), length);
+        hole.setFree(true);
+
+        this.replaceSegment(segment, hole);
+
+        if (dst.getLength() == length) {
+            this.replaceSegment(dst, segment);
+        } else {
+            dst.setLength(dst.getLength() - length);
+            this.freeSegments.add(dst);
+
+            segment.setPrev(dst);
+            segment.setNext(dst.getNext());
+            segment.getNext()
+                    .setPrev(segment);
+
+            dst.setNext(segment);
+        }
+
+        segment.setOffset(offset);
+
+        this.addFreeSegment(hole);
+    }
+
+    private void replaceSegment(GlBufferSegment prevSegment, GlBufferSegment newSegment) {
+        newSegment.setPrev(prevSegment.getPrev());
+        newSegment.setNext(prevSegment.getNext());
+
+        if (newSegment.getPrev() != null) {
+            newSegment.getPrev()
+                    .setNext(newSegment);
+        } else {
+            this.head = newSegment;
+        }
+
+        if (newSegment.getNext() != null) {
+            newSegment.getNext()
+                    .setPrev(newSegment);
+        } else {
+            this.tail = newSegment;
+        }
     }
 
     public void delete(CommandList commands) {
@@ -290,7 +484,7 @@ public class GlBufferArena {
         if (!queue.isEmpty()) {
             // Calculate the amount of memory needed for the remaining uploads
             int remainingElements = queue.stream()
-                    .mapToInt(upload -> upload.getDataBuffer().getLength())
+                    .mapToInt(PendingUpload::getLength)
                     .sum();
 
             // Ask the arena to grow to accommodate the remaining uploads
@@ -315,30 +509,44 @@ public class GlBufferArena {
         this.stagingBuffer.flush(commandList);
     }
 
-    private long getBufferHash(ByteBuffer data) {
-        var seed = System.identityHashCode(this);
+    /**
+     * Hashes the content of an upload for finding identical data in the arena. This is thread-safe, so that the hash
+     * of large uploads can be computed on the thread which produced the data.
+     */
+    public static long hashData(ByteBuffer data) {
         var length = data.remaining();
         if (length < NATIVE_HASH_BYTES_THRESHOLD) {
-            return JAVA_HASH.hash(data, 0, length, seed);
+            return JAVA_HASH.hash(data, 0, length, 0);
         } else {
-            return NATIVE_HASH.hash(data, 0, length, seed);
+            return NATIVE_HASH.hash(data, 0, length, 0);
         }
     }
 
     private boolean tryUpload(CommandList commandList, PendingUpload upload) {
-        ByteBuffer data = upload.getDataBuffer().getDirectBuffer();
+        var stagedData = upload.getStagedData();
+        ByteBuffer data = stagedData == null ? upload.getDataBuffer().getDirectBuffer() : null;
 
-        int elementCount = data.remaining() / this.stride;
+        int elementCount = upload.getLength() / this.stride;
 
         // return a buffer segment with the same content if there is one based on the hash of the incoming content
+        // (staged data is never hashed, as reading it back from the mapped memory would be slow)
         GlBufferSegment matchingSegment = null;
         long hash = 0;
-        if (this.cache != null) {
-            hash = this.getBufferHash(data);
+        boolean lookedUp = this.cache != null && (upload.hasHash() || data != null);
+        boolean hashed = lookedUp;
+        if (hashed) {
+            hash = upload.hasHash() ? upload.getHash() : hashData(data);
             matchingSegment = this.cache.get(hash);
+
+            // a segment of a different size can't have the same content, so the hashes must have collided
+            if (matchingSegment != null && (matchingSegment.getLength() != elementCount ||
+                    matchingSegment.getLength() * this.stride != upload.getLength())) {
+                matchingSegment = null;
+                hashed = false;
+            }
         }
         if (matchingSegment != null) {
-            upload.setResult(matchingSegment);
+            upload.setResult(matchingSegment, true, true);
             matchingSegment.addRef();
             return true;
         }
@@ -350,15 +558,20 @@ public class GlBufferArena {
         }
 
         // if a new segment was needed (cache miss), set the calculated hash on the segment
-        if (this.cache != null) {
+        if (hashed) {
             dst.setHash(hash);
             this.cache.put(hash, dst);
         }
 
-        // Copy the data into our staging buffer, then copy it into the arena's buffer
-        this.stagingBuffer.enqueueCopy(commandList, data, this.arenaBuffer, dst.getOffset() * this.stride);
+        if (stagedData != null) {
+            // The data is already in device-visible memory, so it only needs to be copied into the arena's buffer
+            stagedData.copyTo(commandList, this.arenaBuffer, dst.getOffset() * this.stride);
+        } else {
+            // Copy the data into our staging buffer, then copy it into the arena's buffer
+            this.stagingBuffer.enqueueCopy(commandList, data, this.arenaBuffer, dst.getOffset() * this.stride);
+        }
 
-        upload.setResult(dst);
+        upload.setResult(dst, lookedUp, false);
 
         return true;
     }
@@ -382,6 +595,7 @@ public class GlBufferArena {
     private void checkAssertions0() {
         GlBufferSegment seg = this.head;
         long used = 0;
+        int free = 0;
 
         while (seg != null) {
             if (seg.getOffset() < 0) {
@@ -392,6 +606,12 @@ public class GlBufferArena {
 
             if (!seg.isFree()) {
                 used += seg.getLength();
+            } else {
+                if (!this.freeSegments.contains(seg)) {
+                    throw new IllegalStateException("segment.free && !index.contains(segment): free segment not indexed");
+                }
+
+                free++;
             }
 
             GlBufferSegment next = seg.getNext();
@@ -426,6 +646,10 @@ public class GlBufferArena {
                 }
             }
 
+            if (next == null && seg != this.tail) {
+                throw new IllegalStateException("segment.next == null && segment != arena.tail: failure to track tail");
+            }
+
             seg = next;
         }
 
@@ -438,6 +662,12 @@ public class GlBufferArena {
         if (this.used != used) {
             throw new IllegalStateException("arena.used is invalid");
         }
+
+        if (this.freeSegments.getSegmentCount() != free) {
+            throw new IllegalStateException("index.size != free segments: stale segments in index");
+        } else if (this.freeSegments.getTotalLength() != this.capacity - this.used) {
+            throw new IllegalStateException("index.length != arena.capacity - arena.used: failure to track");
+        }
     }
 
 }
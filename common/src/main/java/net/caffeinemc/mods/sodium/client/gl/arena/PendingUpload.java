@@ -1,25 +1,87 @@
 package net.caffeinemc.mods.sodium.client.gl.arena;
 
+import net.caffeinemc.mods.sodium.client.gl.arena.staging.MeshStagingBuffer;
 import net.caffeinemc.mods.sodium.client.util.NativeBuffer;
+import org.jetbrains.annotations.Nullable;
 
 public class PendingUpload {
     private final NativeBuffer data;
+    private final MeshStagingBuffer.Allocation stagedData;
+    private final long hash;
+    private final boolean hasHash;
+
     private GlBufferSegment result;
+    private boolean lookedUp;
+    private boolean deduplicated;
 
     public PendingUpload(NativeBuffer data) {
         this.data = data;
+        this.stagedData = null;
+        this.hash = 0;
+        this.hasHash = false;
+    }
+
+    /**
+     * Creates an upload whose hash has already been computed with {@link GlBufferArena#hashData}, so that arenas
+     * which deduplicate their contents don't need to hash the data again.
+     */
+    public PendingUpload(NativeBuffer data, long hash) {
+        this.data = data;
+        this.stagedData = null;
+        this.hash = hash;
+        this.hasHash = true;
     }
 
-    public NativeBuffer getDataBuffer() {
+    /**
+     * Creates an upload of data which has already been written into the mesh staging buffer, and only needs to be
+     * copied on the device.
+     */
+    public PendingUpload(MeshStagingBuffer.Allocation stagedData) {
+        this.data = null;
+        this.stagedData = stagedData;
+        this.hash = 0;
+        this.hasHash = false;
+    }
+
+    public @Nullable NativeBuffer getDataBuffer() {
         return this.data;
     }
 
-    protected void setResult(GlBufferSegment result) {
+    public MeshStagingBuffer.@Nullable Allocation getStagedData() {
+        return this.stagedData;
+    }
+
+    public boolean hasHash() {
+        return this.hasHash;
+    }
+
+    public long getHash() {
+        return this.hash;
+    }
+
+    protected void setResult(GlBufferSegment result, boolean lookedUp, boolean deduplicated) {
         if (this.result != null) {
             throw new IllegalStateException("Result already provided");
         }
 
         this.result = result;
+        this.lookedUp = lookedUp;
+        this.deduplicated = deduplicated;
+    }
+
+    /**
+     * @return True if the arena searched its contents for an existing segment with the same content, which is only
+     * done by arenas which deduplicate their contents, and never for data in the mesh staging buffer
+     */
+    public boolean isLookedUp() {
+        return this.lookedUp;
+    }
+
+    /**
+     * @return True if the result is an existing segment with the same content, so that nothing had to be uploaded
+     */
+    public boolean isDeduplicated() {
+        return this.deduplicated;
     }
 
     public GlBufferSegment getResult() {
@@ -31,6 +93,6 @@ public class PendingUpload {
     }
 
     public int getLength() {
-        return this.data.getLength();
+        return this.data != null ? this.data.getLength() : this.stagedData.getLength();
     }
 }
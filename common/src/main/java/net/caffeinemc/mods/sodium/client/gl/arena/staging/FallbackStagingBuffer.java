@@ -35,6 +35,11 @@ public class FallbackStagingBuffer implements StagingBuffer {
 
     }
 
+    @Override
+    public long getAvailableBytes() {
+        return Long.MAX_VALUE;
+    }
+
     @Override
     public String toString() {
         return "Fallback";
@@ -21,30 +21,52 @@ public class MappedStagingBuffer implements StagingBuffer {
     private static final EnumBitField<GlBufferMapFlags> MAP_FLAGS =
             EnumBitField.of(GlBufferMapFlags.PERSISTENT, GlBufferMapFlags.INVALIDATE_BUFFER, GlBufferMapFlags.WRITE, GlBufferMapFlags.EXPLICIT_FLUSH);
 
+    private static final int DEFAULT_CAPACITY = 1024 * 1024 * 16; /* 16 MB */
+    private static final int DEFAULT_MAX_CAPACITY = 1024 * 1024 * 64; /* 64 MB */
+
+    // The number of consecutive frames which must use at most a quarter of a grown ring before it is halved again
+    private static final int SHRINK_DELAY_FRAMES = 600;
+
     private final FallbackStagingBuffer fallbackStagingBuffer;
 
-    private final MappedBuffer mappedBuffer;
+    private MappedBuffer mappedBuffer;
+    private StagingRing ring;
+
     private final PriorityQueue<CopyCommand> pendingCopies = new ObjectArrayFIFOQueue<>();
     private final PriorityQueue<FencedMemoryRegion> fencedRegions = new ObjectArrayFIFOQueue<>();
 
-    private int start = 0;
-    private int pos = 0;
+    // Buffers which have been replaced by a larger buffer, and are deleted once the copies from them have completed
+    private final PriorityQueue<RetiredBuffer> retiredBuffers = new ObjectArrayFIFOQueue<>();
+
+    private final int initialCapacity;
+    private final int maxCapacity;
+
+    // The most space of the ring which was in use during the current frame, and the number of frames in a row which
+    // have used little enough of it that it could be shrunk
+    private int framePeakUsage;
+    private int idleFrames;
 
-    private final int capacity;
-    private int remaining;
+    // The statistics of the current frame, and of the last completed frame. Blocked copies are those which didn't fit
+    // because the space of the ring was still held by copies the device hadn't completed. They are never waited on,
+    // but grow the ring or fall back to a direct upload instead.
+    private long frameBytes, lastFrameBytes;
+    private int frameFallbackCount, lastFrameFallbackCount;
+    private int frameBlockedCount, lastFrameBlockedCount;
 
     public MappedStagingBuffer(CommandList commandList) {
-        this(commandList, 1024 * 1024 * 16 /* 16 MB */);
+        this(commandList, DEFAULT_CAPACITY, DEFAULT_MAX_CAPACITY);
     }
 
-    public MappedStagingBuffer(CommandList commandList, int capacity) {
-        GlImmutableBuffer buffer = commandList.createImmutableBuffer(capacity, STORAGE_FLAGS);
-        GlBufferMapping map = commandList.mapBuffer(buffer, 0, capacity, MAP_FLAGS);
-
-        this.mappedBuffer = new MappedBuffer(buffer, map);
+    /**
+     * @param capacity    The initial size of the ring buffer
+     * @param maxCapacity The size which the ring buffer may grow to when the uploads of a frame don't fit into it
+     */
+    public MappedStagingBuffer(CommandList commandList, int capacity, int maxCapacity) {
+        this.mappedBuffer = MappedBuffer.create(commandList, capacity);
+        this.ring = new StagingRing(capacity);
         this.fallbackStagingBuffer = new FallbackStagingBuffer(commandList);
-        this.capacity = capacity;
-        this.remaining = this.capacity;
+        this.initialCapacity = capacity;
+        this.maxCapacity = Math.max(capacity, maxCapacity);
     }
 
     public static boolean isSupported(RenderDevice instance) {
@@ -55,28 +77,75 @@ public class MappedStagingBuffer implements StagingBuffer {
     public void enqueueCopy(CommandList commandList, ByteBuffer data, GlBuffer dst, long writeOffset) {
         int length = data.remaining();
 
-        if (length > this.remaining) {
-            this.fallbackStagingBuffer.enqueueCopy(commandList, data, dst, writeOffset);
+        this.frameBytes += length;
 
-            return;
+        if (length > this.ring.getRemaining()) {
+            // The space is still in use by copies which the device hasn't completed yet
+            if (!this.fencedRegions.isEmpty()) {
+                this.frameBlockedCount++;
+            }
+
+            if (!this.tryGrow(commandList, length)) {
+                this.frameFallbackCount++;
+                this.fallbackStagingBuffer.enqueueCopy(commandList, data, dst, writeOffset);
+
+                return;
+            }
         }
 
-        int remaining = this.capacity - this.pos;
+        int capacity = this.ring.getCapacity();
+        int offset = this.ring.reserve(length);
+        int remaining = capacity - offset;
 
-        // Split the transfer in two if we have enough available memory at the end and start of the buffer
+        this.framePeakUsage = Math.max(this.framePeakUsage, this.ring.getUsed());
+
+        // Split the transfer in two if it wraps around the end of the buffer
         if (length > remaining) {
             int split = length - remaining;
 
-            this.addTransfer(data.slice(0, remaining), dst, this.pos, writeOffset);
+            this.addTransfer(data.slice(0, remaining), dst, offset, writeOffset);
             this.addTransfer(data.slice(remaining, split), dst, 0, writeOffset + remaining);
-
-            this.pos = split;
         } else {
-            this.addTransfer(data, dst, this.pos, writeOffset);
-            this.pos += length;
+            this.addTransfer(data, dst, offset, writeOffset);
+        }
+    }
+
+    /**
+     * Replaces the ring buffer with a larger one which can hold the given number of bytes. Copies which are pending
+     * in the current buffer are submitted first, and the current buffer is deleted once they have completed.
+     *
+     * @return True if the buffer was replaced, or false if it has already reached its maximum size
+     */
+    private boolean tryGrow(CommandList commandList, int length) {
+        int capacity = this.ring.getCapacity();
+
+        if (capacity >= this.maxCapacity || length > this.maxCapacity) {
+            return false;
+        }
+
+        int newCapacity = capacity;
+
+        while (newCapacity < length) {
+            newCapacity *= 2;
         }
 
-        this.remaining -= length;
+        newCapacity = Math.min(Math.max(newCapacity, capacity * 2), this.maxCapacity);
+
+        this.flush(commandList);
+
+        // The regions of the old buffer no longer need to be tracked, as the new buffer starts out empty
+        while (!this.fencedRegions.isEmpty()) {
+            this.fencedRegions.dequeue()
+                    .fence()
+                    .delete();
+        }
+
+        this.retiredBuffers.enqueue(new RetiredBuffer(this.mappedBuffer, commandList.createFence()));
+
+        this.mappedBuffer = MappedBuffer.create(commandList, newCapacity);
+        this.ring = new StagingRing(newCapacity);
+
+        return true;
     }
 
     private void addTransfer(ByteBuffer data, GlBuffer dst, long readOffset, long writeOffset) {
@@ -90,24 +159,22 @@ public class MappedStagingBuffer implements StagingBuffer {
             return;
         }
 
-        if (this.pos < this.start) {
-            commandList.flushMappedRange(this.mappedBuffer.map, this.start, this.capacity - this.start);
-            commandList.flushMappedRange(this.mappedBuffer.map, 0, this.pos);
+        int capacity = this.ring.getCapacity();
+        int start = this.ring.getPendingStart();
+        int end = start + this.ring.getPendingLength();
+
+        if (end > capacity) {
+            commandList.flushMappedRange(this.mappedBuffer.map, start, capacity - start);
+            commandList.flushMappedRange(this.mappedBuffer.map, 0, end - capacity);
         } else {
-            commandList.flushMappedRange(this.mappedBuffer.map, this.start, this.pos - this.start);
+            commandList.flushMappedRange(this.mappedBuffer.map, start, end - start);
         }
 
-        int bytes = 0;
-
         for (CopyCommand command : consolidateCopies(this.pendingCopies)) {
-            bytes += command.bytes;
-
             commandList.copyBufferSubData(this.mappedBuffer.buffer, command.buffer, command.readOffset, command.writeOffset, command.bytes);
         }
 
-        this.fencedRegions.enqueue(new FencedMemoryRegion(commandList.createFence(), bytes));
-
-        this.start = this.pos;
+        this.fencedRegions.enqueue(new FencedMemoryRegion(commandList.createFence(), this.ring.commit()));
     }
 
     private static List<CopyCommand> consolidateCopies(PriorityQueue<CopyCommand> queue) {
@@ -137,6 +204,18 @@ public class MappedStagingBuffer implements StagingBuffer {
         this.mappedBuffer.delete(commandList);
         this.fallbackStagingBuffer.delete(commandList);
         this.pendingCopies.clear();
+
+        while (!this.fencedRegions.isEmpty()) {
+            this.fencedRegions.dequeue()
+                    .fence()
+                    .delete();
+        }
+
+        while (!this.retiredBuffers.isEmpty()) {
+            var retired = this.retiredBuffers.dequeue();
+            retired.fence().delete();
+            retired.buffer().delete(commandList);
+        }
     }
 
     @Override
@@ -152,8 +231,74 @@ public class MappedStagingBuffer implements StagingBuffer {
             fence.delete();
 
             this.fencedRegions.dequeue();
-            this.remaining += region.length();
+            this.ring.release(region.length());
+        }
+
+        int capacity = this.ring.getCapacity();
+
+        if (capacity > this.initialCapacity && this.framePeakUsage * 4 <= capacity) {
+            this.idleFrames++;
+        } else {
+            this.idleFrames = 0;
+        }
+
+        // The ring can only be replaced once none of its space is in use by the device
+        boolean shrink = this.idleFrames >= SHRINK_DELAY_FRAMES && this.fencedRegions.isEmpty() && this.pendingCopies.isEmpty();
+
+        if (shrink || !this.retiredBuffers.isEmpty()) {
+            try (CommandList commandList = RenderDevice.INSTANCE.createCommandList()) {
+                while (!this.retiredBuffers.isEmpty()) {
+                    var retired = this.retiredBuffers.first();
+
+                    if (!retired.fence().isCompleted()) {
+                        break;
+                    }
+
+                    this.retiredBuffers.dequeue();
+
+                    retired.fence().delete();
+                    retired.buffer().delete(commandList);
+                }
+
+                if (shrink) {
+                    this.shrink(commandList);
+                }
+            }
+        }
+
+        this.lastFrameBytes = this.frameBytes;
+        this.lastFrameFallbackCount = this.frameFallbackCount;
+        this.lastFrameBlockedCount = this.frameBlockedCount;
+
+        this.frameBytes = 0;
+        this.frameFallbackCount = 0;
+        this.frameBlockedCount = 0;
+        this.framePeakUsage = 0;
+    }
+
+    /**
+     * Replaces the ring buffer with one half its size, after a burst of uploads has grown it and the uploads have
+     * since settled down. This must only be called while none of the ring's space is in use.
+     */
+    private void shrink(CommandList commandList) {
+        int newCapacity = Math.max(this.initialCapacity, this.ring.getCapacity() / 2);
+
+        this.mappedBuffer.delete(commandList);
+
+        this.mappedBuffer = MappedBuffer.create(commandList, newCapacity);
+        this.ring = new StagingRing(newCapacity);
+
+        this.idleFrames = 0;
+    }
+
+    @Override
+    public long getAvailableBytes() {
+        // The buffer can grow into a new buffer which is at least twice as large
+        if (this.ring.getCapacity() < this.maxCapacity) {
+            return Math.max(this.ring.getRemaining(), Math.min(this.ring.getCapacity() * 2L, this.maxCapacity));
         }
+
+        return this.ring.getRemaining();
     }
 
     private static final class CopyCommand {
@@ -180,6 +325,13 @@ public class MappedStagingBuffer implements StagingBuffer {
 
     private record MappedBuffer(GlImmutableBuffer buffer,
                                 GlBufferMapping map) {
+        public static MappedBuffer create(CommandList commandList, int capacity) {
+            GlImmutableBuffer buffer = commandList.createImmutableBuffer(capacity, STORAGE_FLAGS);
+            GlBufferMapping map = commandList.mapBuffer(buffer, 0, capacity, MAP_FLAGS);
+
+            return new MappedBuffer(buffer, map);
+        }
+
         public void delete(CommandList commandList) {
             commandList.unmap(this.map);
             commandList.deleteBuffer(this.buffer);
@@ -190,8 +342,14 @@ public class MappedStagingBuffer implements StagingBuffer {
 
     }
 
+    private record RetiredBuffer(MappedBuffer buffer, GlFence fence) {
+
+    }
+
     @Override
     public String toString() {
-        return "Mapped (%s/%s MiB)".formatted(MathUtil.toMib(this.remaining), MathUtil.toMib(this.capacity));
+        return "Mapped (%s/%s MiB, %s KiB/frame, F=%d B=%d)".formatted(
+                MathUtil.toMib(this.ring.getRemaining()), MathUtil.toMib(this.ring.getCapacity()),
+                this.lastFrameBytes / 1024L, this.lastFrameFallbackCount, this.lastFrameBlockedCount);
     }
 }
@@ -0,0 +1,241 @@
+package net.caffeinemc.mods.sodium.client.gl.arena.staging;
+
+import it.unimi.dsi.fastutil.PriorityQueue;
+import it.unimi.dsi.fastutil.ints.Int2IntRBTreeMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayFIFOQueue;
+import net.caffeinemc.mods.sodium.client.gl.buffer.*;
+import net.caffeinemc.mods.sodium.client.gl.device.CommandList;
+import net.caffeinemc.mods.sodium.client.gl.sync.GlFence;
+import net.caffeinemc.mods.sodium.client.gl.util.EnumBitField;
+import net.caffeinemc.mods.sodium.client.util.MathUtil;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A persistently mapped buffer which chunk build workers write finished meshes into, so that the main thread only
+ * needs to issue the copy into a region's arena instead of first copying each mesh into the staging buffer.
+ * <p>
+ * Space is allocated by the worker threads, and allocations are released either when the mesh is discarded without
+ * being uploaded, or by the main thread once the device has completed the copy from them. When the buffer is full,
+ * allocations fail and the workers fall back to writing the mesh into regular memory.
+ */
+public class MeshStagingBuffer {
+    private static final EnumBitField<GlBufferStorageFlags> STORAGE_FLAGS =
+            EnumBitField.of(GlBufferStorageFlags.PERSISTENT, GlBufferStorageFlags.CLIENT_STORAGE, GlBufferStorageFlags.MAP_WRITE);
+
+    private static final EnumBitField<GlBufferMapFlags> MAP_FLAGS =
+            EnumBitField.of(GlBufferMapFlags.PERSISTENT, GlBufferMapFlags.INVALIDATE_BUFFER, GlBufferMapFlags.WRITE, GlBufferMapFlags.EXPLICIT_FLUSH);
+
+    // Allocations are rounded up to this many bytes to limit the number of small free ranges
+    private static final int ALLOCATION_ALIGNMENT = 256;
+
+    private final GlImmutableBuffer buffer;
+    private final GlBufferMapping map;
+    private final long address;
+    private final int capacity;
+
+    // The free ranges of the buffer by their offset, which is accessed by the workers and the main thread
+    private final Int2IntRBTreeMap freeRanges = new Int2IntRBTreeMap();
+    private int used;
+
+    // The allocations which have been copied from since the last flush, and the allocations of earlier flushes which
+    // are released once their fence has been signaled
+    private final List<Allocation> copiedAllocations = new ArrayList<>();
+    private final PriorityQueue<FencedAllocations> fencedAllocations = new ObjectArrayFIFOQueue<>();
+
+    public MeshStagingBuffer(CommandList commandList, int capacity) {
+        this.buffer = commandList.createImmutableBuffer(capacity, STORAGE_FLAGS);
+        this.map = commandList.mapBuffer(this.buffer, 0, capacity, MAP_FLAGS);
+        this.address = MemoryUtil.memAddress(this.map.getMemoryBuffer());
+        this.capacity = capacity;
+
+        this.freeRanges.put(0, capacity);
+    }
+
+    /**
+     * Allocates space for a mesh of the given length. This can be called from any thread.
+     *
+     * @return The allocation, or null if there is no free range which is large enough
+     */
+    public Allocation allocate(int length) {
+        int allocatedLength = MathUtil.align(length, ALLOCATION_ALIGNMENT);
+
+        synchronized (this.freeRanges) {
+            for (var entry : this.freeRanges.int2IntEntrySet()) {
+                int offset = entry.getIntKey();
+                int rangeLength = entry.getIntValue();
+
+                if (rangeLength < allocatedLength) {
+                    continue;
+                }
+
+                this.freeRanges.remove(offset);
+
+                if (rangeLength > allocatedLength) {
+                    this.freeRanges.put(offset + allocatedLength, rangeLength - allocatedLength);
+                }
+
+                this.used += allocatedLength;
+
+                return new Allocation(offset, length, allocatedLength);
+            }
+        }
+
+        return null;
+    }
+
+    private void free(Allocation allocation) {
+        int offset = allocation.offset;
+        int length = allocation.allocatedLength;
+
+        synchronized (this.freeRanges) {
+            this.used -= length;
+
+            // Merge the range with the free ranges directly before and after it
+            var before = this.freeRanges.headMap(offset);
+
+            if (!before.isEmpty()) {
+                int beforeOffset = before.lastIntKey();
+                int beforeLength = this.freeRanges.get(beforeOffset);
+
+                if (beforeOffset + beforeLength == offset) {
+                    this.freeRanges.remove(beforeOffset);
+
+                    offset = beforeOffset;
+                    length += beforeLength;
+                }
+            }
+
+            int afterOffset = offset + length;
+
+            if (this.freeRanges.containsKey(afterOffset)) {
+                length += this.freeRanges.remove(afterOffset);
+            }
+
+            this.freeRanges.put(offset, length);
+        }
+    }
+
+    /**
+     * Creates a fence for the copies issued since the last flush, after which their allocations are released.
+     */
+    public void flush(CommandList commandList) {
+        if (this.copiedAllocations.isEmpty()) {
+            return;
+        }
+
+        this.fencedAllocations.enqueue(new FencedAllocations(commandList.createFence(), List.copyOf(this.copiedAllocations)));
+        this.copiedAllocations.clear();
+    }
+
+    /**
+     * Releases the allocations whose copies have completed on the device.
+     */
+    public void flip() {
+        while (!this.fencedAllocations.isEmpty()) {
+            var fenced = this.fencedAllocations.first();
+            var fence = fenced.fence();
+
+            if (!fence.isCompleted()) {
+                break;
+            }
+
+            fence.delete();
+
+            this.fencedAllocations.dequeue();
+
+            for (var allocation : fenced.allocations()) {
+                this.free(allocation);
+            }
+        }
+    }
+
+    public void delete(CommandList commandList) {
+        while (!this.fencedAllocations.isEmpty()) {
+            this.fencedAllocations.dequeue()
+                    .fence()
+                    .delete();
+        }
+
+        this.copiedAllocations.clear();
+
+        commandList.unmap(this.map);
+        commandList.deleteBuffer(this.buffer);
+    }
+
+    @Override
+    public String toString() {
+        return "%s/%s MiB".formatted(MathUtil.toMib(this.used), MathUtil.toMib(this.capacity));
+    }
+
+    /**
+     * The space of a single mesh in the buffer. The mesh data is written by the thread which allocated it, and then
+     * either copied by the main thread or released.
+     */
+    public final class Allocation {
+        private final int offset;
+        private final int length;
+        private final int allocatedLength;
+
+        private boolean copied;
+        private boolean released;
+
+        private Allocation(int offset, int length, int allocatedLength) {
+            this.offset = offset;
+            this.length = length;
+            this.allocatedLength = allocatedLength;
+        }
+
+        /**
+         * @return A view of the allocated memory to write the mesh data into
+         */
+        public ByteBuffer getBuffer() {
+            return MemoryUtil.memByteBuffer(MeshStagingBuffer.this.address + this.offset, this.length);
+        }
+
+        public int getLength() {
+            return this.length;
+        }
+
+        /**
+         * Issues the copy of the mesh data into the destination buffer. The allocation is released once the copy has
+         * completed, which makes calling {@link #release()} afterward unnecessary. This must be called from the main
+         * thread.
+         */
+        public void copyTo(CommandList commandList, GlBuffer dst, long writeOffset) {
+            if (this.copied || this.released) {
+                throw new IllegalStateException("Allocation has already been used");
+            }
+
+            var staging = MeshStagingBuffer.this;
+
+            commandList.flushMappedRange(staging.map, this.offset, this.length);
+            commandList.copyBufferSubData(staging.buffer, dst, this.offset, writeOffset, this.length);
+
+            staging.copiedAllocations.add(this);
+
+            this.copied = true;
+        }
+
+        /**
+         * Releases the allocation if it hasn't been copied from. Copied allocations are released once their copy has
+         * completed.
+         */
+        public void release() {
+            if (this.copied || this.released) {
+                return;
+            }
+
+            this.released = true;
+
+            MeshStagingBuffer.this.free(this);
+        }
+    }
+
+    private record FencedAllocations(GlFence fence, List<Allocation> allocations) {
+
+    }
+}
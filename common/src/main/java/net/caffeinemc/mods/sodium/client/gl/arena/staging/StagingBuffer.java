@@ -13,4 +13,9 @@ public interface StagingBuffer {
     void delete(CommandList commandList);
 
     void flip();
+
+    /**
+     * @return The number of bytes which can be enqueued before copies have to fall back to slower uploads
+     */
+    long getAvailableBytes();
 }
@@ -0,0 +1,132 @@
+package net.caffeinemc.mods.sodium.client.gl.arena.staging;
+
+/**
+ * The bookkeeping of a ring buffer used for staging uploads. Space is reserved for the data of the current frame,
+ * committed as one region when the frame's copies are submitted, and released once the copies of that region have
+ * completed on the device. The ring doesn't own or access any device memory, so it can be used without a device.
+ *
+ * <p>There are no unit tests in this project, so the invariants of the ring are instead checked after every change
+ * when {@link #CHECK_ASSERTIONS} is enabled, in the same way as those of the buffer arenas.</p>
+ */
+final class StagingRing {
+    static final boolean CHECK_ASSERTIONS = false;
+
+    private final int capacity;
+
+    // The start of the uncommitted data, and the position where the next reservation starts
+    private int start = 0;
+    private int pos = 0;
+
+    private int pending = 0;
+    private int remaining;
+
+    StagingRing(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+
+        this.capacity = capacity;
+        this.remaining = capacity;
+    }
+
+    /**
+     * Reserves space for the given number of bytes. The reserved space starts at the returned offset and wraps around
+     * to the start of the ring if it doesn't fit before the end.
+     *
+     * @throws IllegalStateException If there is not enough free space in the ring
+     */
+    int reserve(int length) {
+        if (length > this.remaining) {
+            throw new IllegalStateException("Not enough free space in ring (requested=%d, remaining=%d)"
+                    .formatted(length, this.remaining));
+        }
+
+        int offset = this.pos;
+
+        this.pos = (offset + length) % this.capacity;
+        this.pending += length;
+        this.remaining -= length;
+
+        this.checkAssertions();
+
+        return offset;
+    }
+
+    /**
+     * Commits the space reserved since the last commit as one region.
+     *
+     * @return The length of the committed region, which needs to be released once it is no longer in use
+     */
+    int commit() {
+        int length = this.pending;
+
+        this.start = this.pos;
+        this.pending = 0;
+
+        this.checkAssertions();
+
+        return length;
+    }
+
+    /**
+     * Releases the oldest committed region, which makes its space available to reservations again.
+     */
+    void release(int length) {
+        if (this.remaining + length > this.capacity) {
+            throw new IllegalStateException("Released more space than was committed");
+        }
+
+        this.remaining += length;
+
+        this.checkAssertions();
+    }
+
+    /**
+     * @return The offset of the space reserved since the last commit
+     */
+    int getPendingStart() {
+        return this.start;
+    }
+
+    /**
+     * @return The length of the space reserved since the last commit
+     */
+    int getPendingLength() {
+        return this.pending;
+    }
+
+    int getRemaining() {
+        return this.remaining;
+    }
+
+    int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * @return The number of bytes which are reserved or still in use by uncompleted copies
+     */
+    int getUsed() {
+        return this.capacity - this.remaining;
+    }
+
+    private void checkAssertions() {
+        if (CHECK_ASSERTIONS) {
+            this.checkAssertions0();
+        }
+    }
+
+    private void checkAssertions0() {
+        if (this.remaining < 0 || this.remaining > this.capacity) {
+            throw new IllegalStateException("ring.remaining out of bounds: failure to track");
+        }
+
+        if (this.pending < 0 || this.pending > this.capacity - this.remaining) {
+            throw new IllegalStateException("ring.pending > ring.used: reserved space was released early");
+        }
+
+        if ((this.start + this.pending) % this.capacity != this.pos) {
+            throw new IllegalStateException("ring.start + ring.pending != ring.pos: failure to track");
+        }
+    }
+}
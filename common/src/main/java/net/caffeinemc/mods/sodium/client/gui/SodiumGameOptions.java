@@ -5,6 +5,7 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.annotations.SerializedName;
 import net.caffeinemc.mods.sodium.client.gui.options.TextProvider;
+import net.caffeinemc.mods.sodium.client.render.chunk.occlusion.OcclusionCullingMode;
 import net.caffeinemc.mods.sodium.client.services.PlatformRuntimeInformation;
 import net.caffeinemc.mods.sodium.client.util.FileUtil;
 import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.SortBehavior;
@@ -46,6 +47,23 @@ public class SodiumGameOptions {
         public boolean useBlockFaceCulling = true;
         public boolean useNoErrorGLContext = true;
 
+        // The time in milliseconds which uploading chunk meshes should take up each frame
+        public float chunkUploadTimeSlice = 2.0f;
+
+        // Whether the visibility search is spread across multiple threads
+        public OcclusionCullingMode occlusionCullingMode = OcclusionCullingMode.SERIAL;
+
+        // Whether changed sections only update the affected part of the visibility graph while the camera stands still
+        public boolean useIncrementalGraphUpdates = true;
+
+        // The amount of memory in KiB which may be moved each frame to defragment the chunk geometry buffers, or zero
+        // to only defragment them when they are resized
+        public int arenaCompactionBudget = 1024;
+
+        // Whether identical coplanar faces of full blocks are merged into larger quads, which reduces the geometry of
+        // flat terrain. The merged quads repeat their texture in the shader, which shader packs don't support.
+        public boolean useGreedyFaceMerging = false;
+
         @SerializedName("sorting_enabled_v2") // reset the older option in configs before we started hiding it
         public boolean sortingEnabled = true;
 
@@ -58,6 +76,21 @@ public class SodiumGameOptions {
         public boolean enableMemoryTracing = false;
         public boolean useAdvancedStagingBuffers = true;
 
+        // Lets the chunk build workers write finished meshes into mapped staging memory (of the given size in MiB),
+        // which saves copying each mesh on the main thread during upload. The mesh cache is disabled while this is in
+        // use, since the meshes can't be read back from the staging memory
+        public boolean useMeshStagingBuffer = false;
+        public int meshStagingBufferSize = 32;
+
+        // Writes the renderer's metrics to a file in the log directory once per second, for analyzing them offline
+        public boolean enableMetricsExport = false;
+
+        // Stores the meshes of sections on disk (up to the given size in MiB), so that sections which haven't changed
+        // since they were last built don't need to be meshed again when they are loaded. This has no effect while the
+        // mesh staging buffer is in use
+        public boolean enableMeshDiskCache = false;
+        public int meshDiskCacheSize = 256;
+
         public int cpuRenderAheadLimit = 3;
     }
 
@@ -0,0 +1,24 @@
+package net.caffeinemc.mods.sodium.client.model;
+
+import net.minecraft.client.resources.model.BakedModel;
+import net.minecraft.util.RandomSource;
+import net.minecraft.util.random.WeightedEntry;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+public interface WeightedBakedModelExtension {
+    /**
+     * Returns the variant which the model renders for the given random source, which is the same variant that the
+     * model's quads are taken from when it is passed a random source in the same state.
+     *
+     * @return The chosen variant, or null if the model has no variants
+     */
+    @Nullable
+    BakedModel sodium$getVariant(RandomSource random);
+
+    /**
+     * Returns all the variants which the model can render, along with their weights.
+     */
+    List<WeightedEntry.Wrapper<BakedModel>> sodium$getVariants();
+}
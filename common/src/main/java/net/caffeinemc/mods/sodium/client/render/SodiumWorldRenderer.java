@@ -21,6 +21,9 @@ import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.trigge
 import net.caffeinemc.mods.sodium.client.render.viewport.Viewport;
 import net.caffeinemc.mods.sodium.client.services.PlatformBlockAccess;
 import net.caffeinemc.mods.sodium.client.util.NativeBuffer;
+import net.caffeinemc.mods.sodium.client.util.metrics.Histogram;
+import net.caffeinemc.mods.sodium.client.util.metrics.MetricsExporter;
+import net.caffeinemc.mods.sodium.client.util.metrics.MetricsRegistry;
 import net.caffeinemc.mods.sodium.client.world.LevelRendererExtension;
 import net.caffeinemc.mods.sodium.mixin.core.render.world.EntityRendererAccessor;
 import net.minecraft.client.Camera;
@@ -57,6 +60,10 @@ import java.util.function.Consumer;
  * Provides an extension to vanilla's {@link LevelRenderer}.
  */
 public class SodiumWorldRenderer {
+    // The metrics are exported across levels, so there is only one exporter
+    private static final MetricsExporter METRICS_EXPORTER = new MetricsExporter(MetricsRegistry.INSTANCE);
+    private static final Histogram FRAME_TIME = MetricsRegistry.INSTANCE.histogram("frame.time_us");
+
     private final Minecraft client;
 
     private ClientLevel level;
@@ -68,6 +75,7 @@ public class SodiumWorldRenderer {
     private Matrix4f lastProjectionMatrix;
 
     private boolean useEntityCulling;
+    private long lastFrameTime = -1;
 
     private RenderSectionManager renderSectionManager;
 
@@ -168,6 +176,16 @@ public class SodiumWorldRenderer {
                              boolean updateChunksImmediately) {
         NativeBuffer.reclaim(false);
 
+        long frameTime = System.nanoTime();
+
+        if (this.lastFrameTime != -1) {
+            FRAME_TIME.record((frameTime - this.lastFrameTime) / 1000L);
+        }
+
+        this.lastFrameTime = frameTime;
+
+        METRICS_EXPORTER.tick(SodiumClientMod.options().advanced.enableMetricsExport);
+
         this.processChunkEvents();
 
         this.useEntityCulling = SodiumClientMod.options().performance.useEntityCulling;
@@ -0,0 +1,75 @@
+package net.caffeinemc.mods.sodium.client.render.chunk;
+
+import net.caffeinemc.mods.sodium.client.util.metrics.Counter;
+import net.caffeinemc.mods.sodium.client.util.metrics.Gauge;
+import net.caffeinemc.mods.sodium.client.util.metrics.Histogram;
+import net.caffeinemc.mods.sodium.client.util.metrics.MetricsRegistry;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The metrics of the chunk rendering pipeline, from scheduling the build tasks to uploading and rendering their
+ * results. Gauges are updated by the render thread once per frame.
+ */
+public class ChunkPipelineMetrics {
+    private static final MetricsRegistry REGISTRY = MetricsRegistry.INSTANCE;
+
+    // Cached so that updating the metrics doesn't allocate a copy every frame
+    private static final ChunkUpdateType[] UPDATE_TYPES = ChunkUpdateType.values();
+
+    // The time from a task being scheduled until it has finished executing, for each update type
+    private static final Histogram[] BUILD_LATENCY = new Histogram[UPDATE_TYPES.length];
+
+    // The number of sections waiting to be scheduled, for each update type
+    private static final Gauge[] PENDING_TASKS = new Gauge[UPDATE_TYPES.length];
+
+    static {
+        for (var type : UPDATE_TYPES) {
+            var name = type.name().toLowerCase(Locale.ROOT);
+
+            BUILD_LATENCY[type.ordinal()] = REGISTRY.histogram("chunk.build.latency_us." + name);
+            PENDING_TASKS[type.ordinal()] = REGISTRY.gauge("chunk.tasks.pending." + name);
+        }
+    }
+
+    public static final Gauge BUILD_QUEUE_JOBS = REGISTRY.gauge("chunk.build.queued_jobs");
+    public static final Gauge BUILD_BUSY_THREADS = REGISTRY.gauge("chunk.build.busy_threads");
+
+    public static final Gauge UPLOAD_QUEUE_RESULTS = REGISTRY.gauge("chunk.upload.queued_results");
+    public static final Counter UPLOAD_BYTES = REGISTRY.counter("chunk.upload.bytes");
+    public static final Histogram UPLOAD_BYTES_PER_FRAME = REGISTRY.histogram("chunk.upload.frame_bytes");
+
+    public static final Gauge GEOMETRY_ARENA_USED = REGISTRY.gauge("chunk.arena.geometry.used_bytes");
+    public static final Gauge GEOMETRY_ARENA_ALLOCATED = REGISTRY.gauge("chunk.arena.geometry.allocated_bytes");
+    public static final Gauge INDEX_ARENA_USED = REGISTRY.gauge("chunk.arena.index.used_bytes");
+    public static final Gauge INDEX_ARENA_ALLOCATED = REGISTRY.gauge("chunk.arena.index.allocated_bytes");
+
+    // The block faces which were merged into larger quads, and the quads which they were merged into
+    public static final Counter MERGED_FACES = REGISTRY.counter("chunk.build.merged_faces");
+    public static final Counter MERGED_QUADS = REGISTRY.counter("chunk.build.merged_quads");
+
+    // The sections which were made of a single block state, and took the fast path when being meshed
+    public static final Counter UNIFORM_SECTIONS = REGISTRY.counter("chunk.build.uniform_sections");
+
+    // The meshing tasks which were answered by the mesh cache on disk, and the tasks which had to build their meshes
+    public static final Counter MESH_CACHE_HITS = REGISTRY.counter("chunk.build.disk_cache.hits");
+    public static final Counter MESH_CACHE_MISSES = REGISTRY.counter("chunk.build.disk_cache.misses");
+
+    public static final Counter SORT_TRIGGERS_GFNI = REGISTRY.counter("chunk.sort.triggers.gfni");
+    public static final Counter SORT_TRIGGERS_DIRECT = REGISTRY.counter("chunk.sort.triggers.direct");
+
+    public static final Histogram OCCLUSION_SEARCH_TIME = REGISTRY.histogram("chunk.occlusion.search_time_us");
+    public static final Gauge VISIBLE_SECTIONS = REGISTRY.gauge("chunk.occlusion.visible_sections");
+
+    public static Histogram getBuildLatency(ChunkUpdateType type) {
+        return BUILD_LATENCY[type.ordinal()];
+    }
+
+    public static void updatePendingTasks(Map<ChunkUpdateType, ArrayDeque<RenderSection>> taskLists) {
+        for (var type : UPDATE_TYPES) {
+            PENDING_TASKS[type.ordinal()].set(taskLists.get(type).size());
+        }
+    }
+}
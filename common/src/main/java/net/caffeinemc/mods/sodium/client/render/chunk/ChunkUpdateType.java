@@ -37,6 +37,10 @@ public enum ChunkUpdateType {
         return this == IMPORTANT_REBUILD || this == IMPORTANT_SORT;
     }
 
+    /**
+     * Returns the effort category of this update's task. The actual effort of a task in this category is given by
+     * {@link ChunkBuilder#getTaskEffort(int)}.
+     */
     public int getTaskEffort() {
         return this.taskEffort;
     }
@@ -27,12 +27,8 @@ public class RenderSection {
     private final int chunkX, chunkY, chunkZ;
 
     // Occlusion Culling State
-    private long visibilityData = VisibilityEncoding.NULL;
-
-    private int incomingDirections;
-    private int lastVisibleFrame = -1;
-
-    private int adjacentMask;
+    // The visibility data, adjacent mask, incoming and outgoing directions and last visible and visited frames are
+    // stored by the region, so that the graph search can access them without going through the section
     public RenderSection
             adjacentDown,
             adjacentUp,
@@ -91,12 +87,16 @@ public class RenderSection {
     }
 
     public void setAdjacentNode(int direction, RenderSection node) {
+        int adjacentMask = this.getAdjacentMask();
+
         if (node == null) {
-            this.adjacentMask &= ~GraphDirectionSet.of(direction);
+            adjacentMask &= ~GraphDirectionSet.of(direction);
         } else {
-            this.adjacentMask |= GraphDirectionSet.of(direction);
+            adjacentMask |= GraphDirectionSet.of(direction);
         }
 
+        this.region.setSectionAdjacentMask(this.sectionIndex, adjacentMask);
+
         switch (direction) {
             case GraphDirection.DOWN -> this.adjacentDown = node;
             case GraphDirection.UP -> this.adjacentUp = node;
@@ -109,7 +109,7 @@ public class RenderSection {
     }
 
     public int getAdjacentMask() {
-        return this.adjacentMask;
+        return this.region.getSectionAdjacentMask(this.sectionIndex);
     }
 
     public TranslucentData getTranslucentData() {
@@ -150,11 +150,11 @@ public class RenderSection {
     private boolean setRenderState(@NotNull BuiltSectionInfo info) {
         var prevBuilt = this.built;
         var prevFlags = this.flags;
-        var prevVisibilityData = this.visibilityData;
+        var prevVisibilityData = this.getVisibilityData();
 
         this.built = true;
         this.flags = info.flags;
-        this.visibilityData = info.visibilityData;
+        this.region.setSectionVisibilityData(this.sectionIndex, info.visibilityData);
 
         this.globalBlockEntities = info.globalBlockEntities;
         this.culledBlockEntities = info.culledBlockEntities;
@@ -162,7 +162,7 @@ public class RenderSection {
 
         // the section is marked as having received graph-relevant changes if it's build state, flags, or connectedness has changed.
         // the entities and sprites don't need to be checked since whether they exist is encoded in the flags.
-        return !prevBuilt || prevFlags != this.flags || prevVisibilityData != this.visibilityData;
+        return !prevBuilt || prevFlags != this.flags || prevVisibilityData != info.visibilityData;
     }
 
     private boolean clearRenderState() {
@@ -170,7 +170,7 @@ public class RenderSection {
 
         this.built = false;
         this.flags = RenderSectionFlags.NONE;
-        this.visibilityData = VisibilityEncoding.NULL;
+        this.region.setSectionVisibilityData(this.sectionIndex, VisibilityEncoding.NULL);
         this.globalBlockEntities = null;
         this.culledBlockEntities = null;
         this.animatedSprites = null;
@@ -284,23 +284,47 @@ public class RenderSection {
     }
 
     public void setLastVisibleFrame(int frame) {
-        this.lastVisibleFrame = frame;
+        this.region.setSectionLastVisibleFrame(this.sectionIndex, frame);
     }
 
     public int getLastVisibleFrame() {
-        return this.lastVisibleFrame;
+        return this.region.getSectionLastVisibleFrame(this.sectionIndex);
+    }
+
+    public void setLastVisitedFrame(int frame) {
+        this.region.setSectionLastVisitedFrame(this.sectionIndex, frame);
+    }
+
+    /**
+     * Returns the last frame in which this section was passed to the visitor of the graph search. Unlike the last
+     * visible frame, this excludes sections which were reached by the search but are outside the frustum.
+     */
+    public int getLastVisitedFrame() {
+        return this.region.getSectionLastVisitedFrame(this.sectionIndex);
     }
 
     public int getIncomingDirections() {
-        return this.incomingDirections;
+        return this.region.getSectionIncomingDirections(this.sectionIndex);
     }
 
     public void addIncomingDirections(int directions) {
-        this.incomingDirections |= directions;
+        this.region.addSectionIncomingDirections(this.sectionIndex, directions);
     }
 
     public void setIncomingDirections(int directions) {
-        this.incomingDirections = directions;
+        this.region.setSectionIncomingDirections(this.sectionIndex, directions);
+    }
+
+    /**
+     * Returns the directions in which the graph search left this section during the last search, before being masked
+     * by the neighbors which are present.
+     */
+    public int getOutgoingDirections() {
+        return this.region.getSectionOutgoingDirections(this.sectionIndex);
+    }
+
+    public void setOutgoingDirections(int directions) {
+        this.region.setSectionOutgoingDirections(this.sectionIndex, directions);
     }
 
     /**
@@ -314,7 +338,7 @@ public class RenderSection {
      * Returns the occlusion culling data which determines this chunk's connectedness on the visibility graph.
      */
     public long getVisibilityData() {
-        return this.visibilityData;
+        return this.region.getSectionVisibilityData(this.sectionIndex);
     }
 
     /**
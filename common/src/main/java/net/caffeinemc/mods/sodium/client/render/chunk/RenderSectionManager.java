@@ -5,6 +5,7 @@ import it.unimi.dsi.fastutil.longs.Long2ReferenceMap;
 import it.unimi.dsi.fastutil.longs.Long2ReferenceMaps;
 import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Reference2ReferenceLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceArrayList;
 import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import it.unimi.dsi.fastutil.objects.ReferenceSet;
 import it.unimi.dsi.fastutil.objects.ReferenceSets;
@@ -15,6 +16,7 @@ import net.caffeinemc.mods.sodium.client.render.chunk.compile.BuilderTaskOutput;
 import net.caffeinemc.mods.sodium.client.render.chunk.compile.ChunkBuildOutput;
 import net.caffeinemc.mods.sodium.client.render.chunk.compile.ChunkSortOutput;
 import net.caffeinemc.mods.sodium.client.render.chunk.compile.executor.ChunkBuilder;
+import net.caffeinemc.mods.sodium.client.render.chunk.compile.executor.ChunkJob;
 import net.caffeinemc.mods.sodium.client.render.chunk.compile.executor.ChunkJobResult;
 import net.caffeinemc.mods.sodium.client.render.chunk.compile.executor.ChunkJobCollector;
 import net.caffeinemc.mods.sodium.client.render.chunk.compile.tasks.ChunkBuilderMeshingTask;
@@ -26,6 +28,7 @@ import net.caffeinemc.mods.sodium.client.render.chunk.lists.SortedRenderLists;
 import net.caffeinemc.mods.sodium.client.render.chunk.lists.VisibleChunkCollector;
 import net.caffeinemc.mods.sodium.client.render.chunk.occlusion.GraphDirection;
 import net.caffeinemc.mods.sodium.client.render.chunk.occlusion.OcclusionCuller;
+import net.caffeinemc.mods.sodium.client.render.chunk.occlusion.OcclusionCullingMode;
 import net.caffeinemc.mods.sodium.client.render.chunk.region.RenderRegion;
 import net.caffeinemc.mods.sodium.client.render.chunk.region.RenderRegionManager;
 import net.caffeinemc.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
@@ -72,14 +75,23 @@ public class RenderSectionManager {
 
     private final ConcurrentLinkedDeque<ChunkJobResult<? extends BuilderTaskOutput>> buildResults = new ConcurrentLinkedDeque<>();
 
+    // Results which didn't fit into the staging buffer, and are uploaded before any new results in the next frame
+    private final ArrayList<BuilderTaskOutput> deferredUploads = new ArrayList<>();
+
     private final ChunkRenderer chunkRenderer;
 
     private final ClientLevel level;
 
     private final ReferenceSet<RenderSection> sectionsWithGlobalEntities = new ReferenceOpenHashSet<>();
 
-    private final OcclusionCuller occlusionCuller;
+    // Sections whose connectedness in the visibility graph may have changed since the last graph update, including
+    // added sections, removed sections and the neighbors of removed sections
+    private final ReferenceSet<RenderSection> graphChangedSections = new ReferenceOpenHashSet<>();
 
+    // Sections which have received a new pending update since the last graph update
+    private final ReferenceSet<RenderSection> updateChangedSections = new ReferenceOpenHashSet<>();
+
+    private final OcclusionCuller occlusionCuller;
     private final int renderDistance;
 
     private final SortTriggering sortTriggering;
@@ -92,8 +104,25 @@ public class RenderSectionManager {
     @NotNull
     private Map<ChunkUpdateType, ArrayDeque<RenderSection>> taskLists;
 
+    private final ArrayList<DeferredJob> deferredJobs = new ArrayList<>();
+
     private int lastUpdatedFrame;
 
+    // The frame in which the visibility graph was last searched in full
+    private int lastSearchFrame;
+
+    private @Nullable SectionPos lastCameraSectionPos;
+    private long viewIncompleteSince = System.nanoTime();
+    private long lastViewCompletionTime = -1;
+
+    // The visited sections which haven't been built yet, which are only tracked while the view is incomplete
+    private final ReferenceOpenHashSet<RenderSection> unbuiltVisibleSections = new ReferenceOpenHashSet<>();
+
+    // Reused by each incremental update of the visibility graph
+    private final ReferenceArrayList<RenderSection> visibilityChangedSections = new ReferenceArrayList<>();
+    private final ReferenceOpenHashSet<RenderRegion> visibilityChangedRegions = new ReferenceOpenHashSet<>();
+    private final OcclusionCuller.Visitor visibilityChangedVisitor = this.visibilityChangedSections::add;
+
     private boolean needsGraphUpdate;
 
     private @Nullable BlockPos cameraBlockPos;
@@ -103,14 +132,14 @@ public class RenderSectionManager {
         this.chunkRenderer = new DefaultChunkRenderer(RenderDevice.INSTANCE, ChunkMeshFormats.COMPACT);
 
         this.level = level;
-        this.builder = new ChunkBuilder(level, ChunkMeshFormats.COMPACT);
+        this.regions = new RenderRegionManager(commandList);
+        this.builder = new ChunkBuilder(level, ChunkMeshFormats.COMPACT, this.regions.getMeshStagingBuffer());
 
         this.needsGraphUpdate = true;
         this.renderDistance = renderDistance;
 
         this.sortTriggering = new SortTriggering();
 
-        this.regions = new RenderRegionManager(commandList);
         this.sectionCache = new ClonedChunkSectionCache(this.level);
 
         this.renderLists = SortedRenderLists.empty();
@@ -131,11 +160,40 @@ public class RenderSectionManager {
     public void update(Camera camera, Viewport viewport, boolean spectator) {
         this.lastUpdatedFrame += 1;
 
-        this.createTerrainRenderList(camera, viewport, this.lastUpdatedFrame, spectator);
+        this.checkForTeleport(viewport.getChunkCoord());
+
+        if (this.needsGraphUpdate || !this.updateTerrainRenderList(viewport)) {
+            this.lastSearchFrame = this.lastUpdatedFrame;
+            this.createTerrainRenderList(camera, viewport, this.lastSearchFrame, spectator);
+        }
+
+        this.cancelInvisibleDeferredJobs(this.lastSearchFrame);
 
+        ChunkPipelineMetrics.VISIBLE_SECTIONS.set(this.getVisibleChunkCount());
+
+        this.graphChangedSections.clear();
+        this.updateChangedSections.clear();
         this.needsGraphUpdate = false;
     }
 
+    private static final int TELEPORT_SECTION_DISTANCE = 8;
+
+    private void checkForTeleport(SectionPos cameraSectionPos) {
+        var last = this.lastCameraSectionPos;
+        this.lastCameraSectionPos = cameraSectionPos;
+
+        if (last == null) {
+            return;
+        }
+
+        var distance = Math.max(Math.abs(last.getX() - cameraSectionPos.getX()),
+                Math.max(Math.abs(last.getY() - cameraSectionPos.getY()), Math.abs(last.getZ() - cameraSectionPos.getZ())));
+
+        if (distance >= TELEPORT_SECTION_DISTANCE) {
+            this.viewIncompleteSince = System.nanoTime();
+        }
+    }
+
     private void createTerrainRenderList(Camera camera, Viewport viewport, int frame, boolean spectator) {
         this.resetRenderLists();
 
@@ -144,10 +202,129 @@ public class RenderSectionManager {
 
         var visitor = new VisibleChunkCollector(frame);
 
-        this.occlusionCuller.findVisible(visitor, viewport, searchDistance, useOcclusionCulling, frame);
+        var cullingMode = SodiumClientMod.options().performance.occlusionCullingMode;
+        long searchStart = System.nanoTime();
+
+        this.occlusionCuller.findVisible(visitor, viewport, searchDistance, useOcclusionCulling, frame,
+                cullingMode == OcclusionCullingMode.PARALLEL);
+
+        ChunkPipelineMetrics.OCCLUSION_SEARCH_TIME.record((System.nanoTime() - searchStart) / 1000L);
 
         this.renderLists = visitor.createRenderLists(viewport);
-        this.taskLists = visitor.getRebuildLists();
+        this.taskLists = visitor.createRebuildLists(viewport);
+
+        if (this.viewIncompleteSince != -1) {
+            this.unbuiltVisibleSections.clear();
+            this.unbuiltVisibleSections.addAll(visitor.getUnbuiltSections());
+
+            this.checkViewCompletion();
+        }
+    }
+
+    // Measures the time from the camera arriving somewhere new until every visible section has been built
+    private void checkViewCompletion() {
+        if (this.unbuiltVisibleSections.isEmpty()) {
+            this.lastViewCompletionTime = System.nanoTime() - this.viewIncompleteSince;
+            this.viewIncompleteSince = -1;
+        }
+    }
+
+    // If more sections than this have changed, patching the render lists costs about as much as searching the graph
+    private static final int MAX_INCREMENTAL_UPDATE_SECTIONS = 512;
+
+    /**
+     * Updates the render lists and rebuild lists in place when sections have changed but the camera hasn't moved, by
+     * only searching the part of the visibility graph which is affected by the changed sections. Returns false if the
+     * graph needs to be searched in full instead. Any change of the camera marks the graph as dirty, which always
+     * causes a full search, so this is only called while the camera and the frustum are unchanged.
+     */
+    private boolean updateTerrainRenderList(Viewport viewport) {
+        if (!SodiumClientMod.options().performance.useIncrementalGraphUpdates ||
+                this.graphChangedSections.size() > MAX_INCREMENTAL_UPDATE_SECTIONS) {
+            return false;
+        }
+
+        var frame = this.lastSearchFrame;
+        var changedSections = this.visibilityChangedSections;
+        changedSections.clear();
+
+        if (!this.occlusionCuller.updateVisible(this.graphChangedSections, this.visibilityChangedVisitor)) {
+            return false;
+        }
+
+        changedSections.addAll(this.graphChangedSections);
+
+        var regions = this.visibilityChangedRegions;
+        regions.clear();
+
+        for (var section : changedSections) {
+            var region = section.getRegion();
+
+            if (region != null) {
+                regions.add(region);
+            }
+        }
+
+        this.renderLists = VisibleChunkCollector.patchRenderLists(this.renderLists, regions, viewport, frame);
+
+        changedSections.addAll(this.updateChangedSections);
+
+        VisibleChunkCollector.patchRebuildLists(this.taskLists, changedSections, viewport, frame);
+
+        if (this.viewIncompleteSince != -1) {
+            for (var section : changedSections) {
+                if (!section.isDisposed() && !section.isBuilt() && section.getLastVisitedFrame() == frame) {
+                    this.unbuiltVisibleSections.add(section);
+                } else {
+                    this.unbuiltVisibleSections.remove(section);
+                }
+            }
+
+            this.checkViewCompletion();
+        }
+
+        changedSections.clear();
+        regions.clear();
+
+        return true;
+    }
+
+    /**
+     * Cancels deferred jobs which haven't started yet if their section was not visited by the last graph update, so
+     * that they don't take up builder capacity which is needed by the visible sections. Sections which the search
+     * reached but which are outside the frustum, such as those behind the camera, are not visited and so are cancelled
+     * as well. The pending update of each cancelled section is restored so that it is scheduled again once it becomes
+     * visible.
+     */
+    private void cancelInvisibleDeferredJobs(int frame) {
+        var it = this.deferredJobs.iterator();
+
+        while (it.hasNext()) {
+            var entry = it.next();
+            var section = entry.section();
+            var job = entry.job();
+
+            // the job is no longer queued or has been superseded by a newer one
+            if (job.isStarted() || job.isCancelled() || section.isDisposed() || section.getTaskCancellationToken() != job) {
+                it.remove();
+                continue;
+            }
+
+            if (section.getLastVisitedFrame() == frame) {
+                continue;
+            }
+
+            it.remove();
+
+            if (this.builder.tryCancelJob(job)) {
+                section.setTaskCancellationToken(null);
+
+                var pendingUpdate = ChunkUpdateType.getPromotionUpdateType(section.getPendingUpdate(), entry.type());
+                if (pendingUpdate != null) {
+                    section.setPendingUpdate(pendingUpdate);
+                }
+            }
+        }
     }
 
     private float getSearchDistance() {
@@ -209,8 +386,8 @@ public class RenderSectionManager {
 
         this.connectNeighborNodes(renderSection);
 
-        // force update to schedule build task
-        this.needsGraphUpdate = true;
+        // update the graph around the section and schedule its build task
+        this.graphChangedSections.add(renderSection);
     }
 
     public void onSectionRemoved(int x, int y, int z) {
@@ -231,13 +408,22 @@ public class RenderSectionManager {
             region.removeSection(section);
         }
 
+        // the search may have passed through the section to reach its neighbors
+        for (int direction = 0; direction < GraphDirection.COUNT; direction++) {
+            RenderSection adj = section.getAdjacent(direction);
+
+            if (adj != null) {
+                this.graphChangedSections.add(adj);
+            }
+        }
+
         this.disconnectNeighborNodes(section);
         this.updateSectionInfo(section, null);
 
         section.delete();
 
-        // force update to remove section from render lists
-        this.needsGraphUpdate = true;
+        // update the graph to remove section from render lists
+        this.graphChangedSections.add(section);
     }
 
     public void renderLayer(ChunkRenderMatrices matrices, TerrainRenderPass pass, double x, double y, double z) {
@@ -289,37 +475,64 @@ public class RenderSectionManager {
             return false;
         }
 
-        return render.getLastVisibleFrame() == this.lastUpdatedFrame;
+        return render.getLastVisibleFrame() == this.lastSearchFrame;
     }
 
     public void uploadChunks() {
         var results = this.collectChunkBuildResults();
 
         if (results.isEmpty()) {
+            ChunkPipelineMetrics.UPLOAD_BYTES_PER_FRAME.record(0);
             return;
         }
 
-        // only mark as needing a graph update if the uploads could have changed the graph
+        // only the sections whose uploads could have changed the graph are updated
         // (sort results never change the graph)
-        // generally there's no sort results without a camera movement, which would also trigger
-        // a graph update, but it can sometimes happen because of async task execution
-        this.needsGraphUpdate |= this.processChunkBuildResults(results);
+        var deferred = this.processChunkBuildResults(results);
 
         for (var result : results) {
-            result.destroy();
+            if (deferred.contains(result)) {
+                this.deferredUploads.add(result);
+            } else {
+                result.destroy();
+            }
         }
     }
 
-    private boolean processChunkBuildResults(ArrayList<BuilderTaskOutput> results) {
+    /**
+     * @return The results which were deferred to a later frame, and must not be destroyed yet
+     */
+    private ReferenceSet<BuilderTaskOutput> processChunkBuildResults(ArrayList<BuilderTaskOutput> results) {
         var filtered = filterChunkBuildResults(results);
 
-        this.regions.uploadResults(RenderDevice.INSTANCE.createCommandList(), filtered);
+        var regions = this.regions;
+        long meshCount = regions.getUploadedMeshCount();
+        long meshBytes = regions.getUploadedMeshBytes();
+        long sortCount = regions.getUploadedSortCount();
+        long sortBytes = regions.getUploadedSortBytes();
+        long uploadStart = System.nanoTime();
+
+        var deferred = new ReferenceOpenHashSet<>(regions.uploadResults(RenderDevice.INSTANCE.createCommandList(), filtered));
+
+        this.builder.getBudget().recordUploads(
+                (int) (regions.getUploadedMeshCount() - meshCount), regions.getUploadedMeshBytes() - meshBytes,
+                (int) (regions.getUploadedSortCount() - sortCount), regions.getUploadedSortBytes() - sortBytes,
+                System.nanoTime() - uploadStart);
+
+        long uploadedBytes = (regions.getUploadedMeshBytes() - meshBytes) + (regions.getUploadedSortBytes() - sortBytes);
+        ChunkPipelineMetrics.UPLOAD_BYTES.add(uploadedBytes);
+        ChunkPipelineMetrics.UPLOAD_BYTES_PER_FRAME.record(uploadedBytes);
 
-        boolean touchedSectionInfo = false;
         for (var result : filtered) {
+            if (deferred.contains(result)) {
+                continue;
+            }
+
             TranslucentData oldData = result.render.getTranslucentData();
             if (result instanceof ChunkBuildOutput chunkBuildOutput) {
-                touchedSectionInfo |= this.updateSectionInfo(result.render, chunkBuildOutput.info);
+                if (this.updateSectionInfo(result.render, chunkBuildOutput.info)) {
+                    this.graphChangedSections.add(result.render);
+                }
 
                 if (chunkBuildOutput.translucentData != null) {
                     this.sortTriggering.integrateTranslucentData(oldData, chunkBuildOutput.translucentData, this.cameraPosition, this::scheduleSort);
@@ -344,7 +557,7 @@ public class RenderSectionManager {
             result.render.setLastUploadFrame(result.submitTime);
         }
 
-        return touchedSectionInfo;
+        return deferred;
     }
 
     private boolean updateSectionInfo(RenderSection render, BuiltSectionInfo info) {
@@ -378,7 +591,9 @@ public class RenderSectionManager {
     }
 
     private ArrayList<BuilderTaskOutput> collectChunkBuildResults() {
-        ArrayList<BuilderTaskOutput> results = new ArrayList<>();
+        ArrayList<BuilderTaskOutput> results = new ArrayList<>(this.deferredUploads);
+        this.deferredUploads.clear();
+
         ChunkJobResult<? extends BuilderTaskOutput> result;
 
         while ((result = this.buildResults.poll()) != null) {
@@ -391,9 +606,44 @@ public class RenderSectionManager {
     public void cleanupAndFlip() {
         this.sectionCache.cleanup();
         this.regions.update();
+
+        this.updateMetrics();
+    }
+
+    private void updateMetrics() {
+        long geometryUsed = 0;
+        long geometryAllocated = 0;
+        long indexUsed = 0;
+        long indexAllocated = 0;
+
+        for (var region : this.regions.getLoadedRegions()) {
+            var resources = region.getResources();
+
+            if (resources == null) {
+                continue;
+            }
+
+            geometryUsed += resources.getGeometryArena().getDeviceUsedMemory();
+            geometryAllocated += resources.getGeometryArena().getDeviceAllocatedMemory();
+            indexUsed += resources.getIndexArena().getDeviceUsedMemory();
+            indexAllocated += resources.getIndexArena().getDeviceAllocatedMemory();
+        }
+
+        ChunkPipelineMetrics.GEOMETRY_ARENA_USED.set(geometryUsed);
+        ChunkPipelineMetrics.GEOMETRY_ARENA_ALLOCATED.set(geometryAllocated);
+        ChunkPipelineMetrics.INDEX_ARENA_USED.set(indexUsed);
+        ChunkPipelineMetrics.INDEX_ARENA_ALLOCATED.set(indexAllocated);
+
+        ChunkPipelineMetrics.BUILD_QUEUE_JOBS.set(this.builder.getScheduledJobCount());
+        ChunkPipelineMetrics.BUILD_BUSY_THREADS.set(this.builder.getBusyThreadCount());
+        ChunkPipelineMetrics.UPLOAD_QUEUE_RESULTS.set(this.buildResults.size() + this.deferredUploads.size());
+
+        ChunkPipelineMetrics.updatePendingTasks(this.taskLists);
     }
 
     public void updateChunks(boolean updateImmediately) {
+        this.builder.getBudget().update(getUploadTimeSlice());
+
         var thisFrameBlockingCollector = this.lastBlockingCollector;
         this.lastBlockingCollector = null;
         if (thisFrameBlockingCollector == null) {
@@ -434,22 +684,27 @@ public class RenderSectionManager {
         ChunkJobCollector importantCollector,
         ChunkJobCollector semiImportantCollector,
         ChunkJobCollector deferredCollector) {
-            this.submitSectionTasks(importantCollector, ChunkUpdateType.IMPORTANT_SORT, true);
-            this.submitSectionTasks(semiImportantCollector, ChunkUpdateType.IMPORTANT_REBUILD, true);
+            this.submitSectionTasks(importantCollector, ChunkUpdateType.IMPORTANT_SORT, true, false);
+            this.submitSectionTasks(semiImportantCollector, ChunkUpdateType.IMPORTANT_REBUILD, true, false);
+
+            // jobs can only be cancelled when nothing is waiting on their completion
+            boolean cancellable = deferredCollector != importantCollector && deferredCollector != semiImportantCollector;
 
             // since the sort tasks are run last, the effort category can be ignored and
             // simply fills up the remaining budget. Splitting effort categories is still
             // important to prevent high effort tasks from using up the entire budget if it
             // happens to divide evenly.
-            this.submitSectionTasks(deferredCollector, ChunkUpdateType.REBUILD, false);
-            this.submitSectionTasks(deferredCollector, ChunkUpdateType.INITIAL_BUILD, false);
-            this.submitSectionTasks(deferredCollector, ChunkUpdateType.SORT, true);
+            this.submitSectionTasks(deferredCollector, ChunkUpdateType.REBUILD, false, cancellable);
+            this.submitSectionTasks(deferredCollector, ChunkUpdateType.INITIAL_BUILD, false, cancellable);
+            this.submitSectionTasks(deferredCollector, ChunkUpdateType.SORT, true, cancellable);
     }
 
-    private void submitSectionTasks(ChunkJobCollector collector, ChunkUpdateType type, boolean ignoreEffortCategory) {
+    private void submitSectionTasks(ChunkJobCollector collector, ChunkUpdateType type, boolean ignoreEffortCategory, boolean cancellable) {
         var queue = this.taskLists.get(type);
 
-        while (!queue.isEmpty() && collector.hasBudgetFor(type.getTaskEffort(), ignoreEffortCategory)) {
+        int effort = this.builder.getTaskEffort(type.getTaskEffort());
+
+        while (!queue.isEmpty() && collector.hasBudgetFor(effort, ignoreEffortCategory)) {
             RenderSection section = queue.remove();
 
             if (section.isDisposed()) {
@@ -495,10 +750,15 @@ public class RenderSectionManager {
             }
 
             if (task != null) {
-                var job = this.builder.scheduleTask(task, type.isImportant(), collector::onJobFinished);
+                var job = this.builder.scheduleTask(task, type.isImportant(), collector::onJobFinished,
+                        ChunkPipelineMetrics.getBuildLatency(type));
                 collector.addSubmittedJob(job);
 
                 section.setTaskCancellationToken(job);
+
+                if (cancellable) {
+                    this.deferredJobs.add(new DeferredJob(section, job, type));
+                }
             }
 
             section.setLastSubmittedFrame(frame);
@@ -529,7 +789,7 @@ public class RenderSectionManager {
     }
 
     public boolean needsUpdate() {
-        return this.needsGraphUpdate;
+        return this.needsGraphUpdate || !this.graphChangedSections.isEmpty() || !this.updateChangedSections.isEmpty();
     }
 
     public ChunkBuilder getBuilder() {
@@ -538,6 +798,7 @@ public class RenderSectionManager {
 
     public void destroy() {
         this.builder.shutdown(); // stop all the workers, and cancel any tasks
+        this.occlusionCuller.destroy();
 
         for (var result : this.collectChunkBuildResults()) {
             result.destroy(); // delete resources for any pending tasks (including those that were cancelled)
@@ -548,6 +809,9 @@ public class RenderSectionManager {
         }
 
         this.sectionsWithGlobalEntities.clear();
+        this.graphChangedSections.clear();
+        this.updateChangedSections.clear();
+        this.deferredJobs.clear();
         this.resetRenderLists();
 
         try (CommandList commandList = RenderDevice.INSTANCE.createCommandList()) {
@@ -610,8 +874,8 @@ public class RenderSectionManager {
             if (pendingUpdate != null) {
                 section.setPendingUpdate(pendingUpdate);
 
-                // force update to schedule rebuild task on this section
-                this.needsGraphUpdate = true;
+                // update the rebuild lists to schedule rebuild task on this section
+                this.updateChangedSections.add(section);
             }
         }
     }
@@ -623,6 +887,10 @@ public class RenderSectionManager {
         return this.cameraBlockPos != null && section.getSquaredDistance(this.cameraBlockPos) < distance;
     }
 
+    private static long getUploadTimeSlice() {
+        return (long) (SodiumClientMod.options().performance.chunkUploadTimeSlice * 1_000_000.0f);
+    }
+
     private static boolean allowImportantRebuilds() {
         return !SodiumClientMod.options().performance.alwaysDeferChunkUpdates;
     }
@@ -683,6 +951,10 @@ public class RenderSectionManager {
         long indexDeviceUsed = 0;
         long indexDeviceAllocated = 0;
 
+        int freeSegments = 0;
+        long deviceFree = 0;
+        long deviceLargestFree = 0;
+
         for (var region : this.regions.getLoadedRegions()) {
             var resources = region.getResources();
 
@@ -698,17 +970,41 @@ public class RenderSectionManager {
             indexDeviceUsed += indexArena.getDeviceUsedMemory();
             indexDeviceAllocated += indexArena.getDeviceAllocatedMemory();
 
+            freeSegments += geometryArena.getFreeSegmentCount() + indexArena.getFreeSegmentCount();
+            deviceFree += geometryArena.getDeviceFreeMemory() + indexArena.getDeviceFreeMemory();
+            deviceLargestFree += geometryArena.getDeviceLargestFreeMemory() + indexArena.getDeviceLargestFreeMemory();
+
             count++;
         }
 
         list.add(String.format("Geometry Pool: %d/%d MiB (%d buffers)", MathUtil.toMib(geometryDeviceUsed), MathUtil.toMib(geometryDeviceAllocated), count));
         list.add(String.format("Index Pool: %d/%d MiB", MathUtil.toMib(indexDeviceUsed), MathUtil.toMib(indexDeviceAllocated)));
-        list.add(String.format("Transfer Queue: %s", this.regions.getStagingBuffer().toString()));
 
-        list.add(String.format("Chunk Builder: Permits=%02d (E %03d) | Busy=%02d | Total=%02d",
+        // The fraction of free memory which is not part of the largest free segment in its arena
+        int fragmentation = deviceFree > 0 ? (int) (100 - ((deviceLargestFree * 100) / deviceFree)) : 0;
+        list.add(String.format("Pool Fragmentation: %d%% (%d free segments)", fragmentation, freeSegments));
+        list.add(String.format("Pool Compaction: %d KiB/frame (%d regions pending)",
+                this.regions.getCompactedBytes() / 1024L, this.regions.getPendingCompactionCount()));
+        long deduplicationLookups = this.regions.getDeduplicationLookupCount();
+        int deduplicationRate = deduplicationLookups > 0
+                ? (int) ((this.regions.getDeduplicationHitCount() * 100) / deduplicationLookups) : 0;
+        list.add(String.format("Upload Dedup: %d%% hits (%d MiB saved)", deduplicationRate,
+                MathUtil.toMib(this.regions.getDeduplicatedBytes())));
+        list.add(String.format("Transfer Queue: %s (%d deferred)", this.regions.getStagingBuffer().toString(),
+                this.regions.getDeferredResultCount()));
+
+        var meshStagingBuffer = this.regions.getMeshStagingBuffer();
+
+        if (meshStagingBuffer != null) {
+            list.add(String.format("Mesh Staging: %s", meshStagingBuffer));
+        }
+
+        list.add(String.format("Chunk Builder: Queued=%02d (E %03d) | Busy=%02d | Total=%02d",
                 this.builder.getScheduledJobCount(), this.builder.getScheduledEffort(), this.builder.getBusyThreadCount(), this.builder.getTotalThreadCount())
         );
 
+        list.add(this.builder.getBudget().getDebugString());
+
         list.add(String.format("Chunk Queues: U=%02d (P0=%03d | P1=%03d | P2=%03d)",
                 this.buildResults.size(),
                 this.taskLists.get(ChunkUpdateType.IMPORTANT_REBUILD).size() + this.taskLists.get(ChunkUpdateType.IMPORTANT_SORT).size(),
@@ -716,6 +1012,10 @@ public class RenderSectionManager {
                 this.taskLists.get(ChunkUpdateType.INITIAL_BUILD).size())
         );
 
+        if (this.lastViewCompletionTime != -1) {
+            list.add(String.format("Time to complete view: %d ms", this.lastViewCompletionTime / 1_000_000L));
+        }
+
         this.sortTriggering.addDebugStrings(list);
 
         return list;
@@ -745,4 +1045,7 @@ public class RenderSectionManager {
     public Collection<RenderSection> getSectionsWithGlobalEntities() {
         return ReferenceSets.unmodifiable(this.sectionsWithGlobalEntities);
     }
+
+    private record DeferredJob(RenderSection section, ChunkJob job, ChunkUpdateType type) {
+    }
 }
@@ -1,6 +1,8 @@
 package net.caffeinemc.mods.sodium.client.render.chunk.compile;
 
 import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
+import net.caffeinemc.mods.sodium.client.gl.arena.GlBufferArena;
+import net.caffeinemc.mods.sodium.client.gl.arena.staging.MeshStagingBuffer;
 import net.caffeinemc.mods.sodium.client.model.quad.properties.ModelQuadFacing;
 import net.caffeinemc.mods.sodium.client.render.chunk.compile.buffers.BakedChunkModelBuilder;
 import net.caffeinemc.mods.sodium.client.render.chunk.compile.buffers.ChunkModelBuilder;
@@ -13,6 +15,7 @@ import net.caffeinemc.mods.sodium.client.render.chunk.terrain.material.Material;
 import net.caffeinemc.mods.sodium.client.render.chunk.vertex.builder.ChunkMeshBufferBuilder;
 import net.caffeinemc.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
 import net.caffeinemc.mods.sodium.client.util.NativeBuffer;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * A collection of temporary buffers for each worker thread which will be used to build chunk meshes for given render
@@ -24,8 +27,12 @@ public class ChunkBuildBuffers {
 
     private final ChunkVertexType vertexType;
 
-    public ChunkBuildBuffers(ChunkVertexType vertexType) {
+    // If not null, finished meshes are written into this buffer so that they don't need to be copied again for upload
+    private final @Nullable MeshStagingBuffer stagingBuffer;
+
+    public ChunkBuildBuffers(ChunkVertexType vertexType, @Nullable MeshStagingBuffer stagingBuffer) {
         this.vertexType = vertexType;
+        this.stagingBuffer = stagingBuffer;
 
         for (TerrainRenderPass pass : DefaultTerrainRenderPasses.ALL) {
             var vertexBuffers = new ChunkMeshBufferBuilder[ModelQuadFacing.COUNT];
@@ -71,8 +78,12 @@ public class ChunkBuildBuffers {
             return null;
         }
 
-        var mergedBuffer = new NativeBuffer(vertexTotal * this.vertexType.getVertexFormat().getStride());
-        var mergedBufferBuilder = mergedBuffer.getDirectBuffer();
+        int length = vertexTotal * this.vertexType.getVertexFormat().getStride();
+
+        // write the mesh into the staging buffer if it has space, otherwise into regular memory
+        var stagedBuffer = this.stagingBuffer != null ? this.stagingBuffer.allocate(length) : null;
+        var mergedBuffer = stagedBuffer == null ? new NativeBuffer(length) : null;
+        var mergedBufferBuilder = stagedBuffer != null ? stagedBuffer.getBuffer() : mergedBuffer.getDirectBuffer();
 
         if (sliceReordering) {
             // sliceReordering implies !forceUnassigned
@@ -129,7 +140,12 @@ public class ChunkBuildBuffers {
             }
         }
 
-        return new BuiltSectionMeshParts(mergedBuffer, vertexSegments);
+        if (stagedBuffer != null) {
+            return new BuiltSectionMeshParts(stagedBuffer, vertexSegments);
+        }
+
+        // hash the mesh here rather than on the main thread, so that identical meshes can be deduplicated on upload
+        return new BuiltSectionMeshParts(mergedBuffer, GlBufferArena.hashData(mergedBuffer.getDirectBuffer()), vertexSegments);
     }
 
     public void destroy() {
@@ -1,17 +1,31 @@
 package net.caffeinemc.mods.sodium.client.render.chunk.compile;
 
+import net.caffeinemc.mods.sodium.client.gl.arena.staging.MeshStagingBuffer;
+import net.caffeinemc.mods.sodium.client.render.chunk.compile.cache.SectionContentHasher;
+import net.caffeinemc.mods.sodium.client.render.chunk.compile.cache.SectionMeshDiskCache;
 import net.caffeinemc.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
 import net.caffeinemc.mods.sodium.client.render.chunk.compile.pipeline.BlockRenderCache;
+import net.caffeinemc.mods.sodium.client.util.sorting.SortBuffers;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.multiplayer.ClientLevel;
+import org.jetbrains.annotations.Nullable;
 
 public class ChunkBuildContext {
     public final ChunkBuildBuffers buffers;
     public final BlockRenderCache cache;
+    public final SortBuffers sortBuffers;
 
-    public ChunkBuildContext(ClientLevel level, ChunkVertexType vertexType) {
-        this.buffers = new ChunkBuildBuffers(vertexType);
+    // The cache of built meshes on disk, or null if it's disabled
+    public final @Nullable SectionMeshDiskCache meshCache;
+    public final SectionContentHasher contentHasher;
+
+    public ChunkBuildContext(ClientLevel level, ChunkVertexType vertexType, @Nullable MeshStagingBuffer stagingBuffer,
+                             @Nullable SectionMeshDiskCache meshCache) {
+        this.buffers = new ChunkBuildBuffers(vertexType, stagingBuffer);
         this.cache = new BlockRenderCache(Minecraft.getInstance(), level);
+        this.sortBuffers = new SortBuffers();
+        this.meshCache = meshCache;
+        this.contentHasher = new SectionContentHasher(level);
     }
 
     public void cleanup() {
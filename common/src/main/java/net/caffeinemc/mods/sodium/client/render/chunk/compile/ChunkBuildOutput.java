@@ -37,7 +37,7 @@ public class ChunkBuildOutput extends ChunkSortOutput {
         super.destroy();
 
         for (BuiltSectionMeshParts data : this.meshes.values()) {
-            data.getVertexData().free();
+            data.free();
         }
     }
 }
@@ -0,0 +1,136 @@
+package net.caffeinemc.mods.sodium.client.render.chunk.compile.cache;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.caffeinemc.mods.sodium.client.world.BiomeSeedProvider;
+import net.caffeinemc.mods.sodium.client.world.LevelSlice;
+import net.caffeinemc.mods.sodium.client.world.cloned.ChunkRenderContext;
+import net.jpountz.xxhash.XXHash64;
+import net.jpountz.xxhash.XXHashFactory;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Holder;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.LightLayer;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.structure.BoundingBox;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Computes the key of a section in the {@link SectionMeshDiskCache}, which is a hash of everything that the meshes of
+ * the section are built from: the position of the section, the block states and light levels of every block in the
+ * slice around it, and the biomes of the slice. Each build thread has its own hasher, since it reuses its buffers.
+ */
+public class SectionContentHasher {
+    /**
+     * The key of sections which can't be cached, because their meshes depend on data which isn't hashed.
+     */
+    public static final long UNCACHEABLE = 0L;
+
+    private static final XXHash64 HASH = XXHashFactory.fastestJavaInstance().hash64();
+
+    // The largest volume of blocks which a slice can contain, with the margin of two blocks around the section
+    private static final int MAX_VOLUME_BLOCKS = 20 * 20 * 20;
+
+    // The number of biome cells in the sections of a slice
+    private static final int BIOME_CELLS = 3 * 3 * 3 * 4 * 4 * 4;
+
+    private static final int HEADER_BYTES = Long.BYTES + (Integer.BYTES * 3);
+
+    private final ClientLevel level;
+
+    private final ByteBuffer scratch = ByteBuffer.allocate(HEADER_BYTES + (MAX_VOLUME_BLOCKS * Integer.BYTES * 2) + (BIOME_CELLS * Integer.BYTES))
+            .order(ByteOrder.LITTLE_ENDIAN);
+
+    private final BlockPos.MutableBlockPos scratchPos = new BlockPos.MutableBlockPos();
+
+    // The hashes of the biomes which have been seen, since computing them requires looking up the biome's properties
+    private final Reference2IntOpenHashMap<Holder<Biome>> biomeHashes = new Reference2IntOpenHashMap<>();
+
+    public SectionContentHasher(ClientLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Hashes the content of the slice which was initialized from the given context. The fingerprint of the cache is
+     * used as the seed, so that keys computed with different resources or options never match.
+     *
+     * @return The key of the section, or {@link #UNCACHEABLE} if the section can't be cached
+     */
+    public long hash(LevelSlice slice, ChunkRenderContext context, long fingerprint) {
+        // Mesh appenders and block entities can add geometry from data which isn't part of the hash
+        if (!context.getRenderers().isEmpty()) {
+            return UNCACHEABLE;
+        }
+
+        ByteBuffer buffer = this.scratch;
+        buffer.clear();
+
+        SectionPos origin = context.getOrigin();
+        buffer.putLong(BiomeSeedProvider.getBiomeZoomSeed(this.level));
+        buffer.putInt(origin.getX());
+        buffer.putInt(origin.getY());
+        buffer.putInt(origin.getZ());
+
+        BoundingBox volume = context.getVolume();
+        BlockPos.MutableBlockPos pos = this.scratchPos;
+
+        for (int y = volume.minY(); y <= volume.maxY(); y++) {
+            for (int z = volume.minZ(); z <= volume.maxZ(); z++) {
+                for (int x = volume.minX(); x <= volume.maxX(); x++) {
+                    BlockState state = slice.getBlockState(x, y, z);
+
+                    if (state.hasBlockEntity()) {
+                        return UNCACHEABLE;
+                    }
+
+                    pos.set(x, y, z);
+
+                    buffer.putInt(Block.BLOCK_STATE_REGISTRY.getId(state));
+                    buffer.putInt((slice.getBrightness(LightLayer.SKY, pos) << 4) | slice.getBrightness(LightLayer.BLOCK, pos));
+                }
+            }
+        }
+
+        for (var section : context.getSections()) {
+            var biomeData = section.getBiomeData();
+
+            for (int cellY = 0; cellY < 4; cellY++) {
+                for (int cellZ = 0; cellZ < 4; cellZ++) {
+                    for (int cellX = 0; cellX < 4; cellX++) {
+                        buffer.putInt(biomeData == null ? 0 : this.getBiomeHash(biomeData.get(cellX, cellY, cellZ)));
+                    }
+                }
+            }
+        }
+
+        long hash = HASH.hash(buffer.array(), 0, buffer.position(), fingerprint);
+
+        // The value of uncacheable sections can't be used as a key
+        return hash == UNCACHEABLE ? 1L : hash;
+    }
+
+    // Servers can define their own biomes under the same names, so the properties which affect the colors of blocks
+    // are hashed along with the name
+    private int getBiomeHash(Holder<Biome> holder) {
+        int hash = this.biomeHashes.getOrDefault(holder, 0);
+
+        if (hash == 0) {
+            Biome biome = holder.value();
+
+            hash = holder.getRegisteredName().hashCode();
+            hash = (hash * 31) + biome.getWaterColor();
+            hash = (hash * 31) + biome.getFoliageColor();
+            hash = (hash * 31) + biome.getGrassColor(0.0, 0.0);
+            hash = (hash * 31) + Float.floatToIntBits(biome.getBaseTemperature());
+            hash = hash == 0 ? 1 : hash;
+
+            this.biomeHashes.put(holder, hash);
+        }
+
+        return hash;
+    }
+}
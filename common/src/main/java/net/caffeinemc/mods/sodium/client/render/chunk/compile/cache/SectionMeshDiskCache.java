@@ -0,0 +1,468 @@
+package net.caffeinemc.mods.sodium.client.render.chunk.compile.cache;
+
+import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
+import net.caffeinemc.mods.sodium.client.SodiumClientMod;
+import net.caffeinemc.mods.sodium.client.gl.arena.GlBufferArena;
+import net.caffeinemc.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import net.caffeinemc.mods.sodium.client.render.chunk.ChunkPipelineMetrics;
+import net.caffeinemc.mods.sodium.client.render.chunk.RenderSection;
+import net.caffeinemc.mods.sodium.client.render.chunk.compile.ChunkBuildOutput;
+import net.caffeinemc.mods.sodium.client.render.chunk.data.BuiltSectionInfo;
+import net.caffeinemc.mods.sodium.client.render.chunk.data.BuiltSectionMeshParts;
+import net.caffeinemc.mods.sodium.client.render.chunk.occlusion.GraphDirection;
+import net.caffeinemc.mods.sodium.client.render.chunk.occlusion.VisibilityEncoding;
+import net.caffeinemc.mods.sodium.client.render.chunk.terrain.DefaultTerrainRenderPasses;
+import net.caffeinemc.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
+import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.data.AnyOrderData;
+import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.data.NoData;
+import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.data.PresentTranslucentData;
+import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.data.StaticNormalRelativeData;
+import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.data.TranslucentData;
+import net.caffeinemc.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
+import net.caffeinemc.mods.sodium.client.services.PlatformRuntimeInformation;
+import net.caffeinemc.mods.sodium.client.util.NativeBuffer;
+import net.caffeinemc.mods.sodium.mixin.core.render.texture.TextureAtlasAccessor;
+import net.jpountz.xxhash.XXHash64;
+import net.jpountz.xxhash.XXHashFactory;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.client.renderer.chunk.VisibilitySet;
+import net.minecraft.client.renderer.texture.TextureAtlas;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.block.Block;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores the output of meshing tasks on disk, so that sections whose content hasn't changed since they were last built
+ * don't need to be meshed again, even after the game was restarted. Entries are keyed by the hash computed by
+ * {@link SectionContentHasher}, which is seeded with a fingerprint of the resources and options that the meshes depend
+ * on.
+ * <p>
+ * Only sections without block entities or mesh appenders are cached, since those reference data which can't be
+ * stored. Of the translucent sort types, only those whose data doesn't depend on the camera are cached. Every entry is
+ * validated when it's read, and entries which are corrupted are deleted and treated as missing.
+ */
+public class SectionMeshDiskCache {
+    private static final Logger LOGGER = LogManager.getLogger("SectionMeshDiskCache");
+
+    private static final XXHash64 HASH = XXHashFactory.fastestJavaInstance().hash64();
+
+    // Changing the format of the entries or anything they are built from requires changing the version, so that the
+    // existing entries are no longer used
+    private static final int MAGIC = 0x534D4331; // "SMC1"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_BYTES = (Integer.BYTES * 2) + Long.BYTES + (Integer.BYTES * 3) + Integer.BYTES + Long.BYTES;
+
+    private static final byte TRANSLUCENT_DISABLED = 0;
+    private static final byte TRANSLUCENT_NONE_PRESENT = 1;
+    private static final byte TRANSLUCENT_ANY_ORDER = 2;
+    private static final byte TRANSLUCENT_STATIC_NORMAL_RELATIVE = 3;
+
+    private static final long BYTES_PER_MIB = 1024L * 1024L;
+
+    // The store is shared by all cache instances, so that the directory is only indexed once per session
+    private static SectionMeshStore store;
+
+    private final long fingerprint;
+    private final TextureAtlas blockAtlas;
+
+    private SectionMeshDiskCache(long fingerprint, TextureAtlas blockAtlas) {
+        this.fingerprint = fingerprint;
+        this.blockAtlas = blockAtlas;
+    }
+
+    /**
+     * Opens the cache for a chunk builder, if it's enabled. This must be called on the main thread after resources
+     * have been loaded, since the fingerprint of the cache is computed from the current resources and options.
+     * <p>
+     * The cache is disabled while the chunk builder writes meshes into the mesh staging buffer, since that memory is
+     * only mapped for writing, and the meshes couldn't be read back from it to be stored.
+     *
+     * @param usesMeshStagingBuffer Whether the chunk builder writes meshes into the mesh staging buffer
+     * @return The cache, or null if it's disabled or couldn't be opened
+     */
+    public static @Nullable SectionMeshDiskCache open(ClientLevel level, ChunkVertexType vertexType, boolean usesMeshStagingBuffer) {
+        var options = SodiumClientMod.options();
+
+        if (!options.advanced.enableMeshDiskCache) {
+            return null;
+        }
+
+        if (usesMeshStagingBuffer) {
+            LOGGER.warn("The mesh cache is disabled, since it can't be used together with the mesh staging buffer");
+            return null;
+        }
+
+        long maxBytes = Math.max(1, options.advanced.meshDiskCacheSize) * BYTES_PER_MIB;
+
+        synchronized (SectionMeshDiskCache.class) {
+            if (store == null) {
+                try {
+                    store = SectionMeshStore.open(PlatformRuntimeInformation.getInstance().getGameDirectory()
+                            .resolve("sodium-cache")
+                            .resolve("meshes"), maxBytes);
+                } catch (IOException e) {
+                    LOGGER.error("Failed to open the mesh cache, it will be disabled", e);
+                    options.advanced.enableMeshDiskCache = false;
+
+                    return null;
+                }
+            } else {
+                store.setMaxBytes(maxBytes);
+            }
+        }
+
+        Minecraft minecraft = Minecraft.getInstance();
+        TextureAtlas blockAtlas = minecraft.getModelManager().getAtlas(TextureAtlas.LOCATION_BLOCKS);
+
+        return new SectionMeshDiskCache(computeFingerprint(minecraft, level, blockAtlas, vertexType), blockAtlas);
+    }
+
+    // Anything which changes the meshes of a section without changing its content is part of the fingerprint
+    private static long computeFingerprint(Minecraft minecraft, ClientLevel level, TextureAtlas blockAtlas,
+                                           ChunkVertexType vertexType) {
+        var options = SodiumClientMod.options();
+        var builder = new StringBuilder();
+
+        builder.append(FORMAT_VERSION).append(';')
+                .append(SodiumClientMod.getVersion()).append(';')
+                .append(level.dimension().location()).append(';')
+                .append(Block.BLOCK_STATE_REGISTRY.size()).append(';')
+                .append(String.join(",", minecraft.getResourcePackRepository().getSelectedIds())).append(';')
+                .append(vertexType.getVertexFormat().getStride()).append(';')
+                .append(minecraft.options.ambientOcclusion().get()).append(';')
+                .append(minecraft.options.biomeBlendRadius().get()).append(';')
+                .append(minecraft.options.mipmapLevels().get()).append(';')
+                .append(options.quality.leavesQuality.isFancy(minecraft.options.graphicsMode().get())).append(';')
+                .append(options.performance.useGreedyFaceMerging).append(';')
+                .append(options.performance.getSortBehavior()).append(';');
+
+        // mods can change the meshes of blocks without adding a resource pack, so their versions are included as well
+        var mods = new ArrayList<>(PlatformRuntimeInformation.getInstance().getLoadedModVersions());
+        mods.sort(Comparator.naturalOrder());
+
+        builder.append(String.join(",", mods)).append(';');
+
+        // the texture coordinates of the vertices are relative to the atlas, so the meshes depend on where each sprite
+        // was stitched into it
+        builder.append(blockAtlas.getWidth()).append('x').append(blockAtlas.getHeight());
+
+        var sprites = new ArrayList<>(((TextureAtlasAccessor) blockAtlas).getTexturesByName().entrySet());
+        sprites.sort(Map.Entry.comparingByKey());
+
+        for (var entry : sprites) {
+            TextureAtlasSprite sprite = entry.getValue();
+
+            builder.append(';').append(entry.getKey())
+                    .append('@').append(sprite.getU0())
+                    .append(',').append(sprite.getV0());
+        }
+
+        byte[] bytes = builder.toString().getBytes(StandardCharsets.UTF_8);
+
+        return HASH.hash(bytes, 0, bytes.length, 0);
+    }
+
+    public long getFingerprint() {
+        return this.fingerprint;
+    }
+
+    /**
+     * Creates the output of a meshing task from the cached entry of the section, if there is one.
+     *
+     * @return The output of the section, or null if it isn't cached
+     */
+    public @Nullable ChunkBuildOutput load(long key, RenderSection render, int buildTime) {
+        MappedByteBuffer data = store.read(key);
+
+        if (data == null) {
+            ChunkPipelineMetrics.MESH_CACHE_MISSES.increment();
+            return null;
+        }
+
+        Map<TerrainRenderPass, BuiltSectionMeshParts> meshes = new Reference2ReferenceOpenHashMap<>();
+
+        try {
+            var output = this.decode(data.order(ByteOrder.LITTLE_ENDIAN), key, render, buildTime, meshes);
+
+            ChunkPipelineMetrics.MESH_CACHE_HITS.increment();
+
+            return output;
+        } catch (CorruptedEntryException | BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            LOGGER.warn("Discarding corrupted entry {} of the mesh cache: {}", Long.toHexString(key), e.getMessage());
+
+            meshes.values().forEach(BuiltSectionMeshParts::free);
+            store.delete(key);
+
+            ChunkPipelineMetrics.MESH_CACHE_MISSES.increment();
+
+            return null;
+        }
+    }
+
+    private ChunkBuildOutput decode(ByteBuffer data, long key, RenderSection render, int buildTime,
+                                    Map<TerrainRenderPass, BuiltSectionMeshParts> meshes) throws CorruptedEntryException {
+        if (data.remaining() < HEADER_BYTES || data.getInt() != MAGIC || data.getInt() != FORMAT_VERSION || data.getLong() != key) {
+            throw new CorruptedEntryException("Invalid header");
+        }
+
+        SectionPos sectionPos = render.getPosition();
+
+        if (data.getInt() != sectionPos.getX() || data.getInt() != sectionPos.getY() || data.getInt() != sectionPos.getZ()) {
+            throw new CorruptedEntryException("Entry belongs to a different section");
+        }
+
+        int payloadLength = data.getInt();
+        long checksum = data.getLong();
+
+        if (payloadLength != data.remaining() || HASH.hash(data, data.position(), payloadLength, 0) != checksum) {
+            throw new CorruptedEntryException("Checksum mismatch");
+        }
+
+        BuiltSectionInfo.Builder renderData = new BuiltSectionInfo.Builder();
+        renderData.setOcclusionData(decodeVisibility(data.getLong()));
+
+        int passCount = data.get();
+
+        for (int i = 0; i < passCount; i++) {
+            TerrainRenderPass pass = DefaultTerrainRenderPasses.ALL[data.get()];
+
+            int[] vertexSegments = readIntArray(data, ModelQuadFacing.COUNT << 1);
+
+            int length = data.getInt();
+
+            if (length <= 0 || length > data.remaining() || meshes.containsKey(pass)) {
+                throw new CorruptedEntryException("Invalid mesh");
+            }
+
+            var buffer = new NativeBuffer(length);
+            buffer.getDirectBuffer().put(data.slice(data.position(), length));
+            data.position(data.position() + length);
+
+            meshes.put(pass, new BuiltSectionMeshParts(buffer, GlBufferArena.hashData(buffer.getDirectBuffer()), vertexSegments));
+            renderData.addRenderPass(pass);
+        }
+
+        int spriteCount = data.getInt();
+
+        for (int i = 0; i < spriteCount; i++) {
+            byte[] name = new byte[Short.toUnsignedInt(data.getShort())];
+            data.get(name);
+
+            ResourceLocation location = ResourceLocation.tryParse(new String(name, StandardCharsets.UTF_8));
+            TextureAtlasSprite sprite = location != null ? this.blockAtlas.getSprite(location) : null;
+
+            if (sprite == null || !sprite.contents().name().equals(location)) {
+                throw new CorruptedEntryException("Unknown sprite");
+            }
+
+            renderData.addSprite(sprite);
+        }
+
+        TranslucentData translucentData = switch (data.get()) {
+            case TRANSLUCENT_DISABLED -> null;
+            case TRANSLUCENT_NONE_PRESENT -> NoData.forNoTranslucent(sectionPos);
+            case TRANSLUCENT_ANY_ORDER -> {
+                int quadCount = data.getInt();
+                int quadHash = data.getInt();
+                int[] vertexCounts = readIntArray(data, ModelQuadFacing.COUNT);
+
+                var anyOrderData = AnyOrderData.fromQuadCount(vertexCounts, quadCount, sectionPos);
+                anyOrderData.setQuadHash(quadHash);
+
+                yield anyOrderData;
+            }
+            case TRANSLUCENT_STATIC_NORMAL_RELATIVE -> {
+                int quadCount = data.getInt();
+                int quadHash = data.getInt();
+                int[] vertexCounts = readIntArray(data, ModelQuadFacing.COUNT);
+
+                int length = TranslucentData.quadCountToIndexBytes(quadCount);
+                var snrData = StaticNormalRelativeData.fromIndexData(vertexCounts, quadCount,
+                        data.slice(data.position(), length), sectionPos);
+                data.position(data.position() + length);
+                snrData.setQuadHash(quadHash);
+
+                yield snrData;
+            }
+            default -> throw new CorruptedEntryException("Unknown translucent data");
+        };
+
+        var output = new ChunkBuildOutput(render, buildTime, translucentData, renderData.build(), meshes);
+
+        if (translucentData instanceof PresentTranslucentData present) {
+            output.setSorter(present.getSorter());
+        }
+
+        return output;
+    }
+
+    /**
+     * Writes the output of a meshing task into the cache. The output must not have been uploaded or destroyed yet.
+     */
+    public void store(long key, ChunkBuildOutput output) {
+        byte translucentType;
+
+        if (output.translucentData == null) {
+            translucentType = TRANSLUCENT_DISABLED;
+        } else if (output.translucentData instanceof NoData) {
+            translucentType = TRANSLUCENT_NONE_PRESENT;
+        } else if (output.translucentData instanceof AnyOrderData) {
+            translucentType = TRANSLUCENT_ANY_ORDER;
+        } else if (output.translucentData instanceof StaticNormalRelativeData && output.getSorter() != null) {
+            translucentType = TRANSLUCENT_STATIC_NORMAL_RELATIVE;
+        } else {
+            // the other sort types depend on the camera or take too long to validate
+            return;
+        }
+
+        List<byte[]> spriteNames = new ArrayList<>();
+
+        if (output.info.animatedSprites != null) {
+            for (var sprite : output.info.animatedSprites) {
+                spriteNames.add(sprite.contents().name().toString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        int payloadLength = this.getPayloadLength(output, translucentType, spriteNames);
+        var data = ByteBuffer.allocate(HEADER_BYTES + payloadLength).order(ByteOrder.LITTLE_ENDIAN);
+
+        SectionPos sectionPos = output.render.getPosition();
+
+        data.putInt(MAGIC);
+        data.putInt(FORMAT_VERSION);
+        data.putLong(key);
+        data.putInt(sectionPos.getX());
+        data.putInt(sectionPos.getY());
+        data.putInt(sectionPos.getZ());
+        data.putInt(payloadLength);
+
+        int checksumPosition = data.position();
+        data.putLong(0L);
+
+        int payloadPosition = data.position();
+        data.putLong(output.info.visibilityData);
+        data.put((byte) output.meshes.size());
+
+        for (var entry : output.meshes.entrySet()) {
+            var mesh = entry.getValue();
+
+            data.put((byte) indexOf(entry.getKey()));
+            writeIntArray(data, mesh.getVertexSegments());
+            data.putInt(mesh.getVertexDataLength());
+            data.put(mesh.getVertexData().getDirectBuffer().duplicate().clear());
+        }
+
+        data.putInt(spriteNames.size());
+
+        for (var name : spriteNames) {
+            data.putShort((short) name.length);
+            data.put(name);
+        }
+
+        data.put(translucentType);
+
+        if (output.translucentData instanceof PresentTranslucentData present) {
+            data.putInt(present.getQuadCount());
+            data.putInt(present.getQuadHash());
+            writeIntArray(data, present.getVertexCounts());
+
+            if (translucentType == TRANSLUCENT_STATIC_NORMAL_RELATIVE) {
+                data.put(output.getSorter().getIndexBuffer().getDirectBuffer().duplicate().clear());
+            }
+        }
+
+        data.putLong(checksumPosition, HASH.hash(data.array(), payloadPosition, payloadLength, 0));
+        data.flip();
+
+        store.write(key, data);
+    }
+
+    private int getPayloadLength(ChunkBuildOutput output, byte translucentType, List<byte[]> spriteNames) {
+        int length = Long.BYTES + Byte.BYTES;
+
+        for (var mesh : output.meshes.values()) {
+            length += Byte.BYTES + (Integer.BYTES * ModelQuadFacing.COUNT * 2) + Integer.BYTES + mesh.getVertexDataLength();
+        }
+
+        length += Integer.BYTES;
+
+        for (var name : spriteNames) {
+            length += Short.BYTES + name.length;
+        }
+
+        length += Byte.BYTES;
+
+        if (output.translucentData instanceof PresentTranslucentData present) {
+            length += (Integer.BYTES * 2) + (Integer.BYTES * ModelQuadFacing.COUNT);
+
+            if (translucentType == TRANSLUCENT_STATIC_NORMAL_RELATIVE) {
+                length += TranslucentData.quadCountToIndexBytes(present.getQuadCount());
+            }
+        }
+
+        return length;
+    }
+
+    private static VisibilitySet decodeVisibility(long visibilityData) {
+        VisibilitySet visibility = new VisibilitySet();
+
+        for (int from = 0; from < GraphDirection.COUNT; from++) {
+            for (int to = 0; to < GraphDirection.COUNT; to++) {
+                if ((visibilityData & (1L << VisibilityEncoding.bit(from, to))) != 0) {
+                    visibility.set(GraphDirection.toEnum(from), GraphDirection.toEnum(to), true);
+                }
+            }
+        }
+
+        return visibility;
+    }
+
+    private static int indexOf(TerrainRenderPass pass) {
+        for (int i = 0; i < DefaultTerrainRenderPasses.ALL.length; i++) {
+            if (DefaultTerrainRenderPasses.ALL[i] == pass) {
+                return i;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown render pass: " + pass);
+    }
+
+    private static int[] readIntArray(ByteBuffer data, int length) {
+        int[] array = new int[length];
+
+        for (int i = 0; i < length; i++) {
+            array[i] = data.getInt();
+        }
+
+        return array;
+    }
+
+    private static void writeIntArray(ByteBuffer data, int[] array) {
+        for (int value : array) {
+            data.putInt(value);
+        }
+    }
+
+    private static class CorruptedEntryException extends Exception {
+        CorruptedEntryException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package net.caffeinemc.mods.sodium.client.render.chunk.compile.cache;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Stores the entries of the mesh cache as one file per entry in a directory, and evicts the least recently used
+ * entries once the files take up more than the maximum size. The recency of the entries is kept in memory and
+ * persisted through the modification times of the files, so that it survives restarts of the game.
+ * <p>
+ * Entries are written into a temporary file which is then moved in place of the entry, so that a crash while writing
+ * never leaves a partially written entry behind. The store is thread-safe.
+ */
+class SectionMeshStore {
+    private static final Logger LOGGER = LogManager.getLogger("SectionMeshStore");
+
+    private static final String ENTRY_EXTENSION = ".bin";
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private final Path directory;
+    private long maxBytes;
+
+    // The size of each entry in bytes, ordered from the least to the most recently used entry
+    private final LinkedHashMap<Long, Long> entries = new LinkedHashMap<>(1024, 0.75f, true);
+    private long totalBytes;
+
+    private SectionMeshStore(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Opens the store in the given directory, creating the directory if it doesn't exist yet. The entries which are
+     * already in the directory are indexed in the order in which they were last used.
+     */
+    static SectionMeshStore open(Path directory, long maxBytes) throws IOException {
+        Files.createDirectories(directory);
+
+        var store = new SectionMeshStore(directory, maxBytes);
+        store.index();
+
+        return store;
+    }
+
+    private void index() throws IOException {
+        record IndexedEntry(long key, long size, FileTime lastModified) { }
+
+        List<IndexedEntry> found = new ArrayList<>();
+
+        try (Stream<Path> files = Files.list(this.directory)) {
+            for (Iterator<Path> it = files.iterator(); it.hasNext(); ) {
+                Path file = it.next();
+                String name = file.getFileName().toString();
+
+                try {
+                    if (name.endsWith(TEMP_EXTENSION)) {
+                        // left behind by a write which didn't finish
+                        Files.deleteIfExists(file);
+                    } else if (name.endsWith(ENTRY_EXTENSION)) {
+                        long key = Long.parseUnsignedLong(name.substring(0, name.length() - ENTRY_EXTENSION.length()), 16);
+                        var attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+                        found.add(new IndexedEntry(key, attributes.size(), attributes.lastModifiedTime()));
+                    }
+                } catch (NumberFormatException | IOException e) {
+                    LOGGER.warn("Ignoring unexpected file {} in the mesh cache", file, e);
+                }
+            }
+        }
+
+        found.sort(Comparator.comparing(IndexedEntry::lastModified));
+
+        synchronized (this) {
+            for (var entry : found) {
+                this.entries.put(entry.key(), entry.size());
+                this.totalBytes += entry.size();
+            }
+
+            this.evict();
+        }
+
+        LOGGER.info("Indexed {} entries ({} KiB) in the mesh cache", found.size(), this.totalBytes / 1024);
+    }
+
+    synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.evict();
+    }
+
+    /**
+     * Maps the entry with the given key into memory, and marks it as the most recently used entry.
+     *
+     * @return The content of the entry, or null if there is no entry with the key
+     */
+    @Nullable
+    MappedByteBuffer read(long key) {
+        synchronized (this) {
+            if (this.entries.get(key) == null) {
+                return null;
+            }
+        }
+
+        Path file = this.getPath(key);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            // only a hint for the order of eviction after a restart, so failing to update it doesn't matter
+            try {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException ignored) { }
+
+            return buffer;
+        } catch (NoSuchFileException e) {
+            this.remove(key);
+            return null;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to read entry {} of the mesh cache", file, e);
+            this.delete(key);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the entry with the given key, replacing any existing entry, and evicts the least recently used entries if
+     * the store has grown too large.
+     */
+    void write(long key, ByteBuffer data) {
+        long size = data.remaining();
+
+        if (size > this.maxBytes) {
+            return;
+        }
+
+        Path file = this.getPath(key);
+        Path temp = null;
+
+        try {
+            temp = Files.createTempFile(this.directory, Long.toHexString(key), TEMP_EXTENSION);
+
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            }
+
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // another thread may be reading the entry on a platform which doesn't allow replacing open files
+            LOGGER.debug("Failed to write entry {} of the mesh cache", file, e);
+
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) { }
+            }
+
+            return;
+        }
+
+        synchronized (this) {
+            Long previous = this.entries.put(key, size);
+
+            if (previous != null) {
+                this.totalBytes -= previous;
+            }
+
+            this.totalBytes += size;
+            this.evict();
+        }
+    }
+
+    /**
+     * Deletes the entry with the given key, such as when its content turned out to be corrupted.
+     */
+    void delete(long key) {
+        this.remove(key);
+
+        try {
+            Files.deleteIfExists(this.getPath(key));
+        } catch (IOException e) {
+            LOGGER.debug("Failed to delete entry {} of the mesh cache", key, e);
+        }
+    }
+
+    private synchronized void remove(long key) {
+        Long size = this.entries.remove(key);
+
+        if (size != null) {
+            this.totalBytes -= size;
+        }
+    }
+
+    private void evict() {
+        var it = this.entries.entrySet().iterator();
+
+        while (this.totalBytes > this.maxBytes && it.hasNext()) {
+            Map.Entry<Long, Long> eldest = it.next();
+            it.remove();
+
+            this.totalBytes -= eldest.getValue();
+
+            try {
+                Files.deleteIfExists(this.getPath(eldest.getKey()));
+            } catch (IOException e) {
+                LOGGER.debug("Failed to evict entry {} of the mesh cache", eldest.getKey(), e);
+            }
+        }
+    }
+
+    private Path getPath(long key) {
+        return this.directory.resolve(String.format("%016x", key) + ENTRY_EXTENSION);
+    }
+}
@@ -0,0 +1,214 @@
+package net.caffeinemc.mods.sodium.client.render.chunk.compile.executor;
+
+import net.minecraft.util.Mth;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Derives the chunk builder's scheduling budget from measured task costs instead of fixed estimates. Worker threads
+ * report the wall time of each task they run, and the render thread reports the frame time along with the number of
+ * bytes uploaded (and the time taken to do so) each frame. These samples are smoothed with an exponential moving
+ * average, and are used to determine:
+ *
+ * <ul>
+ *     <li>The effort of a meshing task relative to a sorting task, which is the ratio of their measured costs.</li>
+ *     <li>The effort each worker thread can get through in one frame, based on the frame time.</li>
+ *     <li>The effort whose results can be uploaded per frame without exceeding the configured time slice of the
+ *     render thread, based on the measured upload bandwidth.</li>
+ * </ul>
+ *
+ * Until enough samples have been collected, the default efforts from {@link ChunkBuilder} are used.
+ */
+public class ChunkBuildBudget {
+    // The weight given to new samples in the moving averages
+    private static final double SMOOTHING_FACTOR = 0.1;
+
+    // Bounds on the effort of a meshing task, relative to a sorting task's effort of one
+    private static final int MIN_HIGH_EFFORT = ChunkBuilder.LOW_EFFORT + 1;
+    private static final int MAX_HIGH_EFFORT = 100;
+
+    // The maximum number of frames of work that can be queued for each thread
+    private static final int MAX_FRAMES_PER_THREAD = 4;
+
+    // Samples recorded by the worker threads, which are collected once per frame on the render thread
+    private final AtomicLong meshTaskTimeSum = new AtomicLong();
+    private final AtomicLong meshTaskCount = new AtomicLong();
+    private final AtomicLong sortTaskTimeSum = new AtomicLong();
+    private final AtomicLong sortTaskCount = new AtomicLong();
+
+    // Smoothed measurements, where NaN means that no samples have been recorded yet
+    private double meshTaskTime = Double.NaN;
+    private double sortTaskTime = Double.NaN;
+    private double meshUploadSize = Double.NaN;
+    private double sortUploadSize = Double.NaN;
+    private double uploadBandwidth = Double.NaN;
+    private double frameTime = Double.NaN;
+
+    private long lastFrameStart = -1;
+    private long lastFrameUploadBytes;
+
+    private volatile int highEffort = ChunkBuilder.HIGH_EFFORT;
+    private int effortPerThreadPerFrame = ChunkBuilder.HIGH_EFFORT + ChunkBuilder.LOW_EFFORT;
+    private int uploadEffortPerFrame = Integer.MAX_VALUE;
+
+    /**
+     * Records the wall time taken to execute a task. This is called from the worker threads.
+     */
+    public void recordTaskTime(int effort, long nanos) {
+        if (effort <= ChunkBuilder.LOW_EFFORT) {
+            this.sortTaskTimeSum.addAndGet(nanos);
+            this.sortTaskCount.incrementAndGet();
+        } else {
+            this.meshTaskTimeSum.addAndGet(nanos);
+            this.meshTaskCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records the results which were uploaded during the current frame on the render thread.
+     *
+     * @param meshCount The number of meshing task results which were uploaded
+     * @param meshBytes The total size of the vertex data for those results
+     * @param sortCount The number of sorting task results which were uploaded
+     * @param sortBytes The total size of the index data for those results
+     * @param nanos     The time it took to upload all the results
+     */
+    public void recordUploads(int meshCount, long meshBytes, int sortCount, long sortBytes, long nanos) {
+        if (meshCount > 0) {
+            this.meshUploadSize = smooth(this.meshUploadSize, (double) meshBytes / meshCount);
+        }
+
+        if (sortCount > 0) {
+            this.sortUploadSize = smooth(this.sortUploadSize, (double) sortBytes / sortCount);
+        }
+
+        var bytes = meshBytes + sortBytes;
+
+        if (bytes > 0 && nanos > 0) {
+            this.uploadBandwidth = smooth(this.uploadBandwidth, (double) bytes / nanos);
+        }
+
+        this.lastFrameUploadBytes += bytes;
+    }
+
+    /**
+     * Collects the samples recorded since the last frame and updates the budget. This should be called once per
+     * frame on the render thread before any tasks are scheduled.
+     *
+     * @param uploadTimeSlice The amount of render thread time in nanoseconds which uploads should use in each frame
+     */
+    public void update(long uploadTimeSlice) {
+        long now = System.nanoTime();
+
+        if (this.lastFrameStart != -1) {
+            this.frameTime = smooth(this.frameTime, now - this.lastFrameStart);
+        }
+
+        this.lastFrameStart = now;
+        this.lastFrameUploadBytes = 0;
+
+        this.meshTaskTime = collectAverage(this.meshTaskTime, this.meshTaskTimeSum, this.meshTaskCount);
+        this.sortTaskTime = collectAverage(this.sortTaskTime, this.sortTaskTimeSum, this.sortTaskCount);
+
+        int highEffort = ChunkBuilder.HIGH_EFFORT;
+
+        // a meshing task is as much effort as the number of sorting tasks which could be run in the same time, or
+        // whose results could be uploaded in the same time, whichever is more conservative
+        if (!Double.isNaN(this.meshTaskTime) && !Double.isNaN(this.sortTaskTime)) {
+            double ratio = this.meshTaskTime / this.sortTaskTime;
+
+            if (!Double.isNaN(this.meshUploadSize) && !Double.isNaN(this.sortUploadSize) && this.sortUploadSize > 0) {
+                ratio = Math.min(ratio, this.meshUploadSize / this.sortUploadSize);
+            }
+
+            highEffort = Mth.clamp((int) Math.round(ratio), MIN_HIGH_EFFORT, MAX_HIGH_EFFORT);
+        }
+
+        this.highEffort = highEffort;
+
+        int minEffortPerThread = highEffort + ChunkBuilder.LOW_EFFORT;
+        int effortPerThread = minEffortPerThread;
+
+        // each worker can get through one frame's worth of sorting tasks in a frame
+        if (!Double.isNaN(this.frameTime) && !Double.isNaN(this.sortTaskTime) && this.sortTaskTime > 0) {
+            effortPerThread = (int) Mth.clamp(this.frameTime / this.sortTaskTime,
+                    minEffortPerThread, minEffortPerThread * MAX_FRAMES_PER_THREAD);
+        }
+
+        this.effortPerThreadPerFrame = effortPerThread;
+
+        int uploadEffort = Integer.MAX_VALUE;
+
+        // limit the effort to what can be uploaded in the configured slice of the frame
+        if (!Double.isNaN(this.uploadBandwidth) && !Double.isNaN(this.meshUploadSize)) {
+            double bytesPerEffort = this.meshUploadSize / highEffort;
+
+            if (!Double.isNaN(this.sortUploadSize)) {
+                bytesPerEffort = Math.max(bytesPerEffort, this.sortUploadSize / ChunkBuilder.LOW_EFFORT);
+            }
+
+            if (bytesPerEffort > 0) {
+                double uploadBytes = this.uploadBandwidth * uploadTimeSlice;
+                uploadEffort = (int) Math.min(Integer.MAX_VALUE, uploadBytes / bytesPerEffort);
+            }
+        }
+
+        this.uploadEffortPerFrame = uploadEffort;
+    }
+
+    /**
+     * Returns the total effort which should be queued across all the given threads. This is never less than enough
+     * effort for a single meshing task and a single sorting task, so that progress is always made.
+     */
+    public int getTotalEffort(int threadCount) {
+        long threadEffort = (long) threadCount * this.effortPerThreadPerFrame;
+        int minEffort = this.highEffort + ChunkBuilder.LOW_EFFORT;
+
+        return (int) Math.max(minEffort, Math.min(threadEffort, this.uploadEffortPerFrame));
+    }
+
+    /**
+     * Returns the fraction of the total effort which should be given to high effort tasks.
+     */
+    public float getHighEffortBudgetFactor() {
+        int highEffort = this.highEffort;
+        return (float) highEffort / (highEffort + ChunkBuilder.LOW_EFFORT);
+    }
+
+    /**
+     * Returns the current effort of a meshing task, which is the measured cost of a meshing task relative to the
+     * cost of a sorting task. This may be read from any thread.
+     */
+    public int getHighEffort() {
+        return this.highEffort;
+    }
+
+    public String getDebugString() {
+        return String.format("Build Budget: E/Thread=%03d | Mesh=%.2fms (E %02d) | Sort=%.2fms | Upload=%d KiB",
+                this.effortPerThreadPerFrame, nanosToMillis(this.meshTaskTime), this.highEffort,
+                nanosToMillis(this.sortTaskTime), this.lastFrameUploadBytes / 1024);
+    }
+
+    private static double collectAverage(double average, AtomicLong timeSum, AtomicLong count) {
+        long samples = count.getAndSet(0);
+        long time = timeSum.getAndSet(0);
+
+        if (samples == 0) {
+            return average;
+        }
+
+        return smooth(average, (double) time / samples);
+    }
+
+    private static double smooth(double average, double sample) {
+        if (Double.isNaN(average)) {
+            return sample;
+        }
+
+        return average + (sample - average) * SMOOTHING_FACTOR;
+    }
+
+    private static double nanosToMillis(double nanos) {
+        return Double.isNaN(nanos) ? 0.0 : nanos / 1_000_000.0;
+    }
+}
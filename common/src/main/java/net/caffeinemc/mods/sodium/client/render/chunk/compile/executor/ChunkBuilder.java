@@ -3,16 +3,20 @@ package net.caffeinemc.mods.sodium.client.render.chunk.compile.executor;
 import com.mojang.jtracy.TracyClient;
 import com.mojang.jtracy.Zone;
 import net.caffeinemc.mods.sodium.client.SodiumClientMod;
+import net.caffeinemc.mods.sodium.client.gl.arena.staging.MeshStagingBuffer;
 import net.caffeinemc.mods.sodium.client.render.chunk.compile.BuilderTaskOutput;
 import net.caffeinemc.mods.sodium.client.render.chunk.compile.ChunkBuildContext;
+import net.caffeinemc.mods.sodium.client.render.chunk.compile.cache.SectionMeshDiskCache;
 import net.caffeinemc.mods.sodium.client.render.chunk.compile.tasks.ChunkBuilderTask;
 import net.caffeinemc.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
+import net.caffeinemc.mods.sodium.client.util.metrics.Histogram;
 import net.minecraft.SharedConstants;
 import net.minecraft.client.multiplayer.ClientLevel;
 import net.minecraft.util.Mth;
 import org.apache.commons.lang3.Validate;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -27,34 +31,46 @@ public class ChunkBuilder {
      * These values need to capture that there's a limit to how much data can be
      * uploaded per frame. Since sort tasks generate index data, which is smaller
      * per quad and (on average) per section, more of their results can be uploaded
-     * in one frame. This number should essentially be a conservative estimate of
+     * in one frame. The high effort should essentially be a conservative estimate of
      * min((mesh task upload size) / (sort task upload size), (mesh task time) /
      * (sort task time)).
+     *
+     * The high effort given here is only the initial estimate, and is replaced by
+     * the measured ratio once {@link ChunkBuildBudget} has collected enough samples.
      */
     public static final int HIGH_EFFORT = 10;
     public static final int LOW_EFFORT = 1;
-    public static final int EFFORT_PER_THREAD_PER_FRAME = HIGH_EFFORT + LOW_EFFORT;
-    private static final float HIGH_EFFORT_BUDGET_FACTOR = (float)HIGH_EFFORT / EFFORT_PER_THREAD_PER_FRAME;
 
     static final Logger LOGGER = LogManager.getLogger("ChunkBuilder");
 
-    private final ChunkJobQueue queue = new ChunkJobQueue();
+    private final ChunkJobQueue queue;
 
     private final List<Thread> threads = new ArrayList<>();
 
     private final AtomicInteger busyThreadCount = new AtomicInteger();
 
+    private final ChunkBuildBudget budget = new ChunkBuildBudget();
+
     private final ChunkBuildContext localContext;
 
-    public ChunkBuilder(ClientLevel level, ChunkVertexType vertexType) {
+    /**
+     * @param stagingBuffer The buffer to write finished meshes into, or null to write them into regular memory
+     */
+    public ChunkBuilder(ClientLevel level, ChunkVertexType vertexType, @Nullable MeshStagingBuffer stagingBuffer) {
         int count = getThreadCount();
 
+        this.queue = new ChunkJobQueue(count);
+
+        SectionMeshDiskCache meshCache = SectionMeshDiskCache.open(level, vertexType, stagingBuffer != null);
+
         for (int i = 0; i < count; i++) {
-            ChunkBuildContext context = new ChunkBuildContext(level, vertexType);
-            WorkerRunnable worker = new WorkerRunnable("Chunk Render Task Executor #" + i, context);
+            ChunkBuildContext context = new ChunkBuildContext(level, vertexType, stagingBuffer, meshCache);
+            ChunkJobQueue.Worker queueWorker = this.queue.getWorker(i);
+            WorkerRunnable worker = new WorkerRunnable("Chunk Render Task Executor #" + i, context, queueWorker);
 
             Thread thread = new Thread(worker, "Chunk Render Task Executor #" + i);
             thread.setPriority(Math.max(0, Thread.NORM_PRIORITY - 2));
+            queueWorker.setThread(thread);
             thread.start();
 
             this.threads.add(thread);
@@ -62,7 +78,9 @@ public class ChunkBuilder {
 
         LOGGER.info("Started {} worker threads", this.threads.size());
 
-        this.localContext = new ChunkBuildContext(level, vertexType);
+        // sections are only rebuilt on the main thread when the player is waiting for them, which isn't worth stalling
+        // the frame on hashing their content and writing it to disk for
+        this.localContext = new ChunkBuildContext(level, vertexType, stagingBuffer, null);
     }
 
     /**
@@ -70,11 +88,11 @@ public class ChunkBuilder {
      * spawn more tasks than the budget allows, it will block until resources become available.
      */
     private int getTotalRemainingBudget() {
-        return Math.max(0, this.threads.size() * EFFORT_PER_THREAD_PER_FRAME - this.queue.getEffortSum());
+        return Math.max(0, this.budget.getTotalEffort(this.threads.size()) - this.queue.getEffortSum());
     }
 
     public int getHighEffortSchedulingBudget() {
-        return Math.max(HIGH_EFFORT, (int) (this.getTotalRemainingBudget() * HIGH_EFFORT_BUDGET_FACTOR));
+        return Math.max(this.budget.getHighEffort(), (int) (this.getTotalRemainingBudget() * this.budget.getHighEffortBudgetFactor()));
     }
 
     public int getLowEffortSchedulingBudget() {
@@ -118,7 +136,8 @@ public class ChunkBuilder {
     }
 
     public <TASK extends ChunkBuilderTask<OUTPUT>, OUTPUT extends BuilderTaskOutput> ChunkJobTyped<TASK, OUTPUT> scheduleTask(TASK task, boolean important,
-                                                                                                    Consumer<ChunkJobResult<OUTPUT>> consumer)
+                                                                                                    Consumer<ChunkJobResult<OUTPUT>> consumer,
+                                                                                                    Histogram latency)
     {
         Validate.notNull(task, "Task must be non-null");
 
@@ -126,13 +145,25 @@ public class ChunkBuilder {
             throw new IllegalStateException("Executor is stopped");
         }
 
-        var job = new ChunkJobTyped<>(task, consumer);
+        var job = new ChunkJobTyped<>(task, consumer, this.getTaskEffort(task.getEffort()), this.budget, latency);
 
         this.queue.add(job, important);
 
         return job;
     }
 
+    /**
+     * Returns the effort currently assigned to tasks of the given effort category. Low effort tasks always have
+     * an effort of {@link #LOW_EFFORT}, while the effort of high effort tasks is derived from measurements.
+     */
+    public int getTaskEffort(int effortCategory) {
+        return effortCategory <= LOW_EFFORT ? effortCategory : this.budget.getHighEffort();
+    }
+
+    public ChunkBuildBudget getBudget() {
+        return this.budget;
+    }
+
     /**
      * Returns the "optimal" number of threads to be used for chunk build tasks. This will always return at least one
      * thread.
@@ -164,6 +195,22 @@ public class ChunkBuilder {
         }
     }
 
+    /**
+     * Cancels a job which has not been started by any thread yet and releases its effort from the scheduling budget
+     * immediately. The job will not be executed, and so its result consumer will never be called.
+     *
+     * @return True if the job was cancelled before it started, otherwise false
+     */
+    public boolean tryCancelJob(ChunkJob job) {
+        if (!this.queue.stealJob(job)) {
+            return false;
+        }
+
+        job.setCancelled();
+
+        return true;
+    }
+
     public boolean isBuildQueueEmpty() {
         return this.queue.isEmpty();
     }
@@ -189,23 +236,19 @@ public class ChunkBuilder {
         // caches between different CPU cores
         private final String name;
         private final ChunkBuildContext context;
+        private final ChunkJobQueue.Worker queueWorker;
 
-        public WorkerRunnable(String name, ChunkBuildContext context) {
+        public WorkerRunnable(String name, ChunkBuildContext context, ChunkJobQueue.Worker queueWorker) {
             this.name = name;
             this.context = context;
+            this.queueWorker = queueWorker;
         }
 
         @Override
         public void run() {
             // Run until the chunk builder shuts down
             while (ChunkBuilder.this.queue.isRunning()) {
-                ChunkJob job;
-
-                try {
-                    job = ChunkBuilder.this.queue.waitForNextJob();
-                } catch (InterruptedException ignored) {
-                    continue;
-                }
+                ChunkJob job = this.queueWorker.waitForNextJob();
 
                 if (job == null) {
                     // might mean we are not running anymore... go around and check isRunning
@@ -8,5 +8,13 @@ public interface ChunkJob extends CancellationToken {
 
     boolean isStarted();
 
+    /**
+     * Atomically claims this job for execution. Only the first caller will succeed, which allows a queued job to be
+     * taken by a thread without removing it from the queue it was submitted to.
+     *
+     * @return True if the job was claimed by the calling thread, otherwise false
+     */
+    boolean tryClaim();
+
     int getEffort();
 }
@@ -5,97 +5,152 @@ import org.jetbrains.annotations.Nullable;
 import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A work-stealing job queue. Deferred jobs are distributed round-robin over per-worker deques, so that workers
+ * normally only touch their own deque. Important jobs are placed in a small shared lane which every worker checks
+ * first, which preserves their ordering relative to each other and to the deferred jobs. Workers which run out of
+ * work steal from the deques of other workers before going to sleep.
+ *
+ * Jobs are never removed from the middle of a deque. Instead, a job is claimed atomically by whichever thread
+ * runs it first (see {@link ChunkJob#tryClaim()}), and stale entries for jobs which were already claimed are
+ * skipped when they reach the head of their deque. This gives the render thread an O(1) path to run a specific job
+ * it is blocked on.
+ */
 class ChunkJobQueue {
-    private final ConcurrentLinkedDeque<ChunkJob> jobs = new ConcurrentLinkedDeque<>();
+    private final ConcurrentLinkedDeque<ChunkJob> importantJobs = new ConcurrentLinkedDeque<>();
 
-    private final AtomicInteger jobEffortSum = new AtomicInteger();
+    private final Worker[] workers;
 
-    private final Semaphore semaphore = new Semaphore(0);
+    private final AtomicInteger jobCount = new AtomicInteger();
+
+    private final AtomicInteger jobEffortSum = new AtomicInteger();
 
     private final AtomicBoolean isRunning = new AtomicBoolean(true);
 
+    // Only accessed from the thread which submits jobs
+    private int nextWorker;
+
+    ChunkJobQueue(int workerCount) {
+        Validate.isTrue(workerCount > 0, "At least one worker is required");
+
+        this.workers = new Worker[workerCount];
+
+        for (int i = 0; i < workerCount; i++) {
+            this.workers[i] = new Worker(i);
+        }
+    }
+
     public boolean isRunning() {
         return this.isRunning.get();
     }
 
+    public Worker getWorker(int index) {
+        return this.workers[index];
+    }
+
     public void add(ChunkJob job, boolean important) {
         Validate.isTrue(this.isRunning(), "Queue is no longer running");
 
+        this.jobEffortSum.addAndGet(job.getEffort());
+        this.jobCount.incrementAndGet();
+
         if (important) {
-            this.jobs.addFirst(job);
+            this.importantJobs.addFirst(job);
+
+            // any worker can take jobs from the shared lane, so wake up one which is sleeping (if any)
+            this.wakeAnyParked();
         } else {
-            this.jobs.addLast(job);
-        }
-        this.jobEffortSum.addAndGet(job.getEffort());
+            var worker = this.workers[this.nextWorker];
+            this.nextWorker = (this.nextWorker + 1) % this.workers.length;
 
-        this.semaphore.release(1);
-    }
+            worker.jobs.addLast(job);
 
-    @Nullable
-    public ChunkJob waitForNextJob() throws InterruptedException {
-        if (!this.isRunning()) {
-            return null;
+            // if the worker is busy, another worker which is sleeping can steal the job instead of leaving it to wait
+            if (!worker.wakeIfParked()) {
+                this.wakeAnyParked();
+            }
         }
+    }
 
-        this.semaphore.acquire();
-
-        var job = this.getNextTask();
-        if (job != null) {
-            this.jobEffortSum.addAndGet(-job.getEffort());
+    private void wakeAnyParked() {
+        for (var worker : this.workers) {
+            if (worker.wakeIfParked()) {
+                break;
+            }
         }
-        return job;
     }
 
+    /**
+     * Attempts to claim the given job so that it can be run on the calling thread. This does not need to search
+     * the queue, since the stale entry in the worker's deque will be skipped once it is reached.
+     */
     public boolean stealJob(ChunkJob job) {
-        if (!this.semaphore.tryAcquire()) {
+        if (!job.tryClaim()) {
             return false;
         }
 
-        var success = this.jobs.remove(job);
+        this.onJobClaimed(job);
 
-        if (success) {
-            this.jobEffortSum.addAndGet(-job.getEffort());
-        } else {
-            // If we didn't manage to actually steal the task, then we need to release the permit which we did steal
-            this.semaphore.release(1);
-        }
+        return true;
+    }
 
-        return success;
+    private void onJobClaimed(ChunkJob job) {
+        this.jobCount.decrementAndGet();
+        this.jobEffortSum.addAndGet(-job.getEffort());
     }
 
     @Nullable
-    private ChunkJob getNextTask() {
-        return this.jobs.poll();
-    }
+    private ChunkJob pollClaimable(ConcurrentLinkedDeque<ChunkJob> jobs) {
+        ChunkJob job;
 
+        while ((job = jobs.pollFirst()) != null) {
+            if (job.tryClaim()) {
+                this.onJobClaimed(job);
+                return job;
+            }
+        }
+
+        return null;
+    }
 
     public Collection<ChunkJob> shutdown() {
         var list = new ArrayDeque<ChunkJob>();
 
         this.isRunning.set(false);
 
-        while (this.semaphore.tryAcquire()) {
-            var task = this.jobs.poll();
+        this.drainInto(this.importantJobs, list);
 
-            if (task != null) {
-                list.add(task);
-            }
+        for (var worker : this.workers) {
+            this.drainInto(worker.jobs, list);
         }
 
         // force the worker threads to wake up and exit
-        this.semaphore.release(Runtime.getRuntime().availableProcessors());
+        for (var worker : this.workers) {
+            worker.wake();
+        }
 
+        this.jobCount.set(0);
         this.jobEffortSum.set(0);
 
         return list;
     }
 
+    private void drainInto(ConcurrentLinkedDeque<ChunkJob> jobs, Collection<ChunkJob> list) {
+        ChunkJob job;
+
+        while ((job = jobs.pollFirst()) != null) {
+            if (job.tryClaim()) {
+                list.add(job);
+            }
+        }
+    }
+
     public int size() {
-        return this.semaphore.availablePermits();
+        return this.jobCount.get();
     }
 
     public int getEffortSum() {
@@ -105,4 +160,96 @@ class ChunkJobQueue {
     public boolean isEmpty() {
         return this.size() == 0;
     }
+
+    class Worker {
+        private final int index;
+        private final ConcurrentLinkedDeque<ChunkJob> jobs = new ConcurrentLinkedDeque<>();
+
+        private volatile Thread thread;
+
+        // Cleared by whichever thread wakes the worker, so that each wake-up goes to a different parked worker
+        private final AtomicBoolean parked = new AtomicBoolean();
+
+        private Worker(int index) {
+            this.index = index;
+        }
+
+        public void setThread(Thread thread) {
+            this.thread = thread;
+        }
+
+        /**
+         * Returns the next job for this worker, blocking until one is available. The shared lane of important jobs
+         * is checked first, followed by this worker's own deque, and then the deques of all other workers.
+         *
+         * @return The next job, or null if the queue was shut down while waiting
+         */
+        @Nullable
+        public ChunkJob waitForNextJob() {
+            while (ChunkJobQueue.this.isRunning()) {
+                var job = this.findJob();
+
+                if (job != null) {
+                    return job;
+                }
+
+                this.parked.set(true);
+
+                // check again after publishing the parked flag, so that a job added concurrently is never missed
+                if (ChunkJobQueue.this.isRunning() && ChunkJobQueue.this.isEmpty()) {
+                    LockSupport.park(ChunkJobQueue.this);
+                }
+
+                this.parked.set(false);
+            }
+
+            return null;
+        }
+
+        @Nullable
+        private ChunkJob findJob() {
+            var job = ChunkJobQueue.this.pollClaimable(ChunkJobQueue.this.importantJobs);
+
+            if (job != null) {
+                return job;
+            }
+
+            job = ChunkJobQueue.this.pollClaimable(this.jobs);
+
+            if (job != null) {
+                return job;
+            }
+
+            var workers = ChunkJobQueue.this.workers;
+
+            for (int offset = 1; offset < workers.length; offset++) {
+                var victim = workers[(this.index + offset) % workers.length];
+                job = ChunkJobQueue.this.pollClaimable(victim.jobs);
+
+                if (job != null) {
+                    return job;
+                }
+            }
+
+            return null;
+        }
+
+        private boolean wakeIfParked() {
+            if (!this.parked.compareAndSet(true, false)) {
+                return false;
+            }
+
+            this.wake();
+
+            return true;
+        }
+
+        private void wake() {
+            var thread = this.thread;
+
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
 }
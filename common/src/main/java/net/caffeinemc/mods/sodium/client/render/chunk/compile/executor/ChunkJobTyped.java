@@ -3,7 +3,9 @@ package net.caffeinemc.mods.sodium.client.render.chunk.compile.executor;
 import net.caffeinemc.mods.sodium.client.render.chunk.compile.BuilderTaskOutput;
 import net.caffeinemc.mods.sodium.client.render.chunk.compile.ChunkBuildContext;
 import net.caffeinemc.mods.sodium.client.render.chunk.compile.tasks.ChunkBuilderTask;
+import net.caffeinemc.mods.sodium.client.util.metrics.Histogram;
 
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 public class ChunkJobTyped<TASK extends ChunkBuilderTask<OUTPUT>, OUTPUT extends BuilderTaskOutput>
@@ -11,13 +13,23 @@ public class ChunkJobTyped<TASK extends ChunkBuilderTask<OUTPUT>, OUTPUT extends
 {
     private final TASK task;
     private final Consumer<ChunkJobResult<OUTPUT>> consumer;
+    private final int effort;
+    private final ChunkBuildBudget budget;
+    private final Histogram latency;
+    private final long scheduleTime;
 
     private volatile boolean cancelled;
     private volatile boolean started;
 
-    ChunkJobTyped(TASK task, Consumer<ChunkJobResult<OUTPUT>> consumer) {
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    ChunkJobTyped(TASK task, Consumer<ChunkJobResult<OUTPUT>> consumer, int effort, ChunkBuildBudget budget, Histogram latency) {
         this.task = task;
         this.consumer = consumer;
+        this.effort = effort;
+        this.budget = budget;
+        this.latency = latency;
+        this.scheduleTime = System.nanoTime();
     }
 
     @Override
@@ -42,6 +54,7 @@ public class ChunkJobTyped<TASK extends ChunkBuilderTask<OUTPUT>, OUTPUT extends
         ChunkJobResult<OUTPUT> result;
 
         try {
+            long start = System.nanoTime();
             var output = this.task.execute(context, this);
 
             // Task was cancelled while executing
@@ -49,6 +62,10 @@ public class ChunkJobTyped<TASK extends ChunkBuilderTask<OUTPUT>, OUTPUT extends
                 return;
             }
 
+            long end = System.nanoTime();
+            this.budget.recordTaskTime(this.effort, end - start);
+            this.latency.record((end - this.scheduleTime) / 1000L);
+
             result = ChunkJobResult.successfully(output);
         } catch (Throwable throwable) {
             result = ChunkJobResult.exceptionally(throwable);
@@ -67,8 +84,13 @@ public class ChunkJobTyped<TASK extends ChunkBuilderTask<OUTPUT>, OUTPUT extends
         return this.started;
     }
 
+    @Override
+    public boolean tryClaim() {
+        return !this.claimed.get() && this.claimed.compareAndSet(false, true);
+    }
+
     @Override
     public int getEffort() {
-        return this.task.getEffort();
+        return this.effort;
     }
 }
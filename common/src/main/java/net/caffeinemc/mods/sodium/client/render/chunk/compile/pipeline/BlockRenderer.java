@@ -3,7 +3,9 @@ package net.caffeinemc.mods.sodium.client.render.chunk.compile.pipeline;
 import net.caffeinemc.mods.sodium.api.util.ColorABGR;
 import net.caffeinemc.mods.sodium.api.util.ColorARGB;
 import net.caffeinemc.mods.sodium.api.util.ColorMixer;
+import net.caffeinemc.mods.sodium.client.SodiumClientMod;
 import net.caffeinemc.mods.sodium.client.compatibility.workarounds.Workarounds;
+import net.caffeinemc.mods.sodium.client.model.WeightedBakedModelExtension;
 import net.caffeinemc.mods.sodium.client.model.color.ColorProvider;
 import net.caffeinemc.mods.sodium.client.model.color.ColorProviderRegistry;
 import net.caffeinemc.mods.sodium.client.model.light.LightMode;
@@ -23,9 +25,11 @@ import net.caffeinemc.mods.sodium.client.render.chunk.vertex.builder.ChunkMeshBu
 import net.caffeinemc.mods.sodium.client.render.chunk.vertex.format.ChunkVertexEncoder;
 import net.caffeinemc.mods.sodium.client.render.frapi.mesh.MutableQuadViewImpl;
 import net.caffeinemc.mods.sodium.client.render.frapi.render.AbstractBlockRenderContext;
+import net.caffeinemc.mods.sodium.client.render.frapi.render.BakedQuadCache;
 import net.caffeinemc.mods.sodium.client.render.texture.SpriteFinderCache;
 import net.caffeinemc.mods.sodium.client.services.PlatformModelAccess;
 import net.caffeinemc.mods.sodium.client.services.SodiumModelData;
+import net.caffeinemc.mods.sodium.client.util.DirectionUtil;
 import net.caffeinemc.mods.sodium.client.world.LevelSlice;
 import net.fabricmc.fabric.api.renderer.v1.material.BlendMode;
 import net.fabricmc.fabric.api.renderer.v1.material.RenderMaterial;
@@ -36,10 +40,15 @@ import net.minecraft.client.renderer.ItemBlockRenderTypes;
 import net.minecraft.client.renderer.RenderType;
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
 import net.minecraft.client.resources.model.BakedModel;
+import net.minecraft.client.resources.model.SimpleBakedModel;
+import net.minecraft.client.resources.model.WeightedBakedModel;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.block.RenderShape;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.levelgen.SingleThreadedRandomSource;
 import net.minecraft.world.phys.Vec3;
+import net.minecraft.world.phys.shapes.Shapes;
 import org.jetbrains.annotations.Nullable;
 import org.joml.Vector3f;
 
@@ -56,11 +65,17 @@ public class BlockRenderer extends AbstractBlockRenderContext {
     private ColorProvider<BlockState> colorProvider;
     private TranslucentGeometryCollector collector;
 
+    private final GreedyFaceMerger faceMerger = new GreedyFaceMerger();
+    private boolean useFaceMerging;
+
     public BlockRenderer(ColorProviderRegistry colorRegistry, LightPipelineProvider lighters) {
         this.colorProviderRegistry = colorRegistry;
         this.lighters = lighters;
 
         this.random = new SingleThreadedRandomSource(42L);
+
+        // the renderer is recreated along with the chunk builder when resources are reloaded
+        this.quadCache = new BakedQuadCache();
     }
 
     public void prepare(ChunkBuildBuffers buffers, LevelSlice level, TranslucentGeometryCollector collector) {
@@ -68,6 +83,62 @@ public class BlockRenderer extends AbstractBlockRenderContext {
         this.level = level;
         this.collector = collector;
         this.slice = level;
+
+        // discard the faces of a previous build that was cancelled before they were flushed
+        this.faceMerger.reset();
+        this.useFaceMerging = SodiumClientMod.options().performance.useGreedyFaceMerging;
+    }
+
+    /**
+     * Merges the faces collected while rendering the section's blocks, and buffers the resulting quads. This must be
+     * called after all blocks have been rendered, and before the meshes are built.
+     */
+    public void flushMergedFaces() {
+        this.faceMerger.flush(this.buffers.get(DefaultTerrainRenderPasses.SOLID));
+    }
+
+    /**
+     * Checks if a block renders nothing when all of its neighbors have the same state, which is the case when its
+     * faces fully occlude each other and its model only has quads which are culled against its neighbors. Only the
+     * vanilla models are checked, since the quads of other models can depend on the block's position.
+     * <p>
+     * The fluid of a block doesn't need to be checked, since every face of a fluid is culled against a neighbor with
+     * the same fluid state (see {@link BlockOcclusionCache#shouldDrawFullBlockFluidSide}). This makes the source
+     * blocks of a uniform section of ocean or lava hidden by themselves.
+     *
+     * @return True if the block is hidden by neighbors with the same state, otherwise false
+     */
+    public boolean isHiddenBySelf(BlockState state, BakedModel model) {
+        if (state.hasBlockEntity()) {
+            return false;
+        }
+
+        if (state.getRenderShape() != RenderShape.MODEL) {
+            return true;
+        }
+
+        for (Direction direction : DirectionUtil.ALL_DIRECTIONS) {
+            if (state.getFaceOcclusionShape(direction) != Shapes.block()) {
+                return false;
+            }
+        }
+
+        if (model.getClass() == WeightedBakedModel.class) {
+            for (var variant : ((WeightedBakedModelExtension) model).sodium$getVariants()) {
+                if (!this.hasOnlyCulledQuads(variant.data(), state)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        return this.hasOnlyCulledQuads(model, state);
+    }
+
+    private boolean hasOnlyCulledQuads(BakedModel model, BlockState state) {
+        // Mods may extend the vanilla models to change their quads, so only the exact class is checked
+        return model.getClass() == SimpleBakedModel.class && model.getQuads(state, null, this.random).isEmpty();
     }
 
     public void release() {
@@ -204,12 +275,26 @@ public class BlockRenderer extends AbstractBlockRenderContext {
         }
 
         ChunkModelBuilder builder = this.buffers.get(pass);
-        ChunkMeshBufferBuilder vertexBuffer = builder.getVertexBuffer(normalFace);
-        vertexBuffer.push(vertices, materialBits);
+
+        // solid faces which can be merged with their neighbors are buffered once the whole section has been rendered
+        if (pass != DefaultTerrainRenderPasses.SOLID || !this.mergeFace(atlasSprite, materialBits, normalFace)) {
+            ChunkMeshBufferBuilder vertexBuffer = builder.getVertexBuffer(normalFace);
+            vertexBuffer.push(vertices, materialBits);
+        }
 
         builder.addSprite(atlasSprite);
     }
 
+    private boolean mergeFace(TextureAtlasSprite sprite, int materialBits, ModelQuadFacing normalFace) {
+        if (!this.useFaceMerging) {
+            return false;
+        }
+
+        return this.faceMerger.add(this.vertices, normalFace, materialBits,
+                sprite.getU0(), sprite.getV0(), sprite.getU1(), sprite.getV1(),
+                sprite.contents().width(), sprite.contents().height());
+    }
+
     private boolean validateQuadUVs(TextureAtlasSprite atlasSprite) {
         // sanity check that the quad's UVs are within the sprite's bounds
         var spriteUMin = atlasSprite.getU0();
@@ -0,0 +1,403 @@
+package net.caffeinemc.mods.sodium.client.render.chunk.compile.pipeline;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import net.caffeinemc.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import net.caffeinemc.mods.sodium.client.render.chunk.ChunkPipelineMetrics;
+import net.caffeinemc.mods.sodium.client.render.chunk.compile.buffers.ChunkModelBuilder;
+import net.caffeinemc.mods.sodium.client.render.chunk.terrain.material.parameters.MaterialParameters;
+import net.caffeinemc.mods.sodium.client.render.chunk.vertex.format.ChunkVertexEncoder;
+
+import java.util.Arrays;
+
+/**
+ * Merges the coplanar block faces of a section which look identical into larger quads. A face can be merged if it
+ * covers exactly one cell of the block grid, shows its whole sprite, and has the same color, ambient occlusion and light
+ * at every vertex. Faces which show the same sprite with the same color, light and orientation in the same plane are
+ * then greedily combined into rectangles.
+ * <p>
+ * The merged quads are flagged as tiled in their material bits, and the shader repeats the sprite across them by
+ * deriving the texture coordinates from the position within each block. This requires the minimum texture coordinate,
+ * size and orientation of the sprite to be encoded into the vertex, which is done without growing the vertex format:
+ * every vertex of a tiled quad stores the sprite's origin as its texture coordinate, the axes are stored in the unused
+ * material bits, and the size and direction of the sprite replace the alpha channel of the color, which is always
+ * opaque for the faces that are merged.
+ */
+public class GreedyFaceMerger {
+    private static final int SECTION_SIZE = 16;
+
+    // The faces on both borders of the section are included
+    private static final int PLANE_COUNT = SECTION_SIZE + 1;
+    private static final int PLANE_CELLS = SECTION_SIZE * SECTION_SIZE;
+
+    // The sprite size is stored as the base-2 logarithm of the number of texels
+    private static final int MAX_SPRITE_SIZE_LOG2 = 7;
+
+    // The layout of the tiling parameters which replace the alpha channel of the color
+    private static final int TILE_OFFSET_WIDTH = 0;
+    private static final int TILE_OFFSET_HEIGHT = 3;
+    private static final int TILE_OFFSET_FLIP_U = 6;
+    private static final int TILE_OFFSET_FLIP_V = 7;
+
+    // The texture coordinates are encoded with 15 bits, so the sprite's origin must be a multiple of this unit
+    private static final float TEXTURE_MAX_VALUE = 1 << 15;
+
+    // The tolerance for texture coordinates to be considered at the edge of the sprite, relative to its size
+    private static final float TEXTURE_EPSILON = 1.0f / 1024.0f;
+
+    // The type of the face in each cell of every plane, as an index into the face types plus one, or zero if empty
+    private final int[] cells = new int[ModelQuadFacing.DIRECTIONS * PLANE_COUNT * PLANE_CELLS];
+
+    // The planes of each facing which contain any faces
+    private final int[] usedPlanes = new int[ModelQuadFacing.DIRECTIONS];
+
+    private final ObjectArrayList<FaceType> faceTypes = new ObjectArrayList<>();
+    private final Object2IntOpenHashMap<FaceType> faceTypeIds = new Object2IntOpenHashMap<>();
+
+    private final ChunkVertexEncoder.Vertex[] vertices = ChunkVertexEncoder.Vertex.uninitializedQuad();
+
+    // The faces which were added and the quads which were emitted since the last flush
+    private int faceCount;
+    private int quadCount;
+
+    public GreedyFaceMerger() {
+        this.faceTypeIds.defaultReturnValue(-1);
+    }
+
+    /**
+     * Adds a face of the section, which is later emitted as part of a merged quad if it can be merged.
+     *
+     * @param vertices The vertices of the face, with positions relative to the section's origin
+     * @param facing The facing of the face
+     * @param materialBits The material bits of the face
+     * @return True if the face was added, or false if it can't be merged and must be buffered as is
+     */
+    public boolean add(ChunkVertexEncoder.Vertex[] vertices, ModelQuadFacing facing, int materialBits,
+                       float spriteMinU, float spriteMinV, float spriteMaxU, float spriteMaxV,
+                       int spriteWidth, int spriteHeight) {
+        if (!facing.isAligned() || (materialBits & (1 << MaterialParameters.OFFSET_USE_MIP)) == 0) {
+            return false;
+        }
+
+        int spriteWidthLog2 = getSizeLog2(spriteWidth);
+        int spriteHeightLog2 = getSizeLog2(spriteHeight);
+
+        if (spriteWidthLog2 < 0 || spriteHeightLog2 < 0 || !isTextureAligned(spriteMinU) || !isTextureAligned(spriteMinV)) {
+            return false;
+        }
+
+        int normalAxis = facing.getAxis();
+        int axisA = (normalAxis + 1) % 3;
+        int axisB = (normalAxis + 2) % 3;
+
+        var first = vertices[0];
+
+        if ((first.color >>> 24) != 0xFF) {
+            return false;
+        }
+
+        float plane = getCoordinate(first, normalAxis);
+        float cellA = Float.POSITIVE_INFINITY;
+        float cellB = Float.POSITIVE_INFINITY;
+
+        for (var vertex : vertices) {
+            if (vertex.color != first.color || vertex.ao != first.ao || vertex.light != first.light ||
+                    getCoordinate(vertex, normalAxis) != plane) {
+                return false;
+            }
+
+            cellA = Math.min(cellA, getCoordinate(vertex, axisA));
+            cellB = Math.min(cellB, getCoordinate(vertex, axisB));
+        }
+
+        int planeIndex = (int) plane;
+        int cellIndexA = (int) cellA;
+        int cellIndexB = (int) cellB;
+
+        if (planeIndex != plane || planeIndex < 0 || planeIndex > SECTION_SIZE ||
+                cellIndexA != cellA || cellIndexA < 0 || cellIndexA >= SECTION_SIZE ||
+                cellIndexB != cellB || cellIndexB < 0 || cellIndexB >= SECTION_SIZE) {
+            return false;
+        }
+
+        // Find the corner of the cell and the corner of the sprite at each vertex, which must cover both entirely
+        int corners = 0;
+        int seenCorners = 0;
+
+        // The texture coordinates increase along or against either of the axes, which is narrowed down by each vertex
+        int candidatesU = 0b1111;
+        int candidatesV = 0b1111;
+
+        for (int i = 0; i < 4; i++) {
+            var vertex = vertices[i];
+
+            float a = getCoordinate(vertex, axisA) - cellA;
+            float b = getCoordinate(vertex, axisB) - cellB;
+
+            if ((a != 0.0f && a != 1.0f) || (b != 0.0f && b != 1.0f)) {
+                return false;
+            }
+
+            int u = getSpriteEdge(vertex.u, spriteMinU, spriteMaxU);
+            int v = getSpriteEdge(vertex.v, spriteMinV, spriteMaxV);
+
+            if (u < 0 || v < 0) {
+                return false;
+            }
+
+            int corner = (a != 0.0f ? 1 : 0) | (b != 0.0f ? 2 : 0);
+            corners |= corner << (i * 2);
+            seenCorners |= 1 << corner;
+
+            candidatesU &= getOrientations(corner, u);
+            candidatesV &= getOrientations(corner, v);
+        }
+
+        if (seenCorners != 0b1111) {
+            return false;
+        }
+
+        // Exactly one orientation remains for each texture coordinate if the sprite isn't skewed
+        int orientationU = Integer.numberOfTrailingZeros(candidatesU);
+        int orientationV = Integer.numberOfTrailingZeros(candidatesV);
+
+        if (Integer.bitCount(candidatesU) != 1 || Integer.bitCount(candidatesV) != 1 || (orientationU >> 1) == (orientationV >> 1)) {
+            return false;
+        }
+
+        int cellIndex = getCellIndex(facing, planeIndex, cellIndexA, cellIndexB);
+
+        if (this.cells[cellIndex] != 0) {
+            return false;
+        }
+
+        int tileParams = (spriteWidthLog2 << TILE_OFFSET_WIDTH) |
+                (spriteHeightLog2 << TILE_OFFSET_HEIGHT) |
+                ((orientationU & 1) << TILE_OFFSET_FLIP_U) |
+                ((orientationV & 1) << TILE_OFFSET_FLIP_V);
+
+        int tiling = MaterialParameters.packTiling(
+                (orientationU >> 1) == 0 ? axisA : axisB,
+                (orientationV >> 1) == 0 ? axisA : axisB);
+
+        var type = new FaceType(
+                (first.color & 0x00FFFFFF) | (tileParams << 24),
+                Float.floatToIntBits(first.ao), first.light,
+                materialBits | tiling,
+                Float.floatToIntBits(spriteMinU), Float.floatToIntBits(spriteMinV),
+                corners);
+
+        int id = this.faceTypeIds.getInt(type);
+
+        if (id < 0) {
+            id = this.faceTypes.size();
+
+            this.faceTypes.add(type);
+            this.faceTypeIds.put(type, id);
+        }
+
+        this.cells[cellIndex] = id + 1;
+        this.usedPlanes[facing.ordinal()] |= 1 << planeIndex;
+        this.faceCount++;
+
+        return true;
+    }
+
+    /**
+     * Merges the faces which were added since the last flush, and pushes the resulting quads into the model builder.
+     */
+    public void flush(ChunkModelBuilder builder) {
+        for (int facingIndex = 0; facingIndex < ModelQuadFacing.DIRECTIONS; facingIndex++) {
+            var facing = ModelQuadFacing.VALUES[facingIndex];
+            int planes = this.usedPlanes[facingIndex];
+
+            while (planes != 0) {
+                int plane = Integer.numberOfTrailingZeros(planes);
+                planes &= planes - 1;
+
+                this.mergePlane(builder, facing, plane);
+            }
+
+            this.usedPlanes[facingIndex] = 0;
+        }
+
+        ChunkPipelineMetrics.MERGED_FACES.add(this.faceCount);
+        ChunkPipelineMetrics.MERGED_QUADS.add(this.quadCount);
+
+        this.faceTypes.clear();
+        this.faceTypeIds.clear();
+
+        this.faceCount = 0;
+        this.quadCount = 0;
+    }
+
+    /**
+     * Discards the faces which were added since the last flush.
+     */
+    public void reset() {
+        for (int facingIndex = 0; facingIndex < ModelQuadFacing.DIRECTIONS; facingIndex++) {
+            var facing = ModelQuadFacing.VALUES[facingIndex];
+            int planes = this.usedPlanes[facingIndex];
+
+            while (planes != 0) {
+                int plane = Integer.numberOfTrailingZeros(planes);
+                planes &= planes - 1;
+
+                int start = getCellIndex(facing, plane, 0, 0);
+                Arrays.fill(this.cells, start, start + PLANE_CELLS, 0);
+            }
+
+            this.usedPlanes[facingIndex] = 0;
+        }
+
+        this.faceTypes.clear();
+        this.faceTypeIds.clear();
+
+        this.faceCount = 0;
+        this.quadCount = 0;
+    }
+
+    private void mergePlane(ChunkModelBuilder builder, ModelQuadFacing facing, int plane) {
+        final int[] cells = this.cells;
+        final int start = getCellIndex(facing, plane, 0, 0);
+
+        for (int b = 0; b < SECTION_SIZE; b++) {
+            for (int a = 0; a < SECTION_SIZE; a++) {
+                int id = cells[start + (b * SECTION_SIZE) + a];
+
+                if (id == 0) {
+                    continue;
+                }
+
+                // Extend the quad along the first axis for as long as the faces match, and then along the second axis
+                // for as long as every face in the next row matches
+                int width = 1;
+
+                while (a + width < SECTION_SIZE && cells[start + (b * SECTION_SIZE) + a + width] == id) {
+                    width++;
+                }
+
+                int height = 1;
+
+                while (b + height < SECTION_SIZE && isRowFilled(cells, start + ((b + height) * SECTION_SIZE) + a, width, id)) {
+                    height++;
+                }
+
+                for (int row = b; row < b + height; row++) {
+                    int rowStart = start + (row * SECTION_SIZE) + a;
+                    Arrays.fill(cells, rowStart, rowStart + width, 0);
+                }
+
+                this.emitQuad(builder, facing, plane, a, b, width, height, this.faceTypes.get(id - 1));
+            }
+        }
+    }
+
+    private void emitQuad(ChunkModelBuilder builder, ModelQuadFacing facing, int plane, int a, int b, int width, int height,
+                          FaceType type) {
+        int normalAxis = facing.getAxis();
+        int axisA = (normalAxis + 1) % 3;
+        int axisB = (normalAxis + 2) % 3;
+
+        var vertices = this.vertices;
+
+        for (int i = 0; i < 4; i++) {
+            int corner = (type.corners >>> (i * 2)) & 0b11;
+
+            var vertex = vertices[i];
+            setCoordinate(vertex, normalAxis, plane);
+            setCoordinate(vertex, axisA, a + ((corner & 1) != 0 ? width : 0));
+            setCoordinate(vertex, axisB, b + ((corner & 2) != 0 ? height : 0));
+
+            vertex.color = type.color;
+            vertex.ao = Float.intBitsToFloat(type.ao);
+            vertex.light = type.light;
+
+            // Every vertex stores the origin of the sprite, as the shader computes the coordinates within it. As the
+            // origin is then also the center of the quad's texture, the encoder biases it by a fixed unit, which the
+            // shader undoes (see CompactChunkVertex.encodeTexture).
+            vertex.u = Float.intBitsToFloat(type.spriteU);
+            vertex.v = Float.intBitsToFloat(type.spriteV);
+        }
+
+        builder.getVertexBuffer(facing)
+                .push(vertices, type.materialBits);
+
+        this.quadCount++;
+    }
+
+    private static boolean isRowFilled(int[] cells, int start, int width, int id) {
+        for (int i = start; i < start + width; i++) {
+            if (cells[i] != id) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int getCellIndex(ModelQuadFacing facing, int plane, int a, int b) {
+        return (((facing.ordinal() * PLANE_COUNT) + plane) * PLANE_CELLS) + (b * SECTION_SIZE) + a;
+    }
+
+    private static int getSizeLog2(int size) {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            return -1;
+        }
+
+        int log2 = Integer.numberOfTrailingZeros(size);
+        return log2 <= MAX_SPRITE_SIZE_LOG2 ? log2 : -1;
+    }
+
+    private static boolean isTextureAligned(float coord) {
+        float scaled = coord * TEXTURE_MAX_VALUE;
+        return scaled == (float) Math.floor(scaled) && scaled >= 0.0f && scaled < TEXTURE_MAX_VALUE;
+    }
+
+    /**
+     * @return 0 if the coordinate is at the minimum edge of the sprite, 1 if it is at the maximum edge, or -1 otherwise
+     */
+    private static int getSpriteEdge(float coord, float min, float max) {
+        float epsilon = (max - min) * TEXTURE_EPSILON;
+
+        if (Math.abs(coord - min) <= epsilon) {
+            return 0;
+        } else if (Math.abs(coord - max) <= epsilon) {
+            return 1;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the orientations of a texture coordinate which agree with the given corner of the cell. The orientations
+     * are a bit set where the bits 0 and 1 mean that the coordinate increases along or against the first axis, and the
+     * bits 2 and 3 mean the same for the second axis.
+     */
+    private static int getOrientations(int corner, int edge) {
+        int a = corner & 1;
+        int b = (corner >> 1) & 1;
+
+        return (1 << (a ^ edge)) | (1 << (2 + (b ^ edge)));
+    }
+
+    private static float getCoordinate(ChunkVertexEncoder.Vertex vertex, int axis) {
+        return switch (axis) {
+            case 0 -> vertex.x;
+            case 1 -> vertex.y;
+            default -> vertex.z;
+        };
+    }
+
+    private static void setCoordinate(ChunkVertexEncoder.Vertex vertex, int axis, float value) {
+        switch (axis) {
+            case 0 -> vertex.x = value;
+            case 1 -> vertex.y = value;
+            default -> vertex.z = value;
+        }
+    }
+
+    private record FaceType(int color, int ao, int light, int materialBits, int spriteU, int spriteV, int corners) {
+
+    }
+}
@@ -2,12 +2,15 @@ package net.caffeinemc.mods.sodium.client.render.chunk.compile.tasks;
 
 import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
 import net.caffeinemc.mods.sodium.client.SodiumClientMod;
+import net.caffeinemc.mods.sodium.client.render.chunk.ChunkPipelineMetrics;
 import net.caffeinemc.mods.sodium.client.render.chunk.ExtendedBlockEntityType;
 import net.caffeinemc.mods.sodium.client.render.chunk.DefaultChunkRenderer;
 import net.caffeinemc.mods.sodium.client.render.chunk.RenderSection;
 import net.caffeinemc.mods.sodium.client.render.chunk.compile.ChunkBuildBuffers;
 import net.caffeinemc.mods.sodium.client.render.chunk.compile.ChunkBuildContext;
 import net.caffeinemc.mods.sodium.client.render.chunk.compile.ChunkBuildOutput;
+import net.caffeinemc.mods.sodium.client.render.chunk.compile.cache.SectionContentHasher;
+import net.caffeinemc.mods.sodium.client.render.chunk.compile.cache.SectionMeshDiskCache;
 import net.caffeinemc.mods.sodium.client.render.chunk.compile.executor.ChunkBuilder;
 import net.caffeinemc.mods.sodium.client.render.chunk.compile.pipeline.BlockRenderCache;
 import net.caffeinemc.mods.sodium.client.render.chunk.compile.pipeline.BlockRenderer;
@@ -31,6 +34,7 @@ import net.minecraft.ReportedException;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.blockentity.BlockEntityRenderer;
 import net.minecraft.client.renderer.chunk.VisGraph;
+import net.minecraft.client.renderer.chunk.VisibilitySet;
 import net.minecraft.client.resources.model.BakedModel;
 import net.minecraft.core.BlockPos;
 import net.minecraft.util.profiling.Profiler;
@@ -62,7 +66,6 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
     public ChunkBuildOutput execute(ChunkBuildContext buildContext, CancellationToken cancellationToken) {
         ProfilerFiller profiler = Profiler.get();
         BuiltSectionInfo.Builder renderData = new BuiltSectionInfo.Builder();
-        VisGraph occluder = new VisGraph();
 
         ChunkBuildBuffers buffers = buildContext.buffers;
         buffers.init(renderData, this.render.getSectionIndex());
@@ -72,6 +75,28 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
 
         LevelSlice slice = cache.getWorldSlice();
 
+        // Sections whose content hasn't changed since they were last built can be loaded from the cache on disk
+        SectionMeshDiskCache meshCache = buildContext.meshCache;
+        long cacheKey = SectionContentHasher.UNCACHEABLE;
+
+        if (meshCache != null) {
+            profiler.push("mesh cache");
+            cacheKey = buildContext.contentHasher.hash(slice, this.renderContext, meshCache.getFingerprint());
+
+            ChunkBuildOutput cachedOutput = cacheKey != SectionContentHasher.UNCACHEABLE ?
+                    meshCache.load(cacheKey, this.render, this.submitTime) : null;
+            profiler.pop();
+
+            if (cachedOutput != null) {
+                return cachedOutput;
+            }
+        }
+
+        // Sections made of a single block state have the same visibility between all of their sides, so the
+        // visibility graph only needs to be built for sections with different block states
+        BlockState uniformState = slice.getUniformBlockState();
+        VisGraph occluder = uniformState == null ? new VisGraph() : null;
+
         int minX = this.render.getOriginX();
         int minY = this.render.getOriginY();
         int minZ = this.render.getOriginZ();
@@ -93,15 +118,35 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
         BlockRenderer blockRenderer = cache.getBlockRenderer();
         blockRenderer.prepare(buffers, slice, collector);
 
+        // Sections made of a single block state whose blocks hide each other entirely (such as stone deep underground)
+        // can only have visible faces on their boundary, so the blocks inside of them are skipped. Sections which only
+        // contain air have nothing to render at all.
+        boolean skipInterior = false;
+        boolean skipBlocks = false;
+
+        if (uniformState != null) {
+            if (uniformState.isAir() && !uniformState.hasBlockEntity()) {
+                skipBlocks = true;
+            } else {
+                skipInterior = blockRenderer.isHiddenBySelf(uniformState, cache.getBlockModels().getBlockModel(uniformState));
+            }
+
+            ChunkPipelineMetrics.UNIFORM_SECTIONS.increment();
+        }
+
         profiler.push("render blocks");
         try {
-            for (int y = minY; y < maxY; y++) {
+            for (int y = minY; y < maxY && !skipBlocks; y++) {
                 if (cancellationToken.isCancelled()) {
                     return null;
                 }
 
                 for (int z = minZ; z < maxZ; z++) {
-                    for (int x = minX; x < maxX; x++) {
+                    // Rows inside of the section only need their first and last block to be rendered
+                    boolean interiorRow = skipInterior && y != minY && y != maxY - 1 && z != minZ && z != maxZ - 1;
+                    int stepX = interiorRow ? 15 : 1;
+
+                    for (int x = minX; x < maxX; x += stepX) {
                         BlockState blockState = slice.getBlockState(x, y, z);
 
                         if (blockState.isAir() && !blockState.hasBlockEntity()) {
@@ -135,7 +180,7 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
                             }
                         }
 
-                        if (blockState.isSolidRender()) {
+                        if (occluder != null && blockState.isSolidRender()) {
                             occluder.setOpaque(blockPos);
                         }
                     }
@@ -148,6 +193,8 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
             // Create a new crash report for other exceptions (e.g. thrown in getQuads)
             throw fillCrashInfo(CrashReport.forThrowable(ex, "Encountered exception while building chunk meshes"), slice, blockPos);
         }
+        blockRenderer.flushMergedFaces();
+
         profiler.popPush("mesh appenders");
 
         PlatformLevelRenderHooks.INSTANCE.runChunkMeshAppenders(this.renderContext.getRenderers(), type -> buffers.get(DefaultMaterials.forRenderLayer(type)).asFallbackVertexConsumer(DefaultMaterials.forRenderLayer(type), collector),
@@ -182,12 +229,12 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
 
         // cancellation opportunity right before translucent sorting
         if (cancellationToken.isCancelled()) {
-            meshes.forEach((pass, mesh) -> mesh.getVertexData().free());
+            meshes.forEach((pass, mesh) -> mesh.free());
             profiler.pop();
             return null;
         }
 
-        renderData.setOcclusionData(occluder.resolve());
+        renderData.setOcclusionData(occluder != null ? occluder.resolve() : createUniformVisibility(uniformState));
 
         profiler.popPush("translucency sorting");
 
@@ -207,16 +254,33 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
                 output.markAsReusingUploadedData();
             } else if (translucentData instanceof PresentTranslucentData present) {
                 var sorter = present.getSorter();
-                sorter.writeIndexBuffer(this, true);
+                sorter.writeIndexBuffer(this, buildContext.sortBuffers, true);
                 output.setSorter(sorter);
             }
         }
 
+        if (cacheKey != SectionContentHasher.UNCACHEABLE) {
+            profiler.popPush("mesh cache");
+            meshCache.store(cacheKey, output);
+        }
+
         profiler.pop();
 
         return output;
     }
 
+    /**
+     * Creates the visibility between the sides of a section made of a single block state, which matches what the
+     * visibility graph would find for it. Either every block is opaque and no side can see any other side, or no block
+     * is opaque and every side can see every other side.
+     */
+    private static VisibilitySet createUniformVisibility(BlockState state) {
+        VisibilitySet visibility = new VisibilitySet();
+        visibility.setAll(!state.isSolidRender());
+
+        return visibility;
+    }
+
     private ReportedException fillCrashInfo(CrashReport report, LevelSlice slice, BlockPos pos) {
         CrashReportCategory crashReportSection = report.addCategory("Block being rendered", 1);
 
@@ -29,7 +29,7 @@ public class ChunkBuilderSortingTask extends ChunkBuilderTask<ChunkSortOutput> {
         ProfilerFiller profiler = Profiler.get();
         profiler.push("translucency sorting");
 
-        this.sorter.writeIndexBuffer(this, false);
+        this.sorter.writeIndexBuffer(this, context.sortBuffers, false);
 
         profiler.pop();
         return new ChunkSortOutput(this.render, this.submitTime, this.sorter);
@@ -1,21 +1,67 @@
 package net.caffeinemc.mods.sodium.client.render.chunk.data;
 
+import net.caffeinemc.mods.sodium.client.gl.arena.staging.MeshStagingBuffer;
 import net.caffeinemc.mods.sodium.client.model.quad.properties.ModelQuadFacing;
 import net.caffeinemc.mods.sodium.client.util.NativeBuffer;
+import org.jetbrains.annotations.Nullable;
 
 public class BuiltSectionMeshParts {
     private final int[] vertexSegments;
+
+    // Exactly one of these holds the vertex data
     private final NativeBuffer buffer;
+    private final MeshStagingBuffer.Allocation stagedBuffer;
+
+    // The content hash of the vertex data in regular memory, for deduplicating uploads
+    private final long hash;
 
-    public BuiltSectionMeshParts(NativeBuffer buffer, int[] vertexCounts) {
+    public BuiltSectionMeshParts(NativeBuffer buffer, long hash, int[] vertexCounts) {
         this.vertexSegments = vertexCounts;
         this.buffer = buffer;
+        this.stagedBuffer = null;
+        this.hash = hash;
     }
 
-    public NativeBuffer getVertexData() {
+    public BuiltSectionMeshParts(MeshStagingBuffer.Allocation stagedBuffer, int[] vertexCounts) {
+        this.vertexSegments = vertexCounts;
+        this.buffer = null;
+        this.stagedBuffer = stagedBuffer;
+        this.hash = 0;
+    }
+
+    /**
+     * @return The vertex data, or null if it was written into the mesh staging buffer
+     */
+    public @Nullable NativeBuffer getVertexData() {
         return this.buffer;
     }
 
+    /**
+     * @return The vertex data in the mesh staging buffer, or null if it was written into regular memory
+     */
+    public MeshStagingBuffer.@Nullable Allocation getStagedVertexData() {
+        return this.stagedBuffer;
+    }
+
+    /**
+     * @return The hash of the vertex data, which is only valid if it's in regular memory
+     */
+    public long getVertexDataHash() {
+        return this.hash;
+    }
+
+    public int getVertexDataLength() {
+        return this.buffer != null ? this.buffer.getLength() : this.stagedBuffer.getLength();
+    }
+
+    public void free() {
+        if (this.buffer != null) {
+            this.buffer.free();
+        } else {
+            this.stagedBuffer.release();
+        }
+    }
+
     public int[] getVertexSegments() {
         return this.vertexSegments;
     }
@@ -201,6 +201,16 @@ public class SectionRenderDataStorage {
         this.removeVertexData(localSectionIndex, true);
     }
 
+    /**
+     * Returns whether the vertex data of the section is in a segment which was stored with the given content hash, in
+     * which case an upload of the same data can reuse the segment.
+     */
+    public boolean hasVertexDataWithHash(int localSectionIndex, long hash) {
+        GlBufferSegment allocation = this.vertexAllocations[localSectionIndex];
+
+        return allocation != null && allocation.isHashed() && allocation.getHash() == hash;
+    }
+
     private void removeVertexData(int localSectionIndex, boolean retainIndexData) {
         GlBufferSegment prev = this.vertexAllocations[localSectionIndex];
 
@@ -1,17 +1,23 @@
 package net.caffeinemc.mods.sodium.client.render.chunk.lists;
 
 import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.LongArrays;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ReferenceArrayList;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import net.caffeinemc.mods.sodium.client.render.chunk.ChunkUpdateType;
 import net.caffeinemc.mods.sodium.client.render.chunk.RenderSection;
 import net.caffeinemc.mods.sodium.client.render.chunk.occlusion.OcclusionCuller;
 import net.caffeinemc.mods.sodium.client.render.chunk.region.RenderRegion;
 import net.caffeinemc.mods.sodium.client.render.viewport.Viewport;
+import net.minecraft.core.SectionPos;
 
 import java.util.ArrayDeque;
+import java.util.Collection;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
+import java.util.Set;
 
 /**
  * The visible chunk collector is passed to the occlusion graph search culler to
@@ -23,6 +29,8 @@ public class VisibleChunkCollector implements OcclusionCuller.Visitor {
 
     private final int frame;
 
+    private final ReferenceArrayList<RenderSection> unbuiltSections = new ReferenceArrayList<>();
+
     public VisibleChunkCollector(int frame) {
         this.frame = frame;
 
@@ -50,6 +58,10 @@ public class VisibleChunkCollector implements OcclusionCuller.Visitor {
             renderList.add(section);
         }
 
+        if (!section.isBuilt()) {
+            this.unbuiltSections.add(section);
+        }
+
         // always add to rebuild lists though, because it might just not be built yet
         this.addToRebuildLists(section);
     }
@@ -57,31 +69,85 @@ public class VisibleChunkCollector implements OcclusionCuller.Visitor {
     private void addToRebuildLists(RenderSection section) {
         ChunkUpdateType type = section.getPendingUpdate();
 
+        // every candidate is collected, since the sections which are kept are only chosen once they are ordered by
+        // distance
         if (type != null && section.getTaskCancellationToken() == null) {
-            Queue<RenderSection> queue = this.sortedRebuildLists.get(type);
-
-            if (queue.size() < type.getMaximumQueueSize()) {
-                queue.add(section);
-            }
+            this.sortedRebuildLists.get(type).add(section);
         }
     }
 
     private static int[] sortItems = new int[RenderRegion.REGION_SIZE];
 
     public SortedRenderLists createRenderLists(Viewport viewport) {
-        // sort the regions by distance to fix rare region ordering bugs
         var sectionPos = viewport.getChunkCoord();
+        var sorted = sortRegions(this.sortedRenderLists, sectionPos);
+
+        for (var list : sorted) {
+            list.sortSections(sectionPos, sortItems);
+        }
+
+        return new SortedRenderLists(sorted);
+    }
+
+    private static final ObjectArrayList<ChunkRenderList> patchedRenderLists = new ObjectArrayList<>();
+
+    /**
+     * Collects the render lists of the given regions again after sections in them have changed, and merges them with
+     * the unchanged render lists of the other regions. Only the sections visited by the graph search in the given
+     * frame are added to the render lists.
+     */
+    public static SortedRenderLists patchRenderLists(SortedRenderLists renderLists, Set<RenderRegion> regions, Viewport viewport, int frame) {
+        var sectionPos = viewport.getChunkCoord();
+        var lists = patchedRenderLists;
+        lists.clear();
+
+        var it = renderLists.iterator();
+
+        while (it.hasNext()) {
+            var renderList = it.next();
+
+            if (!regions.contains(renderList.getRegion())) {
+                lists.add(renderList);
+            }
+        }
+
+        for (var region : regions) {
+            var renderList = region.getRenderList();
+            renderList.reset(frame);
+
+            for (int sectionIndex = 0; sectionIndex < RenderRegion.REGION_SIZE; sectionIndex++) {
+                var section = region.getSection(sectionIndex);
+
+                if (section != null && section.getFlags() != 0 && section.getLastVisitedFrame() == frame) {
+                    renderList.add(section);
+                }
+            }
+
+            if (renderList.size() > 0) {
+                renderList.sortSections(sectionPos, sortItems);
+                lists.add(renderList);
+            }
+        }
+
+        var sorted = sortRegions(lists, sectionPos);
+        lists.clear();
+
+        return new SortedRenderLists(sorted);
+    }
+
+    private static ObjectArrayList<ChunkRenderList> sortRegions(ObjectArrayList<ChunkRenderList> lists, SectionPos sectionPos) {
+        // sort the regions by distance to fix rare region ordering bugs
         var cameraX = sectionPos.getX() >> RenderRegion.REGION_WIDTH_SH;
         var cameraY = sectionPos.getY() >> RenderRegion.REGION_HEIGHT_SH;
         var cameraZ = sectionPos.getZ() >> RenderRegion.REGION_LENGTH_SH;
-        var size = this.sortedRenderLists.size();
+        var size = lists.size();
 
         if (sortItems.length < size) {
             sortItems = new int[size];
         }
 
         for (var i = 0; i < size; i++) {
-            var region = this.sortedRenderLists.get(i).getRegion();
+            var region = lists.get(i).getRegion();
             var x = Math.abs(region.getX() - cameraX);
             var y = Math.abs(region.getY() - cameraY);
             var z = Math.abs(region.getZ() - cameraZ);
@@ -93,18 +159,117 @@ public class VisibleChunkCollector implements OcclusionCuller.Visitor {
         var sorted = new ObjectArrayList<ChunkRenderList>(size);
         for (var i = 0; i < size; i++) {
             var key = sortItems[i];
-            var renderList = this.sortedRenderLists.get(key & 0xFFFF);
+            var renderList = lists.get(key & 0xFFFF);
             sorted.add(renderList);
         }
 
-        for (var list : sorted) {
-            list.sortSections(sectionPos, sortItems);
+        return sorted;
+    }
+
+    private static long[] rebuildSortItems = new long[RenderRegion.REGION_SIZE];
+    private static RenderSection[] rebuildSortSections = new RenderSection[RenderRegion.REGION_SIZE];
+
+    /**
+     * Orders the sections in each rebuild list by their distance to the camera, so that sections closest to the
+     * viewer are scheduled first, and drops the furthest sections of lists which are longer than their maximum queue
+     * size. The search only visits sections within the frustum, so every section in these lists
+     * is currently visible. Since the lists are re-created on every graph update, including those caused by camera
+     * movement, the priorities are re-evaluated whenever the camera moves.
+     */
+    public Map<ChunkUpdateType, ArrayDeque<RenderSection>> createRebuildLists(Viewport viewport) {
+        var transform = viewport.getTransform();
+
+        for (var entry : this.sortedRebuildLists.entrySet()) {
+            sortByDistance(entry.getValue(), entry.getKey().getMaximumQueueSize(),
+                    transform.intX + transform.fracX, transform.intY + transform.fracY, transform.intZ + transform.fracZ);
         }
 
-        return new SortedRenderLists(sorted);
+        return this.sortedRebuildLists;
     }
 
-    public Map<ChunkUpdateType, ArrayDeque<RenderSection>> getRebuildLists() {
-        return this.sortedRebuildLists;
+    private static final ReferenceOpenHashSet<RenderSection> patchedRebuildSections = new ReferenceOpenHashSet<>();
+
+    /**
+     * Updates the rebuild lists in place after the visibility or the pending updates of the given sections have
+     * changed. Entries which are no longer visible or no longer need their update are removed, the given sections are
+     * added if they are visible and have a pending update, and the lists are ordered by distance and truncated again.
+     */
+    public static void patchRebuildLists(Map<ChunkUpdateType, ArrayDeque<RenderSection>> lists, Collection<RenderSection> sections, Viewport viewport, int frame) {
+        var queued = patchedRebuildSections;
+        queued.clear();
+
+        for (var entry : lists.entrySet()) {
+            var type = entry.getKey();
+            var queue = entry.getValue();
+
+            queue.removeIf(section -> section.getPendingUpdate() != type || !canQueueSection(section, frame));
+            queued.addAll(queue);
+        }
+
+        for (var section : sections) {
+            var type = section.getPendingUpdate();
+
+            if (type == null || !canQueueSection(section, frame) || queued.contains(section)) {
+                continue;
+            }
+
+            lists.get(type).add(section);
+            queued.add(section);
+        }
+
+        var transform = viewport.getTransform();
+
+        for (var entry : lists.entrySet()) {
+            sortByDistance(entry.getValue(), entry.getKey().getMaximumQueueSize(),
+                    transform.intX + transform.fracX, transform.intY + transform.fracY, transform.intZ + transform.fracZ);
+        }
+
+        queued.clear();
+    }
+
+    private static boolean canQueueSection(RenderSection section, int frame) {
+        return !section.isDisposed() && section.getLastVisitedFrame() == frame && section.getTaskCancellationToken() == null;
+    }
+
+    private static void sortByDistance(ArrayDeque<RenderSection> queue, int maxSize, float cameraX, float cameraY, float cameraZ) {
+        var size = queue.size();
+
+        if (size < 2) {
+            return;
+        }
+
+        if (rebuildSortItems.length < size) {
+            rebuildSortItems = new long[size];
+            rebuildSortSections = new RenderSection[size];
+        }
+
+        for (var i = 0; i < size; i++) {
+            var section = queue.poll();
+            var distance = section.getSquaredDistance(cameraX, cameraY, cameraZ);
+
+            // the bits of a positive float sort in the same order as its value
+            rebuildSortItems[i] = (long) Float.floatToRawIntBits(distance) << 32 | i;
+            rebuildSortSections[i] = section;
+        }
+
+        LongArrays.unstableSort(rebuildSortItems, 0, size);
+
+        for (var i = 0; i < size; i++) {
+            var index = (int) rebuildSortItems[i];
+
+            if (i < maxSize) {
+                queue.add(rebuildSortSections[index]);
+            }
+
+            rebuildSortSections[index] = null;
+        }
+    }
+
+    /**
+     * Returns the visited sections which have not been built yet. An empty list means that every visible section has
+     * its geometry available for rendering.
+     */
+    public List<RenderSection> getUnbuiltSections() {
+        return this.unbuiltSections;
     }
 }
@@ -1,7 +1,11 @@
 package net.caffeinemc.mods.sodium.client.render.chunk.occlusion;
 
 import it.unimi.dsi.fastutil.longs.Long2ReferenceMap;
+import it.unimi.dsi.fastutil.objects.ObjectHeapPriorityQueue;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.caffeinemc.mods.sodium.client.render.chunk.LocalSectionIndex;
 import net.caffeinemc.mods.sodium.client.render.chunk.RenderSection;
+import net.caffeinemc.mods.sodium.client.render.chunk.region.RenderRegion;
 import net.caffeinemc.mods.sodium.client.render.viewport.CameraTransform;
 import net.caffeinemc.mods.sodium.client.render.viewport.Viewport;
 import net.caffeinemc.mods.sodium.client.util.collections.DoubleBufferedQueue;
@@ -9,38 +13,245 @@ import net.caffeinemc.mods.sodium.client.util.collections.ReadQueue;
 import net.caffeinemc.mods.sodium.client.util.collections.WriteQueue;
 import net.minecraft.core.SectionPos;
 import net.minecraft.util.Mth;
-import net.minecraft.world.level.Level;
+import net.minecraft.world.level.LevelHeightAccessor;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class OcclusionCuller {
     private final Long2ReferenceMap<RenderSection> sections;
-    private final Level level;
+    private final LevelHeightAccessor level;
 
     private final DoubleBufferedQueue<RenderSection> queue = new DoubleBufferedQueue<>();
 
-    public OcclusionCuller(Long2ReferenceMap<RenderSection> sections, Level level) {
+    // Frontiers smaller than this are processed serially, since forking would cost more than it saves
+    private static final int PARALLEL_FRONTIER_THRESHOLD = 1024;
+
+    // The number of sections in a frontier which are processed by a single task
+    private static final int PARALLEL_BATCH_SIZE = 256;
+
+    // Marks a section in the frontier which is outside the render distance or the frustum
+    private static final int SECTION_NOT_VISIBLE = -1;
+
+    // Per-section results of the parallel part of the search, indexed by position in the frontier
+    private long[] frontierVisibility = new long[PARALLEL_FRONTIER_THRESHOLD];
+    private int[] frontierDirections = new int[PARALLEL_FRONTIER_THRESHOLD];
+
+    private @Nullable ForkJoinPool pool;
+
+    // The parameters of the last search, which are needed to update its result incrementally. The root section is
+    // only set if the last search started from the section containing the camera.
+    private @Nullable RenderSection lastRootSection;
+    private @Nullable Viewport lastViewport;
+    private float lastSearchDistance;
+    private boolean lastUseOcclusionCulling;
+    private int lastFrame;
+
+    // Reused by each incremental update, which visits the changed sections in order of their distance to the camera
+    private SectionPos updateOrigin = SectionPos.of(0, 0, 0);
+    private final ObjectHeapPriorityQueue<RenderSection> updateQueue = new ObjectHeapPriorityQueue<>(
+            (a, b) -> Integer.compare(getDistance(this.updateOrigin, a), getDistance(this.updateOrigin, b)));
+    private final ReferenceOpenHashSet<RenderSection> updateQueued = new ReferenceOpenHashSet<>();
+
+    public OcclusionCuller(Long2ReferenceMap<RenderSection> sections, LevelHeightAccessor level) {
         this.sections = sections;
         this.level = level;
     }
 
+    /**
+     * Searches the section graph for visible sections, passing each of them to the visitor.
+     *
+     * @param parallel Whether each level of the search should be processed across multiple threads. The visitor is
+     *                 still only called from the current thread, and sees exactly the same sections in the same order
+     *                 as with the serial search.
+     */
     public void findVisible(Visitor visitor,
                             Viewport viewport,
                             float searchDistance,
                             boolean useOcclusionCulling,
-                            int frame)
+                            int frame,
+                            boolean parallel)
     {
         final var queues = this.queue;
         queues.reset();
 
+        this.lastRootSection = null;
+        this.lastViewport = viewport;
+        this.lastSearchDistance = searchDistance;
+        this.lastUseOcclusionCulling = useOcclusionCulling;
+        this.lastFrame = frame;
+
         this.init(visitor, queues.write(), viewport, searchDistance, useOcclusionCulling, frame);
 
         while (queues.flip()) {
-            processQueue(visitor, viewport, searchDistance, useOcclusionCulling, frame, queues.read(), queues.write());
+            if (parallel && queues.read().size() >= PARALLEL_FRONTIER_THRESHOLD) {
+                this.processQueueParallel(visitor, viewport, searchDistance, useOcclusionCulling, frame, queues.read(), queues.write());
+            } else {
+                processQueue(visitor, viewport, searchDistance, useOcclusionCulling, frame, queues.read(), queues.write());
+            }
         }
 
         this.addNearbySections(visitor, viewport, searchDistance, frame);
     }
 
+    // The parallel search is split into two passes over each frontier. The first pass runs on the worker threads and
+    // does everything which only depends on the section itself: the distance and frustum checks, and the masking of
+    // its visibility data and traversal directions. The second pass runs on the current thread in queue order, and
+    // does everything which depends on the order in which sections are visited: calling the visitor, merging the
+    // incoming directions, and enqueuing neighbors. Since marking a section as visited only happens in the second
+    // pass, it doesn't need to be atomic, and the result is identical to the serial search.
+    private void processQueueParallel(Visitor visitor,
+                                      Viewport viewport,
+                                      float searchDistance,
+                                      boolean useOcclusionCulling,
+                                      int frame,
+                                      ReadQueue<RenderSection> readQueue,
+                                      WriteQueue<RenderSection> writeQueue)
+    {
+        final int count = readQueue.size();
+
+        if (this.frontierDirections.length < count) {
+            int length = Math.max(count, this.frontierDirections.length << 1);
+
+            this.frontierVisibility = new long[length];
+            this.frontierDirections = new int[length];
+        }
+
+        final var visibility = this.frontierVisibility;
+        final var directions = this.frontierDirections;
+
+        this.getPool().invoke(new FrontierTask(readQueue, viewport, searchDistance, useOcclusionCulling,
+                visibility, directions, 0, count));
+
+        for (int index = 0; index < count; index++) {
+            RenderSection section = readQueue.dequeue();
+
+            int outgoing = directions[index];
+
+            if (outgoing == SECTION_NOT_VISIBLE) {
+                continue;
+            }
+
+            section.setLastVisitedFrame(frame);
+            visitor.visit(section);
+
+            var region = section.getRegion();
+            int sectionIndex = section.getSectionIndex();
+
+            int connections;
+
+            if (useOcclusionCulling) {
+                connections = VisibilityEncoding.getConnections(visibility[index], region.getSectionIncomingDirections(sectionIndex));
+            } else {
+                connections = GraphDirectionSet.ALL;
+            }
+
+            connections &= outgoing;
+
+            region.setSectionOutgoingDirections(sectionIndex, connections);
+
+            visitNeighbors(writeQueue, section, region, sectionIndex, connections, frame);
+        }
+    }
+
+    private static class FrontierTask extends RecursiveAction {
+        private final ReadQueue<RenderSection> queue;
+        private final Viewport viewport;
+        private final float searchDistance;
+        private final boolean useOcclusionCulling;
+
+        private final long[] visibility;
+        private final int[] directions;
+
+        private final int start, end;
+
+        private FrontierTask(ReadQueue<RenderSection> queue,
+                             Viewport viewport,
+                             float searchDistance,
+                             boolean useOcclusionCulling,
+                             long[] visibility,
+                             int[] directions,
+                             int start,
+                             int end)
+        {
+            this.queue = queue;
+            this.viewport = viewport;
+            this.searchDistance = searchDistance;
+            this.useOcclusionCulling = useOcclusionCulling;
+            this.visibility = visibility;
+            this.directions = directions;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start > PARALLEL_BATCH_SIZE) {
+                int middle = (this.start + this.end) >>> 1;
+
+                invokeAll(this.split(this.start, middle), this.split(middle, this.end));
+            } else {
+                this.computeDirectly();
+            }
+        }
+
+        private FrontierTask split(int start, int end) {
+            return new FrontierTask(this.queue, this.viewport, this.searchDistance, this.useOcclusionCulling,
+                    this.visibility, this.directions, start, end);
+        }
+
+        private void computeDirectly() {
+            var origin = this.viewport.getChunkCoord();
+
+            for (int index = this.start; index < this.end; index++) {
+                var section = this.queue.get(index);
+
+                if (!isSectionVisible(section, this.viewport, this.searchDistance)) {
+                    this.directions[index] = SECTION_NOT_VISIBLE;
+                    continue;
+                }
+
+                if (this.useOcclusionCulling) {
+                    this.visibility[index] = section.getVisibilityData() & getAngleVisibilityMask(this.viewport, section);
+                }
+
+                this.directions[index] = getOutwardDirections(origin, section);
+            }
+        }
+    }
+
+    private ForkJoinPool getPool() {
+        if (this.pool == null) {
+            this.pool = createPool();
+        }
+
+        return this.pool;
+    }
+
+    private static ForkJoinPool createPool() {
+        var threadCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() - 1, 8));
+        var threadIndex = new AtomicInteger();
+
+        return new ForkJoinPool(threadCount, pool -> {
+            var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("Occlusion Culling Worker #" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+
+            return thread;
+        }, null, false);
+    }
+
+    public void destroy() {
+        if (this.pool != null) {
+            this.pool.shutdownNow();
+            this.pool = null;
+        }
+    }
+
     private static void processQueue(Visitor visitor,
                                      Viewport viewport,
                                      float searchDistance,
@@ -56,13 +267,17 @@ public class OcclusionCuller {
                 continue;
             }
 
+            section.setLastVisitedFrame(frame);
             visitor.visit(section);
 
+            var region = section.getRegion();
+            int sectionIndex = section.getSectionIndex();
+
             int connections;
 
             {
                 if (useOcclusionCulling) {
-                    var sectionVisibilityData = section.getVisibilityData();
+                    var sectionVisibilityData = region.getSectionVisibilityData(sectionIndex);
 
                     // occlude paths through the section if it's being viewed at an angle where
                     // the other side can't possibly be seen
@@ -71,7 +286,7 @@ public class OcclusionCuller {
                     // When using occlusion culling, we can only traverse into neighbors for which there is a path of
                     // visibility through this chunk. This is determined by taking all the incoming paths to this chunk and
                     // creating a union of the outgoing paths from those.
-                    connections = VisibilityEncoding.getConnections(sectionVisibilityData, section.getIncomingDirections());
+                    connections = VisibilityEncoding.getConnections(sectionVisibilityData, region.getSectionIncomingDirections(sectionIndex));
                 } else {
                     // Not using any occlusion culling, so traversing in any direction is legal.
                     connections = GraphDirectionSet.ALL;
@@ -82,10 +297,150 @@ public class OcclusionCuller {
                 connections &= getOutwardDirections(viewport.getChunkCoord(), section);
             }
 
-            visitNeighbors(writeQueue, section, connections, frame);
+            region.setSectionOutgoingDirections(sectionIndex, connections);
+
+            visitNeighbors(writeQueue, section, region, sectionIndex, connections, frame);
+        }
+    }
+
+    /**
+     * Updates the result of the last search after the visibility data of some sections has changed, or sections have
+     * been added or removed, without searching the whole graph again. The camera must not have moved since the last
+     * search.
+     *
+     * <p>Every step of the search moves away from the camera, so whether a section is reached, and in which directions
+     * the search leaves it, only depends on its neighbors which are closer to the camera. The changed sections are
+     * re-evaluated in order of their distance to the camera, and a neighbor further away is only re-evaluated when
+     * the directions in which the search leaves a section towards it have changed.</p>
+     *
+     * @param sections The sections whose visibility data has changed, the sections which have been added, and the
+     *                 neighbors of sections which have been removed
+     * @param visitor  The visitor which is called for each section which was visited by the last search but no longer
+     *                 is, or the other way around
+     * @return False if the result of the last search can't be updated, in which case a full search is needed
+     */
+    public boolean updateVisible(Collection<RenderSection> sections, Visitor visitor) {
+        var root = this.lastRootSection;
+        var viewport = this.lastViewport;
+
+        // searches which didn't start from a single section are always repeated in full
+        if (root == null || root.isDisposed() || viewport == null) {
+            return false;
+        }
+
+        this.updateOrigin = viewport.getChunkCoord();
+
+        var queue = this.updateQueue;
+        var queued = this.updateQueued;
+
+        for (var section : sections) {
+            if (!section.isDisposed() && queued.add(section)) {
+                queue.enqueue(section);
+            }
+        }
+
+        final int frame = this.lastFrame;
+
+        while (!queue.isEmpty()) {
+            var section = queue.dequeue();
+
+            boolean wasVisited = section.getLastVisitedFrame() == frame;
+            int prevOutgoing = section.getLastVisibleFrame() == frame ? section.getOutgoingDirections() : GraphDirectionSet.NONE;
+
+            if (section == root) {
+                this.updateRootSection(section);
+            } else {
+                this.updateSection(section, viewport, frame);
+            }
+
+            if (wasVisited != (section.getLastVisitedFrame() == frame)) {
+                visitor.visit(section);
+            }
+
+            // only the neighbors for which the search now arrives from a different set of directions are affected
+            int changed = (prevOutgoing ^ section.getOutgoingDirections()) & section.getAdjacentMask();
+
+            for (int direction = 0; direction < GraphDirection.COUNT; direction++) {
+                if (GraphDirectionSet.contains(changed, direction)) {
+                    var adjacent = section.getAdjacent(direction);
+
+                    if (queued.add(adjacent)) {
+                        queue.enqueue(adjacent);
+                    }
+                }
+            }
+        }
+
+        queued.clear();
+
+        return true;
+    }
+
+    private void updateRootSection(RenderSection section) {
+        if (this.lastUseOcclusionCulling) {
+            section.setOutgoingDirections(VisibilityEncoding.getConnections(section.getVisibilityData()));
+        } else {
+            section.setOutgoingDirections(GraphDirectionSet.ALL);
+        }
+    }
+
+    private void updateSection(RenderSection section, Viewport viewport, int frame) {
+        int incoming = GraphDirectionSet.NONE;
+
+        // the search only arrives from neighbors closer to the camera, which have already been updated
+        for (int direction = 0; direction < GraphDirection.COUNT; direction++) {
+            var adjacent = section.getAdjacent(direction);
+
+            if (adjacent != null && adjacent.getLastVisibleFrame() == frame &&
+                    GraphDirectionSet.contains(adjacent.getOutgoingDirections(), GraphDirection.opposite(direction))) {
+                incoming |= GraphDirectionSet.of(direction);
+            }
+        }
+
+        section.setIncomingDirections(incoming);
+        section.setOutgoingDirections(GraphDirectionSet.NONE);
+
+        if (incoming != GraphDirectionSet.NONE) {
+            section.setLastVisibleFrame(frame);
+
+            if (isSectionVisible(section, viewport, this.lastSearchDistance)) {
+                section.setLastVisitedFrame(frame);
+
+                int connections;
+
+                if (this.lastUseOcclusionCulling) {
+                    var sectionVisibilityData = section.getVisibilityData() & getAngleVisibilityMask(viewport, section);
+                    connections = VisibilityEncoding.getConnections(sectionVisibilityData, incoming);
+                } else {
+                    connections = GraphDirectionSet.ALL;
+                }
+
+                section.setOutgoingDirections(connections & getOutwardDirections(viewport.getChunkCoord(), section));
+            } else {
+                section.setLastVisitedFrame(-1);
+            }
+        } else if (isNearbySection(viewport.getChunkCoord(), section) && isWithinNearbySectionFrustum(viewport, section)) {
+            // see addNearbySections
+            section.setLastVisibleFrame(frame);
+            section.setLastVisitedFrame(frame);
+        } else {
+            section.setLastVisibleFrame(-1);
+            section.setLastVisitedFrame(-1);
         }
     }
 
+    private static int getDistance(SectionPos origin, RenderSection section) {
+        return Math.abs(section.getChunkX() - origin.getX()) +
+                Math.abs(section.getChunkY() - origin.getY()) +
+                Math.abs(section.getChunkZ() - origin.getZ());
+    }
+
+    private static boolean isNearbySection(SectionPos origin, RenderSection section) {
+        return Math.abs(section.getChunkX() - origin.getX()) <= 1 &&
+                Math.abs(section.getChunkY() - origin.getY()) <= 1 &&
+                Math.abs(section.getChunkZ() - origin.getZ()) <= 1;
+    }
+
     private static final long UP_DOWN_OCCLUDED = (1L << VisibilityEncoding.bit(GraphDirection.DOWN, GraphDirection.UP)) | (1L << VisibilityEncoding.bit(GraphDirection.UP, GraphDirection.DOWN));
     private static final long NORTH_SOUTH_OCCLUDED = (1L << VisibilityEncoding.bit(GraphDirection.NORTH, GraphDirection.SOUTH)) | (1L << VisibilityEncoding.bit(GraphDirection.SOUTH, GraphDirection.NORTH));
     private static final long WEST_EAST_OCCLUDED = (1L << VisibilityEncoding.bit(GraphDirection.WEST, GraphDirection.EAST)) | (1L << VisibilityEncoding.bit(GraphDirection.EAST, GraphDirection.WEST));
@@ -115,10 +470,16 @@ public class OcclusionCuller {
     }
 
     private static void visitNeighbors(final WriteQueue<RenderSection> queue, RenderSection section, int outgoing, int frame) {
+        visitNeighbors(queue, section, section.getRegion(), section.getSectionIndex(), outgoing, frame);
+    }
+
+    // Neighbors within the same region are visited through their local index, so that only the state arrays of the
+    // region are accessed. Only neighbors in adjacent regions are reached through the references of the section.
+    private static void visitNeighbors(final WriteQueue<RenderSection> queue, RenderSection section, RenderRegion region, int sectionIndex, int outgoing, int frame) {
         // Only traverse into neighbors which are actually present.
         // This avoids a null-check on each invocation to enqueue, and since the compiler will see that a null
         // is never encountered (after profiling), it will optimize it away.
-        outgoing &= section.getAdjacentMask();
+        outgoing &= region.getSectionAdjacentMask(sectionIndex);
 
         // Check if there are any valid connections left, and if not, early-exit.
         if (outgoing == GraphDirectionSet.NONE) {
@@ -128,42 +489,75 @@ public class OcclusionCuller {
         // This helps the compiler move the checks for some invariants upwards.
         queue.ensureCapacity(6);
 
+        int x = LocalSectionIndex.unpackX(sectionIndex);
+        int y = LocalSectionIndex.unpackY(sectionIndex);
+        int z = LocalSectionIndex.unpackZ(sectionIndex);
+
         if (GraphDirectionSet.contains(outgoing, GraphDirection.DOWN)) {
-            visitNode(queue, section.adjacentDown, GraphDirectionSet.of(GraphDirection.UP), frame);
+            if (y != 0) {
+                visitNode(queue, region, LocalSectionIndex.decY(sectionIndex), GraphDirectionSet.of(GraphDirection.UP), frame);
+            } else {
+                visitNode(queue, section.adjacentDown, GraphDirectionSet.of(GraphDirection.UP), frame);
+            }
         }
 
         if (GraphDirectionSet.contains(outgoing, GraphDirection.UP)) {
-            visitNode(queue, section.adjacentUp, GraphDirectionSet.of(GraphDirection.DOWN), frame);
+            if (y != RenderRegion.REGION_HEIGHT_M) {
+                visitNode(queue, region, LocalSectionIndex.incY(sectionIndex), GraphDirectionSet.of(GraphDirection.DOWN), frame);
+            } else {
+                visitNode(queue, section.adjacentUp, GraphDirectionSet.of(GraphDirection.DOWN), frame);
+            }
         }
 
         if (GraphDirectionSet.contains(outgoing, GraphDirection.NORTH)) {
-            visitNode(queue, section.adjacentNorth, GraphDirectionSet.of(GraphDirection.SOUTH), frame);
+            if (z != 0) {
+                visitNode(queue, region, LocalSectionIndex.decZ(sectionIndex), GraphDirectionSet.of(GraphDirection.SOUTH), frame);
+            } else {
+                visitNode(queue, section.adjacentNorth, GraphDirectionSet.of(GraphDirection.SOUTH), frame);
+            }
         }
 
         if (GraphDirectionSet.contains(outgoing, GraphDirection.SOUTH)) {
-            visitNode(queue, section.adjacentSouth, GraphDirectionSet.of(GraphDirection.NORTH), frame);
+            if (z != RenderRegion.REGION_LENGTH_M) {
+                visitNode(queue, region, LocalSectionIndex.incZ(sectionIndex), GraphDirectionSet.of(GraphDirection.NORTH), frame);
+            } else {
+                visitNode(queue, section.adjacentSouth, GraphDirectionSet.of(GraphDirection.NORTH), frame);
+            }
         }
 
         if (GraphDirectionSet.contains(outgoing, GraphDirection.WEST)) {
-            visitNode(queue, section.adjacentWest, GraphDirectionSet.of(GraphDirection.EAST), frame);
+            if (x != 0) {
+                visitNode(queue, region, LocalSectionIndex.decX(sectionIndex), GraphDirectionSet.of(GraphDirection.EAST), frame);
+            } else {
+                visitNode(queue, section.adjacentWest, GraphDirectionSet.of(GraphDirection.EAST), frame);
+            }
         }
 
         if (GraphDirectionSet.contains(outgoing, GraphDirection.EAST)) {
-            visitNode(queue, section.adjacentEast, GraphDirectionSet.of(GraphDirection.WEST), frame);
+            if (x != RenderRegion.REGION_WIDTH_M) {
+                visitNode(queue, region, LocalSectionIndex.incX(sectionIndex), GraphDirectionSet.of(GraphDirection.WEST), frame);
+            } else {
+                visitNode(queue, section.adjacentEast, GraphDirectionSet.of(GraphDirection.WEST), frame);
+            }
         }
     }
 
     private static void visitNode(final WriteQueue<RenderSection> queue, @NotNull RenderSection render, int incoming, int frame) {
-        if (render.getLastVisibleFrame() != frame) {
+        visitNode(queue, render.getRegion(), render.getSectionIndex(), incoming, frame);
+    }
+
+    private static void visitNode(final WriteQueue<RenderSection> queue, RenderRegion region, int sectionIndex, int incoming, int frame) {
+        if (region.getSectionLastVisibleFrame(sectionIndex) != frame) {
             // This is the first time we are visiting this section during the given frame, so we must
             // reset the state.
-            render.setLastVisibleFrame(frame);
-            render.setIncomingDirections(GraphDirectionSet.NONE);
+            region.setSectionLastVisibleFrame(sectionIndex, frame);
+            region.setSectionIncomingDirections(sectionIndex, GraphDirectionSet.NONE);
+            region.setSectionOutgoingDirections(sectionIndex, GraphDirectionSet.NONE);
 
-            queue.enqueue(render);
+            queue.enqueue(region.getSection(sectionIndex));
         }
 
-        render.addIncomingDirections(incoming);
+        region.addSectionIncomingDirections(sectionIndex, incoming);
     }
 
     private static int getOutwardDirections(SectionPos origin, RenderSection section) {
@@ -250,6 +644,8 @@ public class OcclusionCuller {
                     if (section != null && section.getLastVisibleFrame() != frame && isWithinNearbySectionFrustum(viewport, section)) {
                         // reset state on first visit, but don't enqueue
                         section.setLastVisibleFrame(frame);
+                        section.setLastVisitedFrame(frame);
+                        section.setOutgoingDirections(GraphDirectionSet.NONE);
 
                         visitor.visit(section);
                     }
@@ -289,8 +685,11 @@ public class OcclusionCuller {
         }
 
         section.setLastVisibleFrame(frame);
+        section.setLastVisitedFrame(frame);
         section.setIncomingDirections(GraphDirectionSet.NONE);
 
+        this.lastRootSection = section;
+
         visitor.visit(section);
 
         int outgoing;
@@ -304,6 +703,8 @@ public class OcclusionCuller {
             outgoing = GraphDirectionSet.ALL;
         }
 
+        section.setOutgoingDirections(outgoing);
+
         visitNeighbors(queue, section, outgoing, frame);
     }
 
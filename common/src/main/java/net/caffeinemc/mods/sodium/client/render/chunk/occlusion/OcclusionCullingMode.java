@@ -0,0 +1,13 @@
+package net.caffeinemc.mods.sodium.client.render.chunk.occlusion;
+
+public enum OcclusionCullingMode {
+    /**
+     * The graph search runs entirely on the render thread.
+     */
+    SERIAL,
+
+    /**
+     * Each level of the graph search is processed across multiple threads, once it is large enough to benefit.
+     */
+    PARALLEL
+}
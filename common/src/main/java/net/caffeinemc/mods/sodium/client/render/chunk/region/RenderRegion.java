@@ -11,6 +11,8 @@ import net.caffeinemc.mods.sodium.client.model.quad.properties.ModelQuadFacing;
 import net.caffeinemc.mods.sodium.client.render.chunk.RenderSection;
 import net.caffeinemc.mods.sodium.client.render.chunk.data.SectionRenderDataStorage;
 import net.caffeinemc.mods.sodium.client.render.chunk.lists.ChunkRenderList;
+import net.caffeinemc.mods.sodium.client.render.chunk.occlusion.GraphDirectionSet;
+import net.caffeinemc.mods.sodium.client.render.chunk.occlusion.VisibilityEncoding;
 import net.caffeinemc.mods.sodium.client.render.chunk.terrain.DefaultTerrainRenderPasses;
 import net.caffeinemc.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
 import net.caffeinemc.mods.sodium.client.render.chunk.vertex.format.ChunkMeshFormats;
@@ -50,6 +52,16 @@ public class RenderRegion {
     private final RenderSection[] sections = new RenderSection[RenderRegion.REGION_SIZE];
     private int sectionCount;
 
+    // The state of each section in the visibility graph, indexed by the local index of the section. This is kept in
+    // flat arrays rather than in the sections themselves, so that the graph search can visit the neighbors of a section
+    // within the same region without touching the objects of the neighbors.
+    private final long[] sectionVisibilityData = new long[RenderRegion.REGION_SIZE];
+    private final byte[] sectionAdjacentMasks = new byte[RenderRegion.REGION_SIZE];
+    private final byte[] sectionIncomingDirections = new byte[RenderRegion.REGION_SIZE];
+    private final byte[] sectionOutgoingDirections = new byte[RenderRegion.REGION_SIZE];
+    private final int[] sectionLastVisibleFrames = new int[RenderRegion.REGION_SIZE];
+    private final int[] sectionLastVisitedFrames = new int[RenderRegion.REGION_SIZE];
+
     private final Map<TerrainRenderPass, SectionRenderDataStorage> sectionRenderData = new Reference2ReferenceOpenHashMap<>();
     private DeviceResources resources;
 
@@ -184,7 +196,81 @@ public class RenderRegion {
             this.resources.deleteIndexedTessellation(commandList);
         }
 
-        this.sectionRenderData.get(DefaultTerrainRenderPasses.TRANSLUCENT).onIndexBufferResized();
+        var storage = this.sectionRenderData.get(DefaultTerrainRenderPasses.TRANSLUCENT);
+
+        if (storage != null) {
+            storage.onIndexBufferResized();
+        }
+    }
+
+    /**
+     * Incrementally compacts the buffer arenas of this region, and updates the offsets of any section data which was
+     * moved as a result.
+     *
+     * @param maxBytes The maximum number of bytes which should be copied
+     * @return The number of bytes which were copied
+     */
+    public long compact(CommandList commandList, long maxBytes) {
+        if (this.resources == null) {
+            return 0;
+        }
+
+        long movedBytes = 0;
+
+        var geometryArena = this.resources.getGeometryArena();
+
+        if (geometryArena.needsCompaction()) {
+            var buffer = geometryArena.getBufferObject();
+            long bytes = geometryArena.compact(commandList, maxBytes);
+
+            if (geometryArena.getBufferObject() != buffer) {
+                this.refreshTesselation(commandList);
+                this.clearAllCachedBatches();
+            } else if (bytes > 0) {
+                for (var storage : this.sectionRenderData.values()) {
+                    storage.onBufferResized();
+                }
+
+                this.clearAllCachedBatches();
+            }
+
+            movedBytes += bytes;
+        }
+
+        var indexArena = this.resources.getIndexArena();
+
+        if (movedBytes < maxBytes && indexArena.needsCompaction()) {
+            var buffer = indexArena.getBufferObject();
+            long bytes = indexArena.compact(commandList, maxBytes - movedBytes);
+
+            if (indexArena.getBufferObject() != buffer) {
+                this.refreshIndexedTesselation(commandList);
+                this.clearCachedBatchFor(DefaultTerrainRenderPasses.TRANSLUCENT);
+            } else if (bytes > 0) {
+                var storage = this.sectionRenderData.get(DefaultTerrainRenderPasses.TRANSLUCENT);
+
+                if (storage != null) {
+                    storage.onIndexBufferResized();
+                }
+
+                this.clearCachedBatchFor(DefaultTerrainRenderPasses.TRANSLUCENT);
+            }
+
+            movedBytes += bytes;
+        }
+
+        return movedBytes;
+    }
+
+    public boolean needsCompaction() {
+        if (this.resources == null) {
+            return false;
+        }
+
+        var geometryArena = this.resources.getGeometryArena();
+        var indexArena = this.resources.getIndexArena();
+
+        return geometryArena.needsCompaction() || indexArena.needsCompaction();
     }
 
     public void addSection(RenderSection section) {
@@ -197,6 +283,8 @@ public class RenderRegion {
 
         this.sections[sectionIndex] = section;
         this.sectionCount++;
+
+        this.resetGraphState(sectionIndex);
     }
 
     public void removeSection(RenderSection section) {
@@ -215,12 +303,77 @@ public class RenderRegion {
 
         this.sections[sectionIndex] = null;
         this.sectionCount--;
+
+        this.resetGraphState(sectionIndex);
+    }
+
+    // The state is reset when a section is added or removed, so that a new section never inherits the state of a
+    // previous section at the same position
+    private void resetGraphState(int sectionIndex) {
+        this.sectionVisibilityData[sectionIndex] = VisibilityEncoding.NULL;
+        this.sectionAdjacentMasks[sectionIndex] = GraphDirectionSet.NONE;
+        this.sectionIncomingDirections[sectionIndex] = GraphDirectionSet.NONE;
+        this.sectionOutgoingDirections[sectionIndex] = GraphDirectionSet.NONE;
+        this.sectionLastVisibleFrames[sectionIndex] = -1;
+        this.sectionLastVisitedFrames[sectionIndex] = -1;
     }
 
     public RenderSection getSection(int id) {
         return this.sections[id];
     }
 
+    public long getSectionVisibilityData(int sectionIndex) {
+        return this.sectionVisibilityData[sectionIndex];
+    }
+
+    public void setSectionVisibilityData(int sectionIndex, long visibilityData) {
+        this.sectionVisibilityData[sectionIndex] = visibilityData;
+    }
+
+    public int getSectionAdjacentMask(int sectionIndex) {
+        return this.sectionAdjacentMasks[sectionIndex];
+    }
+
+    public void setSectionAdjacentMask(int sectionIndex, int mask) {
+        this.sectionAdjacentMasks[sectionIndex] = (byte) mask;
+    }
+
+    public int getSectionIncomingDirections(int sectionIndex) {
+        return this.sectionIncomingDirections[sectionIndex];
+    }
+
+    public void setSectionIncomingDirections(int sectionIndex, int directions) {
+        this.sectionIncomingDirections[sectionIndex] = (byte) directions;
+    }
+
+    public void addSectionIncomingDirections(int sectionIndex, int directions) {
+        this.sectionIncomingDirections[sectionIndex] |= (byte) directions;
+    }
+
+    public int getSectionOutgoingDirections(int sectionIndex) {
+        return this.sectionOutgoingDirections[sectionIndex];
+    }
+
+    public void setSectionOutgoingDirections(int sectionIndex, int directions) {
+        this.sectionOutgoingDirections[sectionIndex] = (byte) directions;
+    }
+
+    public int getSectionLastVisibleFrame(int sectionIndex) {
+        return this.sectionLastVisibleFrames[sectionIndex];
+    }
+
+    public void setSectionLastVisibleFrame(int sectionIndex, int frame) {
+        this.sectionLastVisibleFrames[sectionIndex] = frame;
+    }
+
+    public int getSectionLastVisitedFrame(int sectionIndex) {
+        return this.sectionLastVisitedFrames[sectionIndex];
+    }
+
+    public void setSectionLastVisitedFrame(int sectionIndex, int frame) {
+        this.sectionLastVisitedFrames[sectionIndex] = frame;
+    }
+
     public DeviceResources getResources() {
         return this.resources;
     }
@@ -263,7 +416,7 @@ public class RenderRegion {
 
             // the magic number 756 for the initial size is arbitrary, it was made up.
             var initialVertices = 756;
-            this.geometryArena = new GlBufferArena(commandList, REGION_SIZE * initialVertices, stride, stagingBuffer, false);
+            this.geometryArena = new GlBufferArena(commandList, REGION_SIZE * initialVertices, stride, stagingBuffer, true);
             var initialIndices = (initialVertices / 4) * 6;
             this.indexArena = new GlBufferArena(commandList, REGION_SIZE * initialIndices, Integer.BYTES, stagingBuffer, true);
         }
@@ -1,12 +1,13 @@
 package net.caffeinemc.mods.sodium.client.render.chunk.region;
 
 import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ReferenceLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Reference2ReferenceMap;
-import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
 import net.caffeinemc.mods.sodium.client.SodiumClientMod;
 import net.caffeinemc.mods.sodium.client.gl.arena.PendingUpload;
 import net.caffeinemc.mods.sodium.client.gl.arena.staging.FallbackStagingBuffer;
 import net.caffeinemc.mods.sodium.client.gl.arena.staging.MappedStagingBuffer;
+import net.caffeinemc.mods.sodium.client.gl.arena.staging.MeshStagingBuffer;
 import net.caffeinemc.mods.sodium.client.gl.arena.staging.StagingBuffer;
 import net.caffeinemc.mods.sodium.client.gl.device.CommandList;
 import net.caffeinemc.mods.sodium.client.gl.device.RenderDevice;
@@ -22,6 +23,7 @@ import net.minecraft.util.profiling.Profiler;
 import net.minecraft.util.profiling.ProfilerFiller;
 import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.data.SharedIndexSorter;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 
@@ -30,13 +32,41 @@ public class RenderRegionManager {
 
     private final StagingBuffer stagingBuffer;
 
+    // The buffer which chunk build workers write meshes into directly, if enabled
+    private final @Nullable MeshStagingBuffer meshStagingBuffer;
+
+    // Running totals of the results which have been uploaded, and the size of the uploaded data
+    private long uploadedMeshCount;
+    private long uploadedMeshBytes;
+    private long uploadedSortCount;
+    private long uploadedSortBytes;
+
+    // The amount of data moved by compaction in the last frame, and the number of regions which still need compaction
+    private long compactedBytes;
+    private int pendingCompactionCount;
+
+    // The number of results which didn't fit into the staging buffer in the last upload, and were deferred
+    private int deferredResultCount;
+
+    // Running totals of the uploads which were looked up in the content cache of their arena, the uploads which were
+    // deduplicated against identical data already in it, and the size of the deduplicated data which didn't need to be
+    // uploaded
+    private long deduplicationLookupCount;
+    private long deduplicationHitCount;
+    private long deduplicatedBytes;
+
     public RenderRegionManager(CommandList commandList) {
         this.stagingBuffer = createStagingBuffer(commandList);
+        this.meshStagingBuffer = createMeshStagingBuffer(commandList);
     }
 
     public void update() {
         this.stagingBuffer.flip();
 
+        if (this.meshStagingBuffer != null) {
+            this.meshStagingBuffer.flip();
+        }
+
         try (CommandList commandList = RenderDevice.INSTANCE.createCommandList()) {
             Iterator<RenderRegion> it = this.regions.values()
                     .iterator();
@@ -51,13 +81,103 @@ public class RenderRegionManager {
                     it.remove();
                 }
             }
+
+            this.compact(commandList);
         }
     }
 
-    public void uploadResults(CommandList commandList, Collection<BuilderTaskOutput> results) {
+    // Moves a bounded amount of data each frame to defragment the region buffers, so that they rarely need to be
+    // compacted all at once when they are resized
+    private void compact(CommandList commandList) {
+        long maxBytes = SodiumClientMod.options().performance.arenaCompactionBudget * 1024L;
+
+        long movedBytes = 0;
+        int pendingCount = 0;
+
+        for (RenderRegion region : this.regions.values()) {
+            if (!region.needsCompaction()) {
+                continue;
+            }
+
+            if (movedBytes < maxBytes) {
+                movedBytes += region.compact(commandList, maxBytes - movedBytes);
+            }
+
+            if (region.needsCompaction()) {
+                pendingCount++;
+            }
+        }
+
+        this.compactedBytes = movedBytes;
+        this.pendingCompactionCount = pendingCount;
+    }
+
+    /**
+     * Uploads the results region by region until the staging buffer is full. The results of the remaining regions
+     * are not uploaded, so that they can be uploaded in a later frame once the staging buffer's copies have completed,
+     * instead of falling back to slow uploads. The results of at least one region are always uploaded.
+     *
+     * @return The results which were deferred
+     */
+    public List<BuilderTaskOutput> uploadResults(CommandList commandList, Collection<BuilderTaskOutput> results) {
+        List<BuilderTaskOutput> deferred = new ArrayList<>();
+
+        long availableBytes = this.stagingBuffer.getAvailableBytes();
+        long stagedBytes = 0;
+
         for (var entry : this.createMeshUploadQueues(results)) {
-            this.uploadResults(commandList, entry.getKey(), entry.getValue());
+            var regionResults = entry.getValue();
+            long regionBytes = 0;
+
+            for (var result : regionResults) {
+                regionBytes += getStagingBytes(result);
+            }
+
+            if (stagedBytes > 0 && stagedBytes + regionBytes > availableBytes) {
+                deferred.addAll(regionResults);
+                continue;
+            }
+
+            stagedBytes += regionBytes;
+
+            this.uploadResults(commandList, entry.getKey(), regionResults);
+        }
+
+        if (this.meshStagingBuffer != null) {
+            this.meshStagingBuffer.flush(commandList);
+        }
+
+        this.deferredResultCount = deferred.size();
+
+        return deferred;
+    }
+
+    private static long getStagingBytes(BuilderTaskOutput result) {
+        long bytes = 0;
+
+        if (result instanceof ChunkBuildOutput chunkBuildOutput) {
+            for (TerrainRenderPass pass : DefaultTerrainRenderPasses.ALL) {
+                BuiltSectionMeshParts mesh = chunkBuildOutput.getMesh(pass);
+
+                // meshes in the mesh staging buffer are copied from directly
+                if (mesh != null && mesh.getStagedVertexData() == null) {
+                    bytes += mesh.getVertexDataLength();
+                }
+            }
         }
+
+        // ChunkBuildOutput extends ChunkSortOutput, so this also counts the index data of rebuilt sections, which is
+        // uploaded through the staging buffer along with their vertex data
+        if (result instanceof ChunkSortOutput sortOutput && !sortOutput.isReusingUploadedIndexData()) {
+            var sorter = sortOutput.getSorter();
+            var buffer = sorter != null ? sorter.getIndexBuffer() : null;
+
+            if (buffer != null) {
+                bytes += buffer.getLength();
+            }
+        }
+
+        return bytes;
     }
 
     private void uploadResults(CommandList commandList, RenderRegion region, Collection<BuilderTaskOutput> results) {
@@ -72,19 +192,31 @@ public class RenderRegionManager {
             }
 
             if (result instanceof ChunkBuildOutput chunkBuildOutput) {
+                this.uploadedMeshCount++;
+
                 for (TerrainRenderPass pass : DefaultTerrainRenderPasses.ALL) {
                     var storage = region.getStorage(pass);
+                    BuiltSectionMeshParts mesh = chunkBuildOutput.getMesh(pass);
 
                     if (storage != null) {
-                        storage.removeVertexData(renderSectionIndex);
+                        // the previous mesh is only kept until it is replaced if the new mesh has the same content, so
+                        // that the new mesh can reuse its allocation instead of being uploaded again. Otherwise, its
+                        // space is released before the new mesh is allocated.
+                        if (mesh == null || mesh.getVertexData() == null ||
+                                !storage.hasVertexDataWithHash(renderSectionIndex, mesh.getVertexDataHash())) {
+                            storage.removeVertexData(renderSectionIndex);
+                        }
+
                         region.clearCachedBatchFor(pass);
                     }
 
-                    BuiltSectionMeshParts mesh = chunkBuildOutput.getMesh(pass);
-
                     if (mesh != null) {
-                        uploads.add(new PendingSectionMeshUpload(result.render, mesh, pass,
-                                new PendingUpload(mesh.getVertexData())));
+                        this.uploadedMeshBytes += mesh.getVertexDataLength();
+
+                        var stagedVertexData = mesh.getStagedVertexData();
+                        var vertexUpload = stagedVertexData != null ? new PendingUpload(stagedVertexData)
+                                : new PendingUpload(mesh.getVertexData(), mesh.getVertexDataHash());
+                        uploads.add(new PendingSectionMeshUpload(result.render, mesh, pass, vertexUpload));
                     }
                 }
             }
@@ -112,6 +244,13 @@ public class RenderRegionManager {
                         continue;
                     }
 
+                    if (result instanceof ChunkBuildOutput) {
+                        this.uploadedMeshBytes += buffer.getLength();
+                    } else {
+                        this.uploadedSortCount++;
+                        this.uploadedSortBytes += buffer.getLength();
+                    }
+
                     indexUploads.add(new PendingSectionIndexBufferUpload(result.render, new PendingUpload(buffer)));
                 }
             }
@@ -144,6 +283,8 @@ public class RenderRegionManager {
 
             // Collect the upload results
             for (PendingSectionMeshUpload upload : uploads) {
+                this.recordDeduplication(upload.vertexUpload);
+
                 var storage = region.createStorage(upload.pass);
                 storage.setVertexData(upload.section.getSectionIndex(),
                         upload.vertexUpload.getResult(), upload.meshData.getVertexSegments());
@@ -159,6 +300,8 @@ public class RenderRegionManager {
                     .map(upload -> upload.indexBufferUpload));
 
             for (PendingSectionIndexBufferUpload upload : indexUploads) {
+                this.recordDeduplication(upload.indexBufferUpload);
+
                 var storage = region.createStorage(DefaultTerrainRenderPasses.TRANSLUCENT);
                 storage.setIndexData(upload.section.getSectionIndex(), upload.indexBufferUpload.getResult());
             }
@@ -176,8 +319,23 @@ public class RenderRegionManager {
         profiler.pop();
     }
 
+    private void recordDeduplication(PendingUpload upload) {
+        // uploads into arenas without a content cache can't be deduplicated, so they would only lower the hit rate
+        if (!upload.isLookedUp()) {
+            return;
+        }
+
+        this.deduplicationLookupCount++;
+
+        if (upload.isDeduplicated()) {
+            this.deduplicationHitCount++;
+            this.deduplicatedBytes += upload.getLength();
+        }
+    }
+
     private Reference2ReferenceMap.FastEntrySet<RenderRegion, List<BuilderTaskOutput>> createMeshUploadQueues(Collection<BuilderTaskOutput> results) {
-        var map = new Reference2ReferenceOpenHashMap<RenderRegion, List<BuilderTaskOutput>>();
+        // keep the regions in the order of their first result, so that deferred results are uploaded first
+        var map = new Reference2ReferenceLinkedOpenHashMap<RenderRegion, List<BuilderTaskOutput>>();
 
         for (var result : results) {
             var queue = map.computeIfAbsent(result.render.getRegion(), k -> new ArrayList<>());
@@ -194,16 +352,64 @@ public class RenderRegionManager {
 
         this.regions.clear();
         this.stagingBuffer.delete(commandList);
+
+        if (this.meshStagingBuffer != null) {
+            this.meshStagingBuffer.delete(commandList);
+        }
     }
 
     public Collection<RenderRegion> getLoadedRegions() {
         return this.regions.values();
     }
 
+    public long getUploadedMeshCount() {
+        return this.uploadedMeshCount;
+    }
+
+    public long getUploadedMeshBytes() {
+        return this.uploadedMeshBytes;
+    }
+
+    public long getUploadedSortCount() {
+        return this.uploadedSortCount;
+    }
+
+    public long getUploadedSortBytes() {
+        return this.uploadedSortBytes;
+    }
+
+    public long getCompactedBytes() {
+        return this.compactedBytes;
+    }
+
+    public int getPendingCompactionCount() {
+        return this.pendingCompactionCount;
+    }
+
+    public long getDeduplicationLookupCount() {
+        return this.deduplicationLookupCount;
+    }
+
+    public long getDeduplicationHitCount() {
+        return this.deduplicationHitCount;
+    }
+
+    public long getDeduplicatedBytes() {
+        return this.deduplicatedBytes;
+    }
+
+    public int getDeferredResultCount() {
+        return this.deferredResultCount;
+    }
+
     public StagingBuffer getStagingBuffer() {
         return this.stagingBuffer;
     }
 
+    public @Nullable MeshStagingBuffer getMeshStagingBuffer() {
+        return this.meshStagingBuffer;
+    }
+
     public RenderRegion createForChunk(int chunkX, int chunkY, int chunkZ) {
         return this.create(chunkX >> RenderRegion.REGION_WIDTH_SH,
                 chunkY >> RenderRegion.REGION_HEIGHT_SH,
@@ -235,4 +441,14 @@ public class RenderRegionManager {
 
         return new FallbackStagingBuffer(commandList);
     }
+
+    private static @Nullable MeshStagingBuffer createMeshStagingBuffer(CommandList commandList) {
+        var options = SodiumClientMod.options().advanced;
+
+        if (options.useAdvancedStagingBuffers && options.useMeshStagingBuffer && MappedStagingBuffer.isSupported(RenderDevice.INSTANCE)) {
+            return new MeshStagingBuffer(commandList, options.meshStagingBufferSize * 1024 * 1024);
+        }
+
+        return null;
+    }
 }
@@ -4,8 +4,20 @@ public class MaterialParameters {
     public static final int OFFSET_USE_MIP = 0;
     public static final int OFFSET_ALPHA_CUTOFF = 1;
 
+    // Set for quads which were merged from multiple block faces, and which repeat their sprite across the quad
+    public static final int OFFSET_TILED = 3;
+    // The world axes (0 = X, 1 = Y, 2 = Z) along which the texture coordinates of tiled quads increase
+    public static final int OFFSET_TILE_AXIS_U = 4;
+    public static final int OFFSET_TILE_AXIS_V = 6;
+
     public static int pack(AlphaCutoffParameter alphaCutoff, boolean useMipmaps) {
         return (((useMipmaps ? 1 : 0) << OFFSET_USE_MIP) |
                 ((alphaCutoff.ordinal()) << OFFSET_ALPHA_CUTOFF));
     }
+
+    public static int packTiling(int axisU, int axisV) {
+        return ((1 << OFFSET_TILED) |
+                (axisU << OFFSET_TILE_AXIS_U) |
+                (axisV << OFFSET_TILE_AXIS_V));
+    }
 }
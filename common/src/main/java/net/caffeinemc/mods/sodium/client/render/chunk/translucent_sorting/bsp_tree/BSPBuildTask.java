@@ -0,0 +1,105 @@
+package net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.bsp_tree;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds a subtree of the BSP in its own workspace so that it can run in
+ * parallel with its sibling subtrees. Each subtree only accesses the quads of
+ * its own partition, so no quad is accessed by more than one task.
+ * <p>
+ * Splitting a node into tasks only pays off when its partitions are large,
+ * which happens for dense translucent geometry such as large arrays of stained
+ * glass. Everything else is built serially on the chunk builder thread.
+ */
+class BSPBuildTask extends RecursiveTask<BSPNode> {
+    /**
+     * The minimum number of quads a node needs to have for its subtrees to be
+     * built in parallel.
+     */
+    private static final int PARALLEL_NODE_THRESHOLD = 2048;
+
+    /**
+     * The minimum number of quads a subtree needs to have to be built in its own
+     * task. Smaller subtrees are built by the task of their parent.
+     */
+    private static final int PARALLEL_SUBTREE_THRESHOLD = 256;
+
+    private static final int WORKER_COUNT = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() - 1, 4));
+
+    // Worker threads are only started once the first task is submitted
+    private static final ForkJoinPool POOL = createPool();
+
+    final BSPWorkspace workspace;
+    private final IntArrayList indexes;
+    private final int depth;
+    private final BSPNode oldNode;
+
+    /**
+     * @param workspace A child workspace which is only used by this task, and
+     *                  which needs to be merged into its parent once the task
+     *                  has completed
+     */
+    BSPBuildTask(BSPWorkspace workspace, IntArrayList indexes, int depth, BSPNode oldNode) {
+        this.workspace = workspace;
+        this.indexes = indexes;
+        this.depth = depth;
+        this.oldNode = oldNode;
+    }
+
+    @Override
+    protected BSPNode compute() {
+        return BSPNode.build(this.workspace, this.indexes, this.depth, this.oldNode);
+    }
+
+    static boolean shouldBuildInParallel(IntArrayList indexes) {
+        return WORKER_COUNT > 1 && indexes.size() >= PARALLEL_NODE_THRESHOLD;
+    }
+
+    static boolean shouldBuildInTask(IntArrayList indexes) {
+        return indexes != null && indexes.size() >= PARALLEL_SUBTREE_THRESHOLD;
+    }
+
+    /**
+     * Runs the given tasks in parallel and waits for all of them to complete. The
+     * calling thread participates in the work if it is a pool thread, and
+     * otherwise blocks until the pool has finished.
+     */
+    static void invokeAll(List<BSPBuildTask> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        // a single task gains nothing from being handed to another thread
+        if (tasks.size() == 1) {
+            tasks.getFirst().invoke();
+        } else if (ForkJoinTask.inForkJoinPool()) {
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            POOL.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    ForkJoinTask.invokeAll(tasks);
+                }
+            });
+        }
+    }
+
+    private static ForkJoinPool createPool() {
+        var threadIndex = new AtomicInteger();
+
+        return new ForkJoinPool(WORKER_COUNT, pool -> {
+            var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("BSP Build Worker #" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+
+            return thread;
+        }, null, false);
+    }
+}
@@ -1,5 +1,7 @@
 package net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.bsp_tree;
 
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.TQuad;
 import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.trigger.GeometryPlanes;
 import net.minecraft.core.SectionPos;
@@ -9,6 +11,12 @@ import net.minecraft.core.SectionPos;
  * BSPSortState) It brings a number of fixed parameters and receives partition
  * planes to return as part of the final result.
  * 
+ * Subtrees which are built in parallel each get their own child workspace,
+ * which records the partition planes instead of adding them to the result. The
+ * parent then merges the child workspaces in the same order the subtrees would
+ * have been built in serially, which makes the result identical to a serial
+ * build.
+ * 
  * Implementation note: Storing the multi partition node's interval points in a
  * global array instead of making a new one at each tree level doesn't appear to
  * have any performance benefit.
@@ -21,20 +29,60 @@ class BSPWorkspace {
 
     final SectionPos sectionPos;
 
-    final BSPResult result = new BSPResult();
+    final BSPResult result;
 
     final boolean prepareNodeReuse;
 
+    /**
+     * The partition planes added to a child workspace, in the order they were
+     * added. These are null for the root workspace, which adds them to the result
+     * directly.
+     */
+    private final IntArrayList recordedAxes;
+    private final FloatArrayList recordedDistances;
+
     BSPWorkspace(TQuad[] quads, SectionPos sectionPos, boolean prepareNodeReuse) {
         this.quads = quads;
         this.sectionPos = sectionPos;
         this.prepareNodeReuse = prepareNodeReuse;
+        this.result = new BSPResult();
+        this.recordedAxes = null;
+        this.recordedDistances = null;
+    }
+
+    private BSPWorkspace(BSPWorkspace parent) {
+        this.quads = parent.quads;
+        this.sectionPos = parent.sectionPos;
+        this.prepareNodeReuse = parent.prepareNodeReuse;
+        this.result = null;
+        this.recordedAxes = new IntArrayList();
+        this.recordedDistances = new FloatArrayList();
+    }
+
+    /**
+     * Creates a workspace for building a subtree independently of this one. Its
+     * partition planes need to be merged back into this workspace with
+     * {@link #merge(BSPWorkspace)}.
+     */
+    BSPWorkspace createChild() {
+        return new BSPWorkspace(this);
+    }
+
+    void merge(BSPWorkspace child) {
+        for (int i = 0, size = child.recordedAxes.size(); i < size; i++) {
+            this.addAlignedPartitionPlane(child.recordedAxes.getInt(i), child.recordedDistances.getFloat(i));
+        }
     }
 
     // TODO: better bidirectional triggering: integrate bidirectionality in GFNI if
     // top-level topo sorting isn't used anymore (and only use half as much memory
     // by not storing it double)
     void addAlignedPartitionPlane(int axis, float distance) {
-        result.addDoubleSidedPlane(this.sectionPos, axis, distance);
+        if (this.result != null) {
+            this.result.addDoubleSidedPlane(this.sectionPos, axis, distance);
+        } else {
+            this.recordedAxes.add(axis);
+            this.recordedDistances.add(distance);
+        }
     }
 }
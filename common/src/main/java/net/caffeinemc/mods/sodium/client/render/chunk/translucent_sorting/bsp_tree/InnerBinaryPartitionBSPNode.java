@@ -4,6 +4,8 @@ import org.joml.Vector3fc;
 
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 
+import java.util.List;
+
 /**
  * Partitions quads into two sides, each its own BSP node, of a partition plane
  * and a set of quads that lie on the plane.
@@ -86,11 +88,25 @@ class InnerBinaryPartitionBSPNode extends InnerPartitionBSPNode {
 
         BSPNode insideNode = null;
         BSPNode outsideNode = null;
-        if (inside.quadsBefore() != null) {
-            insideNode = BSPNode.build(workspace, inside.quadsBefore(), depth, oldInsideNode);
-        }
-        if (outside != null) {
-            outsideNode = BSPNode.build(workspace, outside.quadsBefore(), depth, oldOutsideNode);
+        if (BSPBuildTask.shouldBuildInParallel(indexes)
+                && BSPBuildTask.shouldBuildInTask(inside.quadsBefore())
+                && outside != null && BSPBuildTask.shouldBuildInTask(outside.quadsBefore())) {
+            var insideTask = new BSPBuildTask(workspace.createChild(), inside.quadsBefore(), depth, oldInsideNode);
+            var outsideTask = new BSPBuildTask(workspace.createChild(), outside.quadsBefore(), depth, oldOutsideNode);
+            BSPBuildTask.invokeAll(List.of(insideTask, outsideTask));
+
+            // merge in the same order as the serial build
+            insideNode = insideTask.join();
+            workspace.merge(insideTask.workspace);
+            outsideNode = outsideTask.join();
+            workspace.merge(outsideTask.workspace);
+        } else {
+            if (inside.quadsBefore() != null) {
+                insideNode = BSPNode.build(workspace, inside.quadsBefore(), depth, oldInsideNode);
+            }
+            if (outside != null) {
+                outsideNode = BSPNode.build(workspace, outside.quadsBefore(), depth, oldOutsideNode);
+            }
         }
         var onPlane = inside.quadsOn() == null ? null : BSPSortState.compressIndexes(inside.quadsOn());
 
@@ -3,6 +3,8 @@ package net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.bsp_t
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import org.joml.Vector3fc;
 
+import java.util.List;
+
 public class InnerFixedDoubleBSPNode extends InnerPartitionBSPNode {
     private final BSPNode first;
     private final BSPNode second;
@@ -34,8 +36,22 @@ public class InnerFixedDoubleBSPNode extends InnerPartitionBSPNode {
             secondOldNode = old.second;
         }
 
-        var firstNode = BSPNode.build(workspace, first, depth, firstOldNode);
-        var secondNode = BSPNode.build(workspace, second, depth, secondOldNode);
+        BSPNode firstNode;
+        BSPNode secondNode;
+        if (BSPBuildTask.shouldBuildInParallel(indexes)
+                && BSPBuildTask.shouldBuildInTask(first) && BSPBuildTask.shouldBuildInTask(second)) {
+            var firstTask = new BSPBuildTask(workspace.createChild(), first, depth, firstOldNode);
+            var secondTask = new BSPBuildTask(workspace.createChild(), second, depth, secondOldNode);
+            BSPBuildTask.invokeAll(List.of(firstTask, secondTask));
+
+            firstNode = firstTask.join();
+            workspace.merge(firstTask.workspace);
+            secondNode = secondTask.join();
+            workspace.merge(secondTask.workspace);
+        } else {
+            firstNode = BSPNode.build(workspace, first, depth, firstOldNode);
+            secondNode = BSPNode.build(workspace, second, depth, secondOldNode);
+        }
 
         return new InnerFixedDoubleBSPNode(
                 prepareNodeReuse(workspace, indexes, depth),
@@ -111,15 +111,33 @@ class InnerMultiPartitionBSPNode extends InnerPartitionBSPNode {
             oldPartitionDistance = multiNode.planeDistances[0];
         }
 
+        // when building in parallel, each partition records its plane and the planes
+        // of its subtree in its own workspace, which are merged in order afterward
+        boolean parallel = BSPBuildTask.shouldBuildInParallel(indexes);
+        BSPWorkspace[] partitionWorkspaces = null;
+        BSPBuildTask[] partitionTasks = null;
+        ReferenceArrayList<BSPBuildTask> tasks = null;
+        if (parallel) {
+            partitionWorkspaces = new BSPWorkspace[partitions.size()];
+            partitionTasks = new BSPBuildTask[partitions.size()];
+            tasks = new ReferenceArrayList<>();
+        }
+
         // write the partition planes and nodes
         for (int i = 0, count = partitions.size(); i < count; i++) {
             var partition = partitions.get(i);
 
+            var partitionWorkspace = workspace;
+            if (parallel) {
+                partitionWorkspace = workspace.createChild();
+                partitionWorkspaces[i] = partitionWorkspace;
+            }
+
             // if the partition actually has a plane
             float partitionDistance = Float.NaN;
             if (endsWithPlane || i < count - 1) {
                 partitionDistance = partition.distance();
-                workspace.addAlignedPartitionPlane(axis, partitionDistance);
+                partitionWorkspace.addAlignedPartitionPlane(axis, partitionDistance);
 
                 // NOTE: sanity check
                 if (Float.isNaN(partitionDistance)) {
@@ -147,13 +165,30 @@ class InnerMultiPartitionBSPNode extends InnerPartitionBSPNode {
                     }
                 }
 
-                partitionNodes[i] = BSPNode.build(workspace, partition.quadsBefore(), depth, oldChild);
+                if (parallel && BSPBuildTask.shouldBuildInTask(partition.quadsBefore())) {
+                    var task = new BSPBuildTask(partitionWorkspace, partition.quadsBefore(), depth, oldChild);
+                    partitionTasks[i] = task;
+                    tasks.add(task);
+                } else {
+                    partitionNodes[i] = BSPNode.build(partitionWorkspace, partition.quadsBefore(), depth, oldChild);
+                }
             }
             if (partition.quadsOn() != null) {
                 onPlaneQuads[i] = BSPSortState.compressIndexes(partition.quadsOn());
             }
         }
 
+        if (parallel) {
+            BSPBuildTask.invokeAll(tasks);
+
+            for (int i = 0; i < partitionWorkspaces.length; i++) {
+                if (partitionTasks[i] != null) {
+                    partitionNodes[i] = partitionTasks[i].join();
+                }
+                workspace.merge(partitionWorkspaces[i]);
+            }
+        }
+
         return new InnerMultiPartitionBSPNode(prepareNodeReuse(workspace, indexes, depth),
                 axis, planeDistances, partitionNodes, onPlaneQuads);
     }
@@ -51,6 +51,7 @@ import java.util.Random;
  */
 abstract class InnerPartitionBSPNode extends BSPNode {
     private static final int NODE_REUSE_THRESHOLD = 30;
+    private static final int NODE_REUSE_MAX_DEPTH = 2;
     private static final int MAX_INTERSECTION_ATTEMPTS = 500;
 
     final Vector3fc planeNormal;
@@ -83,9 +84,11 @@ abstract class InnerPartitionBSPNode extends BSPNode {
     abstract void addPartitionPlanes(BSPWorkspace workspace);
 
     static NodeReuseData prepareNodeReuse(BSPWorkspace workspace, IntArrayList indexes, int depth) {
-        // if node reuse is enabled, only enable on the first level of children (not the
-        // root node and not anything deeper than its children)
-        if (workspace.prepareNodeReuse && depth == 1 && indexes.size() > NODE_REUSE_THRESHOLD) {
+        // if node reuse is enabled, only enable on the first two levels of children
+        // (not the root node and not anything deeper than its grandchildren). When a
+        // local change prevents reusing a child, its own children can still be reused.
+        if (workspace.prepareNodeReuse && depth >= 1 && depth <= NODE_REUSE_MAX_DEPTH
+                && indexes.size() > NODE_REUSE_THRESHOLD) {
             // collect the extents of the indexed quads and hash them
             var quadExtents = new float[indexes.size()][];
             int maxIndex = -1;
@@ -414,7 +417,10 @@ abstract class InnerPartitionBSPNode extends BSPNode {
             int half = stepSize / 2;
             stepSize = Math.max(1, stepSize - half);
             variance = stepSize;
-            random = new Random();
+
+            // seed from the node's quads so that the result doesn't depend on which
+            // thread or in which order the node is built
+            random = new Random(((long) quadCount << 32) | indexes.getInt(0));
         }
 
         while (true) {
@@ -45,8 +45,12 @@ public class AnyOrderData extends SplitDirectionData {
      */
     public static AnyOrderData fromMesh(int[] vertexCounts,
                                         TQuad[] quads, SectionPos sectionPos) {
-        var anyOrderData = new AnyOrderData(sectionPos, vertexCounts, quads.length);
-        anyOrderData.sorterOnce = new SharedIndexSorter(quads.length);
+        return fromQuadCount(vertexCounts, quads.length, sectionPos);
+    }
+
+    public static AnyOrderData fromQuadCount(int[] vertexCounts, int quadCount, SectionPos sectionPos) {
+        var anyOrderData = new AnyOrderData(sectionPos, vertexCounts, quadCount);
+        anyOrderData.sorterOnce = new SharedIndexSorter(quadCount);
         return anyOrderData;
     }
 }
@@ -4,6 +4,7 @@ import net.caffeinemc.mods.sodium.client.render.chunk.data.BuiltSectionMeshParts
 import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.TQuad;
 import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.bsp_tree.BSPNode;
 import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.bsp_tree.BSPResult;
+import net.caffeinemc.mods.sodium.client.util.sorting.SortBuffers;
 import net.minecraft.core.SectionPos;
 import org.joml.Vector3dc;
 
@@ -19,6 +20,11 @@ public class DynamicBSPData extends DynamicData {
     private final BSPNode rootNode;
     private final int generation;
 
+    // the hash and normal count of the trigger planes, which are kept after the
+    // planes themselves are discarded
+    private long planesHash;
+    private int planesNormalCount;
+
     private DynamicBSPData(SectionPos sectionPos, int vertexCount, BSPResult result, Vector3dc initialCameraPos, TQuad[] quads, int generation) {
         super(sectionPos, vertexCount, quads.length, result, initialCameraPos);
         this.rootNode = result.getRootNode();
@@ -31,11 +37,33 @@ public class DynamicBSPData extends DynamicData {
         }
 
         @Override
-        void writeSort(CombinedCameraPos cameraPos, boolean initial) {
+        void writeSort(CombinedCameraPos cameraPos, SortBuffers sortBuffers, boolean initial) {
             DynamicBSPData.this.rootNode.collectSortedQuads(this.getIndexBuffer(), cameraPos.getRelativeCameraPos());
         }
     }
 
+    @Override
+    public void discardGeometryPlanes() {
+        var geometryPlanes = this.getGeometryPlanes();
+        if (geometryPlanes != null) {
+            this.planesHash = geometryPlanes.getPlanesHash();
+            this.planesNormalCount = geometryPlanes.getNormalCount();
+        }
+        super.discardGeometryPlanes();
+    }
+
+    /**
+     * Checks if this data has the same trigger planes as the given data, which has
+     * already been integrated into triggering. Only the planes of this data need
+     * to still be present.
+     */
+    public boolean hasSameTriggerPlanes(DynamicBSPData integratedData) {
+        var geometryPlanes = this.getGeometryPlanes();
+        return geometryPlanes != null && integratedData.getGeometryPlanes() == null
+                && geometryPlanes.getNormalCount() == integratedData.planesNormalCount
+                && geometryPlanes.getPlanesHash() == integratedData.planesHash;
+    }
+
     @Override
     public Sorter getSorter() {
         return new DynamicBSPSorter(this.getQuadCount());
@@ -1,5 +1,7 @@
 package net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.data;
 
+import net.caffeinemc.mods.sodium.client.util.sorting.SortBuffers;
+
 abstract class DynamicSorter extends PresentSorter {
     private final int quadCount;
 
@@ -7,11 +9,11 @@ abstract class DynamicSorter extends PresentSorter {
         this.quadCount = quadCount;
     }
 
-    abstract void writeSort(CombinedCameraPos cameraPos, boolean initial);
+    abstract void writeSort(CombinedCameraPos cameraPos, SortBuffers sortBuffers, boolean initial);
 
     @Override
-    public void writeIndexBuffer(CombinedCameraPos cameraPos, boolean initial) {
+    public void writeIndexBuffer(CombinedCameraPos cameraPos, SortBuffers sortBuffers, boolean initial) {
         this.initBufferWithQuadLength(this.quadCount);
-        this.writeSort(cameraPos, initial);
+        this.writeSort(cameraPos, sortBuffers, initial);
     }
 }
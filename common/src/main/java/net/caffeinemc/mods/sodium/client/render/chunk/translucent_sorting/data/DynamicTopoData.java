@@ -4,6 +4,7 @@ import it.unimi.dsi.fastutil.objects.Object2ReferenceOpenHashMap;
 import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.TQuad;
 import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.trigger.GeometryPlanes;
 import net.caffeinemc.mods.sodium.client.util.sorting.RadixSort;
+import net.caffeinemc.mods.sodium.client.util.sorting.SortBuffers;
 import net.minecraft.core.SectionPos;
 import org.joml.Vector3dc;
 import org.joml.Vector3fc;
@@ -45,6 +46,10 @@ public class DynamicTopoData extends DynamicData {
     private final TQuad[] quads;
     private final Object2ReferenceOpenHashMap<Vector3fc, float[]> distancesByNormal;
 
+    // the quad centers for distance sorting, stored as all x, then all y, then all z
+    // coordinates. Only created once distance sorting is used.
+    private float[] quadCenters;
+
     private DynamicTopoData(SectionPos sectionPos, int vertexCount, TQuad[] quads,
                             GeometryPlanes geometryPlanes, Vector3dc initialCameraPos,
                             Object2ReferenceOpenHashMap<Vector3fc, float[]> distancesByNormal) {
@@ -165,7 +170,7 @@ public class DynamicTopoData extends DynamicData {
         }
 
         @Override
-        void writeSort(CombinedCameraPos cameraPos, boolean initial) {
+        void writeSort(CombinedCameraPos cameraPos, SortBuffers sortBuffers, boolean initial) {
             // uses a topo sort or a distance sort depending on what is enabled
             IntBuffer indexBuffer = this.getIntBuffer();
 
@@ -206,7 +211,8 @@ public class DynamicTopoData extends DynamicData {
 
             if (this.directTrigger) {
                 indexBuffer.rewind();
-                distanceSortDirect(indexBuffer, DynamicTopoData.this.quads, cameraPos.getRelativeCameraPos());
+                distanceSortDirect(indexBuffer, DynamicTopoData.this.getQuadCenters(), DynamicTopoData.this.quads.length,
+                        cameraPos.getRelativeCameraPos(), sortBuffers);
             }
 
             if (initial) {
@@ -215,40 +221,80 @@ public class DynamicTopoData extends DynamicData {
         }
     }
 
+    private float[] getQuadCenters() {
+        var centers = this.quadCenters;
+
+        if (centers == null) {
+            var quads = this.quads;
+            int quadCount = quads.length;
+            centers = new float[quadCount * 3];
+
+            for (int q = 0; q < quadCount; q++) {
+                var center = quads[q].getCenter();
+                centers[q] = center.x();
+                centers[quadCount + q] = center.y();
+                centers[quadCount * 2 + q] = center.z();
+            }
+
+            this.quadCenters = centers;
+        }
+
+        return centers;
+    }
+
     /**
-     * Sorts the given quads by descending center distance to the camera and writes
-     * the resulting order to the given index buffer.
+     * Sorts the quads by descending center distance to the camera and writes the
+     * resulting order to the given index buffer. The keys are computed in a single
+     * pass over the flat center coordinates, which the JIT can vectorize, and the
+     * sort only uses the given buffers so that it doesn't allocate.
      */
-    static void distanceSortDirect(IntBuffer indexBuffer, TQuad[] quads, Vector3fc cameraPos) {
-        if (quads.length <= 1) {
+    static void distanceSortDirect(IntBuffer indexBuffer, float[] quadCenters, int quadCount, Vector3fc cameraPos,
+                                   SortBuffers sortBuffers) {
+        if (quadCount <= 1) {
             TranslucentData.writeQuadVertexIndexes(indexBuffer, 0);
-        } else if (RadixSort.useRadixSort(quads.length)) {
-            final var keys = new int[quads.length];
+        } else if (RadixSort.useRadixSort(quadCount)) {
+            final var keys = sortBuffers.getKeys(quadCount);
+            computeDistanceKeys(quadCenters, quadCount, cameraPos, keys);
 
-            for (int q = 0; q < quads.length; q++) {
-                keys[q] = ~Float.floatToRawIntBits(quads[q].getCenter().distanceSquared(cameraPos));
-            }
-
-            var indices = RadixSort.sort(keys);
+            var indices = RadixSort.sort(keys, quadCount, sortBuffers);
 
-            for (int i = 0; i < quads.length; i++) {
+            for (int i = 0; i < quadCount; i++) {
                 TranslucentData.writeQuadVertexIndexes(indexBuffer, indices[i]);
             }
         } else {
-            final var data = new long[quads.length];
-            for (int q = 0; q < quads.length; q++) {
-                float distance = quads[q].getCenter().distanceSquared(cameraPos);
-                data[q] = (long) ~Float.floatToRawIntBits(distance) << 32 | q;
+            final var keys = sortBuffers.getKeys(quadCount);
+            computeDistanceKeys(quadCenters, quadCount, cameraPos, keys);
+
+            final var data = sortBuffers.getPackedKeys(quadCount);
+            for (int q = 0; q < quadCount; q++) {
+                data[q] = (long) keys[q] << 32 | q;
             }
 
-            Arrays.sort(data);
+            Arrays.sort(data, 0, quadCount);
 
-            for (int i = 0; i < quads.length; i++) {
+            for (int i = 0; i < quadCount; i++) {
                 TranslucentData.writeQuadVertexIndexes(indexBuffer, (int) data[i]);
             }
         }
     }
 
+    /**
+     * Computes the inverted squared distance of each quad center to the camera as a
+     * key that sorts the quads by descending distance.
+     */
+    private static void computeDistanceKeys(float[] quadCenters, int quadCount, Vector3fc cameraPos, int[] keys) {
+        final float cameraX = cameraPos.x();
+        final float cameraY = cameraPos.y();
+        final float cameraZ = cameraPos.z();
+
+        for (int q = 0; q < quadCount; q++) {
+            float dx = quadCenters[q] - cameraX;
+            float dy = quadCenters[quadCount + q] - cameraY;
+            float dz = quadCenters[quadCount * 2 + q] - cameraZ;
+            keys[q] = ~Float.floatToRawIntBits(dx * dx + dy * dy + dz * dz);
+        }
+    }
+
     public static DynamicTopoData fromMesh(int vertexCount,
                                            CombinedCameraPos cameraPos, TQuad[] quads, SectionPos sectionPos,
                                            GeometryPlanes geometryPlanes) {
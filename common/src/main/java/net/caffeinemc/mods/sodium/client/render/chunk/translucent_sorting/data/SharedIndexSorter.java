@@ -1,6 +1,7 @@
 package net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.data;
 
 import net.caffeinemc.mods.sodium.client.util.NativeBuffer;
+import net.caffeinemc.mods.sodium.client.util.sorting.SortBuffers;
 
 import java.nio.IntBuffer;
 
@@ -16,7 +17,7 @@ public record SharedIndexSorter(int quadCount) implements Sorter {
     }
 
     @Override
-    public void writeIndexBuffer(CombinedCameraPos cameraPos, boolean initial) {
+    public void writeIndexBuffer(CombinedCameraPos cameraPos, SortBuffers sortBuffers, boolean initial) {
         // no-op
     }
 
@@ -1,7 +1,9 @@
 package net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.data;
 
+import net.caffeinemc.mods.sodium.client.util.sorting.SortBuffers;
+
 public interface Sorter extends PresentSortData {
-    void writeIndexBuffer(CombinedCameraPos cameraPos, boolean initial);
+    void writeIndexBuffer(CombinedCameraPos cameraPos, SortBuffers sortBuffers, boolean initial);
 
     void destroy();
 }
@@ -6,6 +6,7 @@ import net.caffeinemc.mods.sodium.client.util.MathUtil;
 import net.caffeinemc.mods.sodium.client.util.sorting.RadixSort;
 import net.minecraft.core.SectionPos;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
@@ -143,6 +144,18 @@ public class StaticNormalRelativeData extends SplitDirectionData {
         return snrData;
     }
 
+    /**
+     * Restores the data of a section from an index buffer which was previously sorted for the same geometry.
+     */
+    public static StaticNormalRelativeData fromIndexData(int[] vertexCounts, int quadCount, ByteBuffer indexData,
+            SectionPos sectionPos) {
+        var snrData = new StaticNormalRelativeData(sectionPos, vertexCounts, quadCount);
+        var sorter = new StaticSorter(quadCount);
+        snrData.sorterOnce = sorter;
+        sorter.getIndexBuffer().getDirectBuffer().put(indexData);
+        return snrData;
+    }
+
     public static StaticNormalRelativeData fromMesh(int[] vertexCounts,
             TQuad[] quads, SectionPos sectionPos, boolean isDoubleUnaligned) {
         if (isDoubleUnaligned) {
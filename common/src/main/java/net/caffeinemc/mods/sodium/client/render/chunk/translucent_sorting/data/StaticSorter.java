@@ -1,12 +1,14 @@
 package net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.data;
 
+import net.caffeinemc.mods.sodium.client.util.sorting.SortBuffers;
+
 class StaticSorter extends PresentSorter {
     StaticSorter(int quadCount) {
         this.initBufferWithQuadLength(quadCount);
     }
 
     @Override
-    public void writeIndexBuffer(CombinedCameraPos cameraPos, boolean initial) {
+    public void writeIndexBuffer(CombinedCameraPos cameraPos, SortBuffers sortBuffers, boolean initial) {
         // no-op
     }
 }
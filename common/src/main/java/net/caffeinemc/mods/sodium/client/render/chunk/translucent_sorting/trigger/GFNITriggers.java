@@ -107,6 +107,14 @@ class GFNITriggers implements SectionTriggers<DynamicData> {
 
         data.discardGeometryPlanes();
 
+        this.processCatchup(ts, sectionPos, movement);
+    }
+
+    /**
+     * Triggers the section for the camera movement that happened since its data
+     * was built, without changing its registered planes.
+     */
+    void processCatchup(SortTriggering ts, long sectionPos, CameraMovement movement) {
         // check if catchup trigger is necessary
         if (movement.hasChanged()) {
             for (var normalList : this.normalLists.values()) {
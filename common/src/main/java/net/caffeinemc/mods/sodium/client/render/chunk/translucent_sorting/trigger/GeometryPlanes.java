@@ -4,6 +4,7 @@ import java.util.Collection;
 
 import org.joml.Vector3fc;
 
+import it.unimi.dsi.fastutil.HashCommon;
 import it.unimi.dsi.fastutil.objects.Object2ReferenceOpenHashMap;
 import net.caffeinemc.mods.sodium.client.model.quad.properties.ModelQuadFacing;
 import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.TQuad;
@@ -123,6 +124,44 @@ public class GeometryPlanes {
         return distancesByNormal;
     }
 
+    /**
+     * Returns a hash of all the planes, which is used to detect when a section was
+     * rebuilt without changing its trigger planes. The hash doesn't depend on the
+     * order of the normals. This requires the planes to have been prepared for
+     * integration.
+     */
+    public long getPlanesHash() {
+        long hash = 0;
+        if (this.alignedPlanes != null) {
+            for (var normalPlanes : this.alignedPlanes) {
+                if (normalPlanes != null) {
+                    hash += HashCommon.mix(normalPlanes.getPlanesHash());
+                }
+            }
+        }
+        if (this.unalignedPlanes != null) {
+            for (var normalPlanes : this.unalignedPlanes.values()) {
+                hash += HashCommon.mix(normalPlanes.getPlanesHash());
+            }
+        }
+        return hash;
+    }
+
+    public int getNormalCount() {
+        int count = 0;
+        if (this.alignedPlanes != null) {
+            for (var normalPlanes : this.alignedPlanes) {
+                if (normalPlanes != null) {
+                    count++;
+                }
+            }
+        }
+        if (this.unalignedPlanes != null) {
+            count += this.unalignedPlanes.size();
+        }
+        return count;
+    }
+
     public static GeometryPlanes fromQuadLists(SectionPos sectionPos, TQuad[] quads) {
         var geometryPlanes = new GeometryPlanes();
         for (var quad : quads) {
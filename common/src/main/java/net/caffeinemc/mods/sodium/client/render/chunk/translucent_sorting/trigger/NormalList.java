@@ -1,53 +1,33 @@
 package net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.trigger;
 
-import java.util.Collection;
-
-import org.joml.Math;
 import org.joml.Vector3dc;
 
-import net.caffeinemc.mods.sodium.client.util.interval_tree.DoubleInterval;
-import net.caffeinemc.mods.sodium.client.util.interval_tree.Interval;
-import net.caffeinemc.mods.sodium.client.util.interval_tree.Interval.Bounded;
-import net.caffeinemc.mods.sodium.client.util.interval_tree.IntervalTree;
+import net.caffeinemc.mods.sodium.client.util.collections.DoubleIntervalIndex;
 
 import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
-import it.unimi.dsi.fastutil.objects.Object2ReferenceOpenHashMap;
-import it.unimi.dsi.fastutil.objects.ReferenceArraySet;
-import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ReferenceArrayList;
 import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.AlignableNormal;
 
 /**
  * A normal list contains all the face planes that have the same normal.
  */
 public class NormalList {
-    /**
-     * Size threshold after which group sets in {@link #groupsByInterval} are
-     * replaced with hash sets to improve update performance.
-     */
-    private static final int HASH_SET_THRESHOLD = 20;
-
-    /**
-     * Size threshold under which group sets in {@link #groupsByInterval} are
-     * downgraded to array sets to reduce memory usage.
-     */
-    private static final int ARRAY_SET_THRESHOLD = 10;
-
     /**
      * The normal of this normal list.
      */
     private final AlignableNormal normal;
 
     /**
-     * An interval tree of group intervals. Since this only stores intervals, the
-     * stored intervals are mapped to groups in a separate hashmap.
+     * An index of the groups by the closed interval of their face plane
+     * distances.
      */
-    private final IntervalTree<Double> intervalTree = new IntervalTree<>();
+    private final DoubleIntervalIndex<Group> groupsByInterval = new DoubleIntervalIndex<>();
 
     /**
-     * A separate hashmap of groups. This is what actually stores the groups since
-     * the interval tree just contains intervals.
+     * The list the results of interval queries are collected into, which is
+     * re-used to avoid allocating during camera movement.
      */
-    private final Object2ReferenceOpenHashMap<DoubleInterval, Collection<Group>> groupsByInterval = new Object2ReferenceOpenHashMap<>();
+    private final ReferenceArrayList<Group> queryResults = new ReferenceArrayList<>();
 
     /**
      * A hashmap from chunk sections to groups. This is for finding groups during
@@ -86,14 +66,15 @@ public class NormalList {
             return;
         }
 
-        // perform the interval query on the group intervals and resolve each interval
-        // to the collection of groups it maps to
-        var interval = new DoubleInterval(start, end, Bounded.CLOSED);
-        for (Interval<Double> groupInterval : intervalTree.query(interval)) {
-            for (Group group : groupsByInterval.get(groupInterval)) {
-                group.triggerRange(ts, start, end);
-            }
+        // perform the interval query on the group intervals
+        var groups = this.queryResults;
+        this.groupsByInterval.query(start, end, groups);
+
+        for (int i = 0, size = groups.size(); i < size; i++) {
+            groups.get(i).triggerRange(ts, start, end);
         }
+
+        groups.clear();
     }
 
     void processCatchup(SortTriggering ts, CameraMovement movement, long sectionPos) {
@@ -109,34 +90,11 @@ public class NormalList {
     }
 
     private void removeGroupInterval(Group group) {
-        var groups = this.groupsByInterval.get(group.distances);
-        if (groups != null) {
-            groups.remove(group);
-            if (groups.isEmpty()) {
-                this.groupsByInterval.remove(group.distances);
-
-                // only remove from the interval tree if no other sections are also using it
-                this.intervalTree.remove(group.distances);
-            } else if (groups.size() <= ARRAY_SET_THRESHOLD) {
-                groups = new ReferenceArraySet<>(groups);
-                this.groupsByInterval.put(group.distances, groups);
-            }
-        }
+        this.groupsByInterval.remove(group);
     }
 
     private void addGroupInterval(Group group) {
-        var groups = this.groupsByInterval.get(group.distances);
-        if (groups == null) {
-            groups = new ReferenceArraySet<>();
-            this.groupsByInterval.put(group.distances, groups);
-
-            // only add to the interval tree if it's a new interval
-            this.intervalTree.add(group.distances);
-        } else if (groups.size() >= HASH_SET_THRESHOLD) {
-            groups = new ReferenceLinkedOpenHashSet<>(groups);
-            this.groupsByInterval.put(group.distances, groups);
-        }
-        groups.add(group);
+        this.groupsByInterval.add(group, group.minDistance, group.maxDistance);
     }
 
     boolean hasSection(long sectionPos) {
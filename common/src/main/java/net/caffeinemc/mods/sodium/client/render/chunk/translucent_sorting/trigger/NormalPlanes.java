@@ -3,9 +3,6 @@ package net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.trigg
 import org.joml.Vector3fc;
 import java.util.Arrays;
 
-import net.caffeinemc.mods.sodium.client.util.interval_tree.DoubleInterval;
-import net.caffeinemc.mods.sodium.client.util.interval_tree.Interval.Bounded;
-
 import it.unimi.dsi.fastutil.floats.FloatOpenHashSet;
 import it.unimi.dsi.fastutil.objects.Object2ReferenceOpenHashMap;
 import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.AlignableNormal;
@@ -21,7 +18,8 @@ public class NormalPlanes {
     final SectionPos sectionPos;
 
     float[] relativeDistances; // relative to the base distance
-    DoubleInterval distanceRange;
+    double minDistance; // absolute, inclusive
+    double maxDistance; // absolute, inclusive
     long relDistanceHash;
     double baseDistance;
 
@@ -58,20 +56,35 @@ public class NormalPlanes {
         int i = 0;
         for (float relDistance : this.relativeDistancesSet) {
             this.relativeDistances[i++] = relDistance;
-
-            long distanceBits = Double.doubleToLongBits(relDistance);
-            this.relDistanceHash ^= this.relDistanceHash * 31L + distanceBits;
         }
 
         // sort the array ascending
         Arrays.sort(relativeDistances);
 
+        // hash the sorted distances so that the hash doesn't depend on the order the
+        // planes were added in
+        for (float relDistance : this.relativeDistances) {
+            long distanceBits = Double.doubleToLongBits(relDistance);
+            this.relDistanceHash ^= this.relDistanceHash * 31L + distanceBits;
+        }
+
         this.baseDistance = this.normal.dot(
                 sectionPos.minBlockX(), sectionPos.minBlockY(), sectionPos.minBlockZ());
-        this.distanceRange = new DoubleInterval(
-                this.relativeDistances[0] + this.baseDistance,
-                this.relativeDistances[size - 1] + this.baseDistance,
-                Bounded.CLOSED);
+        this.minDistance = this.relativeDistances[0] + this.baseDistance;
+        this.maxDistance = this.relativeDistances[size - 1] + this.baseDistance;
+    }
+
+    /**
+     * Returns a hash of the normal and the distances of the planes. This requires
+     * the planes to have been prepared for integration.
+     */
+    long getPlanesHash() {
+        long hash = this.relDistanceHash;
+        hash = hash * 31L + this.relativeDistances.length;
+        hash = hash * 31L + Double.doubleToLongBits(this.minDistance);
+        hash = hash * 31L + Double.doubleToLongBits(this.maxDistance);
+        hash = hash * 31L + this.normal.hashCode();
+        return hash;
     }
 
     public void prepareAndInsert(Object2ReferenceOpenHashMap<Vector3fc, float[]> distancesByNormal) {
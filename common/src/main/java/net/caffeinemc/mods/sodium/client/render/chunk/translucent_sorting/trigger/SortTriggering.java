@@ -9,8 +9,10 @@ import org.joml.Vector3dc;
 
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import net.caffeinemc.mods.sodium.client.SodiumClientMod;
+import net.caffeinemc.mods.sodium.client.render.chunk.ChunkPipelineMetrics;
 import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.AlignableNormal;
 import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.SortType;
+import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.data.DynamicBSPData;
 import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.data.DynamicTopoData;
 import net.caffeinemc.mods.sodium.client.render.chunk.translucent_sorting.data.TranslucentData;
 import net.minecraft.core.SectionPos;
@@ -108,6 +110,7 @@ public class SortTriggering {
         this.triggeredNormals.add(normal);
         this.triggerSectionCallback.accept(sectionPos, false);
         this.gfniTriggerCount++;
+        ChunkPipelineMetrics.SORT_TRIGGERS_GFNI.increment();
     }
 
     void triggerSectionDirect(SectionPos sectionPos) {
@@ -118,6 +121,7 @@ public class SortTriggering {
 
         this.triggerSectionCallback.accept(sectionPos.asLong(), true);
         this.directTriggerCount++;
+        ChunkPipelineMetrics.SORT_TRIGGERS_DIRECT.increment();
     }
 
     private void triggerSectionCatchup(long sectionPos, boolean isDirectTrigger) {
@@ -212,6 +216,13 @@ public class SortTriggering {
                 if (topoSortData.directTriggerEnabled()) {
                     this.direct.integrateSection(this, pos, topoSortData, movement);
                 }
+            } else if (oldData instanceof DynamicBSPData oldBSPData
+                    && dynamicData instanceof DynamicBSPData bspData
+                    && bspData.hasSameTriggerPlanes(oldBSPData)) {
+                // the section was rebuilt without changing its planes, which are already
+                // registered. Only catch up on the camera movement since the data was built.
+                bspData.discardGeometryPlanes();
+                this.gfni.processCatchup(this, pos.asLong(), movement);
             } else {
                 this.gfni.integrateSection(this, pos, dynamicData, movement);
             }
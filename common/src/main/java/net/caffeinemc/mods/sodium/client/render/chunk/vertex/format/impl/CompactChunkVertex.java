@@ -24,6 +24,8 @@ public class CompactChunkVertex implements ChunkVertexType {
     private static final float MODEL_ORIGIN = 8.0f;
     private static final float MODEL_RANGE = 32.0f;
 
+    private static final ChunkVertexEncoder ENCODER = CompactChunkVertexEncoderFactory.create();
+
     @Override
     public GlVertexFormat getVertexFormat() {
         return VERTEX_FORMAT;
@@ -31,6 +33,15 @@ public class CompactChunkVertex implements ChunkVertexType {
 
     @Override
     public ChunkVertexEncoder getEncoder() {
+        return ENCODER;
+    }
+
+    /**
+     * Creates an encoder which loops over the vertices of each quad, and which is otherwise equivalent to the encoder
+     * generated by {@link CompactChunkVertexEncoderFactory}. This is kept as the reference implementation of the
+     * format, and to compare the generated encoder against.
+     */
+    public static ChunkVertexEncoder createGenericEncoder() {
         return (ptr, materialBits, vertices, section) -> {
             // Calculate the center point of the texture region which is mapped to the quad
             float texCentroidU = 0.0f;
@@ -60,7 +71,7 @@ public class CompactChunkVertex implements ChunkVertexType {
                 MemoryUtil.memPutInt(ptr +  4L, packPositionLo(x, y, z));
                 MemoryUtil.memPutInt(ptr +  8L, ColorARGB.mulRGB(vertex.color, vertex.ao));
                 MemoryUtil.memPutInt(ptr + 12L, packTexture(u, v));
-                MemoryUtil.memPutInt(ptr + 16L, packLightAndData(light, materialBits, section));
+                MemoryUtil.memPutInt(ptr + 16L, packLightAndData(light, packData(materialBits, section)));
 
                 ptr += STRIDE;
             }
@@ -69,19 +80,19 @@ public class CompactChunkVertex implements ChunkVertexType {
         };
     }
 
-    private static int packPositionHi(int x, int y, int z) {
+    static int packPositionHi(int x, int y, int z) {
         return  (((x >>> 10) & 0x3FF) <<  0) |
                 (((y >>> 10) & 0x3FF) << 10) |
                 (((z >>> 10) & 0x3FF) << 20);
     }
 
-    private static int packPositionLo(int x, int y, int z) {
+    static int packPositionLo(int x, int y, int z) {
         return  ((x & 0x3FF) <<  0) |
                 ((y & 0x3FF) << 10) |
                 ((z & 0x3FF) << 20);
     }
 
-    private static int quantizePosition(float position) {
+    static int quantizePosition(float position) {
         return ((int) (normalizePosition(position) * POSITION_MAX_VALUE)) & 0xFFFFF;
     }
 
@@ -89,36 +100,44 @@ public class CompactChunkVertex implements ChunkVertexType {
         return (MODEL_ORIGIN + v) / MODEL_RANGE;
     }
 
-    private static int packTexture(int u, int v) {
+    static int packTexture(int u, int v) {
         return ((u & 0xFFFF) << 0) | ((v & 0xFFFF) << 16);
     }
 
-    private static int encodeTexture(float center, float x) {
+    static int encodeTexture(float center, float x) {
         // Shrink the texture coordinates (towards the center of the mapped texture region) by the minimum
         // addressable unit (after quantization.) Then, encode the sign of the bias that was used, and apply
         // the inverse transformation on the GPU with a small epsilon.
         //
         // This makes it possible to use much smaller epsilons for avoiding texture bleed, since the epsilon is no
         // longer encoded into the vertex data (instead, we only store the sign.)
+        //
+        // A coordinate which is equal to the center is biased towards the lower coordinates. Tiled quads store the
+        // origin of their sprite in every vertex, so all of their coordinates are equal to the center, and the shader
+        // (_get_tile_origin in chunk_vertex.glsl) adds the unit back to recover the origin. Changing how ties are
+        // biased here requires changing the shader as well.
         int bias = (x < center) ? 1 : -1;
         int quantized = floorInt(x * TEXTURE_MAX_VALUE) + bias;
 
         return (quantized & 0x7FFF) | (sign(bias) << 15);
     }
 
-    private static int encodeLight(int light) {
+    static int encodeLight(int light) {
         int sky = Mth.clamp((light >>> 16) & 0xFF, 8, 248);
         int block = Mth.clamp((light >>>  0) & 0xFF, 8, 248);
 
         return (block << 0) | (sky << 8);
     }
 
-    private static int packLightAndData(int light, int material, int section) {
-        return ((light & 0xFFFF) << 0) |
-                ((material & 0xFF) << 16) |
+    static int packData(int material, int section) {
+        return ((material & 0xFF) << 16) |
                 ((section & 0xFF) << 24);
     }
 
+    static int packLightAndData(int light, int data) {
+        return ((light & 0xFFFF) << 0) | data;
+    }
+
     private static int sign(int x) {
         // Shift the sign-bit to the least significant bit's position
         // (0) if positive, (1) if negative
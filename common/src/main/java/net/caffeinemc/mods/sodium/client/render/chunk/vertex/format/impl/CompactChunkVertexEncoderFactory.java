@@ -0,0 +1,223 @@
+package net.caffeinemc.mods.sodium.client.render.chunk.vertex.format.impl;
+
+import net.caffeinemc.mods.sodium.api.util.ColorARGB;
+import net.caffeinemc.mods.sodium.client.render.chunk.vertex.format.ChunkVertexEncoder;
+import org.lwjgl.system.MemoryUtil;
+import org.objectweb.asm.*;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Generates the encoder of {@link CompactChunkVertex}, which has the loop over the vertices of a quad fully unrolled,
+ * reads each field of the vertices only once, and packs the material and section bits only once per quad. The
+ * generated class is defined in this package, so that it can call the package-private encoding functions of the
+ * vertex format directly.
+ */
+public class CompactChunkVertexEncoderFactory {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final String CLASS_NAME = "net/caffeinemc/mods/sodium/client/render/chunk/vertex/format/impl/CompactChunkVertex$Encoder$Impl";
+
+    private static final String VERTEX_FORMAT = Type.getInternalName(CompactChunkVertex.class);
+    private static final String VERTEX = Type.getInternalName(ChunkVertexEncoder.Vertex.class);
+
+    private static final int VERTICES_PER_QUAD = 4;
+
+    public static ChunkVertexEncoder create() {
+        Class<?> clazz;
+
+        try {
+            clazz = LOOKUP.defineClass(generate());
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Failed to access generated class", e);
+        }
+
+        try {
+            return (ChunkVertexEncoder) clazz.getConstructor()
+                    .newInstance();
+        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new RuntimeException("Failed to instantiate generated class", e);
+        }
+    }
+
+    private static byte[] generate() {
+        ClassWriter classWriter = new ClassWriter(0);
+        classWriter.visit(Opcodes.V17, Opcodes.ACC_FINAL | Opcodes.ACC_PUBLIC, CLASS_NAME, null,
+                Type.getInternalName(Object.class),
+                new String[] { Type.getInternalName(ChunkVertexEncoder.class) });
+
+        {
+            // Local variable table slots
+            final int localThis = 0;
+
+            // Constructor method
+            MethodVisitor methodVisitor = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+            methodVisitor.visitCode();
+
+            // Call the super class constructor
+            Label labelInit = new Label();
+            methodVisitor.visitLabel(labelInit);
+            methodVisitor.visitVarInsn(Opcodes.ALOAD, localThis);
+            methodVisitor.visitMethodInsn(Opcodes.INVOKESPECIAL,
+                    "java/lang/Object", "<init>", "()V", false);
+            methodVisitor.visitInsn(Opcodes.RETURN);
+
+            // Describe the local variable table
+            Label labelEnd = new Label();
+            methodVisitor.visitLabel(labelEnd);
+            methodVisitor.visitLocalVariable("this",
+                    "L" + CLASS_NAME + ";", null, labelInit, labelEnd, localThis);
+            methodVisitor.visitMaxs(1, 1);
+            methodVisitor.visitEnd();
+        }
+
+        {
+            // Local variable table slots
+            final int localThis = 0;
+            final int localPointer = 1;
+            final int localMaterialBits = 3;
+            final int localVertices = 4;
+            final int localSectionIndex = 5;
+            final int localData = 6;
+            final int localTexCentroidU = 7;
+            final int localTexCentroidV = 8;
+            final int localVertex0 = 9;
+            final int localX = localVertex0 + VERTICES_PER_QUAD;
+            final int localY = localX + 1;
+            final int localZ = localY + 1;
+            final int localCount = localZ + 1;
+
+            // Encoding method
+            MethodVisitor methodVisitor = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "write",
+                    "(JI[L" + VERTEX + ";I)J", null, null);
+            methodVisitor.visitCode();
+
+            Label labelInit = new Label();
+            methodVisitor.visitLabel(labelInit);
+
+            // Load each vertex of the quad from the array once
+            for (int i = 0; i < VERTICES_PER_QUAD; i++) {
+                methodVisitor.visitVarInsn(Opcodes.ALOAD, localVertices);
+                methodVisitor.visitLdcInsn(i);
+                methodVisitor.visitInsn(Opcodes.AALOAD);
+                methodVisitor.visitVarInsn(Opcodes.ASTORE, localVertex0 + i);
+            }
+
+            // The material and section bits are the same for every vertex of the quad
+            methodVisitor.visitVarInsn(Opcodes.ILOAD, localMaterialBits);
+            methodVisitor.visitVarInsn(Opcodes.ILOAD, localSectionIndex);
+            methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, VERTEX_FORMAT, "packData", "(II)I", false);
+            methodVisitor.visitVarInsn(Opcodes.ISTORE, localData);
+
+            // Calculate the center point of the texture region which is mapped to the quad
+            visitTextureCentroid(methodVisitor, localVertex0, "u", localTexCentroidU);
+            visitTextureCentroid(methodVisitor, localVertex0, "v", localTexCentroidV);
+
+            for (int i = 0; i < VERTICES_PER_QUAD; i++) {
+                final int localVertex = localVertex0 + i;
+                final long offset = (long) i * CompactChunkVertex.STRIDE;
+
+                // Quantize the position once, as it's used by both position attributes
+                visitQuantizePosition(methodVisitor, localVertex, "x", localX);
+                visitQuantizePosition(methodVisitor, localVertex, "y", localY);
+                visitQuantizePosition(methodVisitor, localVertex, "z", localZ);
+
+                // Position (high bits)
+                visitPointer(methodVisitor, localPointer, offset + 0L);
+                methodVisitor.visitVarInsn(Opcodes.ILOAD, localX);
+                methodVisitor.visitVarInsn(Opcodes.ILOAD, localY);
+                methodVisitor.visitVarInsn(Opcodes.ILOAD, localZ);
+                methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, VERTEX_FORMAT, "packPositionHi", "(III)I", false);
+                visitPutInt(methodVisitor);
+
+                // Position (low bits)
+                visitPointer(methodVisitor, localPointer, offset + 4L);
+                methodVisitor.visitVarInsn(Opcodes.ILOAD, localX);
+                methodVisitor.visitVarInsn(Opcodes.ILOAD, localY);
+                methodVisitor.visitVarInsn(Opcodes.ILOAD, localZ);
+                methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, VERTEX_FORMAT, "packPositionLo", "(III)I", false);
+                visitPutInt(methodVisitor);
+
+                // Color, with the ambient occlusion applied
+                visitPointer(methodVisitor, localPointer, offset + 8L);
+                visitGetField(methodVisitor, localVertex, "color", "I");
+                visitGetField(methodVisitor, localVertex, "ao", "F");
+                methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(ColorARGB.class), "mulRGB", "(IF)I", false);
+                visitPutInt(methodVisitor);
+
+                // Texture coordinates
+                visitPointer(methodVisitor, localPointer, offset + 12L);
+                methodVisitor.visitVarInsn(Opcodes.FLOAD, localTexCentroidU);
+                visitGetField(methodVisitor, localVertex, "u", "F");
+                methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, VERTEX_FORMAT, "encodeTexture", "(FF)I", false);
+                methodVisitor.visitVarInsn(Opcodes.FLOAD, localTexCentroidV);
+                visitGetField(methodVisitor, localVertex, "v", "F");
+                methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, VERTEX_FORMAT, "encodeTexture", "(FF)I", false);
+                methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, VERTEX_FORMAT, "packTexture", "(II)I", false);
+                visitPutInt(methodVisitor);
+
+                // Light, material and section
+                visitPointer(methodVisitor, localPointer, offset + 16L);
+                visitGetField(methodVisitor, localVertex, "light", "I");
+                methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, VERTEX_FORMAT, "encodeLight", "(I)I", false);
+                methodVisitor.visitVarInsn(Opcodes.ILOAD, localData);
+                methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, VERTEX_FORMAT, "packLightAndData", "(II)I", false);
+                visitPutInt(methodVisitor);
+            }
+
+            // Return the pointer after the last vertex
+            visitPointer(methodVisitor, localPointer, (long) VERTICES_PER_QUAD * CompactChunkVertex.STRIDE);
+            methodVisitor.visitInsn(Opcodes.LRETURN);
+
+            // Describe the local variable table
+            Label labelExit = new Label();
+            methodVisitor.visitLabel(labelExit);
+            methodVisitor.visitLocalVariable("this", "L" + CLASS_NAME + ";", null, labelInit, labelExit, localThis);
+            methodVisitor.visitLocalVariable("ptr", "J", null, labelInit, labelExit, localPointer);
+            methodVisitor.visitLocalVariable("materialBits", "I", null, labelInit, labelExit, localMaterialBits);
+            methodVisitor.visitLocalVariable("vertices", "[L" + VERTEX + ";", null, labelInit, labelExit, localVertices);
+            methodVisitor.visitLocalVariable("sectionIndex", "I", null, labelInit, labelExit, localSectionIndex);
+            methodVisitor.visitMaxs(5, localCount);
+            methodVisitor.visitEnd();
+        }
+
+        classWriter.visitEnd();
+
+        return classWriter.toByteArray();
+    }
+
+    private static void visitTextureCentroid(MethodVisitor methodVisitor, int localVertex0, String field, int localResult) {
+        visitGetField(methodVisitor, localVertex0, field, "F");
+
+        for (int i = 1; i < VERTICES_PER_QUAD; i++) {
+            visitGetField(methodVisitor, localVertex0 + i, field, "F");
+            methodVisitor.visitInsn(Opcodes.FADD);
+        }
+
+        methodVisitor.visitLdcInsn(1.0f / VERTICES_PER_QUAD);
+        methodVisitor.visitInsn(Opcodes.FMUL);
+        methodVisitor.visitVarInsn(Opcodes.FSTORE, localResult);
+    }
+
+    private static void visitQuantizePosition(MethodVisitor methodVisitor, int localVertex, String field, int localResult) {
+        visitGetField(methodVisitor, localVertex, field, "F");
+        methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, VERTEX_FORMAT, "quantizePosition", "(F)I", false);
+        methodVisitor.visitVarInsn(Opcodes.ISTORE, localResult);
+    }
+
+    private static void visitGetField(MethodVisitor methodVisitor, int localVertex, String field, String descriptor) {
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, localVertex);
+        methodVisitor.visitFieldInsn(Opcodes.GETFIELD, VERTEX, field, descriptor);
+    }
+
+    private static void visitPointer(MethodVisitor methodVisitor, int localPointer, long offset) {
+        methodVisitor.visitVarInsn(Opcodes.LLOAD, localPointer);
+        methodVisitor.visitLdcInsn(offset);
+        methodVisitor.visitInsn(Opcodes.LADD);
+    }
+
+    private static void visitPutInt(MethodVisitor methodVisitor) {
+        methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(MemoryUtil.class), "memPutInt", "(JI)V", false);
+    }
+}
@@ -266,6 +266,29 @@ public abstract class MutableQuadViewImpl extends QuadViewImpl implements QuadEm
         return this;
     }
 
+    /**
+     * Copies the encoded data of this quad into the given array, so that it can later be restored with
+     * {@link #fromEncoded(int[], int, Direction, TextureAtlasSprite)}. The geometry must be valid.
+     */
+    public final void toEncoded(int[] target, int targetIndex) {
+        System.arraycopy(data, baseIndex, target, targetIndex, EncodingFormat.TOTAL_STRIDE);
+    }
+
+    /**
+     * Restores a quad which was copied with {@link #toEncoded(int[], int)}, which is cheaper than converting the
+     * quad it was created from again.
+     */
+    public final MutableQuadViewImpl fromEncoded(int[] quadData, int startIndex, @Nullable Direction nominalFace, @Nullable TextureAtlasSprite sprite) {
+        System.arraycopy(quadData, startIndex, data, baseIndex, EncodingFormat.TOTAL_STRIDE);
+        this.nominalFace = nominalFace;
+
+        NormI8.unpack(data[baseIndex + HEADER_FACE_NORMAL], faceNormal);
+        isGeometryInvalid = false;
+
+        cachedSprite(sprite);
+        return this;
+    }
+
     /**
      * Does the same work as {@link #fromVanilla(int[], int)}, but does not mark the geometry as invalid
      * and does not clear the cached sprite.
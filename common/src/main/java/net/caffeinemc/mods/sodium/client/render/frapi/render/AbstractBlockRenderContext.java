@@ -23,6 +23,7 @@ import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.LightTexture;
 import net.minecraft.client.renderer.RenderType;
 import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
 import net.minecraft.client.resources.model.BakedModel;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
@@ -132,6 +133,13 @@ public abstract class AbstractBlockRenderContext extends AbstractRenderContext {
     // Default AO mode for model (can be overridden by material property)
     protected LightMode defaultLightMode;
 
+    /**
+     * The cache of the quads of models which don't depend on the block's position, or null if the quads shouldn't be
+     * cached. This must only be set by contexts which are discarded when resources are reloaded.
+     */
+    @Nullable
+    protected BakedQuadCache quadCache;
+
     @Override
     public QuadEmitter getEmitter() {
         this.editorQuad.clear();
@@ -208,6 +216,10 @@ public abstract class AbstractBlockRenderContext extends AbstractRenderContext {
 
     /* Handling of vanilla models - this is the hot path for non-modded models */
     public void bufferDefaultModel(BakedModel model, @Nullable BlockState state, Predicate<Direction> cullTest) {
+        if (this.quadCache != null && state != null && this.bufferCachedModel(model, state, cullTest)) {
+            return;
+        }
+
         MutableQuadViewImpl editorQuad = this.editorQuad;
 
 
@@ -240,6 +252,84 @@ public abstract class AbstractBlockRenderContext extends AbstractRenderContext {
         editorQuad.clear();
     }
 
+    /**
+     * Buffers the quads of the model from the quad cache, if they can be cached.
+     *
+     * @return True if the model's quads were buffered, or false if they can't be cached
+     */
+    private boolean bufferCachedModel(BakedModel model, BlockState state, Predicate<Direction> cullTest) {
+        BakedModel cacheableModel = BakedQuadCache.getCacheableModel(model, this.randomSupplier.get());
+
+        if (cacheableModel == null) {
+            return false;
+        }
+
+        AmbientOcclusionMode ao = PlatformBlockAccess.getInstance().usesAmbientOcclusion(model, state, modelData, type, slice, pos);
+        RenderMaterial material = (type == RenderType.tripwire() || type == RenderType.translucent()) ? TRANSLUCENT_MATERIAL : STANDARD_MATERIALS[ao.ordinal()];
+
+        BakedQuadCache quadCache = this.quadCache;
+        BakedQuadCache.Entry entry = quadCache.get(cacheableModel, type, material);
+
+        if (entry == null) {
+            entry = this.createCacheEntry(cacheableModel, state, material);
+            quadCache.put(cacheableModel, entry);
+        }
+
+        MutableQuadViewImpl editorQuad = this.editorQuad;
+
+        for (int i = 0; i <= ModelHelper.NULL_FACE_ID; i++) {
+            // Faces without any quads don't need to be checked for culling
+            if ((entry.faceMask & (1 << i)) == 0 || cullTest.test(ModelHelper.faceFromIndex(i))) {
+                continue;
+            }
+
+            for (int j = entry.faceOffsets[i]; j < entry.faceOffsets[i + 1]; j++) {
+                editorQuad.fromEncoded(entry.data, j * EncodingFormat.TOTAL_STRIDE, entry.nominalFaces[j], entry.sprites[j]);
+                editorQuad.transformAndEmit();
+            }
+        }
+
+        editorQuad.clear();
+
+        return true;
+    }
+
+    private BakedQuadCache.Entry createCacheEntry(BakedModel model, BlockState state, RenderMaterial material) {
+        @SuppressWarnings("unchecked")
+        List<BakedQuad>[] quadsByFace = new List[ModelHelper.NULL_FACE_ID + 1];
+        int[] faceOffsets = new int[ModelHelper.NULL_FACE_ID + 2];
+
+        for (int i = 0; i <= ModelHelper.NULL_FACE_ID; i++) {
+            quadsByFace[i] = PlatformModelAccess.getInstance().getQuads(level, pos, model, state, ModelHelper.faceFromIndex(i), this.randomSupplier.get(), type, modelData);
+            faceOffsets[i + 1] = faceOffsets[i] + quadsByFace[i].size();
+        }
+
+        int quadCount = faceOffsets[ModelHelper.NULL_FACE_ID + 1];
+
+        int[] data = new int[quadCount * EncodingFormat.TOTAL_STRIDE];
+        Direction[] nominalFaces = new Direction[quadCount];
+        TextureAtlasSprite[] sprites = new TextureAtlasSprite[quadCount];
+
+        MutableQuadViewImpl editorQuad = this.editorQuad;
+
+        for (int i = 0; i <= ModelHelper.NULL_FACE_ID; i++) {
+            List<BakedQuad> quads = quadsByFace[i];
+
+            for (int j = 0; j < quads.size(); j++) {
+                BakedQuad quad = quads.get(j);
+                int index = faceOffsets[i] + j;
+
+                editorQuad.fromVanilla(quad, material, ModelHelper.faceFromIndex(i));
+                editorQuad.toEncoded(data, index * EncodingFormat.TOTAL_STRIDE);
+
+                nominalFaces[index] = editorQuad.nominalFace();
+                sprites[index] = editorQuad.cachedSprite();
+            }
+        }
+
+        return new BakedQuadCache.Entry(type, material, data, nominalFaces, sprites, faceOffsets);
+    }
+
     public SodiumModelData getModelData() {
         return modelData;
     }
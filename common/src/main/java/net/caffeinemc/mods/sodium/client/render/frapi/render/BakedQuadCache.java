@@ -0,0 +1,116 @@
+package net.caffeinemc.mods.sodium.client.render.frapi.render;
+
+import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
+import net.caffeinemc.mods.sodium.client.model.WeightedBakedModelExtension;
+import net.fabricmc.fabric.api.renderer.v1.material.RenderMaterial;
+import net.fabricmc.fabric.api.renderer.v1.model.ModelHelper;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.client.resources.model.BakedModel;
+import net.minecraft.client.resources.model.SimpleBakedModel;
+import net.minecraft.client.resources.model.WeightedBakedModel;
+import net.minecraft.core.Direction;
+import net.minecraft.util.RandomSource;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Caches the quads of block models whose quads are the same wherever the block is placed, in the encoding of the render
+ * context's quads. This avoids querying the model for each face of every block and converting each of its quads again,
+ * and allows skipping the culling checks of faces which don't have any quads.
+ * <p>
+ * Only vanilla {@link SimpleBakedModel}s are cached, either directly or as the variant which a vanilla
+ * {@link WeightedBakedModel} chose for the block, since their quads don't depend on the block's state, position or
+ * model data. The cache is not thread-safe and must be discarded when resources are reloaded, so it is owned by the
+ * render contexts of the chunk builder, which are recreated when that happens.
+ */
+public class BakedQuadCache {
+    // The cache is cleared when it holds more entries than this, which bounds its memory usage
+    private static final int MAX_ENTRIES = 8192;
+
+    private final Reference2ReferenceOpenHashMap<BakedModel, Entry> entries = new Reference2ReferenceOpenHashMap<>();
+    private int entryCount;
+
+    /**
+     * Returns the model whose quads are rendered for a block, if they can be cached. The random source must be in the
+     * same state as when the model's quads are queried.
+     *
+     * @return The model whose quads can be cached, or null if the model's quads can't be cached
+     */
+    public static @Nullable BakedModel getCacheableModel(BakedModel model, RandomSource random) {
+        if (model.getClass() == WeightedBakedModel.class) {
+            model = ((WeightedBakedModelExtension) model).sodium$getVariant(random);
+        }
+
+        // Mods may extend the vanilla models to change their quads, so only the exact classes are cached
+        if (model != null && model.getClass() == SimpleBakedModel.class) {
+            return model;
+        }
+
+        return null;
+    }
+
+    public @Nullable Entry get(BakedModel model, RenderType type, RenderMaterial material) {
+        Entry entry = this.entries.get(model);
+
+        while (entry != null) {
+            if (entry.type == type && entry.material == material) {
+                return entry;
+            }
+
+            entry = entry.next;
+        }
+
+        return null;
+    }
+
+    public void put(BakedModel model, Entry entry) {
+        if (this.entryCount >= MAX_ENTRIES) {
+            this.entries.clear();
+            this.entryCount = 0;
+        }
+
+        entry.next = this.entries.put(model, entry);
+        this.entryCount++;
+    }
+
+    /**
+     * The quads of a model for one render type and material. The quads of each face are stored consecutively, in the
+     * order of the face indices used by {@link ModelHelper}.
+     */
+    public static class Entry {
+        private final RenderType type;
+        private final RenderMaterial material;
+
+        final int[] data;
+        final Direction[] nominalFaces;
+        final TextureAtlasSprite[] sprites;
+
+        // The index of the first quad of each face, followed by the number of quads
+        final int[] faceOffsets;
+
+        // The faces which have any quads
+        final int faceMask;
+
+        // The next entry of the same model
+        private Entry next;
+
+        Entry(RenderType type, RenderMaterial material, int[] data, Direction[] nominalFaces, TextureAtlasSprite[] sprites, int[] faceOffsets) {
+            this.type = type;
+            this.material = material;
+            this.data = data;
+            this.nominalFaces = nominalFaces;
+            this.sprites = sprites;
+            this.faceOffsets = faceOffsets;
+
+            int faceMask = 0;
+
+            for (int i = 0; i <= ModelHelper.NULL_FACE_ID; i++) {
+                if (faceOffsets[i + 1] > faceOffsets[i]) {
+                    faceMask |= 1 << i;
+                }
+            }
+
+            this.faceMask = faceMask;
+        }
+    }
+}
@@ -7,36 +7,121 @@ import net.caffeinemc.mods.sodium.api.vertex.format.common.EntityVertex;
 import net.caffeinemc.mods.sodium.client.util.Int2;
 import net.minecraft.core.Direction;
 import org.joml.Matrix3f;
+import org.lwjgl.BufferUtils;
 import org.lwjgl.system.MemoryStack;
 import org.lwjgl.system.MemoryUtil;
 
+import java.nio.ByteBuffer;
+
 import static net.caffeinemc.mods.sodium.client.render.immediate.model.ModelCuboid.*;
 
+/**
+ * Renders the cuboids of entity models. The scratch state is kept per thread, so that models can be rendered from any
+ * thread. While a batch is open (see {@link #beginBatch()}), the vertices of all cuboids are collected into one buffer
+ * and only pushed to the vertex writer once the batch is closed, which saves a writer call for every cuboid of the
+ * model.
+ */
 public class EntityRenderer {
-    private static final Matrix3f prevNormalMatrix = new Matrix3f();
+    private static final ThreadLocal<EntityRenderer> INSTANCE = ThreadLocal.withInitial(EntityRenderer::new);
 
     private static final int VERTEX_BUFFER_BYTES = NUM_CUBE_FACES * NUM_FACE_VERTICES * EntityVertex.STRIDE;
 
-    private static final long[] CUBE_VERTEX_XY = new long[NUM_CUBE_VERTICES]; // (pos.x, pos.y)
-    private static final long[] CUBE_VERTEX_ZW = new long[NUM_CUBE_VERTICES]; // (pos.z, color)
+    // The number of cuboids which fit into the batch buffer, which is enough for all but the most complex models
+    private static final int BATCH_MAX_CUBOIDS = 256;
+    private static final int BATCH_BUFFER_BYTES = BATCH_MAX_CUBOIDS * VERTEX_BUFFER_BYTES;
+
+    // Starts out as a matrix which is never used for rendering, so that the normals are computed for the first cuboid
+    private final Matrix3f prevNormalMatrix = new Matrix3f().zero();
+
+    private final long[] cubeVertexXY = new long[NUM_CUBE_VERTICES]; // (pos.x, pos.y)
+    private final long[] cubeVertexZW = new long[NUM_CUBE_VERTICES]; // (pos.z, color)
+
+    private final int[] cubeFaceNormal = new int[NUM_CUBE_FACES];
 
-    private static final int[] CUBE_FACE_NORMAL = new int[NUM_CUBE_FACES];
+    // The buffer is allocated on first use. It's owned by the garbage collector rather than allocated natively, so that
+    // it's freed along with the renderer once the thread which used it has exited.
+    private ByteBuffer batchStorage;
+    private long batchBuffer = MemoryUtil.NULL;
+    private int batchVertexCount;
+    private VertexBufferWriter batchWriter;
+
+    // The number of open batches, as a batch is opened for every part of a model
+    private int batchDepth;
+
+    /**
+     * Opens a batch on the current thread. Cuboids which are rendered until the batch is closed again are pushed to
+     * their writer together. Batches can be nested, in which case the vertices are pushed when the outermost batch is
+     * closed.
+     */
+    public static void beginBatch() {
+        INSTANCE.get().batchDepth++;
+    }
+
+    /**
+     * Closes a batch on the current thread, and pushes the collected vertices if it was the outermost batch.
+     */
+    public static void endBatch() {
+        var renderer = INSTANCE.get();
+
+        if (renderer.batchDepth > 0 && --renderer.batchDepth == 0) {
+            renderer.flush();
+        }
+    }
+
+    /**
+     * Closes all batches on the current thread and drops the collected vertices without pushing them. This must be
+     * called when rendering a model fails, since the batches which were opened for it will never be closed.
+     */
+    public static void abortBatch() {
+        var renderer = INSTANCE.get();
+        renderer.batchDepth = 0;
+        renderer.batchVertexCount = 0;
+        renderer.batchWriter = null;
+    }
 
     public static void renderCuboid(PoseStack.Pose matrices, VertexBufferWriter writer, ModelCuboid cuboid, int light, int overlay, int color) {
-        prepareVertices(matrices, cuboid, color);
-        prepareNormalsIfChanged(matrices);
+        INSTANCE.get().render(matrices, writer, cuboid, light, overlay, color);
+    }
+
+    private void render(PoseStack.Pose matrices, VertexBufferWriter writer, ModelCuboid cuboid, int light, int overlay, int color) {
+        this.prepareVertices(matrices, cuboid, color);
+        this.prepareNormalsIfChanged(matrices);
+
+        // The batched vertices need to be pushed before switching to another writer, or when the buffer is full
+        if (this.batchWriter != writer || (this.batchVertexCount * EntityVertex.STRIDE) + VERTEX_BUFFER_BYTES > BATCH_BUFFER_BYTES) {
+            this.flush();
+        }
+
+        if (this.batchBuffer == MemoryUtil.NULL) {
+            this.allocateBatchBuffer();
+        }
 
-        try (MemoryStack stack = MemoryStack.stackPush()) {
-            final var vertexBuffer = stack.nmalloc(64, VERTEX_BUFFER_BYTES);
-            final var vertexCount = emitQuads(vertexBuffer, cuboid, overlay, light);
+        this.batchWriter = writer;
+        this.batchVertexCount += this.emitQuads(this.batchBuffer + ((long) this.batchVertexCount * EntityVertex.STRIDE), cuboid, overlay, light);
 
-            if (vertexCount > 0) {
-                writer.push(stack, vertexBuffer, vertexCount, EntityVertex.FORMAT);
+        if (this.batchDepth == 0) {
+            this.flush();
+        }
+    }
+
+    private void allocateBatchBuffer() {
+        // over-allocate, so that the start of the buffer can be aligned to a cache line
+        this.batchStorage = BufferUtils.createByteBuffer(BATCH_BUFFER_BYTES + 63);
+        this.batchBuffer = (MemoryUtil.memAddress(this.batchStorage) + 63) & ~63L;
+    }
+
+    private void flush() {
+        if (this.batchVertexCount > 0) {
+            try (MemoryStack stack = MemoryStack.stackPush()) {
+                this.batchWriter.push(stack, this.batchBuffer, this.batchVertexCount, EntityVertex.FORMAT);
             }
         }
+
+        this.batchVertexCount = 0;
+        this.batchWriter = null;
     }
 
-    private static int emitQuads(final long buffer, ModelCuboid cuboid, int overlay, int light) {
+    private int emitQuads(final long buffer, ModelCuboid cuboid, int overlay, int light) {
         // Pack the Overlay and Light coordinates into a 64-bit integer as they are next to each other
         // in the vertex format. This eliminates another 32-bit memory write in the hot path.
         final long packedOverlayLight = Int2.pack(overlay, light);
@@ -55,11 +140,11 @@ public class EntityRenderer {
             }
             
             final int elementOffset = faceIndex * NUM_FACE_VERTICES;
-            final int packedNormal = CUBE_FACE_NORMAL[normals[faceIndex]];
-            ptr = writeVertex(ptr, positions[elementOffset + 0], textures[elementOffset + 0], packedOverlayLight, packedNormal);
-            ptr = writeVertex(ptr, positions[elementOffset + 1], textures[elementOffset + 1], packedOverlayLight, packedNormal);
-            ptr = writeVertex(ptr, positions[elementOffset + 2], textures[elementOffset + 2], packedOverlayLight, packedNormal);
-            ptr = writeVertex(ptr, positions[elementOffset + 3], textures[elementOffset + 3], packedOverlayLight, packedNormal);
+            final int packedNormal = this.cubeFaceNormal[normals[faceIndex]];
+            ptr = this.writeVertex(ptr, positions[elementOffset + 0], textures[elementOffset + 0], packedOverlayLight, packedNormal);
+            ptr = this.writeVertex(ptr, positions[elementOffset + 1], textures[elementOffset + 1], packedOverlayLight, packedNormal);
+            ptr = this.writeVertex(ptr, positions[elementOffset + 2], textures[elementOffset + 2], packedOverlayLight, packedNormal);
+            ptr = this.writeVertex(ptr, positions[elementOffset + 3], textures[elementOffset + 3], packedOverlayLight, packedNormal);
 
             vertexCount += 4;
         }
@@ -67,9 +152,9 @@ public class EntityRenderer {
         return vertexCount;
     }
 
-    private static long writeVertex(long ptr, int vertexIndex, long packedUv, long packedOverlayLight, int packedNormal) {
-        MemoryUtil.memPutLong(ptr + 0L, CUBE_VERTEX_XY[vertexIndex]);
-        MemoryUtil.memPutLong(ptr + 8L, CUBE_VERTEX_ZW[vertexIndex]); // overlaps with color attribute
+    private long writeVertex(long ptr, int vertexIndex, long packedUv, long packedOverlayLight, int packedNormal) {
+        MemoryUtil.memPutLong(ptr + 0L, this.cubeVertexXY[vertexIndex]);
+        MemoryUtil.memPutLong(ptr + 8L, this.cubeVertexZW[vertexIndex]); // overlaps with color attribute
         MemoryUtil.memPutLong(ptr + 16L, packedUv);
         MemoryUtil.memPutLong(ptr + 24L, packedOverlayLight);
         MemoryUtil.memPutInt(ptr + 32L, packedNormal);
@@ -77,7 +162,7 @@ public class EntityRenderer {
         return ptr + EntityVertex.STRIDE;
     }
 
-    private static void prepareVertices(PoseStack.Pose matrices, ModelCuboid cuboid, int color) {
+    private void prepareVertices(PoseStack.Pose matrices, ModelCuboid cuboid, int color) {
         var pose = matrices.pose();
 
         float vxx = (pose.m00() * cuboid.sizeX), vxy = (pose.m01() * cuboid.sizeX), vxz = (pose.m02() * cuboid.sizeX);
@@ -88,7 +173,7 @@ public class EntityRenderer {
         float c000x = MatrixHelper.transformPositionX(pose, cuboid.originX, cuboid.originY, cuboid.originZ);
         float c000y = MatrixHelper.transformPositionY(pose, cuboid.originX, cuboid.originY, cuboid.originZ);
         float c000z = MatrixHelper.transformPositionZ(pose, cuboid.originX, cuboid.originY, cuboid.originZ);
-        setVertex(VERTEX_X0_Y0_Z0, c000x, c000y, c000z, color);
+        this.setVertex(VERTEX_X0_Y0_Z0, c000x, c000y, c000z, color);
 
         // Add the pre-multiplied vectors to find the other 7 vertices
         // This avoids needing to multiply each vertex position against the pose matrix, which eliminates many
@@ -98,58 +183,58 @@ public class EntityRenderer {
         float c100x = c000x + vxx;
         float c100y = c000y + vxy;
         float c100z = c000z + vxz;
-        setVertex(VERTEX_X1_Y0_Z0, c100x, c100y, c100z, color);
+        this.setVertex(VERTEX_X1_Y0_Z0, c100x, c100y, c100z, color);
 
         float c110x = c100x + vyx;
         float c110y = c100y + vyy;
         float c110z = c100z + vyz;
-        setVertex(VERTEX_X1_Y1_Z0, c110x, c110y, c110z, color);
+        this.setVertex(VERTEX_X1_Y1_Z0, c110x, c110y, c110z, color);
 
         float c010x = c000x + vyx;
         float c010y = c000y + vyy;
         float c010z = c000z + vyz;
-        setVertex(VERTEX_X0_Y1_Z0, c010x, c010y, c010z, color);
+        this.setVertex(VERTEX_X0_Y1_Z0, c010x, c010y, c010z, color);
 
         float c001x = c000x + vzx;
         float c001y = c000y + vzy;
         float c001z = c000z + vzz;
-        setVertex(VERTEX_X0_Y0_Z1, c001x, c001y, c001z, color);
+        this.setVertex(VERTEX_X0_Y0_Z1, c001x, c001y, c001z, color);
 
         float c101x = c100x + vzx;
         float c101y = c100y + vzy;
         float c101z = c100z + vzz;
-        setVertex(VERTEX_X1_Y0_Z1, c101x, c101y, c101z, color);
+        this.setVertex(VERTEX_X1_Y0_Z1, c101x, c101y, c101z, color);
 
         float c111x = c110x + vzx;
         float c111y = c110y + vzy;
         float c111z = c110z + vzz;
-        setVertex(VERTEX_X1_Y1_Z1, c111x, c111y, c111z, color);
+        this.setVertex(VERTEX_X1_Y1_Z1, c111x, c111y, c111z, color);
 
         float c011x = c010x + vzx;
         float c011y = c010y + vzy;
         float c011z = c010z + vzz;
-        setVertex(VERTEX_X0_Y1_Z1, c011x, c011y, c011z, color);
+        this.setVertex(VERTEX_X0_Y1_Z1, c011x, c011y, c011z, color);
     }
 
-    private static void setVertex(int vertexIndex, float x, float y, float z, int color) {
+    private void setVertex(int vertexIndex, float x, float y, float z, int color) {
         // Since we have a spare element, pack the color into it. This makes the code a little obtuse,
         // but it avoids another 32-bit memory write in the hot path, which helps a lot.
-        CUBE_VERTEX_XY[vertexIndex] = Int2.pack(Float.floatToRawIntBits(x), Float.floatToRawIntBits(y));
-        CUBE_VERTEX_ZW[vertexIndex] = Int2.pack(Float.floatToRawIntBits(z), color);
+        this.cubeVertexXY[vertexIndex] = Int2.pack(Float.floatToRawIntBits(x), Float.floatToRawIntBits(y));
+        this.cubeVertexZW[vertexIndex] = Int2.pack(Float.floatToRawIntBits(z), color);
     }
 
-    private static void prepareNormalsIfChanged(PoseStack.Pose matrices) {
-        if (matrices.normal().equals(prevNormalMatrix)) {
+    private void prepareNormalsIfChanged(PoseStack.Pose matrices) {
+        if (matrices.normal().equals(this.prevNormalMatrix)) {
             return;
         }
 
-        CUBE_FACE_NORMAL[FACE_NEG_Y] = MatrixHelper.transformNormal(matrices.normal(), matrices.trustedNormals, Direction.DOWN);
-        CUBE_FACE_NORMAL[FACE_POS_Y] = MatrixHelper.transformNormal(matrices.normal(), matrices.trustedNormals, Direction.UP);
-        CUBE_FACE_NORMAL[FACE_NEG_Z] = MatrixHelper.transformNormal(matrices.normal(), matrices.trustedNormals, Direction.NORTH);
-        CUBE_FACE_NORMAL[FACE_POS_Z] = MatrixHelper.transformNormal(matrices.normal(), matrices.trustedNormals, Direction.SOUTH);
-        CUBE_FACE_NORMAL[FACE_POS_X] = MatrixHelper.transformNormal(matrices.normal(), matrices.trustedNormals, Direction.WEST);
-        CUBE_FACE_NORMAL[FACE_NEG_X] = MatrixHelper.transformNormal(matrices.normal(), matrices.trustedNormals, Direction.EAST);
+        this.cubeFaceNormal[FACE_NEG_Y] = MatrixHelper.transformNormal(matrices.normal(), matrices.trustedNormals, Direction.DOWN);
+        this.cubeFaceNormal[FACE_POS_Y] = MatrixHelper.transformNormal(matrices.normal(), matrices.trustedNormals, Direction.UP);
+        this.cubeFaceNormal[FACE_NEG_Z] = MatrixHelper.transformNormal(matrices.normal(), matrices.trustedNormals, Direction.NORTH);
+        this.cubeFaceNormal[FACE_POS_Z] = MatrixHelper.transformNormal(matrices.normal(), matrices.trustedNormals, Direction.SOUTH);
+        this.cubeFaceNormal[FACE_POS_X] = MatrixHelper.transformNormal(matrices.normal(), matrices.trustedNormals, Direction.WEST);
+        this.cubeFaceNormal[FACE_NEG_X] = MatrixHelper.transformNormal(matrices.normal(), matrices.trustedNormals, Direction.EAST);
 
-        prevNormalMatrix.set(matrices.normal());
+        this.prevNormalMatrix.set(matrices.normal());
     }
 }
@@ -5,6 +5,7 @@ import com.mojang.blaze3d.vertex.VertexConsumer;
 import net.minecraft.client.renderer.block.model.BakedQuad;
 
 import java.nio.file.Path;
+import java.util.List;
 
 public interface PlatformRuntimeInformation {
     PlatformRuntimeInformation INSTANCE = Services.load(PlatformRuntimeInformation.class);
@@ -43,6 +44,11 @@ public interface PlatformRuntimeInformation {
      */
     boolean isModInLoadingList(String modId);
 
+    /**
+     * Returns the ID and version of every loaded mod, in the form {@code id@version}.
+     */
+    List<String> getLoadedModVersions();
+
     /**
      * @return Whether {@link VertexConsumer#putBulkData(PoseStack.Pose, BakedQuad, float[], float, float, float, float, int[], int, boolean)} should multiply the vertex alpha component.
      */
@@ -90,10 +90,16 @@ public final class DoubleBufferedQueue<E> {
             this.writeIndex = 0;
         }
 
+        @Override
         public int size() {
             return this.writeIndex - this.readIndex;
         }
 
+        @Override
+        public E get(int index) {
+            return this.elements[this.readIndex + index];
+        }
+
         private void grow(int minimumSize) {
             this.resize(getNextSize(minimumSize, this.elements.length));
         }
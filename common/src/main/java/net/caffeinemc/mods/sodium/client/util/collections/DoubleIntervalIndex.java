@@ -0,0 +1,208 @@
+package net.caffeinemc.mods.sodium.client.util.collections;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An index of values which each cover a closed interval of doubles, which finds the values whose intervals overlap a
+ * query interval. The values are stored with primitive interval bounds, so neither adding values nor querying them
+ * requires boxing or allocating interval objects.
+ * <p>
+ * The index is optimized for the case where queries are much more frequent than changes. Changes only update a list
+ * of entries, and the next query then rebuilds an augmented search tree from them. The tree is stored implicitly in
+ * arrays sorted by the start of each interval, where the node of each range of the arrays is at its midpoint, and
+ * stores the largest end of any interval in that range. A query runs in {@code O(log n + k)} time, where k is the
+ * number of overlapping intervals.
+ * <p>
+ * Every value may only be stored once, and values are compared by identity.
+ *
+ * @param <T> The type of the values
+ */
+public class DoubleIntervalIndex<T> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    // The entries in the order they were added, which is changed by removals
+    private final Reference2IntOpenHashMap<T> entryByValue = new Reference2IntOpenHashMap<>();
+    private Object[] entryValues = new Object[INITIAL_CAPACITY];
+    private double[] entryStarts = new double[INITIAL_CAPACITY];
+    private double[] entryEnds = new double[INITIAL_CAPACITY];
+    private int size;
+
+    // The implicit search tree built from the entries, sorted by the start of each interval
+    private Object[] treeValues = new Object[INITIAL_CAPACITY];
+    private double[] treeStarts = new double[INITIAL_CAPACITY];
+    private double[] treeEnds = new double[INITIAL_CAPACITY];
+    private double[] treeMaxEnds = new double[INITIAL_CAPACITY];
+    private boolean treeDirty = false;
+
+    public DoubleIntervalIndex() {
+        this.entryByValue.defaultReturnValue(-1);
+    }
+
+    /**
+     * Adds a value to the index which covers the closed interval from {@code start} to {@code end}.
+     *
+     * @throws IllegalStateException If the value is already in the index
+     */
+    public void add(T value, double start, double end) {
+        if (this.entryByValue.containsKey(value)) {
+            throw new IllegalStateException("Value is already in the index");
+        }
+
+        if (this.size == this.entryValues.length) {
+            int capacity = this.size * 2;
+
+            this.entryValues = Arrays.copyOf(this.entryValues, capacity);
+            this.entryStarts = Arrays.copyOf(this.entryStarts, capacity);
+            this.entryEnds = Arrays.copyOf(this.entryEnds, capacity);
+        }
+
+        int index = this.size++;
+
+        this.entryValues[index] = value;
+        this.entryStarts[index] = start;
+        this.entryEnds[index] = end;
+        this.entryByValue.put(value, index);
+
+        this.treeDirty = true;
+    }
+
+    /**
+     * Removes a value from the index.
+     *
+     * @return True if the value was in the index, otherwise false
+     */
+    @SuppressWarnings("unchecked")
+    public boolean remove(T value) {
+        int index = this.entryByValue.removeInt(value);
+
+        if (index == -1) {
+            return false;
+        }
+
+        // Move the last entry into the place of the removed one
+        int last = --this.size;
+
+        if (index != last) {
+            this.entryValues[index] = this.entryValues[last];
+            this.entryStarts[index] = this.entryStarts[last];
+            this.entryEnds[index] = this.entryEnds[last];
+
+            this.entryByValue.put((T) this.entryValues[index], index);
+        }
+
+        this.entryValues[last] = null;
+
+        this.treeDirty = true;
+
+        return true;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Adds every value whose interval overlaps the closed interval from {@code start} to {@code end} to the given
+     * list. The list is not cleared beforehand, so callers can re-use a list across queries to avoid allocating.
+     *
+     * @param results The list to add the overlapping values to
+     */
+    @SuppressWarnings("unchecked")
+    public void query(double start, double end, List<? super T> results) {
+        if (this.treeDirty) {
+            this.rebuildTree();
+        }
+
+        this.queryRange(0, this.size, start, end, (List<Object>) results);
+    }
+
+    private void queryRange(int from, int to, double start, double end, List<Object> results) {
+        while (from < to) {
+            int node = (from + to) >>> 1;
+
+            // No interval in this range ends at or after the start of the query
+            if (this.treeMaxEnds[node] < start) {
+                return;
+            }
+
+            this.queryRange(from, node, start, end, results);
+
+            // All intervals from this node onward start after the end of the query
+            if (this.treeStarts[node] > end) {
+                return;
+            }
+
+            if (this.treeEnds[node] >= start) {
+                results.add(this.treeValues[node]);
+            }
+
+            // Continue with the right half of the range without recursing
+            from = node + 1;
+        }
+    }
+
+    private void rebuildTree() {
+        int size = this.size;
+
+        if (this.treeValues.length < size) {
+            int capacity = this.entryValues.length;
+
+            this.treeValues = new Object[capacity];
+            this.treeStarts = new double[capacity];
+            this.treeEnds = new double[capacity];
+            this.treeMaxEnds = new double[capacity];
+        } else {
+            // Clear references to values which may have been removed
+            Arrays.fill(this.treeValues, size, this.treeValues.length, null);
+        }
+
+        System.arraycopy(this.entryValues, 0, this.treeValues, 0, size);
+        System.arraycopy(this.entryStarts, 0, this.treeStarts, 0, size);
+        System.arraycopy(this.entryEnds, 0, this.treeEnds, 0, size);
+
+        var values = this.treeValues;
+        var starts = this.treeStarts;
+        var ends = this.treeEnds;
+
+        it.unimi.dsi.fastutil.Arrays.quickSort(0, size,
+                (a, b) -> Double.compare(starts[a], starts[b]),
+                (a, b) -> {
+                    Object value = values[a];
+                    values[a] = values[b];
+                    values[b] = value;
+
+                    double s = starts[a];
+                    starts[a] = starts[b];
+                    starts[b] = s;
+
+                    double e = ends[a];
+                    ends[a] = ends[b];
+                    ends[b] = e;
+                });
+
+        this.buildMaxEnds(0, size);
+
+        this.treeDirty = false;
+    }
+
+    private double buildMaxEnds(int from, int to) {
+        if (from >= to) {
+            return Double.NEGATIVE_INFINITY;
+        }
+
+        int node = (from + to) >>> 1;
+
+        double maxEnd = Math.max(this.treeEnds[node],
+                Math.max(this.buildMaxEnds(from, node), this.buildMaxEnds(node + 1, to)));
+        this.treeMaxEnds[node] = maxEnd;
+
+        return maxEnd;
+    }
+}
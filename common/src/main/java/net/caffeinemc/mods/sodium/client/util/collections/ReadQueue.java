@@ -4,4 +4,14 @@ import org.jetbrains.annotations.Nullable;
 
 public interface ReadQueue<E> {
     @Nullable E dequeue();
+
+    /**
+     * Returns the number of elements which have not been dequeued yet.
+     */
+    int size();
+
+    /**
+     * Returns the element at the given position relative to the head of the queue, without dequeuing it.
+     */
+    E get(int index);
 }
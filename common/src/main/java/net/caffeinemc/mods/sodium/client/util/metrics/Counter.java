@@ -0,0 +1,33 @@
+package net.caffeinemc.mods.sodium.client.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A running total which only ever increases, such as the number of bytes uploaded. Counters can be incremented from
+ * any thread.
+ */
+public class Counter implements Metric {
+    private final String name;
+    private final AtomicLong value = new AtomicLong();
+
+    Counter(String name) {
+        this.name = name;
+    }
+
+    public void increment() {
+        this.value.incrementAndGet();
+    }
+
+    public void add(long amount) {
+        this.value.addAndGet(amount);
+    }
+
+    public long get() {
+        return this.value.get();
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+}
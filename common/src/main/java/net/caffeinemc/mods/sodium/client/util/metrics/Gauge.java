@@ -0,0 +1,27 @@
+package net.caffeinemc.mods.sodium.client.util.metrics;
+
+/**
+ * The current value of a quantity which can go up and down, such as the length of a queue. Gauges are set by the
+ * thread which owns the quantity, and can be read from any thread.
+ */
+public class Gauge implements Metric {
+    private final String name;
+    private volatile long value;
+
+    Gauge(String name) {
+        this.name = name;
+    }
+
+    public void set(long value) {
+        this.value = value;
+    }
+
+    public long get() {
+        return this.value;
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+}
@@ -0,0 +1,125 @@
+package net.caffeinemc.mods.sodium.client.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The distribution of a measurement, such as the time taken by a task. Values are counted in buckets whose width
+ * doubles with every power of two, and which are further divided into {@link #SUB_BUCKET_COUNT} linear sub-buckets,
+ * so that percentiles are accurate to within 12.5% of the value without storing any samples. Values can be recorded
+ * from any thread without allocating.
+ * <p>
+ * The statistics are not read atomically, so a snapshot taken while values are being recorded may be slightly
+ * inconsistent, which is acceptable for monitoring.
+ */
+public class Histogram implements Metric {
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    // Enough buckets for every non-negative long value
+    private static final int BUCKET_COUNT = ((Long.SIZE - 1 - SUB_BUCKET_BITS) + 1) * SUB_BUCKET_COUNT;
+
+    private final String name;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    Histogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records a value, where negative values are treated as zero.
+     */
+    public void record(long value) {
+        value = Math.max(0L, value);
+
+        this.buckets.incrementAndGet(getBucketIndex(value));
+        this.count.incrementAndGet();
+        this.sum.addAndGet(value);
+        this.max.accumulateAndGet(value, Math::max);
+    }
+
+    public long getCount() {
+        return this.count.get();
+    }
+
+    public double getMean() {
+        long count = this.count.get();
+        return count > 0 ? (double) this.sum.get() / count : 0.0;
+    }
+
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * @param percentile The percentile in the range [0.0, 1.0]
+     * @return The approximate value below which the given fraction of the recorded values lie, or zero if no values
+     * have been recorded
+     */
+    public long getPercentile(double percentile) {
+        long count = this.count.get();
+
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1L, (long) Math.ceil(percentile * count));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += this.buckets.get(i);
+
+            if (seen >= rank) {
+                // The midpoint of the bucket is the best estimate, but it can't be larger than the largest value
+                return Math.min(getBucketMidpoint(i), this.max.get());
+            }
+        }
+
+        return this.max.get();
+    }
+
+    /**
+     * Discards all recorded values, so that the statistics only describe the values recorded afterward.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            this.buckets.set(i, 0L);
+        }
+
+        this.count.set(0L);
+        this.sum.set(0L);
+        this.max.set(0L);
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    private static int getBucketIndex(long value) {
+        // Small values are counted exactly
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        int exponent = (Long.SIZE - 1) - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+
+        return ((exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT) + subBucket;
+    }
+
+    private static long getBucketMidpoint(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        int shift = (index / SUB_BUCKET_COUNT) - 1;
+        long lower = (long) (SUB_BUCKET_COUNT + (index % SUB_BUCKET_COUNT)) << shift;
+
+        return lower + ((1L << shift) >> 1);
+    }
+}
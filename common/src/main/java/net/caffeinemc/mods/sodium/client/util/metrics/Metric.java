@@ -0,0 +1,8 @@
+package net.caffeinemc.mods.sodium.client.util.metrics;
+
+/**
+ * A named measurement which is registered with a {@link MetricsRegistry}.
+ */
+public interface Metric {
+    String getName();
+}
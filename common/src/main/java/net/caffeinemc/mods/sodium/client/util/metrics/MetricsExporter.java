@@ -0,0 +1,149 @@
+package net.caffeinemc.mods.sodium.client.util.metrics;
+
+import net.caffeinemc.mods.sodium.client.SodiumClientMod;
+import net.caffeinemc.mods.sodium.client.services.PlatformRuntimeInformation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Periodically writes a sample of all registered metrics to a file in the game's log directory, with one JSON object
+ * per line. Every sample contains the current value of each counter and gauge, and the count, mean, median, 99th
+ * percentile and maximum of each histogram over the values recorded since the previous sample. Each histogram is
+ * reset after it has been sampled.
+ * <p>
+ * This only runs on the render thread, and samples are only taken once per interval, so the formatting and writing
+ * is kept out of the paths which record the metrics.
+ */
+public class MetricsExporter {
+    private static final long SAMPLE_INTERVAL_NANOS = 1_000_000_000L;
+
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss");
+
+    private final MetricsRegistry registry;
+    private final StringBuilder line = new StringBuilder();
+
+    private BufferedWriter writer;
+    private long startTime;
+    private long lastSampleTime;
+
+    // Set when writing fails, so that the error is only reported once per session
+    private boolean failed;
+
+    public MetricsExporter(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Writes a sample if the export is enabled and the sample interval has passed. This should be called once per
+     * frame.
+     */
+    public void tick(boolean enabled) {
+        if (!enabled || this.failed) {
+            this.close();
+            return;
+        }
+
+        long now = System.nanoTime();
+
+        if (this.writer == null) {
+            this.open(now);
+            return;
+        }
+
+        if (now - this.lastSampleTime < SAMPLE_INTERVAL_NANOS) {
+            return;
+        }
+
+        this.lastSampleTime = now;
+
+        try {
+            this.writer.write(this.formatSample(now));
+            this.writer.newLine();
+            this.writer.flush();
+        } catch (IOException e) {
+            SodiumClientMod.logger().error("Failed to write metrics, the export has been disabled", e);
+
+            this.failed = true;
+            this.close();
+        }
+    }
+
+    private void open(long now) {
+        var directory = PlatformRuntimeInformation.getInstance().getGameDirectory().resolve("logs");
+        var path = directory.resolve("sodium-metrics-%s.jsonl".formatted(LocalDateTime.now().format(FILE_NAME_FORMAT)));
+
+        try {
+            Files.createDirectories(directory);
+            this.writer = Files.newBufferedWriter(path);
+        } catch (IOException e) {
+            SodiumClientMod.logger().error("Failed to create metrics file {}, the export has been disabled", path, e);
+
+            this.failed = true;
+            return;
+        }
+
+        SodiumClientMod.logger().info("Writing metrics to {}", path);
+
+        this.startTime = now;
+        this.lastSampleTime = now;
+
+        // The first sample should only contain values from the sample interval
+        for (var metric : this.registry.getMetrics()) {
+            if (metric instanceof Histogram histogram) {
+                histogram.reset();
+            }
+        }
+    }
+
+    public void close() {
+        if (this.writer == null) {
+            return;
+        }
+
+        try {
+            this.writer.close();
+        } catch (IOException e) {
+            SodiumClientMod.logger().warn("Failed to close metrics file", e);
+        }
+
+        this.writer = null;
+    }
+
+    private String formatSample(long now) {
+        var line = this.line;
+        line.setLength(0);
+
+        line.append("{\"time\":")
+                .append(String.format(Locale.ROOT, "%.3f", (now - this.startTime) / 1_000_000_000.0));
+
+        for (var metric : this.registry.getMetrics()) {
+            var name = metric.getName();
+
+            if (metric instanceof Counter counter) {
+                appendField(line, name, counter.get());
+            } else if (metric instanceof Gauge gauge) {
+                appendField(line, name, gauge.get());
+            } else if (metric instanceof Histogram histogram) {
+                appendField(line, name + ".count", histogram.getCount());
+                appendField(line, name + ".mean", String.format(Locale.ROOT, "%.1f", histogram.getMean()));
+                appendField(line, name + ".p50", histogram.getPercentile(0.5));
+                appendField(line, name + ".p99", histogram.getPercentile(0.99));
+                appendField(line, name + ".max", histogram.getMax());
+
+                histogram.reset();
+            }
+        }
+
+        return line.append('}').toString();
+    }
+
+    private static void appendField(StringBuilder line, String name, Object value) {
+        line.append(",\"").append(name).append("\":").append(value);
+    }
+}
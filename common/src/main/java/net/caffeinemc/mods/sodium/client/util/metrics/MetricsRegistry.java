@@ -0,0 +1,57 @@
+package net.caffeinemc.mods.sodium.client.util.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Holds the metrics of the renderer by their name. Metrics are created once and then kept by the code which records
+ * them, so that recording never needs to look them up. Metrics can be read programmatically through
+ * {@link #getMetrics()}, and are written to a file by {@link MetricsExporter} when enabled.
+ * <p>
+ * Metric names are dot-separated and lowercase, starting with the part of the renderer they belong to, and end with
+ * the unit of the measured values where they have one (e.g. {@code frame.time_us}).
+ */
+public class MetricsRegistry {
+    public static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private final Map<String, Metric> metrics = new LinkedHashMap<>();
+
+    public Counter counter(String name) {
+        return this.getOrCreate(name, Counter.class, () -> new Counter(name));
+    }
+
+    public Gauge gauge(String name) {
+        return this.getOrCreate(name, Gauge.class, () -> new Gauge(name));
+    }
+
+    public Histogram histogram(String name) {
+        return this.getOrCreate(name, Histogram.class, () -> new Histogram(name));
+    }
+
+    private synchronized <T extends Metric> T getOrCreate(String name, Class<T> type, Supplier<T> factory) {
+        var metric = this.metrics.get(name);
+
+        if (metric == null) {
+            metric = factory.get();
+            this.metrics.put(name, metric);
+        } else if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException("Metric %s is already registered as a %s".formatted(name, metric.getClass().getSimpleName()));
+        }
+
+        return type.cast(metric);
+    }
+
+    /**
+     * @return The registered metrics, in the order they were registered
+     */
+    public synchronized List<Metric> getMetrics() {
+        return new ArrayList<>(this.metrics.values());
+    }
+
+    public synchronized Metric getMetric(String name) {
+        return this.metrics.get(name);
+    }
+}
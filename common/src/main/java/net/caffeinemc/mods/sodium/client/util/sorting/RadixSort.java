@@ -1,5 +1,7 @@
 package net.caffeinemc.mods.sodium.client.util.sorting;
 
+import java.util.Arrays;
+
 public class RadixSort extends AbstractSort {
     public static final int RADIX_SORT_THRESHOLD = 64;
 
@@ -9,56 +11,52 @@ public class RadixSort extends AbstractSort {
     private static final int DIGIT_COUNT = (RADIX_KEY_BITS + DIGIT_BITS - 1) / DIGIT_BITS;
     private static final int DIGIT_MASK = (1 << DIGIT_BITS) - 1;
 
+    static final int HISTOGRAM_SIZE = DIGIT_COUNT * BUCKET_COUNT;
+
     public static int[] sort(int[] keys) {
         if (keys.length <= 1) {
             return new int[keys.length];
         }
 
-        return radixSort(keys, createHistogram(keys));
+        return sort(keys, keys.length, new SortBuffers());
     }
 
-    private static int[][] createHistogram(int[] keys) {
-        var histogram = new int[DIGIT_COUNT][BUCKET_COUNT];
+    /**
+     * Sorts the first {@code length} keys in ascending order without allocating. The returned array of key indices
+     * belongs to the given buffers and is only valid until they are used for the next sort. Only the first
+     * {@code length} elements of it are part of the result.
+     */
+    public static int[] sort(int[] keys, int length, SortBuffers buffers) {
+        int[] cur = buffers.getIndices(length);
 
-        for (final int key : keys) {
-            for (int digit = 0; digit < DIGIT_COUNT; digit++) {
-                histogram[digit][extractDigit(key, digit)] += 1;
-            }
+        for (int i = 0; i < length; i++) {
+            cur[i] = i;
         }
 
-        return histogram;
-    }
-
-    private static void prefixSum(int[][] offsets) {
-        for (int digit = 0; digit < DIGIT_COUNT; digit++) {
-            final var buckets = offsets[digit];
-            var sum = 0;
-
-            for (int bucket_idx = 0; bucket_idx < BUCKET_COUNT; bucket_idx++) {
-                final var offset = sum;
-                sum += buckets[bucket_idx];
-                buckets[bucket_idx] = offset;
-            }
+        if (length <= 1) {
+            return cur;
         }
-    }
-
-    private static int[] radixSort(int[] keys, int[][] offsets) {
-        prefixSum(offsets);
 
-        final var length = keys.length;
+        final var histogram = buffers.histogram;
+        createHistogram(keys, length, histogram);
 
-        int[] cur = createIndexBuffer(length);
-        int[] next = new int[length];
+        int sortedDigits = prefixSum(histogram, length);
+        int[] next = buffers.getScratchIndices(length);
 
         for (int digit = 0; digit < DIGIT_COUNT; digit++) {
-            final var buckets = offsets[digit];
+            // all keys have the same value in this digit, so the pass wouldn't change the order
+            if ((sortedDigits & (1 << digit)) != 0) {
+                continue;
+            }
+
+            final var bucketBase = digit * BUCKET_COUNT;
 
             for (int pos = 0; pos < length; pos++) {
                 final var index = cur[pos];
-                final var bucket_idx = extractDigit(keys[index], digit);
+                final var bucket_idx = bucketBase + extractDigit(keys[index], digit);
 
-                next[buckets[bucket_idx]] = index;
-                buckets[bucket_idx] += 1;
+                next[histogram[bucket_idx]] = index;
+                histogram[bucket_idx] += 1;
             }
 
             {
@@ -72,6 +70,45 @@ public class RadixSort extends AbstractSort {
         return cur;
     }
 
+    private static void createHistogram(int[] keys, int length, int[] histogram) {
+        Arrays.fill(histogram, 0);
+
+        for (int i = 0; i < length; i++) {
+            final int key = keys[i];
+
+            for (int digit = 0; digit < DIGIT_COUNT; digit++) {
+                histogram[digit * BUCKET_COUNT + extractDigit(key, digit)] += 1;
+            }
+        }
+    }
+
+    /**
+     * Turns the bucket counts of each digit into bucket offsets.
+     *
+     * @return A bit mask of the digits in which all keys have the same value
+     */
+    private static int prefixSum(int[] offsets, int length) {
+        int sortedDigits = 0;
+
+        for (int digit = 0; digit < DIGIT_COUNT; digit++) {
+            final var bucketBase = digit * BUCKET_COUNT;
+            var sum = 0;
+
+            for (int bucket_idx = bucketBase; bucket_idx < bucketBase + BUCKET_COUNT; bucket_idx++) {
+                final var count = offsets[bucket_idx];
+
+                if (count == length) {
+                    sortedDigits |= 1 << digit;
+                }
+
+                offsets[bucket_idx] = sum;
+                sum += count;
+            }
+        }
+
+        return sortedDigits;
+    }
+
     private static int extractDigit(int key, int digit) {
         return ((key >>> (digit * DIGIT_BITS)) & DIGIT_MASK);
     }
@@ -0,0 +1,62 @@
+package net.caffeinemc.mods.sodium.client.util.sorting;
+
+/**
+ * Scratch arrays for sorting which are re-used between sorts so that sorting doesn't allocate. Each thread that sorts
+ * needs its own buffers, and arrays returned by a sort are only valid until the buffers are used for the next sort.
+ * The arrays only grow, and may be longer than the number of elements being sorted.
+ */
+public class SortBuffers {
+    final int[] histogram = new int[RadixSort.HISTOGRAM_SIZE];
+
+    private int[] keys = new int[0];
+    private long[] packedKeys = new long[0];
+    private int[] indices = new int[0];
+    private int[] scratchIndices = new int[0];
+
+    /**
+     * Returns an array of at least the given length to write the keys of a radix sort into.
+     */
+    public int[] getKeys(int length) {
+        if (this.keys.length < length) {
+            this.keys = new int[getCapacity(this.keys.length, length)];
+        }
+
+        return this.keys;
+    }
+
+    /**
+     * Returns an array of at least the given length to write keys into which are packed together with their index.
+     */
+    public long[] getPackedKeys(int length) {
+        if (this.packedKeys.length < length) {
+            this.packedKeys = new long[getCapacity(this.packedKeys.length, length)];
+        }
+
+        return this.packedKeys;
+    }
+
+    int[] getIndices(int length) {
+        if (this.indices.length < length) {
+            this.indices = new int[getCapacity(this.indices.length, length)];
+        }
+
+        return this.indices;
+    }
+
+    int[] getScratchIndices(int length) {
+        if (this.scratchIndices.length < length) {
+            this.scratchIndices = new int[getCapacity(this.scratchIndices.length, length)];
+        }
+
+        return this.scratchIndices;
+    }
+
+    private static int getCapacity(int capacity, int length) {
+        // buffers used for a single sort are allocated with the exact length
+        if (capacity == 0) {
+            return length;
+        }
+
+        return Math.max(length, capacity + (capacity >> 1));
+    }
+}
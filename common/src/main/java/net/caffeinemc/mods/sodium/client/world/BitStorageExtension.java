@@ -4,4 +4,6 @@ import net.minecraft.world.level.chunk.Palette;
 
 public interface BitStorageExtension {
     <T> void sodium$unpack(T[] out, Palette<T> palette);
+
+    void sodium$unpackIndices(char[] out);
 }
@@ -1,6 +1,7 @@
 package net.caffeinemc.mods.sodium.client.world;
 
 import it.unimi.dsi.fastutil.ints.Int2ReferenceMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
 import net.caffeinemc.mods.sodium.client.services.*;
 import net.caffeinemc.mods.sodium.client.world.biome.LevelColorCache;
 import net.caffeinemc.mods.sodium.client.world.biome.LevelBiomeSlice;
@@ -27,6 +28,7 @@ import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.chunk.DataLayer;
 import net.minecraft.world.level.chunk.LevelChunk;
 import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.Palette;
 import net.minecraft.world.level.levelgen.structure.BoundingBox;
 import net.minecraft.world.level.lighting.LevelLightEngine;
 import net.minecraft.world.level.material.FluidState;
@@ -71,6 +73,13 @@ public final class LevelSlice implements BlockAndTintGetter, RenderAttachedBlock
     // The default block state used for out-of-bounds access
     private static final BlockState EMPTY_BLOCK_STATE = Blocks.AIR.defaultBlockState();
 
+    // The palette used for empty sections, which resolves every index to the empty block state so that the indices of
+    // empty sections never need to be written
+    private static final BlockState[] EMPTY_BLOCK_PALETTE = createEmptyBlockPalette();
+
+    // The initial size of the palette arrays, which is large enough for most sections
+    private static final int INITIAL_PALETTE_SIZE = 64;
+
     // The level this slice has copied data from
     private final ClientLevel level;
 
@@ -80,8 +89,19 @@ public final class LevelSlice implements BlockAndTintGetter, RenderAttachedBlock
     // The biome blend cache
     private final LevelColorCache biomeColors;
 
-    // (Local Section -> Block States) table.
-    private final BlockState[][] blockArrays;
+    // (Local Section -> Block State Palette Indices) table.
+    private final char[][] blockIndexArrays;
+
+    // (Local Section -> Block State Palette) table.
+    private final BlockState[][] blockPaletteArrays;
+
+    // (Local Section -> Owned Block State Palette) table, which holds the arrays that can be written to. These are
+    // separate from the palettes in use, since empty sections use the shared empty palette.
+    private final BlockState[][] ownedBlockPaletteArrays;
+
+    // Scratch space for unpacking sections whose palette is too large to be indexed, such as the global palette
+    private final BlockState[] blockScratchArray;
+    private final Reference2IntOpenHashMap<BlockState> blockScratchPalette;
 
     // (Local Section -> Light Manager) table.
     @SuppressWarnings("MismatchedReadAndWriteOfArray")
@@ -105,6 +125,9 @@ public final class LevelSlice implements BlockAndTintGetter, RenderAttachedBlock
     // The volume that this WorldSlice contains
     private BoundingBox volume;
 
+    // The block state of every block in the origin section, or null if the section contains different block states
+    private @Nullable BlockState uniformBlockState;
+
     public static ChunkRenderContext prepare(Level level, SectionPos pos, ClonedChunkSectionCache cache) {
         LevelChunk chunk = level.getChunk(pos.getX(), pos.getZ());
         LevelChunkSection section = chunk.getSections()[level.getSectionIndexFromSectionY(pos.getY())];
@@ -152,7 +175,13 @@ public final class LevelSlice implements BlockAndTintGetter, RenderAttachedBlock
     public LevelSlice(ClientLevel level) {
         this.level = level;
 
-        this.blockArrays = new BlockState[SECTION_ARRAY_SIZE][SECTION_BLOCK_COUNT];
+        this.blockIndexArrays = new char[SECTION_ARRAY_SIZE][SECTION_BLOCK_COUNT];
+        this.blockPaletteArrays = new BlockState[SECTION_ARRAY_SIZE][];
+        this.ownedBlockPaletteArrays = new BlockState[SECTION_ARRAY_SIZE][INITIAL_PALETTE_SIZE];
+
+        this.blockScratchArray = new BlockState[SECTION_BLOCK_COUNT];
+        this.blockScratchPalette = new Reference2IntOpenHashMap<>();
+        this.blockScratchPalette.defaultReturnValue(-1);
         this.lightArrays = new DataLayer[SECTION_ARRAY_SIZE][LIGHT_TYPES.length];
 
         this.blockEntityArrays = new Int2ReferenceMap[SECTION_ARRAY_SIZE];
@@ -163,9 +192,7 @@ public final class LevelSlice implements BlockAndTintGetter, RenderAttachedBlock
         this.biomeSlice = new LevelBiomeSlice();
         this.biomeColors = new LevelColorCache(this.biomeSlice, Minecraft.getInstance().options.biomeBlendRadius().get());
 
-        for (BlockState[] blockArray : this.blockArrays) {
-            Arrays.fill(blockArray, EMPTY_BLOCK_STATE);
-        }
+        Arrays.fill(this.blockPaletteArrays, EMPTY_BLOCK_PALETTE);
     }
 
     public void copyData(ChunkRenderContext context) {
@@ -183,6 +210,8 @@ public final class LevelSlice implements BlockAndTintGetter, RenderAttachedBlock
             }
         }
 
+        this.uniformBlockState = this.findUniformBlockState(getLocalSectionIndex(NEIGHBOR_CHUNK_RADIUS, NEIGHBOR_CHUNK_RADIUS, NEIGHBOR_CHUNK_RADIUS));
+
         this.biomeSlice.update(this.level, context);
         this.biomeColors.update(context);
     }
@@ -192,7 +221,7 @@ public final class LevelSlice implements BlockAndTintGetter, RenderAttachedBlock
 
         Objects.requireNonNull(section, "Chunk section must be non-null");
 
-        this.unpackBlockData(this.blockArrays[sectionIndex], context, section);
+        this.unpackBlockData(sectionIndex, context, section);
 
         this.lightArrays[sectionIndex][LightLayer.BLOCK.ordinal()] = section.getLightArray(LightLayer.BLOCK);
         this.lightArrays[sectionIndex][LightLayer.SKY.ordinal()] = section.getLightArray(LightLayer.SKY);
@@ -203,35 +232,146 @@ public final class LevelSlice implements BlockAndTintGetter, RenderAttachedBlock
         this.modelMapArrays[sectionIndex] = section.getModelMap();
     }
 
-    private void unpackBlockData(BlockState[] blockArray, ChunkRenderContext context, ClonedChunkSection section) {
+    // Block states are stored as an index into a palette of the section's block states, which keeps the per-section
+    // storage small and avoids looking up every block state while unpacking. Only the blocks which are inside the
+    // volume of the slice are unpacked, which for the neighboring sections is only a thin border.
+    private void unpackBlockData(int sectionIndex, ChunkRenderContext context, ClonedChunkSection section) {
         if (section.getBlockData() == null) {
-            Arrays.fill(blockArray, EMPTY_BLOCK_STATE);
+            this.blockPaletteArrays[sectionIndex] = EMPTY_BLOCK_PALETTE;
             return;
         }
 
         var container = PalettedContainerROExtension.of(section.getBlockData());
+        var indices = this.blockIndexArrays[sectionIndex];
 
         SectionPos sectionPos = section.getPosition();
 
+        int minX = 0, minY = 0, minZ = 0;
+        int maxX = 15, maxY = 15, maxZ = 15;
+
+        Palette<BlockState> palette;
+
         if (sectionPos.equals(context.getOrigin())) {
-            container.sodium$unpack(blockArray);
+            palette = container.sodium$unpackIndices(indices);
         } else {
             var bounds = context.getVolume();
 
-            int minBlockX = Math.max(bounds.minX(), sectionPos.minBlockX());
-            int maxBlockX = Math.min(bounds.maxX(), sectionPos.maxBlockX());
+            minX = Math.max(bounds.minX(), sectionPos.minBlockX()) & 15;
+            maxX = Math.min(bounds.maxX(), sectionPos.maxBlockX()) & 15;
 
-            int minBlockY = Math.max(bounds.minY(), sectionPos.minBlockY());
-            int maxBlockY = Math.min(bounds.maxY(), sectionPos.maxBlockY());
+            minY = Math.max(bounds.minY(), sectionPos.minBlockY()) & 15;
+            maxY = Math.min(bounds.maxY(), sectionPos.maxBlockY()) & 15;
 
-            int minBlockZ = Math.max(bounds.minZ(), sectionPos.minBlockZ());
-            int maxBlockZ = Math.min(bounds.maxZ(), sectionPos.maxBlockZ());
+            minZ = Math.max(bounds.minZ(), sectionPos.minBlockZ()) & 15;
+            maxZ = Math.min(bounds.maxZ(), sectionPos.maxBlockZ()) & 15;
 
-            container.sodium$unpack(blockArray, minBlockX & 15, minBlockY & 15, minBlockZ & 15,
-                    maxBlockX & 15, maxBlockY & 15, maxBlockZ & 15);
+            palette = container.sodium$unpackIndices(indices, minX, minY, minZ, maxX, maxY, maxZ);
+        }
+
+        if (palette != null) {
+            this.copyBlockPalette(sectionIndex, palette);
+        } else {
+            this.unpackLargeBlockPalette(sectionIndex, container, minX, minY, minZ, maxX, maxY, maxZ);
         }
     }
 
+    private void copyBlockPalette(int sectionIndex, Palette<BlockState> palette) {
+        int size = palette.getSize();
+        var array = this.getOwnedBlockPalette(sectionIndex, size);
+
+        for (int paletteIndex = 0; paletteIndex < size; paletteIndex++) {
+            array[paletteIndex] = Objects.requireNonNull(palette.valueFor(paletteIndex),
+                    "Palette does not contain entry for value in storage");
+        }
+    }
+
+    // Sections using the global palette have more possible states than blocks, so a palette containing only the
+    // states which are actually used is built for them instead.
+    private void unpackLargeBlockPalette(int sectionIndex, PalettedContainerROExtension<BlockState> container,
+                                         int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        var values = this.blockScratchArray;
+        container.sodium$unpack(values, minX, minY, minZ, maxX, maxY, maxZ);
+
+        var indices = this.blockIndexArrays[sectionIndex];
+        var localPalette = this.blockScratchPalette;
+        localPalette.clear();
+
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    int localBlockIndex = getLocalBlockIndex(x, y, z);
+                    var state = values[localBlockIndex];
+
+                    int paletteIndex = localPalette.getInt(state);
+
+                    if (paletteIndex == -1) {
+                        paletteIndex = localPalette.size();
+                        localPalette.put(state, paletteIndex);
+                    }
+
+                    indices[localBlockIndex] = (char) paletteIndex;
+                }
+            }
+        }
+
+        var array = this.getOwnedBlockPalette(sectionIndex, localPalette.size());
+
+        for (var entry : localPalette.reference2IntEntrySet()) {
+            array[entry.getIntValue()] = entry.getKey();
+        }
+    }
+
+    private BlockState[] getOwnedBlockPalette(int sectionIndex, int size) {
+        var array = this.ownedBlockPaletteArrays[sectionIndex];
+
+        if (array.length < size) {
+            array = new BlockState[Math.max(size, array.length * 2)];
+            this.ownedBlockPaletteArrays[sectionIndex] = array;
+        }
+
+        this.blockPaletteArrays[sectionIndex] = array;
+
+        return array;
+    }
+
+    // The palette of a section can contain states which are no longer used by any of its blocks, so the indices have to
+    // be checked even when the palette has multiple entries. Empty sections never have their indices written.
+    private @Nullable BlockState findUniformBlockState(int sectionIndex) {
+        var palette = this.blockPaletteArrays[sectionIndex];
+
+        if (palette == EMPTY_BLOCK_PALETTE) {
+            return EMPTY_BLOCK_STATE;
+        }
+
+        var indices = this.blockIndexArrays[sectionIndex];
+        char first = indices[0];
+
+        for (int i = 1; i < SECTION_BLOCK_COUNT; i++) {
+            if (indices[i] != first) {
+                return null;
+            }
+        }
+
+        return palette[first];
+    }
+
+    /**
+     * Returns the block state of every block in the section which this slice was created for, if all of its blocks
+     * have the same state.
+     *
+     * @return The block state of the section's blocks, or null if the section contains different block states
+     */
+    public @Nullable BlockState getUniformBlockState() {
+        return this.uniformBlockState;
+    }
+
+    private static BlockState[] createEmptyBlockPalette() {
+        var palette = new BlockState[SECTION_BLOCK_COUNT];
+        Arrays.fill(palette, EMPTY_BLOCK_STATE);
+
+        return palette;
+    }
+
     public void reset() {
         // erase any pointers to resources we no longer need
         // no point in cleaning the pre-allocated arrays (such as block state storage) since we hold the
@@ -259,8 +399,10 @@ public final class LevelSlice implements BlockAndTintGetter, RenderAttachedBlock
         int relBlockY = blockY - this.originBlockY;
         int relBlockZ = blockZ - this.originBlockZ;
 
-        return this.blockArrays[getLocalSectionIndex(relBlockX >> 4, relBlockY >> 4, relBlockZ >> 4)]
-                [getLocalBlockIndex(relBlockX & 15, relBlockY & 15, relBlockZ & 15)];
+        int sectionIndex = getLocalSectionIndex(relBlockX >> 4, relBlockY >> 4, relBlockZ >> 4);
+
+        return this.blockPaletteArrays[sectionIndex]
+                [this.blockIndexArrays[sectionIndex][getLocalBlockIndex(relBlockX & 15, relBlockY & 15, relBlockZ & 15)]];
     }
 
     @Override
@@ -1,6 +1,8 @@
 package net.caffeinemc.mods.sodium.client.world;
 
+import net.minecraft.world.level.chunk.Palette;
 import net.minecraft.world.level.chunk.PalettedContainerRO;
+import org.jetbrains.annotations.Nullable;
 
 public interface PalettedContainerROExtension<T> {
     @SuppressWarnings("unchecked")
@@ -8,16 +10,29 @@ public interface PalettedContainerROExtension<T> {
         return (PalettedContainerROExtension<T>) container;
     }
 
-    static <T> PalettedContainerRO<T> clone(PalettedContainerRO<T> container) {
+    /**
+     * Returns a read-only snapshot of the container's current contents. The snapshot shares the palette and storage
+     * of the container until the container is modified, at which point the container copies them before making the
+     * modification. This makes taking a snapshot of an unchanged container nearly free.
+     */
+    static <T> PalettedContainerRO<T> snapshot(PalettedContainerRO<T> container) {
         if (container == null) {
             return null;
         }
 
-        return of(container).sodium$copy();
+        return of(container).sodium$snapshot();
     }
 
     void sodium$unpack(T[] values);
     void sodium$unpack(T[] values, int minX, int minY, int minZ, int maxX, int maxY, int maxZ);
 
-    PalettedContainerRO<T> sodium$copy();
+    /**
+     * Writes the palette index of each value into the array, and returns the palette which the indices refer to. If the
+     * palette has more entries than the container has values (such as the global palette), nothing is written and null
+     * is returned, in which case the values have to be unpacked instead.
+     */
+    @Nullable Palette<T> sodium$unpackIndices(char[] indices);
+    @Nullable Palette<T> sodium$unpackIndices(char[] indices, int minX, int minY, int minZ, int maxX, int maxY, int maxZ);
+
+    PalettedContainerRO<T> sodium$snapshot();
 }
@@ -63,7 +63,7 @@ public class ClonedChunkSection {
         if (section != null) {
             if (!section.hasOnlyAir()) {
                 if (!level.isDebug()) {
-                    blockData = PalettedContainerROExtension.clone(section.getStates());
+                    blockData = PalettedContainerROExtension.snapshot(section.getStates());
                 } else {
                     blockData = constructDebugWorldContainer(pos);
                 }
@@ -73,7 +73,7 @@ public class ClonedChunkSection {
                 }
             }
 
-            biomeData = PalettedContainerROExtension.clone(section.getBiomes());
+            biomeData = PalettedContainerROExtension.snapshot(section.getBiomes());
         }
 
         this.blockData = blockData;
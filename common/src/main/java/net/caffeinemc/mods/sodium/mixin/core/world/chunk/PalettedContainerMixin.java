@@ -2,11 +2,19 @@ package net.caffeinemc.mods.sodium.mixin.core.world.chunk;
 
 import net.caffeinemc.mods.sodium.client.world.BitStorageExtension;
 import net.caffeinemc.mods.sodium.client.world.PalettedContainerROExtension;
+import net.minecraft.core.IdMap;
+import net.minecraft.world.level.chunk.Palette;
+import net.minecraft.world.level.chunk.PaletteResize;
 import net.minecraft.world.level.chunk.PalettedContainer;
 import net.minecraft.world.level.chunk.PalettedContainerRO;
+import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 import java.util.Objects;
 
@@ -21,7 +29,12 @@ public abstract class PalettedContainerMixin<T> implements PalettedContainerROEx
     private PalettedContainer.Strategy strategy;
 
     @Shadow
-    public abstract PalettedContainer<T> copy();
+    @Final
+    private IdMap<T> registry;
+
+    // Whether the current data is also referenced by a snapshot, and must be copied before it can be modified
+    @Unique
+    private boolean sodium$isDataShared;
 
     @Override
     public void sodium$unpack(T[] values) {
@@ -65,7 +78,95 @@ public abstract class PalettedContainerMixin<T> implements PalettedContainerROEx
     }
 
     @Override
-    public PalettedContainerRO<T> sodium$copy() {
-        return this.copy();
+    public @Nullable Palette<T> sodium$unpackIndices(char[] indices) {
+        var strategy = Objects.requireNonNull(this.strategy);
+
+        if (indices.length != strategy.size()) {
+            throw new IllegalArgumentException("Array is wrong size");
+        }
+
+        var data = Objects.requireNonNull(this.data, "PalettedContainer must have data");
+        var palette = data.palette();
+
+        if (palette.getSize() > strategy.size()) {
+            return null;
+        }
+
+        var storage = (BitStorageExtension) data.storage();
+        storage.sodium$unpackIndices(indices);
+
+        return palette;
+    }
+
+    @Override
+    public @Nullable Palette<T> sodium$unpackIndices(char[] indices, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        var strategy = Objects.requireNonNull(this.strategy);
+
+        if (indices.length != strategy.size()) {
+            throw new IllegalArgumentException("Array is wrong size");
+        }
+
+        var data = Objects.requireNonNull(this.data, "PalettedContainer must have data");
+        var palette = data.palette();
+
+        if (palette.getSize() > strategy.size()) {
+            return null;
+        }
+
+        var storage = data.storage();
+
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    int localBlockIndex = strategy.getIndex(x, y, z);
+
+                    indices[localBlockIndex] = (char) storage.get(localBlockIndex);
+                }
+            }
+        }
+
+        return palette;
+    }
+
+    @Override
+    public PalettedContainerRO<T> sodium$snapshot() {
+        var data = Objects.requireNonNull(this.data, "PalettedContainer must have data");
+
+        // The container is created with a single-value palette which is immediately replaced, as this is the only
+        // constructor which doesn't need a palette or storage to be created first.
+        var snapshot = new PalettedContainer<>(this.registry, data.palette().valueFor(0), this.strategy);
+        ((PalettedContainerMixin<T>) (Object) snapshot).data = data;
+
+        this.sodium$isDataShared = true;
+
+        return snapshot;
+    }
+
+    @Inject(method = {
+            "getAndSet(IIILjava/lang/Object;)Ljava/lang/Object;",
+            "getAndSetUnchecked(IIILjava/lang/Object;)Ljava/lang/Object;",
+            "set(IIILjava/lang/Object;)V",
+            "read(Lnet/minecraft/network/FriendlyByteBuf;)V"
+    }, at = @At("HEAD"))
+    private void beforeModify(CallbackInfo ci) {
+        if (this.sodium$isDataShared) {
+            this.sodium$unshareData();
+        }
+    }
+
+    /**
+     * Replaces the data of this container with a private copy, so that the snapshots which share the current data
+     * are never modified. The copy is created the same way as when the palette is resized, so that its palette
+     * notifies this container (and not the snapshot) when it needs to grow.
+     */
+    @Unique
+    private void sodium$unshareData() {
+        var prev = this.data;
+        var next = prev.configuration()
+                .createData(this.registry, (PaletteResize<T>) (Object) this, this.strategy.size());
+        next.copyFrom(prev.palette(), prev.storage());
+
+        this.data = next;
+        this.sodium$isDataShared = false;
     }
 }
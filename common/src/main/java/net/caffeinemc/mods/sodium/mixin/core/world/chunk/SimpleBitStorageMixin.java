@@ -49,4 +49,22 @@ public class SimpleBitStorageMixin implements BitStorageExtension {
             }
         }
     }
+
+    @Override
+    public void sodium$unpackIndices(char[] out) {
+        int idx = 0;
+
+        for (long word : this.data) {
+            long l = word;
+
+            for (int j = 0; j < this.valuesPerLong; ++j) {
+                out[idx] = (char) (l & this.mask);
+                l >>= this.bits;
+
+                if (++idx >= this.size) {
+                    return;
+                }
+            }
+        }
+    }
 }
@@ -25,4 +25,13 @@ public class ZeroBitStorageMixin implements BitStorageExtension {
         var defaultValue = Objects.requireNonNull(palette.valueFor(0), "Palette must have default entry");
         Arrays.fill(out, defaultValue);
     }
+
+    @Override
+    public void sodium$unpackIndices(char[] out) {
+        if (this.size != out.length) {
+            throw new IllegalArgumentException("Array has mismatched size");
+        }
+
+        Arrays.fill(out, (char) 0);
+    }
 }
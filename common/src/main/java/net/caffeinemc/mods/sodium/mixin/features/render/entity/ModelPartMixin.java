@@ -1,5 +1,7 @@
 package net.caffeinemc.mods.sodium.mixin.features.render.entity;
 
+import com.llamalad7.mixinextras.injector.wrapoperation.Operation;
+import com.llamalad7.mixinextras.injector.wrapoperation.WrapOperation;
 import net.caffeinemc.mods.sodium.client.render.immediate.model.EntityRenderer;
 import net.caffeinemc.mods.sodium.api.math.MatrixHelper;
 import net.minecraft.client.model.geom.ModelPart;
@@ -51,4 +53,37 @@ public class ModelPartMixin {
             matrixStack.scale(this.xScale, this.yScale, this.zScale);
         }
     }
+
+    // Collect the cuboids of the part and all of its children, so that they are pushed to the buffer at once
+    @Inject(method = "render(Lcom/mojang/blaze3d/vertex/PoseStack;Lcom/mojang/blaze3d/vertex/VertexConsumer;III)V", at = @At("HEAD"))
+    private void onRenderBegin(PoseStack poseStack, VertexConsumer buffer, int light, int overlay, int color, CallbackInfo ci) {
+        EntityRenderer.beginBatch();
+    }
+
+    @Inject(method = "render(Lcom/mojang/blaze3d/vertex/PoseStack;Lcom/mojang/blaze3d/vertex/VertexConsumer;III)V", at = @At("RETURN"))
+    private void onRenderEnd(PoseStack poseStack, VertexConsumer buffer, int light, int overlay, int color, CallbackInfo ci) {
+        EntityRenderer.endBatch();
+    }
+
+    // If the part or one of its children fails to render, the batches opened for the model are never closed, and the
+    // cuboids rendered afterward would be batched forever, so the batches are dropped before the exception propagates
+    @WrapOperation(method = "render(Lcom/mojang/blaze3d/vertex/PoseStack;Lcom/mojang/blaze3d/vertex/VertexConsumer;III)V", at = @At(value = "INVOKE", target = "Lnet/minecraft/client/model/geom/ModelPart;compile(Lcom/mojang/blaze3d/vertex/PoseStack$Pose;Lcom/mojang/blaze3d/vertex/VertexConsumer;III)V"))
+    private void onRenderCubes(ModelPart part, PoseStack.Pose pose, VertexConsumer buffer, int light, int overlay, int color, Operation<Void> original) {
+        try {
+            original.call(part, pose, buffer, light, overlay, color);
+        } catch (Throwable t) {
+            EntityRenderer.abortBatch();
+            throw t;
+        }
+    }
+
+    @WrapOperation(method = "render(Lcom/mojang/blaze3d/vertex/PoseStack;Lcom/mojang/blaze3d/vertex/VertexConsumer;III)V", at = @At(value = "INVOKE", target = "Lnet/minecraft/client/model/geom/ModelPart;render(Lcom/mojang/blaze3d/vertex/PoseStack;Lcom/mojang/blaze3d/vertex/VertexConsumer;III)V"))
+    private void onRenderChild(ModelPart child, PoseStack poseStack, VertexConsumer buffer, int light, int overlay, int color, Operation<Void> original) {
+        try {
+            original.call(child, poseStack, buffer, light, overlay, color);
+        } catch (Throwable t) {
+            EntityRenderer.abortBatch();
+            throw t;
+        }
+    }
 }
@@ -1,5 +1,7 @@
 const uint MATERIAL_USE_MIP_OFFSET = 0u;
 const uint MATERIAL_ALPHA_CUTOFF_OFFSET = 1u;
+const uint MATERIAL_TILED_OFFSET = 3u;
+const uint MATERIAL_TILE_AXES_OFFSET = 4u;
 
 const float[4] ALPHA_CUTOFF = float[4](0.0, 0.1, 0.1, 1.0);
 
@@ -9,4 +11,14 @@ float _material_mip_bias(uint material) {
 
 float _material_alpha_cutoff(uint material) {
     return ALPHA_CUTOFF[(material >> MATERIAL_ALPHA_CUTOFF_OFFSET) & 3u];
+}
+
+bool _material_is_tiled(uint material) {
+    return ((material >> MATERIAL_TILED_OFFSET) & 1u) != 0u;
+}
+
+// Combines the sprite size and directions of a tiled quad (bits 0-7) with the axes it is tiled along (bits 8-11), and
+// sets bit 12 so that the parameters are never zero
+uint _material_tile_params(uint material, uint tile) {
+    return (tile & 0xFFu) | (((material >> MATERIAL_TILE_AXES_OFFSET) & 0xFu) << 8u) | (1u << 12u);
 }
\ No newline at end of file
@@ -16,6 +16,12 @@ uint _draw_id;
 // The material bits for the primitive
 uint _material_params;
 
+// The sprite size and tiling directions of the vertex, which are only meaningful for tiled quads
+uint _vert_tile_params;
+
+// The minimum texture coordinate of the sprite, which is only meaningful for tiled quads
+vec2 _vert_tile_origin;
+
 #ifdef USE_VERTEX_COMPRESSION
 const uint POSITION_BITS        = 20u;
 const uint POSITION_MAX_COORD   = 1u << POSITION_BITS;
@@ -52,6 +58,13 @@ vec2 _get_texcoord_bias() {
     return mix(vec2(-TEXTURE_GROW_FACTOR), vec2(TEXTURE_GROW_FACTOR), bvec2(a_TexCoord >> TEXTURE_BITS));
 }
 
+vec2 _get_tile_origin() {
+    // Every vertex stores the origin, which is at the center of the texture region, so it was encoded with a bias of
+    // one unit towards the lower coordinates. This must match the bias which CompactChunkVertex.encodeTexture applies
+    // to coordinates that are equal to the center.
+    return vec2((a_TexCoord + 1u) & TEXTURE_MAX_VALUE) / float(TEXTURE_MAX_COORD);
+}
+
 void _vert_init() {
     _vert_position = (_deinterleave_u20x3(a_Position) * VERTEX_SCALE) + VERTEX_OFFSET;
     _vert_color = a_Color;
@@ -61,6 +74,9 @@ void _vert_init() {
 
     _material_params = a_LightAndData[2];
     _draw_id = a_LightAndData[3];
+
+    _vert_tile_params = uint(a_Color.a * 255.0 + 0.5);
+    _vert_tile_origin = _get_tile_origin();
 }
 
 #else
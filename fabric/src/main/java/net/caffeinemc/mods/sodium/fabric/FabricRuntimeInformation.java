@@ -2,8 +2,10 @@ package net.caffeinemc.mods.sodium.fabric;
 
 import net.caffeinemc.mods.sodium.client.services.PlatformRuntimeInformation;
 import net.fabricmc.loader.api.FabricLoader;
+import net.fabricmc.loader.api.ModContainer;
 
 import java.nio.file.Path;
+import java.util.List;
 
 public class FabricRuntimeInformation implements PlatformRuntimeInformation {
     @Override
@@ -36,6 +38,14 @@ public class FabricRuntimeInformation implements PlatformRuntimeInformation {
         return FabricLoader.getInstance().isModLoaded(modId);
     }
 
+    @Override
+    public List<String> getLoadedModVersions() {
+        return FabricLoader.getInstance().getAllMods().stream()
+                .map(ModContainer::getMetadata)
+                .map(metadata -> metadata.getId() + "@" + metadata.getVersion().getFriendlyString())
+                .toList();
+    }
+
     @Override
     public boolean usesAlphaMultiplication() {
         return false;
@@ -1,5 +1,6 @@
 package net.caffeinemc.mods.sodium.mixin.features.model;
 
+import net.caffeinemc.mods.sodium.client.model.WeightedBakedModelExtension;
 import net.caffeinemc.mods.sodium.client.util.WeightedRandomListExtension;
 import net.minecraft.client.renderer.block.model.BakedQuad;
 import net.minecraft.client.resources.model.BakedModel;
@@ -19,7 +20,7 @@ import java.util.Collections;
 import java.util.List;
 
 @Mixin(WeightedBakedModel.class)
-public class WeightedBakedModelMixin {
+public class WeightedBakedModelMixin implements WeightedBakedModelExtension {
     @Shadow
     @Final
     private SimpleWeightedRandomList<BakedModel> list;
@@ -55,4 +56,16 @@ public class WeightedBakedModelMixin {
 
         return ChunkRenderTypeSet.none();
     }
+
+    @Override
+    public @Nullable BakedModel sodium$getVariant(RandomSource random) {
+        WeightedEntry.Wrapper<BakedModel> model = ((WeightedRandomListExtension<WeightedEntry.Wrapper<BakedModel>>) list).sodium$getQuick(random);
+
+        return model != null ? model.data() : null;
+    }
+
+    @Override
+    public List<WeightedEntry.Wrapper<BakedModel>> sodium$getVariants() {
+        return this.list.unwrap();
+    }
 }
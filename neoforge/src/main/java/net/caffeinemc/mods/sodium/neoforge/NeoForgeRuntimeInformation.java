@@ -6,6 +6,7 @@ import net.neoforged.fml.loading.FMLPaths;
 import net.neoforged.fml.loading.LoadingModList;
 
 import java.nio.file.Path;
+import java.util.List;
 
 public class NeoForgeRuntimeInformation implements PlatformRuntimeInformation {
     @Override
@@ -38,6 +39,13 @@ public class NeoForgeRuntimeInformation implements PlatformRuntimeInformation {
         return LoadingModList.get().getModFileById(modId) != null;
     }
 
+    @Override
+    public List<String> getLoadedModVersions() {
+        return LoadingModList.get().getMods().stream()
+                .map(mod -> mod.getModId() + "@" + mod.getVersion())
+                .toList();
+    }
+
     @Override
     public boolean usesAlphaMultiplication() {
         return true;
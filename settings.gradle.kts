@@ -11,4 +11,5 @@ pluginManagement {
 
 include("common")
 include("fabric")
-include("neoforge")
\ No newline at end of file
+include("neoforge")
+include("benchmark")